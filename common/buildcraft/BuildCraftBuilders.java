@@ -47,6 +47,7 @@ import buildcraft.api.library.LibraryAPI;
 import buildcraft.api.statements.StatementManager;
 import buildcraft.builders.*;
 import buildcraft.builders.blueprints.RealBlueprintDeployer;
+import buildcraft.builders.command.SubCommandBlueprints;
 import buildcraft.builders.schematics.*;
 import buildcraft.builders.statements.BuildersActionProvider;
 import buildcraft.core.*;
@@ -243,6 +244,8 @@ public class BuildCraftBuilders extends BuildCraftMod {
         blueprintItem.setUnlocalizedName("blueprintItem");
         BCRegistry.INSTANCE.registerItem(blueprintItem, false);
 
+        BuildCraftCore.commandBuildcraft.addChildCommand(new SubCommandBlueprints());
+
         quarryBlock = (BlockQuarry) CompatHooks.INSTANCE.getBlock(BlockQuarry.class);
         BCRegistry.INSTANCE.registerBlock(quarryBlock.setUnlocalizedName("quarryBlock"), false);
 
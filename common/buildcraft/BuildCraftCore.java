@@ -37,6 +37,7 @@ import net.minecraftforge.common.IPlantable;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.config.Configuration;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fluids.BlockFluidBase;
 import net.minecraftforge.fml.client.event.ConfigChangedEvent;
@@ -76,12 +77,15 @@ import buildcraft.core.builders.patterns.*;
 import buildcraft.core.builders.schematics.SchematicIgnore;
 import buildcraft.core.client.CoreIconProvider;
 import buildcraft.core.command.SubCommandDeop;
+import buildcraft.core.command.SubCommandNet;
 import buildcraft.core.command.SubCommandOp;
+import buildcraft.core.command.SubCommandProfile;
 import buildcraft.core.config.ConfigManager;
 import buildcraft.core.crops.CropHandlerPlantable;
 import buildcraft.core.crops.CropHandlerReeds;
 import buildcraft.core.lib.DebuggingTools;
 import buildcraft.core.lib.EntityResizableCuboid;
+import buildcraft.core.lib.TileBuffer;
 import buildcraft.core.lib.block.IAdditionalDataTile;
 import buildcraft.core.lib.commands.RootCommand;
 import buildcraft.core.lib.config.FileConfigManager;
@@ -90,8 +94,12 @@ import buildcraft.core.lib.engines.TileEngineBase;
 import buildcraft.core.lib.fluids.BucketHandler;
 import buildcraft.core.lib.items.ItemBuildCraft;
 import buildcraft.core.lib.network.base.ChannelHandler;
+import buildcraft.core.lib.network.base.NetworkStatExporter;
 import buildcraft.core.lib.network.base.PacketHandler;
+import buildcraft.core.lib.network.base.PacketPipeline;
+import buildcraft.core.lib.network.command.CommandIds;
 import buildcraft.core.lib.utils.ColorUtils;
+import buildcraft.core.lib.utils.TickProfiler;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.core.lib.utils.XorShift128Random;
 import buildcraft.core.list.*;
@@ -212,6 +220,8 @@ public class BuildCraftCore extends BuildCraftMod {
         commandBuildcraft.addAlias("bc");
         commandBuildcraft.addChildCommand(new SubCommandDeop());
         commandBuildcraft.addChildCommand(new SubCommandOp());
+        commandBuildcraft.addChildCommand(new SubCommandNet());
+        commandBuildcraft.addChildCommand(new SubCommandProfile());
 
         BuildcraftRecipeRegistry.assemblyTable = AssemblyRecipeManager.INSTANCE;
         BuildcraftRecipeRegistry.integrationTable = IntegrationRecipeManager.INSTANCE;
@@ -276,6 +286,12 @@ public class BuildCraftCore extends BuildCraftMod {
 
         mainConfigManager.register("debug.network.stats", false, "Should all network packets be tracked for statistical purposes?",
                 ConfigManager.RestartRequirement.NONE);
+        mainConfigManager.register("debug.network.statsExportInterval", 0,
+                "How often, in seconds, should network stats be added to " + NetworkStatExporter.FILE_NAME + "? 0 to disable.",
+                ConfigManager.RestartRequirement.NONE);
+        mainConfigManager.register("debug.verifyTileBuffers", false,
+                "Should every cached neighbour lookup be checked against the world? Mistakes are logged. This is slow!",
+                ConfigManager.RestartRequirement.NONE);
 
         reloadConfig(ConfigManager.RestartRequirement.GAME);
 
@@ -424,6 +440,10 @@ public class BuildCraftCore extends BuildCraftMod {
         MinecraftForge.EVENT_BUS.register(TabletManagerClient.INSTANCE);
         MinecraftForge.EVENT_BUS.register(TabletManagerServer.INSTANCE);
         MinecraftForge.EVENT_BUS.register(TickHandlerCore.INSTANCE);
+        MinecraftForge.EVENT_BUS.register(PacketPipeline.INSTANCE);
+        MinecraftForge.EVENT_BUS.register(CommandIds.INSTANCE);
+        MinecraftForge.EVENT_BUS.register(NetworkStatExporter.INSTANCE);
+        MinecraftForge.EVENT_BUS.register(TickProfiler.INSTANCE);
 
         TabletAPI.registerProgram(new TabletProgramMenuFactory());
 
@@ -586,6 +606,8 @@ public class BuildCraftCore extends BuildCraftMod {
             BuildingSlotMapIterator.MAX_PER_ITEM = builderMaxPerItemFactor;
 
             ChannelHandler.setRecordStats(mainConfigManager.get("debug.network.stats").getBoolean());
+            NetworkStatExporter.exportInterval = mainConfigManager.get("debug.network.statsExportInterval").getInt();
+            TileBuffer.verifyCache = mainConfigManager.get("debug.verifyTileBuffers").getBoolean();
 
             if (mainConfiguration.hasChanged()) {
                 mainConfiguration.save();
@@ -652,6 +674,16 @@ public class BuildCraftCore extends BuildCraftMod {
         }
     }
 
+    @SubscribeEvent
+    public void chunkLoad(ChunkEvent.Load event) {
+        TileBuffer.onChunkChange(event.world);
+    }
+
+    @SubscribeEvent
+    public void chunkUnload(ChunkEvent.Unload event) {
+        TileBuffer.onChunkChange(event.world);
+    }
+
     // 1.7.10 migration
     @Mod.EventHandler
     public void remap(FMLMissingMappingsEvent event) {
@@ -6,8 +6,6 @@ package buildcraft;
 
 import java.util.EnumMap;
 import java.util.Map;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import com.google.common.collect.Maps;
 
@@ -30,129 +28,39 @@ import buildcraft.api.core.IBuildCraftMod;
 import buildcraft.core.DefaultProps;
 import buildcraft.core.lib.network.base.Packet;
 import buildcraft.core.lib.network.base.PacketHandler;
+import buildcraft.core.lib.network.base.PacketPipeline;
+import buildcraft.core.lib.network.command.CommandIds;
+import buildcraft.core.lib.network.command.PacketCommand;
 import buildcraft.core.lib.utils.Utils;
 
 public class BuildCraftMod implements IBuildCraftMod {
-    private static final Executor packetSender;
-
     public EnumMap<Side, FMLEmbeddedChannel> channels;
     protected Map<String, Property> options = Maps.newHashMap();
 
-    abstract class SendRequest implements Runnable {
-        final Packet packet;
-        final BuildCraftMod source;
-
-        SendRequest(Packet packet) {
-            this.packet = packet;
-            this.source = BuildCraftMod.this;
-            if (packet.tempWorld == null) {
-                NullPointerException npe = new NullPointerException("The packet's world was null! Cannot send this!");
-                BCLog.logger.fatal("// Blame AlexIIL", npe);
-                throw npe;
-            }
-            if (packet.dimensionId == PacketHandler.INVALID_DIM_ID) {
-                IllegalArgumentException iae = new IllegalArgumentException("The packet had an invalid dimension ID! Cannot send this!");
-                BCLog.logger.fatal("// Blame AlexIIL", iae);
-                throw iae;
-            }
-        }
-
-        @Override
-        public final void run() {
-            try {
-                FMLEmbeddedChannel channel = source.channels.get(Side.SERVER);
-                editAttributes(channel);
-                channel.writeOutbound(packet);
-            } catch (Throwable t) {
-                t.printStackTrace();
-            }
-        }
-
-        abstract void editAttributes(FMLEmbeddedChannel channel);
-    }
-
-    class PlayerSendRequest extends SendRequest {
-        EntityPlayer player;
-
-        PlayerSendRequest(Packet packet, EntityPlayer player) {
-            super(packet);
-            this.player = player;
-        }
-
-        @Override
-        void editAttributes(FMLEmbeddedChannel channel) {
-            channel.attr(FMLOutboundHandler.FML_MESSAGETARGET).set(OutboundTarget.PLAYER);
-            channel.attr(FMLOutboundHandler.FML_MESSAGETARGETARGS).set(player);
-        }
-    }
-
-    class EntitySendRequest extends LocationSendRequest {
-        Entity entity;
-
-        EntitySendRequest(Packet packet, Entity entity, int maxDistance) {
-            super(packet, entity.worldObj.provider.getDimensionId(), Utils.getVec(entity), maxDistance);
-            this.entity = entity;
-        }
-    }
-
-    class WorldSendRequest extends SendRequest {
-        final int dimensionId;
-
-        WorldSendRequest(Packet packet, int dimensionId) {
-            super(packet);
-            this.dimensionId = dimensionId;
-        }
-
-        @Override
-        void editAttributes(FMLEmbeddedChannel channel) {
-            channel.attr(FMLOutboundHandler.FML_MESSAGETARGET).set(OutboundTarget.DIMENSION);
-            channel.attr(FMLOutboundHandler.FML_MESSAGETARGETARGS).set(dimensionId);
-        }
-    }
-
-    class LocationSendRequest extends SendRequest {
-        final int dimensionId;
-        final int maxDistance;
-        final Vec3 pos;
-
-        LocationSendRequest(Packet packet, int dimensionId, Vec3 pos, int distance) {
-            super(packet);
-            this.dimensionId = dimensionId;
-            this.pos = pos;
-            this.maxDistance = distance * distance;
-        }
-
-        @Override
-        void editAttributes(FMLEmbeddedChannel channel) {
-            TargetPoint point = new TargetPoint(dimensionId, pos.xCoord, pos.yCoord, pos.zCoord, maxDistance);
-            channel.attr(FMLOutboundHandler.FML_MESSAGETARGET).set(OutboundTarget.ALLAROUNDPOINT);
-            channel.attr(FMLOutboundHandler.FML_MESSAGETARGETARGS).set(point);
+    private void addSendRequest(Packet packet, OutboundTarget target, Object args) {
+        if (packet.tempWorld == null) {
+            NullPointerException npe = new NullPointerException("The packet's world was null! Cannot send this!");
+            BCLog.logger.fatal("// Blame AlexIIL", npe);
+            throw npe;
         }
-    }
-
-    class AllSendRequest extends SendRequest {
-        AllSendRequest(Packet packet) {
-            super(packet);
+        if (packet.dimensionId == PacketHandler.INVALID_DIM_ID) {
+            IllegalArgumentException iae = new IllegalArgumentException("The packet had an invalid dimension ID! Cannot send this!");
+            BCLog.logger.fatal("// Blame AlexIIL", iae);
+            throw iae;
         }
-
-        @Override
-        void editAttributes(FMLEmbeddedChannel channel) {
-            channel.attr(FMLOutboundHandler.FML_MESSAGETARGET).set(OutboundTarget.ALL);
+        if (packet instanceof PacketCommand) {
+            CommandIds.INSTANCE.intern(channels.get(Side.SERVER), ((PacketCommand) packet).command, packet.dimensionId);
         }
+        PacketPipeline.INSTANCE.queue(channels.get(Side.SERVER), packet, target, args);
     }
 
-    static {
-        // Swap them when debugging
-        packetSender = Executors.newSingleThreadExecutor();
-        // packetSender = ImmediateExecutor.INSTANCE;
-    }
-
-    private static void addSendRequest(SendRequest request) {
-        packetSender.execute(request);
+    public void sendToPlayers(Packet packet, World world, BlockPos pos, int maxDistance) {
+        sendToPoint(packet, world.provider.getDimensionId(), Utils.convertMiddle(pos), maxDistance);
     }
 
-    public void sendToPlayers(Packet packet, World world, BlockPos pos, int maxDistance) {
-        addSendRequest(new LocationSendRequest(packet, world.provider.getDimensionId(), Utils.convertMiddle(pos), maxDistance));
+    private void sendToPoint(Packet packet, int dimensionId, Vec3 pos, int distance) {
+        TargetPoint point = new TargetPoint(dimensionId, pos.xCoord, pos.yCoord, pos.zCoord, distance * distance);
+        addSendRequest(packet, OutboundTarget.ALLAROUNDPOINT, point);
     }
 
     public void sendToPlayersNear(Packet packet, TileEntity tile, int maxDistance) {
@@ -164,19 +72,19 @@ public class BuildCraftMod implements IBuildCraftMod {
     }
 
     public void sendToWorld(Packet packet, World world) {
-        addSendRequest(new WorldSendRequest(packet, world.provider.getDimensionId()));
+        addSendRequest(packet, OutboundTarget.DIMENSION, world.provider.getDimensionId());
     }
 
     public void sendToEntity(Packet packet, Entity entity) {
-        addSendRequest(new EntitySendRequest(packet, entity, DefaultProps.NETWORK_UPDATE_RANGE));
+        sendToPoint(packet, entity.worldObj.provider.getDimensionId(), Utils.getVec(entity), DefaultProps.NETWORK_UPDATE_RANGE);
     }
 
     public void sendToPlayer(EntityPlayer player, Packet packet) {
-        addSendRequest(new PlayerSendRequest(packet, player));
+        addSendRequest(packet, OutboundTarget.PLAYER, player);
     }
 
     public void sendToAll(Packet packet) {
-        addSendRequest(new AllSendRequest(packet));
+        addSendRequest(packet, OutboundTarget.ALL, null);
     }
 
     public void sendToServer(Packet packet) {
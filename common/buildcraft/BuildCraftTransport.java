@@ -21,6 +21,7 @@ import net.minecraftforge.client.event.ModelBakeEvent;
 import net.minecraftforge.client.event.TextureStitchEvent;
 import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.client.event.ConfigChangedEvent;
 import net.minecraftforge.fml.common.Loader;
 import net.minecraftforge.fml.common.Mod;
@@ -28,6 +29,7 @@ import net.minecraftforge.fml.common.event.*;
 import net.minecraftforge.fml.common.event.FMLInterModComms.IMCEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.network.FMLNetworkEvent.ClientDisconnectionFromServerEvent;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.common.registry.GameRegistry;
 import net.minecraftforge.fml.relauncher.Side;
@@ -61,6 +63,7 @@ import buildcraft.transport.*;
 import buildcraft.transport.block.BlockPipe;
 import buildcraft.transport.client.model.*;
 import buildcraft.transport.client.render.PipeTransportRendererFluids;
+import buildcraft.transport.command.SubCommandPipes;
 import buildcraft.transport.gates.*;
 import buildcraft.transport.gates.GateDefinition.GateLogic;
 import buildcraft.transport.gates.GateDefinition.GateMaterial;
@@ -170,6 +173,12 @@ public class BuildCraftTransport extends BuildCraftMod {
     public static float gateCostMultiplier = 1.0F;
 
     public static PipeExtensionListener pipeExtensionListener;
+    public static TravelerSyncBatcher travelerSyncBatcher;
+    public static PowerSyncBatcher powerSyncBatcher;
+    public static PipeHibernationManager pipeHibernationManager;
+    public static PipeSegmentManager pipeSegmentManager;
+    public static PipeNetworkManager<PowerNetwork> powerNetworkManager;
+    public static PipeNetworkManager<FluidNetwork> fluidNetworkManager;
 
     private static LinkedList<PipeRecipe> pipeRecipes = new LinkedList<>();
     private static ChannelHandler transportChannelHandler;
@@ -193,14 +202,33 @@ public class BuildCraftTransport extends BuildCraftMod {
             new BCCreativeTab("gates");
         }
 
+        BuildCraftCore.commandBuildcraft.addChildCommand(new SubCommandPipes());
+
         try {
             BuildCraftCore.mainConfigManager.register("experimental.kinesisLossMode", "lossless",
                     "Allowed values: lossless, absolute, percentage. Defaults to lossless.", ConfigManager.RestartRequirement.WORLD);
             BuildCraftCore.mainConfigManager.register("experimental.kinesisCanExplode", false,
                     "Can kinesis pipes explode when over their RF/t rating?", ConfigManager.RestartRequirement.NONE);
+            BuildCraftCore.mainConfigManager.register("experimental.kinesisNetwork", false,
+                    "Should kinesis pipes move power through their whole network every tick, rather than one pipe per tick? Reduces server load and delay.",
+                    ConfigManager.RestartRequirement.WORLD);
+            BuildCraftCore.mainConfigManager.register("experimental.fluidNetwork", false,
+                    "Should connected fluid pipes act as a single tank, rather than moving fluid from pipe to pipe? Reduces server load for long pipe lines.",
+                    ConfigManager.RestartRequirement.WORLD);
+            BuildCraftCore.mainConfigManager.register("experimental.itemProgressMotion", false,
+                    "Should items in pipes move by a single progress value rather than a position? Reduces server load.",
+                    ConfigManager.RestartRequirement.WORLD);
+            BuildCraftCore.mainConfigManager.register("experimental.pipeHibernation", false,
+                    "Should pipes with nothing to do stop ticking until something happens to them? Reduces server load.",
+                    ConfigManager.RestartRequirement.WORLD);
+            BuildCraftCore.mainConfigManager.register("experimental.pipeSegments", false,
+                    "Should items skip through long straight runs of plain item pipes in one step? Reduces server load.",
+                    ConfigManager.RestartRequirement.WORLD);
 
             BuildCraftCore.mainConfigManager.register("general.pipes.hardness", DefaultProps.PIPES_DURABILITY, "How hard to break should a pipe be?",
                     ConfigManager.RestartRequirement.NONE);
+            BuildCraftCore.mainConfigManager.register("general.pipes.itemRoutingCache", true,
+                    "Should item pipes remember where they sent similar items? Reduces server load.", ConfigManager.RestartRequirement.WORLD);
             BuildCraftCore.mainConfigManager.register("general.pipes.baseFluidRate", DefaultProps.PIPES_FLUIDS_BASE_FLOW_RATE,
                     "What should the base flow rate of a fluid pipe be?", ConfigManager.RestartRequirement.GAME).setMinValue(1).setMaxValue(40);
             BuildCraftCore.mainConfigManager.register("debug.printFacadeList", false, "Print a list of all registered facades.",
@@ -383,11 +411,26 @@ public class BuildCraftTransport extends BuildCraftMod {
         transportChannelHandler = new ChannelHandler();
         MinecraftForge.EVENT_BUS.register(this);
 
+        travelerSyncBatcher = new TravelerSyncBatcher();
+        MinecraftForge.EVENT_BUS.register(travelerSyncBatcher);
+        powerSyncBatcher = new PowerSyncBatcher();
+        MinecraftForge.EVENT_BUS.register(powerSyncBatcher);
+        pipeHibernationManager = new PipeHibernationManager();
+        MinecraftForge.EVENT_BUS.register(pipeHibernationManager);
+        pipeSegmentManager = new PipeSegmentManager();
+        MinecraftForge.EVENT_BUS.register(pipeSegmentManager);
+        powerNetworkManager = new PipeNetworkManager<>();
+        MinecraftForge.EVENT_BUS.register(powerNetworkManager);
+        fluidNetworkManager = new PipeNetworkManager<>();
+        MinecraftForge.EVENT_BUS.register(fluidNetworkManager);
+
         transportChannelHandler.registerPacketType(PacketFluidUpdate.class);
         transportChannelHandler.registerPacketType(PacketPipeTransportItemStack.class);
         transportChannelHandler.registerPacketType(PacketPipeTransportItemStackRequest.class);
         transportChannelHandler.registerPacketType(PacketPipeTransportTraveler.class);
+        transportChannelHandler.registerPacketType(PacketPipeTransportTravelerBatch.class);
         transportChannelHandler.registerPacketType(PacketPowerUpdate.class);
+        transportChannelHandler.registerPacketType(PacketPowerUpdateBatch.class);
 
         channels = NetworkRegistry.INSTANCE.newChannel(DefaultProps.NET_CHANNEL_NAME + "-TRANSPORT", transportChannelHandler, new PacketHandler());
 
@@ -533,6 +576,13 @@ public class BuildCraftTransport extends BuildCraftMod {
                 }
             }
 
+            PipeTransportItems.progressMotion = BuildCraftCore.mainConfigManager.get("experimental.itemProgressMotion").getBoolean();
+            PipeHibernationManager.enabled = BuildCraftCore.mainConfigManager.get("experimental.pipeHibernation").getBoolean();
+            PipeSegmentManager.enabled = BuildCraftCore.mainConfigManager.get("experimental.pipeSegments").getBoolean();
+            PipeTransportPower.networkMode = BuildCraftCore.mainConfigManager.get("experimental.kinesisNetwork").getBoolean();
+            PipeTransportFluids.networkMode = BuildCraftCore.mainConfigManager.get("experimental.fluidNetwork").getBoolean();
+            PipeTransportItems.routingCacheEnabled = BuildCraftCore.mainConfigManager.get("general.pipes.itemRoutingCache").getBoolean();
+
             reloadConfig(ConfigManager.RestartRequirement.NONE);
         } else {
             PipeTransportPower.canExplode = BuildCraftCore.mainConfigManager.get("experimental.kinesisCanExplode").getBoolean();
@@ -544,6 +594,20 @@ public class BuildCraftTransport extends BuildCraftMod {
         }
     }
 
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        if (event.world.isRemote) {
+            // Item ids are only unique within a single world on the client
+            TravelingItem.clientCache.clear();
+        }
+    }
+
+    @SubscribeEvent
+    public void onClientDisconnect(ClientDisconnectionFromServerEvent event) {
+        // The next server will have its own dictionary for this player
+        TravelerStackDictionary.clearClient();
+    }
+
     @SubscribeEvent
     public void onConfigChanged(ConfigChangedEvent.OnConfigChangedEvent event) {
         if ("BuildCraft|Core".equals(event.modID)) {
@@ -127,7 +127,6 @@ public abstract class ItemBlueprint extends ItemBuildCraft implements IBlueprint
             return null;
         }
 
-        NBTTagCompound nbt = BuildCraftBuilders.serverDB.load(id);
         BlueprintBase base;
 
         if (((IBlueprintItem) stack.getItem()).getType(stack) == EnumBlueprintType.TEMPLATE) {
@@ -135,7 +134,10 @@ public abstract class ItemBlueprint extends ItemBuildCraft implements IBlueprint
         } else {
             base = new Blueprint();
         }
-        base.readFromNBT(nbt);
+        base = BuildCraftBuilders.serverDB.loadBlueprint(id, base);
+        if (base == null) {
+            return null;
+        }
         base.id = id;
         return base;
     }
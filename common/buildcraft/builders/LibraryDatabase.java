@@ -5,12 +5,17 @@
 package buildcraft.builders;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 import net.minecraft.nbt.NBTTagCompound;
 
 import buildcraft.api.core.BCLog;
 import buildcraft.api.library.LibraryAPI;
+import buildcraft.core.blueprints.BlueprintBase;
+import buildcraft.core.blueprints.BlueprintFile;
 import buildcraft.core.blueprints.LibraryId;
 import buildcraft.core.lib.utils.NBTUtils;
 
@@ -91,8 +96,19 @@ public class LibraryDatabase {
     }
 
     private void save(LibraryId base, NBTTagCompound compound) {
-        byte[] data = NBTUtils.save(compound);
-        base.generateUniqueId(data);
+        byte[] data = null;
+        if (isBlueprintExtension(base.extension)) {
+            try {
+                data = BlueprintFile.write(compound);
+            } catch (IOException ex) {
+                BCLog.logger.warn(String.format("Failed to convert %s to the binary format, saving it as NBT: %s", base.name, ex.getMessage()));
+            }
+        }
+        if (data == null) {
+            data = NBTUtils.save(compound);
+        }
+        // Hash the contents rather than the file, so the id doesn't depend on which format it was saved in
+        base.generateUniqueId(compound);
         File blueprintFile = getBlueprintOutputFile(base);
 
         if (!blueprintFile.exists()) {
@@ -173,6 +189,10 @@ public class LibraryDatabase {
     public static NBTTagCompound load(File blueprintFile) {
         if (blueprintFile != null && blueprintFile.exists()) {
             try {
+                if (BlueprintFile.isBinary(blueprintFile)) {
+                    return BlueprintFile.readNBT(blueprintFile);
+                }
+
                 FileInputStream f = new FileInputStream(blueprintFile);
                 byte[] data = new byte[(int) blueprintFile.length()];
                 f.read(data);
@@ -189,6 +209,107 @@ public class LibraryDatabase {
         return null;
     }
 
+    /** Loads a blueprint or template straight into the given one. Binary files are streamed into it, without ever
+     * building the NBT of the whole blueprint.
+     *
+     * @return The given blueprint, or null if it couldn't be loaded. */
+    public <T extends BlueprintBase> T loadBlueprint(LibraryId id, T bpt) {
+        if (id == null) {
+            return null;
+        }
+        return loadBlueprint(getBlueprintFile(id), bpt);
+    }
+
+    public static <T extends BlueprintBase> T loadBlueprint(File blueprintFile, T bpt) {
+        if (blueprintFile == null || !blueprintFile.exists()) {
+            return null;
+        }
+        try {
+            if (BlueprintFile.isBinary(blueprintFile)) {
+                BlueprintFile.read(blueprintFile, bpt);
+                return bpt;
+            }
+        } catch (IOException e) {
+            BCLog.logger.error(String.format("Failed to load blueprint file: %s %s", blueprintFile.getName(), e.getMessage()));
+            return null;
+        }
+
+        NBTTagCompound nbt = load(blueprintFile);
+        if (nbt == null) {
+            return null;
+        }
+        bpt.readFromNBT(nbt);
+        return bpt;
+    }
+
+    /** Rewrites every blueprint and template in the directory that is still in the old NBT format as a
+     * {@link BlueprintFile}. The files keep their names, so the ids of blueprint items that point at them still work.
+     *
+     * @return The number of files that were converted, and the number that failed to be. */
+    public static int[] upgrade(File directory) {
+        int[] counts = new int[2];
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return counts;
+        }
+
+        for (File file : files) {
+            String fileName = file.getName();
+            String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+            if (!file.isFile() || !isBlueprintExtension(extension)) {
+                continue;
+            }
+
+            File temp = new File(directory, fileName + ".tmp");
+            try {
+                if (BlueprintFile.isBinary(file)) {
+                    continue;
+                }
+                NBTTagCompound nbt = load(file);
+                if (nbt == null) {
+                    throw new IOException("could not be read");
+                }
+                byte[] data = BlueprintFile.write(nbt);
+                Files.write(temp.toPath(), data);
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                counts[0]++;
+            } catch (IOException | RuntimeException e) {
+                BCLog.logger.error(String.format("Failed to upgrade blueprint file: %s %s", fileName, e.getMessage()));
+                temp.delete();
+                counts[1]++;
+            }
+        }
+        return counts;
+    }
+
+    /** @return Every directory that blueprints are read from. */
+    public List<File> getDirectories() {
+        return Collections.unmodifiableList(inputDirs);
+    }
+
+    /** Finds a folder from a path that was given by a player, relative to the directories that blueprints are read
+     * from. Paths that lead outside of those (absolute ones, "..", or links) are never resolved.
+     *
+     * @return The folder, or null if there is no such folder inside of any of the directories. */
+    public File resolveDirectory(String path) {
+        for (File dir : inputDirs) {
+            try {
+                File base = dir.getCanonicalFile();
+                File resolved = base.toPath().resolve(path).toFile().getCanonicalFile();
+                if (resolved.toPath().startsWith(base.toPath()) && resolved.isDirectory()) {
+                    return resolved;
+                }
+            } catch (IOException | InvalidPathException e) {
+                // Not a valid path, so it can't be a folder in this directory
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlueprintExtension(String extension) {
+        return "bpt".equals(extension) || "tpl".equals(extension);
+    }
+
     public List<LibraryId> getBlueprintIds() {
         return Collections.unmodifiableList(new ArrayList<>(blueprintIds));
     }
@@ -73,8 +73,8 @@ public class TileArchitect extends TileBuildCraft implements IInventory, IBoxPro
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (!worldObj.isRemote) {
             if (mode == Mode.COPY && reader != null) {
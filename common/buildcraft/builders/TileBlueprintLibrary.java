@@ -193,8 +193,8 @@ public class TileBlueprintLibrary extends TileBuildCraft implements IInventory,
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
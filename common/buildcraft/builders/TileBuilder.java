@@ -28,6 +28,7 @@ import buildcraft.core.lib.network.command.CommandWriter;
 import buildcraft.core.lib.network.command.PacketCommand;
 import buildcraft.core.lib.utils.NBTUtils;
 import buildcraft.core.lib.utils.NetworkUtils;
+import buildcraft.core.lib.utils.TickProfiler;
 import buildcraft.core.lib.utils.Utils;
 import io.netty.buffer.ByteBuf;
 import net.minecraft.entity.player.EntityPlayer;
@@ -540,8 +541,8 @@ public class TileBuilder extends TileAbstractBuilder implements IHasWork, IFluid
     public void closeInventory(EntityPlayer player) {}
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
@@ -560,6 +561,7 @@ public class TileBuilder extends TileAbstractBuilder implements IHasWork, IFluid
             return;
         }
 
+        long profile = TickProfiler.start();
         iterateBpt(false);
 
         if (mode != Mode.Off) {
@@ -567,6 +569,7 @@ public class TileBuilder extends TileAbstractBuilder implements IHasWork, IFluid
                 build();
             }
         }
+        TickProfiler.end(profile, TickProfiler.Section.BUILDER, getClass(), worldObj, pos);
 
         if (!isBuilding && this.isBuildingBlueprint()) {
             scheduleRequirementUpdate();
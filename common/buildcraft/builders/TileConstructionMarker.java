@@ -71,8 +71,8 @@ public class TileConstructionMarker extends TileBuildCraft implements IBuildingI
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         BuildingItem toRemove = null;
 
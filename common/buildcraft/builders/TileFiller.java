@@ -33,6 +33,7 @@ import buildcraft.core.lib.network.command.CommandWriter;
 import buildcraft.core.lib.network.command.ICommandReceiver;
 import buildcraft.core.lib.network.command.PacketCommand;
 import buildcraft.core.lib.utils.NetworkUtils;
+import buildcraft.core.lib.utils.TickProfiler;
 import buildcraft.core.lib.utils.Utils;
 
 import io.netty.buffer.ByteBuf;
@@ -99,8 +100,8 @@ public class TileFiller extends TileAbstractBuilder implements IHasWork, IContro
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
@@ -135,7 +136,9 @@ public class TileFiller extends TileAbstractBuilder implements IHasWork, IContro
         }
 
         if (currentTemplate != null) {
+            long profile = TickProfiler.start();
             currentTemplate.buildNextSlot(worldObj, this);
+            TickProfiler.end(profile, TickProfiler.Section.BUILDER, getClass(), worldObj, pos);
 
             if (currentTemplate.isDone(this)) {
                 setDone(true);
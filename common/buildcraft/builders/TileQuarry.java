@@ -54,6 +54,7 @@ import buildcraft.core.lib.RFBattery;
 import buildcraft.core.lib.utils.BCStringUtils;
 import buildcraft.core.lib.utils.BlockMiner;
 import buildcraft.core.lib.utils.BlockUtils;
+import buildcraft.core.lib.utils.TickProfiler;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.core.lib.utils.Utils.EnumAxisOrder;
 import buildcraft.core.proxy.CoreProxy;
@@ -107,6 +108,14 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
     public TileQuarry() {
         box.kind = Kind.STRIPES;
         this.setBattery(new RFBattery((int) (2 * 64 * BuilderAPI.BREAK_ENERGY * BuildCraftCore.miningMultiplier), (int) (1000 * BuildCraftCore.miningMultiplier), 0));
+
+        // The moving parts are synced on their own, so that the box isn't sent every time the head moves
+        syncedFields.addBlockPos(() -> target, v -> target = v);
+        syncedFields.addVec3(() -> headPos, v -> headPos = v);
+        syncedFields.addFloat(() -> speed, v -> speed = v);
+        syncedFields.addFloat(() -> headTrajectory, v -> headTrajectory = (float) v);
+        syncedFields.addInt(this::getFlags, this::setFlags);
+        syncedFields.addInt(() -> getBattery().getEnergyStored() * 3 / getBattery().getMaxEnergyStored(), v -> ledState = v);
     }
 
     public void createUtilsIfNeeded() {
@@ -172,8 +181,8 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             if (getStage() != Stage.DONE) {
@@ -199,6 +208,7 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
             return;
         }
 
+        long profile = TickProfiler.start();
         createUtilsIfNeeded();
         if (getStage() == Stage.BUILDING) {
             if (builder != null && !builder.isDone(this)) {
@@ -211,6 +221,7 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
             dig();
         } else if (getStage() == Stage.IDLE) {
             idling();
+            TickProfiler.end(profile, TickProfiler.Section.QUARRY, getClass(), worldObj, pos);
 
             // We are sending a network packet update ONLY below.
             // In this case, since idling() does it anyway, we should return.
@@ -234,9 +245,10 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
                 speed = 0;
             }
         }
+        TickProfiler.end(profile, TickProfiler.Section.QUARRY, getClass(), worldObj, pos);
 
         if (updateTracker.markTimeIfDelay(worldObj)) {
-            sendNetworkUpdate();
+            sendSyncUpdate();
         }
     }
 
@@ -306,7 +318,7 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
         double[] head = getHead();
         int[] target = getTarget();
         headTrajectory = (float) Math.atan2(target[2] - head[2], target[0] - head[0]);
-        sendNetworkUpdate();
+        sendSyncUpdate();
     }
 
     public boolean findTarget(boolean doSet) {
@@ -662,10 +674,7 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
         stream.writeDouble(headPos.zCoord);
         stream.writeFloat((float) speed);
         stream.writeFloat(headTrajectory);
-        int flags = stage.ordinal();
-        flags |= movingHorizontally ? 0x10 : 0;
-        flags |= movingVertically ? 0x20 : 0;
-        stream.writeByte(flags);
+        stream.writeByte(getFlags());
         ledState = (getBattery().getEnergyStored() * 3 / getBattery().getMaxEnergyStored());
         stream.writeByte(ledState);
     }
@@ -686,12 +695,14 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
 
         speed = stream.readFloat();
         headTrajectory = stream.readFloat();
-        int flags = stream.readUnsignedByte();
-        setStage(Stage.values()[flags & 0x07]);
-        movingHorizontally = (flags & 0x10) != 0;
-        movingVertically = (flags & 0x20) != 0;
+        setFlags(stream.readUnsignedByte());
         ledState = stream.readUnsignedByte();
 
+        onSyncedFieldsRead();
+    }
+
+    @Override
+    protected void onSyncedFieldsRead() {
         createUtilsIfNeeded();
 
         if (arm != null) {
@@ -700,6 +711,19 @@ public class TileQuarry extends TileAbstractBuilder implements IHasWork, ISidedI
         }
     }
 
+    private int getFlags() {
+        int flags = stage.ordinal();
+        flags |= movingHorizontally ? 0x10 : 0;
+        flags |= movingVertically ? 0x20 : 0;
+        return flags;
+    }
+
+    private void setFlags(int flags) {
+        setStage(Stage.values()[flags & 0x07]);
+        movingHorizontally = (flags & 0x10) != 0;
+        movingVertically = (flags & 0x20) != 0;
+    }
+
     @Override
     public void initialize() {
         super.initialize();
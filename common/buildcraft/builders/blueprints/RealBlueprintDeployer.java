@@ -4,7 +4,10 @@
  * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
 package buildcraft.builders.blueprints;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
 
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing;
@@ -12,6 +15,7 @@ import net.minecraft.util.Vec3;
 import net.minecraft.world.World;
 
 import buildcraft.api.blueprints.BlueprintDeployer;
+import buildcraft.api.core.BCLog;
 import buildcraft.builders.LibraryDatabase;
 import buildcraft.core.blueprints.*;
 import buildcraft.core.lib.utils.NBTUtils;
@@ -22,12 +26,23 @@ public class RealBlueprintDeployer extends BlueprintDeployer {
 
     @Override
     public void deployBlueprint(World world, BlockPos pos, EnumFacing dir, File file) {
-        deployBlueprint(world, pos, dir, (Blueprint) BlueprintBase.loadBluePrint(LibraryDatabase.load(file)));
+        deployBlueprint(world, pos, dir, LibraryDatabase.loadBlueprint(file, new Blueprint()));
     }
 
     @Override
     public void deployBlueprintFromFileStream(World world, BlockPos pos, EnumFacing dir, byte[] data) {
-        deployBlueprint(world, pos, dir, (Blueprint) BlueprintBase.loadBluePrint(NBTUtils.load(data)));
+        if (BlueprintFile.isBinary(data)) {
+            Blueprint bpt = new Blueprint();
+            try {
+                BlueprintFile.read(Channels.newChannel(new ByteArrayInputStream(data)), bpt);
+            } catch (IOException e) {
+                BCLog.logger.error("Failed to read a binary blueprint: " + e.getMessage());
+                return;
+            }
+            deployBlueprint(world, pos, dir, bpt);
+        } else {
+            deployBlueprint(world, pos, dir, (Blueprint) BlueprintBase.loadBluePrint(NBTUtils.load(data)));
+        }
     }
 
     public void deployBlueprint(World world, BlockPos pos, EnumFacing dir, Blueprint bpt) {
@@ -0,0 +1,52 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.builders.command;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+
+import buildcraft.BuildCraftBuilders;
+import buildcraft.builders.LibraryDatabase;
+import buildcraft.core.blueprints.BlueprintFile;
+import buildcraft.core.lib.commands.CommandHelpers;
+import buildcraft.core.lib.commands.SubCommand;
+
+/** Rewrites the blueprints and templates of a library folder as {@link BlueprintFile}s, which load much faster than the
+ * old gzipped NBT. Old files can still be loaded without this. A folder can be given relative to the server library,
+ * but never one outside of it. */
+public class SubCommandBlueprints extends SubCommand {
+    public SubCommandBlueprints() {
+        super("blueprints");
+        setPermLevel(PermLevel.ADMIN);
+    }
+
+    @Override
+    public void processSubCommand(ICommandSender sender, String[] args) throws CommandException {
+        if (args.length < 1 || !"upgrade".equals(args[0])) {
+            CommandHelpers.throwWrongUsage(sender, this);
+        }
+
+        List<File> directories;
+        if (args.length > 1) {
+            File directory = BuildCraftBuilders.serverDB.resolveDirectory(args[1]);
+            if (directory == null) {
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.blueprints.notFound", args[1]);
+                return;
+            }
+            directories = Collections.singletonList(directory);
+        } else {
+            directories = BuildCraftBuilders.serverDB.getDirectories();
+        }
+
+        for (File directory : directories) {
+            int[] counts = LibraryDatabase.upgrade(directory);
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.blueprints.upgraded", directory.getPath(), counts[0], counts[1]);
+        }
+    }
+}
@@ -104,6 +104,7 @@ public class BlockMarker extends BlockBuildCraft {
 
     @Override
     public void onNeighborBlockChange(World world, BlockPos pos, IBlockState state, Block block) {
+        super.onNeighborBlockChange(world, pos, state, block);
         TileEntity tile = world.getTileEntity(pos);
         if (tile instanceof TileMarker) {
             ((TileMarker) tile).updateSignals();
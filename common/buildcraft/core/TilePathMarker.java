@@ -112,8 +112,8 @@ public class TilePathMarker extends TileMarker implements IPathProvider {
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
@@ -4,7 +4,11 @@
  * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
 package buildcraft.core.blueprints;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
@@ -162,6 +166,8 @@ public class Blueprint extends BlueprintBase {
     @Override
     public void saveContents(NBTTagCompound nbt) {
         NBTTagCompound nbtContents = new NBTTagCompound();
+        // Schematics can be at more than one position, but must only be converted to blueprint ids once
+        Map<SchematicBlockBase, NBTTagCompound> written = new IdentityHashMap<>();
 
         for (BlockPos pos : BlockPos.getAllInBox(BlockPos.ORIGIN, size.subtract(Utils.POS_ONE))) {
             SchematicBlockBase schematic = null;
@@ -170,8 +176,14 @@ public class Blueprint extends BlueprintBase {
                 schematic = get(pos);
 
                 if (schematic != null) {
-                    schematic.idsToBlueprint(mapping);
-                    schematic.writeSchematicToNBT(cpt, mapping);
+                    NBTTagCompound previous = written.get(schematic);
+                    if (previous != null) {
+                        cpt = (NBTTagCompound) previous.copy();
+                    } else {
+                        schematic.idsToBlueprint(mapping);
+                        schematic.writeSchematicToNBT(cpt, mapping);
+                        written.put(schematic, cpt);
+                    }
                     /* We don't use the index of the current for loop because we shouldn't rely on the behaviour of
                      * BlockPos.getAllInBox */
                     nbtContents.setTag(BCStringUtils.blockPosToShortString(pos), cpt);
@@ -209,63 +221,79 @@ public class Blueprint extends BlueprintBase {
         nbt.setTag("idMapping", contextNBT);
     }
 
-    private void loadSingleSchematicFromNBT(BlockPos pos, NBTTagCompound cpt) {
-        if (cpt.hasKey("blockId")) {
-            Block block;
+    /** @param loaded The schematics that have been loaded so far, by their NBT. A position with the same NBT as an
+     *            earlier one uses the same schematic, which is what lets {@link BlueprintContents} store large
+     *            blueprints in very little memory. */
+    private void loadSingleSchematicFromNBT(BlockPos pos, NBTTagCompound cpt, Map<NBTTagCompound, SchematicBlockBase> loaded) {
+        if (loaded.containsKey(cpt)) {
+            set(pos, loaded.get(cpt));
+            return;
+        }
+        SchematicBlockBase schematic = loadSchematic(cpt);
+        set(pos, schematic);
+        loaded.put(cpt, schematic);
+    }
 
-            try {
-                block = mapping.getBlockForId(cpt.getInteger("blockId"));
-            } catch (MappingNotFoundException e) {
-                block = null;
-                isComplete = false;
-            }
+    @Override
+    protected SchematicBlockBase loadSchematic(NBTTagCompound cpt) {
+        if (!cpt.hasKey("blockId")) {
+            return null;
+        }
 
-            if (block != null) {
-                int meta = cpt.getInteger("blockMeta");
-                SchematicBlockBase schematic = SchematicRegistry.INSTANCE.createSchematicBlock(block.getStateFromMeta(meta));
-                if (schematic != null) {
-                    schematic.readSchematicFromNBT(cpt, mapping);
+        Block block;
 
-                    if (!schematic.doNotUse()) {
-                        schematic.idsToWorld(mapping);
+        try {
+            block = mapping.getBlockForId(cpt.getInteger("blockId"));
+        } catch (MappingNotFoundException e) {
+            block = null;
+        }
 
-                        switch (schematic.getBuildingPermission()) {
-                            case ALL:
-                                break;
-                            case CREATIVE_ONLY:
-                                if (buildingPermission == BuildingPermission.ALL) {
-                                    buildingPermission = BuildingPermission.CREATIVE_ONLY;
-                                }
-                                break;
-                            case NONE:
-                                buildingPermission = BuildingPermission.NONE;
-                                break;
-                        }
-                    } else {
-                        schematic = null;
-                        isComplete = false;
-                    }
+        if (block == null) {
+            isComplete = false;
+            return null;
+        }
+
+        int meta = cpt.getInteger("blockMeta");
+        SchematicBlockBase schematic = SchematicRegistry.INSTANCE.createSchematicBlock(block.getStateFromMeta(meta));
+        if (schematic == null) {
+            return null;
+        }
+
+        schematic.readSchematicFromNBT(cpt, mapping);
+
+        if (schematic.doNotUse()) {
+            isComplete = false;
+            return null;
+        }
+
+        schematic.idsToWorld(mapping);
+
+        switch (schematic.getBuildingPermission()) {
+            case ALL:
+                break;
+            case CREATIVE_ONLY:
+                if (buildingPermission == BuildingPermission.ALL) {
+                    buildingPermission = BuildingPermission.CREATIVE_ONLY;
                 }
-                set(pos, schematic);
-            } else {
-                set(pos, null);
-                isComplete = false;
-            }
-        } else {
-            set(pos, null);
+                break;
+            case NONE:
+                buildingPermission = BuildingPermission.NONE;
+                break;
         }
+        return schematic;
     }
 
     @Override
     public void loadContents(NBTTagCompound nbt) throws BptError {
-        mapping.read(nbt.getCompoundTag("idMapping"));
+        loadContentsExceptSchematics(nbt);
 
         NBTBase base = nbt.getTag("contents");
+        Map<NBTTagCompound, SchematicBlockBase> loaded = Maps.newHashMap();
         if (base instanceof NBTTagCompound) {
             NBTTagCompound contents = (NBTTagCompound) base;
             for (BlockPos pos : BlockPos.getAllInBox(BlockPos.ORIGIN, size.subtract(Utils.POS_ONE))) {
                 NBTTagCompound single = contents.getCompoundTag(BCStringUtils.blockPosToShortString(pos));
-                loadSingleSchematicFromNBT(pos, single);
+                loadSingleSchematicFromNBT(pos, single, loaded);
             }
         } else {// 1.7.10 back-compat
             NBTTagList nbtContents = nbt.getTagList("contents", Constants.NBT.TAG_COMPOUND);
@@ -276,12 +304,17 @@ public class Blueprint extends BlueprintBase {
                 for (int y = 0; y < size.getY(); ++y) {
                     for (int z = 0; z < size.getZ(); ++z) {
                         NBTTagCompound cpt = nbtContents.getCompoundTagAt(index);
-                        loadSingleSchematicFromNBT(new BlockPos(x, y, z), cpt);
+                        loadSingleSchematicFromNBT(new BlockPos(x, y, z), cpt, loaded);
                         index++;
                     }
                 }
             }
         }
+    }
+
+    @Override
+    protected void loadContentsExceptSchematics(NBTTagCompound nbt) {
+        mapping.read(nbt.getCompoundTag("idMapping"));
 
         NBTTagList entitiesNBT = nbt.getTagList("entities", Constants.NBT.TAG_COMPOUND);
 
@@ -43,7 +43,7 @@ public abstract class BlueprintBase {
     public boolean isComplete = true;
 
     protected MappingRegistry mapping = new MappingRegistry();
-    private SchematicBlockBase[][][] contents;
+    private BlueprintContents contents;
 
     private NBTTagCompound nbt;
     private EnumFacing mainDir = EnumFacing.EAST;
@@ -56,54 +56,46 @@ public abstract class BlueprintBase {
     }
 
     public BlueprintBase(BlockPos size) {
-        contents = new SchematicBlockBase[size.getX()][size.getY()][size.getZ()];
+        contents = new BlueprintContents(size);
         this.size = size;
         this.anchor = Utils.POS_ZERO;
     }
 
     public SchematicBlockBase get(BlockPos pos) {
-        String error = "Tried to access the " + pos + " when the maximum ";
-        if (contents.length <= pos.getX()) throw new ArrayIndexOutOfBoundsException(error + "X coord was " + (contents.length - 1));
-        SchematicBlockBase[][] arr2 = contents[pos.getX()];
-        if (arr2.length <= pos.getY()) throw new ArrayIndexOutOfBoundsException(error + "Y coord was " + (arr2.length - 1));
-        SchematicBlockBase[] arr1 = arr2[pos.getY()];
-        if (arr1.length <= pos.getZ()) throw new ArrayIndexOutOfBoundsException(error + "Z coord was " + (arr1.length - 1));
-        return arr1[pos.getZ()];
+        return contents.get(pos);
     }
 
     public void set(BlockPos pos, SchematicBlockBase schematic) {
-        contents[pos.getX()][pos.getY()][pos.getZ()] = schematic;
+        contents.set(pos, schematic);
     }
 
     public void translateToBlueprint(Vec3 transform) {
-        for (SchematicBlockBase[][] arr2 : contents)
-            for (SchematicBlockBase[] arr1 : arr2)
-                for (SchematicBlockBase content : arr1)
-                    if (content != null) content.translateToBlueprint(transform);
+        for (SchematicBlockBase content : contents.getDistinct())
+            content.translateToBlueprint(transform);
     }
 
     public void translateToWorld(Vec3 transform) {
-        for (SchematicBlockBase[][] arr2 : contents)
-            for (SchematicBlockBase[] arr1 : arr2)
-                for (SchematicBlockBase content : arr1)
-                    if (content != null) content.translateToWorld(transform);
+        for (SchematicBlockBase content : contents.getDistinct())
+            content.translateToWorld(transform);
     }
 
     public void rotateLeft(BptContext context) {
-        SchematicBlockBase[][][] newContents = new SchematicBlockBase[size.getZ()][size.getY()][size.getX()];
+        BlueprintContents newContents = new BlueprintContents(new BlockPos(size.getZ(), size.getY(), size.getX()));
 
         Matrix4i leftRot = Matrix4i.makeRotLeftTranslatePositive(new Box(BlockPos.ORIGIN, size.subtract(Utils.POS_ONE)));
 
         for (BlockPos internal : BlockPos.getAllInBox(Utils.POS_ZERO, size.subtract(Utils.POS_ONE))) {
-            BlockPos rotated = leftRot.multiplyPosition(internal);
-
-            SchematicBlockBase oldContents = contents[internal.getX()][internal.getY()][internal.getZ()];
+            SchematicBlockBase oldContents = contents.get(internal);
             if (oldContents != null) {
-                oldContents.rotateLeft(context);
-                newContents[rotated.getX()][rotated.getY()][rotated.getZ()] = oldContents;
+                newContents.set(leftRot.multiplyPosition(internal), oldContents);
             }
         }
 
+        // Schematics can be shared between positions, so each one is only rotated once
+        for (SchematicBlockBase schematic : contents.getDistinct()) {
+            schematic.rotateLeft(context);
+        }
+
         contents = newContents;
         size = new BlockPos(size.getZ(), size.getY(), size.getX());
 
@@ -176,9 +168,18 @@ public abstract class BlueprintBase {
     }
 
     public void readFromNBT(NBTTagCompound nbt) {
-        if (nbt.hasKey("sizeX")) {
-            size = new BlockPos(nbt.getInteger("sizeX"), nbt.getInteger("sizeY"), nbt.getInteger("sizeZ"));
-        } else size = NBTUtils.readBlockPos(nbt.getTag("size"));
+        readPropertiesFromNBT(nbt);
+
+        try {
+            loadContents(nbt);
+        } catch (BptError e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Reads everything apart from the contents. {@link BlueprintFile} uses this, and then sets the schematics itself. */
+    void readPropertiesFromNBT(NBTTagCompound nbt) {
+        size = readSize(nbt);
 
         if (nbt.hasKey("anchorX")) {
             anchor = new BlockPos(nbt.getInteger("anchorX"), nbt.getInteger("anchorY"), nbt.getInteger("anchorZ"));
@@ -198,13 +199,7 @@ public abstract class BlueprintBase {
             excavate = true;
         }
 
-        contents = new SchematicBlockBase[size.getX()][size.getY()][size.getZ()];
-
-        try {
-            loadContents(nbt);
-        } catch (BptError e) {
-            e.printStackTrace();
-        }
+        contents = new BlueprintContents(size);
 
         if (nbt.hasKey("subBpt")) {
             NBTTagList subBptList = nbt.getTagList("subBpt", Constants.NBT.TAG_COMPOUND);
@@ -215,6 +210,13 @@ public abstract class BlueprintBase {
         }
     }
 
+    static BlockPos readSize(NBTTagCompound nbt) {
+        if (nbt.hasKey("sizeX")) {
+            return new BlockPos(nbt.getInteger("sizeX"), nbt.getInteger("sizeY"), nbt.getInteger("sizeZ"));
+        }
+        return NBTUtils.readBlockPos(nbt.getTag("size"));
+    }
+
     public Box getBoxForPos(BlockPos pos) {
         BlockPos min = pos.add(anchor);
         BlockPos max = min.add(size).subtract(Utils.POS_ONE);
@@ -279,6 +281,16 @@ public abstract class BlueprintBase {
 
     public abstract void saveContents(NBTTagCompound nbt);
 
+    /** Reads the parts of {@link #loadContents(NBTTagCompound)} that are not the schematic at each position, for
+     * {@link BlueprintFile}s (which store those separately). */
+    protected void loadContentsExceptSchematics(NBTTagCompound nbt) {
+
+    }
+
+    /** @param cpt A single schematic, as stored in a palette entry of a {@link BlueprintFile}.
+     * @return The schematic to set at every position that uses that entry, or null if it can't be loaded. */
+    protected abstract SchematicBlockBase loadSchematic(NBTTagCompound cpt);
+
     public abstract void readFromWorld(IBuilderContext context, TileEntity anchorTile, BlockPos pos);
 
     public abstract ItemStack getStack();
@@ -0,0 +1,232 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.blueprints;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import net.minecraft.util.BlockPos;
+
+import buildcraft.api.blueprints.SchematicBlockBase;
+
+/** The schematics of a blueprint, split into sections of 16*16*16. Each section has a palette of the schematics in it,
+ * and a packed array of palette indices with as few bits per position as the palette needs. A section that only holds
+ * nulls (air) is not stored at all.
+ * <p>
+ * Schematics are compared by identity, so a blueprint only saves memory when the same schematic instance is set at
+ * many positions. That is what {@link Blueprint} and {@link Template} do when they load. As the same instance can be
+ * in many places, anything that changes schematics (like rotating them) should go through {@link #getDistinct()} so
+ * that each one is only changed once. */
+public final class BlueprintContents {
+    private static final int SECTION_BITS = 4;
+    private static final int SECTION_SIZE = 1 << SECTION_BITS;
+    private static final int SECTION_MASK = SECTION_SIZE - 1;
+    private static final int SECTION_VOLUME = SECTION_SIZE * SECTION_SIZE * SECTION_SIZE;
+
+    private final int sizeX, sizeY, sizeZ;
+    private final int sectionsX, sectionsY, sectionsZ;
+    private final Section[] sections;
+
+    public BlueprintContents(BlockPos size) {
+        this.sizeX = size.getX();
+        this.sizeY = size.getY();
+        this.sizeZ = size.getZ();
+        this.sectionsX = (sizeX + SECTION_MASK) >> SECTION_BITS;
+        this.sectionsY = (sizeY + SECTION_MASK) >> SECTION_BITS;
+        this.sectionsZ = (sizeZ + SECTION_MASK) >> SECTION_BITS;
+        this.sections = new Section[sectionsX * sectionsY * sectionsZ];
+    }
+
+    private void checkBounds(BlockPos pos) {
+        String error = "Tried to access the " + pos + " when the maximum ";
+        if (pos.getX() < 0 || pos.getX() >= sizeX) throw new ArrayIndexOutOfBoundsException(error + "X coord was " + (sizeX - 1));
+        if (pos.getY() < 0 || pos.getY() >= sizeY) throw new ArrayIndexOutOfBoundsException(error + "Y coord was " + (sizeY - 1));
+        if (pos.getZ() < 0 || pos.getZ() >= sizeZ) throw new ArrayIndexOutOfBoundsException(error + "Z coord was " + (sizeZ - 1));
+    }
+
+    private int getSectionIndex(BlockPos pos) {
+        int x = pos.getX() >> SECTION_BITS;
+        int y = pos.getY() >> SECTION_BITS;
+        int z = pos.getZ() >> SECTION_BITS;
+        return (x * sectionsY + y) * sectionsZ + z;
+    }
+
+    private static int getIndexInSection(BlockPos pos) {
+        return ((pos.getX() & SECTION_MASK) << (SECTION_BITS * 2)) | ((pos.getY() & SECTION_MASK) << SECTION_BITS) | (pos.getZ() & SECTION_MASK);
+    }
+
+    public SchematicBlockBase get(BlockPos pos) {
+        checkBounds(pos);
+        Section section = sections[getSectionIndex(pos)];
+        return section == null ? null : section.get(getIndexInSection(pos));
+    }
+
+    public void set(BlockPos pos, SchematicBlockBase schematic) {
+        checkBounds(pos);
+        int sectionIndex = getSectionIndex(pos);
+        Section section = sections[sectionIndex];
+        if (section == null) {
+            if (schematic == null) {
+                return;
+            }
+            section = new Section();
+            sections[sectionIndex] = section;
+        }
+        section.set(getIndexInSection(pos), schematic);
+        if (section.isEmpty()) {
+            sections[sectionIndex] = null;
+        }
+    }
+
+    /** @return Every schematic that is in this blueprint, once each (even if it is at many positions). */
+    public Set<SchematicBlockBase> getDistinct() {
+        Set<SchematicBlockBase> distinct = Collections.newSetFromMap(new IdentityHashMap<SchematicBlockBase, Boolean>());
+        for (Section section : sections) {
+            if (section != null) {
+                for (int i = 1; i < section.paletteSize; i++) {
+                    if (section.palette[i] != null) {
+                        distinct.add(section.palette[i]);
+                    }
+                }
+            }
+        }
+        return distinct;
+    }
+
+    private static final class Section {
+        /** Palettes bigger than this use a map to find schematics, rather than looking through all of them. */
+        private static final int MAX_LINEAR_PALETTE = 16;
+
+        /** Entry 0 is always null. Entries that are no longer used are set to null so that they can be reused. */
+        private SchematicBlockBase[] palette = new SchematicBlockBase[2];
+        /** How many positions use each palette entry. */
+        private int[] counts = new int[2];
+        private int paletteSize = 1;
+        /** How many of the entries below paletteSize are null, and can be reused. */
+        private int free = 0;
+        private Map<SchematicBlockBase, Integer> lookup;
+
+        private int bits = 1;
+        private long[] data = new long[SECTION_VOLUME / 64];
+        private int nonNull = 0;
+
+        boolean isEmpty() {
+            return nonNull == 0;
+        }
+
+        SchematicBlockBase get(int index) {
+            return palette[getPaletteIndex(index)];
+        }
+
+        private int getPaletteIndex(int index) {
+            int perLong = 64 / bits;
+            long word = data[index / perLong];
+            int shift = (index % perLong) * bits;
+            return (int) ((word >>> shift) & ((1L << bits) - 1));
+        }
+
+        private void setPaletteIndex(int index, int value) {
+            int perLong = 64 / bits;
+            int shift = (index % perLong) * bits;
+            long mask = ((1L << bits) - 1) << shift;
+            int wordIndex = index / perLong;
+            data[wordIndex] = (data[wordIndex] & ~mask) | (((long) value << shift) & mask);
+        }
+
+        void set(int index, SchematicBlockBase schematic) {
+            int oldIndex = getPaletteIndex(index);
+            if (palette[oldIndex] == schematic) {
+                return;
+            }
+            int newIndex = schematic == null ? 0 : getOrAdd(schematic);
+            setPaletteIndex(index, newIndex);
+
+            if (newIndex != 0) {
+                counts[newIndex]++;
+                nonNull++;
+            }
+            if (oldIndex != 0) {
+                nonNull--;
+                if (--counts[oldIndex] == 0) {
+                    remove(oldIndex);
+                }
+            }
+        }
+
+        private int getOrAdd(SchematicBlockBase schematic) {
+            if (lookup != null) {
+                Integer index = lookup.get(schematic);
+                if (index != null) {
+                    return index;
+                }
+            } else {
+                for (int i = 1; i < paletteSize; i++) {
+                    if (palette[i] == schematic) {
+                        return i;
+                    }
+                }
+            }
+
+            int index = paletteSize;
+            if (free > 0) {
+                index = 1;
+                while (palette[index] != null) {
+                    index++;
+                }
+                free--;
+            } else {
+                if (paletteSize == palette.length) {
+                    palette = Arrays.copyOf(palette, palette.length * 2);
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+                paletteSize++;
+                if (paletteSize > 1 << bits) {
+                    resize(bits + 1);
+                }
+            }
+            palette[index] = schematic;
+            counts[index] = 0;
+            if (lookup != null) {
+                lookup.put(schematic, index);
+            } else if (paletteSize > MAX_LINEAR_PALETTE) {
+                lookup = new IdentityHashMap<>();
+                for (int i = 1; i < paletteSize; i++) {
+                    if (palette[i] != null) {
+                        lookup.put(palette[i], i);
+                    }
+                }
+            }
+            return index;
+        }
+
+        private void remove(int index) {
+            if (lookup != null) {
+                lookup.remove(palette[index]);
+            }
+            palette[index] = null;
+            if (index == paletteSize - 1) {
+                paletteSize--;
+            } else {
+                free++;
+            }
+        }
+
+        private void resize(int newBits) {
+            int[] indices = new int[SECTION_VOLUME];
+            for (int i = 0; i < SECTION_VOLUME; i++) {
+                indices[i] = getPaletteIndex(i);
+            }
+            bits = newBits;
+            int perLong = 64 / bits;
+            data = new long[(SECTION_VOLUME + perLong - 1) / perLong];
+            for (int i = 0; i < SECTION_VOLUME; i++) {
+                setPaletteIndex(i, indices[i]);
+            }
+        }
+    }
+}
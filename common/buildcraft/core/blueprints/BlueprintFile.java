@@ -0,0 +1,446 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.blueprints;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTSizeTracker;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.BlockPos;
+
+import net.minecraftforge.common.util.Constants;
+
+import buildcraft.api.blueprints.SchematicBlockBase;
+import buildcraft.core.lib.utils.BCStringUtils;
+import buildcraft.core.lib.utils.NetworkUtils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+
+/** The binary file format for blueprints and templates. The old format was the NBT of the whole blueprint, gzipped,
+ * with one compound per position: loading it meant unzipping the whole file and building that tree before a single
+ * schematic could be made. This format is laid out like so:
+ *
+ * <pre>
+ * "BCBP"            magic
+ * byte              version
+ * block             the properties of the blueprint (everything but its contents), as uncompressed NBT
+ * block             the palette: a varint count, then for each entry:
+ *                     byte flags (1 = has a block id, 2 = has a block meta, 4 = has extra NBT)
+ *                     varint block id (from the mapping registry in the properties), varint block meta
+ *                     NBT everything else in the schematic (tile data and so on)
+ * varint            the number of sections
+ * block...          one for each 16*16*16 section that isn't empty:
+ *                     varint section x, y, z
+ *                     runs of (varint palette index, varint length) in x, y, z order, where 0 is an empty position
+ * </pre>
+ *
+ * Every block starts with its length as a varint, so {@link #read(File, BlueprintBase)} only ever holds one section in
+ * memory, and makes one schematic per palette entry rather than one per position. */
+public final class BlueprintFile {
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = { 'B', 'C', 'B', 'P' };
+    private static final int SECTION_SIZE = 16;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int HAS_BLOCK_ID = 1;
+    private static final int HAS_BLOCK_META = 2;
+    private static final int HAS_EXTRA = 4;
+
+    /** The schematic of every filled position of a template, as they don't have any data. */
+    private static final NBTTagCompound TEMPLATE_ENTRY = new NBTTagCompound();
+
+    private BlueprintFile() {
+
+    }
+
+    private interface PositionVisitor {
+        void visit(int x, int y, int z, int index);
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(data, MAGIC.length), MAGIC);
+    }
+
+    public static boolean isBinary(File file) throws IOException {
+        byte[] start = new byte[MAGIC.length];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < start.length) {
+                int count = in.read(start, read, start.length - read);
+                if (count < 0) {
+                    return false;
+                }
+                read += count;
+            }
+        }
+        return isBinary(start);
+    }
+
+    /** Converts a blueprint or template from the NBT that {@link BlueprintBase#getNBT()} gives (in any of the formats
+     * that {@link BlueprintBase#readFromNBT(NBTTagCompound)} accepts). */
+    public static byte[] write(NBTTagCompound nbt) throws IOException {
+        BlockPos size = BlueprintBase.readSize(nbt);
+        boolean template = "template".equals(nbt.getString("kind"));
+
+        NBTTagCompound properties = new NBTTagCompound();
+        for (String key : nbt.getKeySet()) {
+            if (!"contents".equals(key) && !"mask".equals(key)) {
+                properties.setTag(key, nbt.getTag(key));
+            }
+        }
+
+        Map<NBTTagCompound, Integer> paletteIds = Maps.newHashMap();
+        List<NBTTagCompound> palette = new ArrayList<>();
+        ByteBuf sections = Unpooled.buffer();
+        ByteBuf section = Unpooled.buffer();
+        int sectionCount = 0;
+
+        for (int sx = 0; sx < size.getX(); sx += SECTION_SIZE) {
+            for (int sy = 0; sy < size.getY(); sy += SECTION_SIZE) {
+                for (int sz = 0; sz < size.getZ(); sz += SECTION_SIZE) {
+                    section.clear();
+                    NetworkUtils.writeVarInt(section, sx / SECTION_SIZE);
+                    NetworkUtils.writeVarInt(section, sy / SECTION_SIZE);
+                    NetworkUtils.writeVarInt(section, sz / SECTION_SIZE);
+
+                    boolean empty = true;
+                    int runIndex = -1, runLength = 0;
+                    int maxX = Math.min(sx + SECTION_SIZE, size.getX());
+                    int maxY = Math.min(sy + SECTION_SIZE, size.getY());
+                    int maxZ = Math.min(sz + SECTION_SIZE, size.getZ());
+
+                    for (int x = sx; x < maxX; x++) {
+                        for (int y = sy; y < maxY; y++) {
+                            for (int z = sz; z < maxZ; z++) {
+                                int index = 0;
+                                NBTTagCompound cpt = getSchematicNBT(nbt, template, size, x, y, z);
+                                if (cpt != null) {
+                                    Integer id = paletteIds.get(cpt);
+                                    if (id == null) {
+                                        palette.add(cpt);
+                                        id = palette.size();
+                                        paletteIds.put(cpt, id);
+                                    }
+                                    index = id;
+                                    empty = false;
+                                }
+                                if (index != runIndex) {
+                                    if (runLength > 0) {
+                                        NetworkUtils.writeVarInt(section, runIndex);
+                                        NetworkUtils.writeVarInt(section, runLength);
+                                    }
+                                    runIndex = index;
+                                    runLength = 0;
+                                }
+                                runLength++;
+                            }
+                        }
+                    }
+
+                    if (!empty) {
+                        NetworkUtils.writeVarInt(section, runIndex);
+                        NetworkUtils.writeVarInt(section, runLength);
+                        writeBlock(sections, section);
+                        sectionCount++;
+                    }
+                }
+            }
+        }
+
+        ByteBuf out = Unpooled.buffer();
+        out.writeBytes(MAGIC);
+        out.writeByte(VERSION);
+
+        ByteBuf block = Unpooled.buffer();
+        CompressedStreamTools.write(properties, new ByteBufOutputStream(block));
+        writeBlock(out, block);
+
+        block.clear();
+        NetworkUtils.writeVarInt(block, palette.size());
+        for (NBTTagCompound cpt : palette) {
+            writeEntry(block, cpt);
+        }
+        writeBlock(out, block);
+
+        NetworkUtils.writeVarInt(out, sectionCount);
+        out.writeBytes(sections);
+
+        byte[] data = new byte[out.readableBytes()];
+        out.readBytes(data);
+        return data;
+    }
+
+    /** @return The NBT of the schematic at the given position, or null if there isn't one. */
+    private static NBTTagCompound getSchematicNBT(NBTTagCompound nbt, boolean template, BlockPos size, int x, int y, int z) {
+        int index = (x * size.getY() + y) * size.getZ() + z;
+        if (template) {
+            byte[] mask = nbt.getByteArray("mask");
+            return index < mask.length && mask[index] == 1 ? TEMPLATE_ENTRY : null;
+        }
+
+        NBTBase base = nbt.getTag("contents");
+        NBTTagCompound cpt;
+        if (base instanceof NBTTagCompound) {
+            cpt = ((NBTTagCompound) base).getCompoundTag(BCStringUtils.blockPosToShortString(new BlockPos(x, y, z)));
+        } else {// 1.7.10 back-compat
+            cpt = nbt.getTagList("contents", Constants.NBT.TAG_COMPOUND).getCompoundTagAt(index);
+        }
+        return cpt.hasNoTags() ? null : cpt;
+    }
+
+    private static void writeEntry(ByteBuf data, NBTTagCompound cpt) throws IOException {
+        NBTTagCompound extra = (NBTTagCompound) cpt.copy();
+        int flags = 0;
+        if (cpt.getTagId("blockId") == Constants.NBT.TAG_INT) {
+            flags |= HAS_BLOCK_ID;
+            extra.removeTag("blockId");
+        }
+        if (cpt.getTagId("blockMeta") == Constants.NBT.TAG_INT) {
+            flags |= HAS_BLOCK_META;
+            extra.removeTag("blockMeta");
+        }
+        if (!extra.hasNoTags()) {
+            flags |= HAS_EXTRA;
+        }
+
+        data.writeByte(flags);
+        if ((flags & HAS_BLOCK_ID) != 0) {
+            NetworkUtils.writeVarInt(data, cpt.getInteger("blockId"));
+        }
+        if ((flags & HAS_BLOCK_META) != 0) {
+            NetworkUtils.writeVarInt(data, cpt.getInteger("blockMeta"));
+        }
+        if ((flags & HAS_EXTRA) != 0) {
+            CompressedStreamTools.write(extra, new ByteBufOutputStream(data));
+        }
+    }
+
+    private static NBTTagCompound readEntry(ByteBuf data) throws IOException {
+        int flags = data.readUnsignedByte();
+        NBTTagCompound cpt = new NBTTagCompound();
+        int blockId = 0, blockMeta = 0;
+        if ((flags & HAS_BLOCK_ID) != 0) {
+            blockId = NetworkUtils.readVarInt(data);
+        }
+        if ((flags & HAS_BLOCK_META) != 0) {
+            blockMeta = NetworkUtils.readVarInt(data);
+        }
+        if ((flags & HAS_EXTRA) != 0) {
+            cpt = CompressedStreamTools.read(new ByteBufInputStream(data), NBTSizeTracker.INFINITE);
+        }
+        if ((flags & HAS_BLOCK_ID) != 0) {
+            cpt.setInteger("blockId", blockId);
+        }
+        if ((flags & HAS_BLOCK_META) != 0) {
+            cpt.setInteger("blockMeta", blockMeta);
+        }
+        return cpt;
+    }
+
+    private static void writeBlock(ByteBuf out, ByteBuf block) {
+        NetworkUtils.writeVarInt(out, block.readableBytes());
+        out.writeBytes(block, block.readerIndex(), block.readableBytes());
+    }
+
+    /** Reads a binary file straight into the given blueprint, which should be a {@link Template} if the file is one. */
+    public static void read(File file, BlueprintBase bpt) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            read(channel, bpt);
+        }
+    }
+
+    public static void read(ReadableByteChannel channel, final BlueprintBase bpt) throws IOException {
+        ChannelReader in = new ChannelReader(channel);
+        NBTTagCompound properties = readProperties(in);
+        bpt.readPropertiesFromNBT(properties);
+        bpt.loadContentsExceptSchematics(properties);
+
+        ByteBuf paletteData = in.readBlock();
+        final SchematicBlockBase[] palette = new SchematicBlockBase[NetworkUtils.readVarInt(paletteData) + 1];
+        for (int i = 1; i < palette.length; i++) {
+            palette[i] = bpt.loadSchematic(readEntry(paletteData));
+        }
+
+        readSections(in, bpt.size, palette.length, new PositionVisitor() {
+            @Override
+            public void visit(int x, int y, int z, int index) {
+                bpt.set(new BlockPos(x, y, z), palette[index]);
+            }
+        });
+    }
+
+    /** Reads a binary file into the NBT of the old format, for anything that still deals with blueprints as NBT (like
+     * the blueprint library, when it sends one between the client and the server). */
+    public static NBTTagCompound readNBT(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ChannelReader in = new ChannelReader(channel);
+            NBTTagCompound nbt = readProperties(in);
+            final BlockPos size = BlueprintBase.readSize(nbt);
+
+            ByteBuf paletteData = in.readBlock();
+            final NBTTagCompound[] palette = new NBTTagCompound[NetworkUtils.readVarInt(paletteData) + 1];
+            for (int i = 1; i < palette.length; i++) {
+                palette[i] = readEntry(paletteData);
+            }
+
+            if ("template".equals(nbt.getString("kind"))) {
+                final byte[] mask = new byte[size.getX() * size.getY() * size.getZ()];
+                readSections(in, size, palette.length, new PositionVisitor() {
+                    @Override
+                    public void visit(int x, int y, int z, int index) {
+                        mask[(x * size.getY() + y) * size.getZ() + z] = 1;
+                    }
+                });
+                nbt.setByteArray("mask", mask);
+            } else {
+                final NBTTagCompound contents = new NBTTagCompound();
+                readSections(in, size, palette.length, new PositionVisitor() {
+                    @Override
+                    public void visit(int x, int y, int z, int index) {
+                        contents.setTag(BCStringUtils.blockPosToShortString(new BlockPos(x, y, z)), palette[index].copy());
+                    }
+                });
+                nbt.setTag("contents", contents);
+            }
+            return nbt;
+        }
+    }
+
+    private static NBTTagCompound readProperties(ChannelReader in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        for (int i = 0; i < magic.length; i++) {
+            magic[i] = (byte) in.readUnsignedByte();
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary blueprint file!");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unknown binary blueprint version " + version + " (expected " + VERSION + ")");
+        }
+        return CompressedStreamTools.read(new ByteBufInputStream(in.readBlock()), NBTSizeTracker.INFINITE);
+    }
+
+    private static void readSections(ChannelReader in, BlockPos size, int paletteSize, PositionVisitor visitor) throws IOException {
+        int sectionCount = in.readVarInt();
+        for (int s = 0; s < sectionCount; s++) {
+            ByteBuf section = in.readBlock();
+            int minX = NetworkUtils.readVarInt(section) * SECTION_SIZE;
+            int minY = NetworkUtils.readVarInt(section) * SECTION_SIZE;
+            int minZ = NetworkUtils.readVarInt(section) * SECTION_SIZE;
+            if (minX < 0 || minX >= size.getX() || minY < 0 || minY >= size.getY() || minZ < 0 || minZ >= size.getZ()) {
+                throw new IOException("Section " + minX + ", " + minY + ", " + minZ + " is outside of a blueprint of size " + size);
+            }
+
+            int maxX = Math.min(minX + SECTION_SIZE, size.getX());
+            int maxY = Math.min(minY + SECTION_SIZE, size.getY());
+            int maxZ = Math.min(minZ + SECTION_SIZE, size.getZ());
+            int x = minX, y = minY, z = minZ;
+            int remaining = (maxX - minX) * (maxY - minY) * (maxZ - minZ);
+
+            while (remaining > 0) {
+                int index = NetworkUtils.readVarInt(section);
+                int length = NetworkUtils.readVarInt(section);
+                if (index < 0 || index >= paletteSize || length <= 0 || length > remaining) {
+                    throw new IOException("Bad run of " + length + " * " + index + " in a blueprint section");
+                }
+                remaining -= length;
+
+                for (; length > 0; length--) {
+                    if (index != 0) {
+                        visitor.visit(x, y, z, index);
+                    }
+                    if (++z == maxZ) {
+                        z = minZ;
+                        if (++y == maxY) {
+                            y = minY;
+                            x++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Reads from a channel a buffer at a time, so that only the block being decoded is ever in memory. */
+    private static final class ChannelReader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        ChannelReader(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        /** Makes sure that at least the given number of bytes are in the buffer, ready to be read. */
+        private void fill(int needed) throws IOException {
+            if (buffer.remaining() >= needed) {
+                return;
+            }
+            if (needed > buffer.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(needed);
+                bigger.put(buffer);
+                buffer = bigger;
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < needed) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of a binary blueprint file");
+                }
+            }
+            buffer.flip();
+        }
+
+        int readUnsignedByte() throws IOException {
+            fill(1);
+            return buffer.get() & 0xFF;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("VarInt was too long!");
+        }
+
+        /** @return The next block. This is only valid until the next read, as it shares memory with the buffer. */
+        ByteBuf readBlock() throws IOException {
+            int length = readVarInt();
+            if (length < 0) {
+                throw new IOException("Bad block length " + length);
+            }
+            fill(length);
+            ByteBuffer block = buffer.slice();
+            block.limit(length);
+            buffer.position(buffer.position() + length);
+            return Unpooled.wrappedBuffer(block);
+        }
+    }
+}
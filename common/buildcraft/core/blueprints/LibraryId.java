@@ -4,13 +4,22 @@
  * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
 package buildcraft.core.blueprints;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.commons.lang3.ArrayUtils;
 
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagByteArray;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagIntArray;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagString;
 
 import buildcraft.api.core.ISerializable;
 import buildcraft.core.lib.utils.NetworkUtils;
@@ -39,6 +48,67 @@ public final class LibraryId implements Comparable<LibraryId>, ISerializable {
         }
     }
 
+    /** Sets the unique id to a hash of the given blueprint or template. This only depends on the tags in it (compound
+     * keys are hashed in sorted order), and not on how it was saved, so saving the same contents again always gives the
+     * same id. */
+    public void generateUniqueId(NBTTagCompound contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            updateDigest(digest, contents);
+            uniqueId = digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void updateDigest(MessageDigest digest, NBTBase tag) {
+        digest.update(tag.getId());
+        if (tag instanceof NBTTagCompound) {
+            NBTTagCompound compound = (NBTTagCompound) tag;
+            List<String> keys = new ArrayList<>(compound.getKeySet());
+            Collections.sort(keys);
+            updateDigest(digest, keys.size());
+            for (String key : keys) {
+                updateDigest(digest, key);
+                updateDigest(digest, compound.getTag(key));
+            }
+        } else if (tag instanceof NBTTagList) {
+            NBTTagList list = (NBTTagList) tag;
+            updateDigest(digest, list.tagCount());
+            for (int i = 0; i < list.tagCount(); i++) {
+                updateDigest(digest, list.get(i));
+            }
+        } else if (tag instanceof NBTTagByteArray) {
+            byte[] array = ((NBTTagByteArray) tag).getByteArray();
+            updateDigest(digest, array.length);
+            digest.update(array);
+        } else if (tag instanceof NBTTagIntArray) {
+            int[] array = ((NBTTagIntArray) tag).getIntArray();
+            updateDigest(digest, array.length);
+            for (int value : array) {
+                updateDigest(digest, value);
+            }
+        } else if (tag instanceof NBTTagString) {
+            updateDigest(digest, ((NBTTagString) tag).getString());
+        } else {
+            // Numbers, which print their value and type exactly
+            updateDigest(digest, tag.toString());
+        }
+    }
+
+    private static void updateDigest(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    private static void updateDigest(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateDigest(digest, bytes.length);
+        digest.update(bytes);
+    }
+
     public void write(NBTTagCompound nbt) {
         nbt.setByteArray("uniqueBptId", uniqueId);
         nbt.setString("name", name);
@@ -13,6 +13,7 @@ import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.Vec3;
 
 import buildcraft.api.blueprints.IBuilderContext;
+import buildcraft.api.blueprints.SchematicBlockBase;
 import buildcraft.api.blueprints.SchematicMask;
 import buildcraft.api.core.BCLog;
 import buildcraft.api.core.BuildCraftAPI;
@@ -21,6 +22,8 @@ import buildcraft.core.lib.utils.Utils;
 
 /** Use the template system to describe fillers */
 public class Template extends BlueprintBase {
+    /** Every position in a template is either empty or this, so that they can all share it. */
+    private final SchematicMask mask = new SchematicMask(true);
 
     public Template() {
         id.extension = "tpl";
@@ -31,12 +34,17 @@ public class Template extends BlueprintBase {
         id.extension = "tpl";
     }
 
+    /** @return The schematic that every filled position of this template should use. */
+    public SchematicMask getMask() {
+        return mask;
+    }
+
     @Override
     public void readFromWorld(IBuilderContext context, TileEntity anchorTile, BlockPos pos) {
         Vec3 nPos = Utils.convert(pos).subtract(Utils.convert(context.surroundingBox().min()));
 
         if (!BuildCraftAPI.isSoftBlock(anchorTile.getWorld(), pos)) {
-            set(Utils.convertFloor(nPos), new SchematicMask(true));
+            set(Utils.convertFloor(nPos), mask);
         }
     }
 
@@ -72,7 +80,7 @@ public class Template extends BlueprintBase {
             for (int y = 0; y < size.getY(); ++y) {
                 for (int z = 0; z < size.getZ(); ++z) {
                     if (data[ind] == 1) {
-                        set(new BlockPos(x, y, z), new SchematicMask(true));
+                        set(new BlockPos(x, y, z), mask);
                     }
                     ind++;
                 }
@@ -80,6 +88,11 @@ public class Template extends BlueprintBase {
         }
     }
 
+    @Override
+    protected SchematicBlockBase loadSchematic(NBTTagCompound cpt) {
+        return mask;
+    }
+
     @Override
     public ItemStack getStack() {
         Item item = Item.itemRegistry.getObject(new ResourceLocation("BuildCraft|Builders:templateItem"));
@@ -82,8 +82,8 @@ public abstract class TileAbstractBuilder extends TileBuildCraft implements ITil
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         RFBattery battery = this.getBattery();
 
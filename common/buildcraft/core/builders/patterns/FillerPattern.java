@@ -19,7 +19,6 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
-import buildcraft.api.blueprints.SchematicMask;
 import buildcraft.api.enums.EnumFillerPattern;
 import buildcraft.api.filler.IFillerPattern;
 import buildcraft.api.statements.IStatement;
@@ -88,7 +87,7 @@ public abstract class FillerPattern implements IFillerPattern {
             for (int x = xMin; x <= xMax; ++x) {
                 for (int z = zMin; z <= zMax; ++z) {
                     if (isValid(x, y, z, template)) {
-                        template.set(new BlockPos(x, y, z), new SchematicMask(true));
+                        template.set(new BlockPos(x, y, z), template.getMask());
                     }
                 }
             }
@@ -114,7 +113,7 @@ public abstract class FillerPattern implements IFillerPattern {
             for (int z = zMin; z <= zMax; ++z) {
                 for (int y = yMax; y >= yMin; --y) {
                     if (isValid(x, y, z, template)) {
-                        template.set(new BlockPos(x, y, z), new SchematicMask(true));
+                        template.set(new BlockPos(x, y, z), template.getMask());
                     }
                 }
             }
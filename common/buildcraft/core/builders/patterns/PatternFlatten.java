@@ -7,7 +7,6 @@ package buildcraft.core.builders.patterns;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 
-import buildcraft.api.blueprints.SchematicMask;
 import buildcraft.api.enums.EnumFillerPattern;
 import buildcraft.api.statements.IStatementParameter;
 import buildcraft.core.Box;
@@ -35,7 +34,7 @@ public class PatternFlatten extends FillerPattern {
         if (box.min().getY() > 0) {
             for (int x = xMin; x <= xMax; ++x) {
                 for (int z = zMin; z <= zMax; ++z) {
-                    bpt.set(new BlockPos(x - xMin, 0, z - zMin), new SchematicMask(true));
+                    bpt.set(new BlockPos(x - xMin, 0, z - zMin), bpt.getMask());
                 }
             }
         }
@@ -7,7 +7,6 @@ package buildcraft.core.builders.patterns;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 
-import buildcraft.api.blueprints.SchematicMask;
 import buildcraft.api.enums.EnumFillerPattern;
 import buildcraft.api.statements.IStatementParameter;
 import buildcraft.core.Box;
@@ -29,21 +28,21 @@ public class PatternFrame extends FillerPattern {
         for (int it = 0; it < 2; it++) {
             int y = it * (box.size().getY() - 1);
             for (int i = 0; i < template.size.getX(); ++i) {
-                template.set(new BlockPos(i, y, 0), new SchematicMask(true));
-                template.set(new BlockPos(i, y, zMax), new SchematicMask(true));
+                template.set(new BlockPos(i, y, 0), template.getMask());
+                template.set(new BlockPos(i, y, zMax), template.getMask());
             }
 
             for (int k = 0; k < template.size.getZ(); ++k) {
-                template.set(new BlockPos(0, y, k), new SchematicMask(true));
-                template.set(new BlockPos(xMax, y, k), new SchematicMask(true));
+                template.set(new BlockPos(0, y, k), template.getMask());
+                template.set(new BlockPos(xMax, y, k), template.getMask());
             }
         }
 
         for (int h = 1; h < box.size().getY(); ++h) {
-            template.set(new BlockPos(0, h, 0), new SchematicMask(true));
-            template.set(new BlockPos(0, h, zMax), new SchematicMask(true));
-            template.set(new BlockPos(xMax, h, 0), new SchematicMask(true));
-            template.set(new BlockPos(xMax, h, zMax), new SchematicMask(true));
+            template.set(new BlockPos(0, h, 0), template.getMask());
+            template.set(new BlockPos(0, h, zMax), template.getMask());
+            template.set(new BlockPos(xMax, h, 0), template.getMask());
+            template.set(new BlockPos(xMax, h, zMax), template.getMask());
         }
 
         return template;
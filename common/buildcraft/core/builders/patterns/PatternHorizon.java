@@ -8,7 +8,6 @@ import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing.Axis;
 import net.minecraft.world.World;
 
-import buildcraft.api.blueprints.SchematicMask;
 import buildcraft.api.enums.EnumFillerPattern;
 import buildcraft.api.statements.IStatementParameter;
 import buildcraft.core.Box;
@@ -37,7 +36,7 @@ public class PatternHorizon extends FillerPattern {
         if (box.size().getY() > 0) {
             for (int x = xMin; x <= xMax; ++x) {
                 for (int z = zMin; z <= zMax; ++z) {
-                    bpt.set(new BlockPos(x - xMin, 0, z - zMin), new SchematicMask(true));
+                    bpt.set(new BlockPos(x - xMin, 0, z - zMin), bpt.getMask());
                 }
             }
         }
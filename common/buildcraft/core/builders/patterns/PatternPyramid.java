@@ -7,7 +7,6 @@ package buildcraft.core.builders.patterns;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 
-import buildcraft.api.blueprints.SchematicMask;
 import buildcraft.api.enums.EnumFillerPattern;
 import buildcraft.api.statements.IStatementParameter;
 import buildcraft.core.Box;
@@ -81,7 +80,7 @@ public class PatternPyramid extends FillerPattern {
         while (height >= yMin && height <= yMax) {
             for (int x = x1; x <= x2; ++x) {
                 for (int z = z1; z <= z2; ++z) {
-                    bpt.set(new BlockPos(x - xMin, height - yMin, z - zMin), new SchematicMask(true));
+                    bpt.set(new BlockPos(x - xMin, height - yMin, z - zMin), bpt.getMask());
                 }
             }
 
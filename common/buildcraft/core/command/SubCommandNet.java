@@ -0,0 +1,97 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.command;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+
+import buildcraft.core.lib.commands.CommandHelpers;
+import buildcraft.core.lib.commands.SubCommand;
+import buildcraft.core.lib.network.base.ChannelHandler;
+import buildcraft.core.lib.network.base.NetworkStatExporter;
+import buildcraft.core.lib.network.base.NetworkStatRecorder;
+import buildcraft.core.lib.network.base.NetworkStatRecorder.ClassStats;
+import buildcraft.core.lib.network.base.NetworkStatRecorder.EnumOpType;
+import buildcraft.core.lib.network.base.NetworkStatRecorder.PacketSource;
+import buildcraft.core.lib.network.base.PacketPipeline;
+
+/** Shows which packets have used the most bandwidth recently, without needing the statistics window. */
+public class SubCommandNet extends SubCommand {
+    /** How many seconds of history the summary covers. */
+    private static final int WINDOW = 10;
+    private static final int SHOWN_SOURCES = 10;
+
+    public SubCommandNet() {
+        super("net");
+        setPermLevel(PermLevel.ADMIN);
+    }
+
+    @Override
+    public void processSubCommand(ICommandSender sender, String[] args) throws CommandException {
+        if (args.length > 0) {
+            if ("on".equals(args[0])) {
+                ChannelHandler.setRecordStats(true);
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.net.enabled");
+            } else if ("off".equals(args[0])) {
+                ChannelHandler.setRecordStats(false);
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.net.stopped");
+            } else if ("reset".equals(args[0])) {
+                NetworkStatRecorder.reset();
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.net.reset");
+            } else if ("export".equals(args[0])) {
+                File file = NetworkStatExporter.INSTANCE.export();
+                if (file != null) {
+                    CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.net.exported", file.getAbsolutePath());
+                }
+            } else {
+                CommandHelpers.throwWrongUsage(sender, this);
+            }
+            return;
+        }
+
+        if (!ChannelHandler.shouldRecordStats()) {
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.net.disabled");
+        }
+
+        for (EnumOpType type : EnumOpType.values()) {
+            long packets = 0, bytes = 0;
+            for (ClassStats stats : NetworkStatRecorder.getClassStats()) {
+                packets += stats.getStats(type).getWindowPackets(WINDOW);
+                bytes += stats.getStats(type).getWindowBytes(WINDOW);
+            }
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.net.total." + type.name().toLowerCase(), WINDOW, packets, bytes);
+        }
+
+        List<PacketSource> sources = NetworkStatRecorder.getSources();
+        Collections.sort(sources, new Comparator<PacketSource>() {
+            @Override
+            public int compare(PacketSource a, PacketSource b) {
+                return Long.compare(getWindowBytes(b), getWindowBytes(a));
+            }
+        });
+        for (PacketSource source : sources.subList(0, Math.min(SHOWN_SOURCES, sources.size()))) {
+            long bytes = getWindowBytes(source);
+            if (bytes == 0) {
+                break;
+            }
+            long packets = source.getStats(EnumOpType.READ).getWindowPackets(WINDOW) + source.getStats(EnumOpType.WRITE).getWindowPackets(WINDOW);
+            String className = source.getClassName().substring(source.getClassName().lastIndexOf('.') + 1);
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.net.entry", className, source.getExtraInfo(), packets, bytes);
+        }
+
+        PacketPipeline pipeline = PacketPipeline.INSTANCE;
+        CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.net.pipeline", pipeline.getQueueDepth(), pipeline.getPeakDepth(), pipeline
+                .getQueued(), pipeline.getCoalesced(), pipeline.getPacketsSent(), pipeline.getFramesSent(), pipeline.getOverflowFlushes());
+    }
+
+    private static long getWindowBytes(PacketSource source) {
+        return source.getStats(EnumOpType.READ).getWindowBytes(WINDOW) + source.getStats(EnumOpType.WRITE).getWindowBytes(WINDOW);
+    }
+}
@@ -0,0 +1,53 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.command;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+
+import buildcraft.core.lib.commands.CommandHelpers;
+import buildcraft.core.lib.commands.SubCommand;
+import buildcraft.core.lib.utils.TickProfiler;
+import buildcraft.core.lib.utils.TickProfiler.Entry;
+
+/** Controls the {@link TickProfiler}, and shows the classes and positions that took the most time per tick. */
+public class SubCommandProfile extends SubCommand {
+    private static final int DEFAULT_COUNT = 10;
+
+    public SubCommandProfile() {
+        super("profile");
+        setPermLevel(PermLevel.ADMIN);
+    }
+
+    @Override
+    public void processSubCommand(ICommandSender sender, String[] args) throws CommandException {
+        if (args.length < 1) {
+            CommandHelpers.throwWrongUsage(sender, this);
+        }
+        if ("start".equals(args[0])) {
+            TickProfiler.INSTANCE.startProfiling();
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.profile.started", TickProfiler.HISTORY);
+        } else if ("stop".equals(args[0])) {
+            TickProfiler.INSTANCE.stopProfiling();
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.profile.stopped");
+        } else if ("top".equals(args[0])) {
+            int count = args.length > 1 ? CommandBase.parseInt(args[1], 1, 100) : DEFAULT_COUNT;
+            if (!TickProfiler.isRunning()) {
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.profile.notRunning");
+            }
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.profile.classes");
+            for (Entry entry : TickProfiler.INSTANCE.getTopClasses(count)) {
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.profile.entry", entry.name, entry.getNanosPerTick() / 1000);
+            }
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.profile.positions");
+            for (Entry entry : TickProfiler.INSTANCE.getTopPositions(count)) {
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.profile.entry", entry.name, entry.getNanosPerTick() / 1000);
+            }
+        } else {
+            CommandHelpers.throwWrongUsage(sender, this);
+        }
+    }
+}
@@ -4,20 +4,44 @@
  * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
 package buildcraft.core.lib;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.world.World;
 
-import buildcraft.api.core.SafeTimeTracker;
+import buildcraft.api.core.BCLog;
+import buildcraft.core.lib.utils.Utils;
 
+/** Caches the block state and tile entity at a position next to a block. On the server the cache is only refreshed
+ * after {@link #invalidate()} has been called (by neighbour changes, {@link ITileBufferHolder#blockCreated} or
+ * {@link ITileBufferHolder#blockRemoved}), after any chunk of its world has been loaded or unloaded, or when the cached
+ * tile has been invalidated. Otherwise reading it is just a few field reads. Client worlds get chunks and tiles from the
+ * server without any of those events, so there every read still looks at the world. */
 public final class TileBuffer {
+    /** If true, every cached read is checked against the world, and any mistakes are logged. */
+    public static boolean verifyCache = false;
+
+    /** Counts the chunks that have been loaded or unloaded in a world. Only the thread of that world increases it, but
+     * buffers might be read from other threads. */
+    private static final class ChunkCounter {
+        volatile int count = 0;
+    }
+
+    /** Tiles in unloaded chunks are not invalidated, and loading a chunk does not notify its neighbours, so every buffer
+     * in a world refreshes itself after a chunk of that world is loaded or unloaded just in case it was that chunk. */
+    private static final Map<World, ChunkCounter> chunkChanges = Collections.synchronizedMap(new WeakHashMap<World, ChunkCounter>());
 
     private IBlockState state = null;
     private TileEntity tile;
 
-    private final SafeTimeTracker tracker = new SafeTimeTracker(20, 5);
+    private boolean valid = false;
+    private int seenChunkChanges;
+    private final ChunkCounter chunks;
     private final World world;
     private final BlockPos pos;
     private final boolean loadUnloaded;
@@ -27,10 +51,19 @@ public final class TileBuffer {
         this.world = world;
         this.pos = pos;
         this.loadUnloaded = loadUnloaded;
+        this.chunks = chunkChanges.computeIfAbsent(world, w -> new ChunkCounter());
 
         refresh();
     }
 
+    /** Called whenever a chunk is loaded or unloaded in the given world. */
+    public static void onChunkChange(World world) {
+        ChunkCounter counter = chunkChanges.get(world);
+        if (counter != null) {
+            counter.count++;
+        }
+    }
+
     public void refresh() {
         tile = null;
         state = null;
@@ -44,19 +77,47 @@ public final class TileBuffer {
         // if (state != null && state.getBlock().hasTileEntity(state)) {
         tile = world.getTileEntity(pos);
         // }
+
+        valid = true;
+        seenChunkChanges = chunks.count;
     }
 
     public void set(IBlockState state, TileEntity tile) {
         this.state = state;
         this.tile = tile;
-        tracker.markTime(world);
+        valid = true;
+        seenChunkChanges = chunks.count;
+    }
+
+    /** Makes the next read look at the world again. */
+    public void invalidate() {
+        valid = false;
+    }
+
+    private boolean isStale() {
+        if (world.isRemote) {
+            return true;
+        }
+        return !valid || seenChunkChanges != chunks.count || Utils.CAULDRON_DETECTED || (tile != null && tile.isInvalid());
     }
 
     private void tryRefresh() {
-        // if (Utils.CAULDRON_DETECTED || (tile != null && tile.isInvalid()) || (tile == null &&
-        // tracker.markTimeIfDelay(world))) {
-        refresh();
-        // }
+        if (isStale()) {
+            refresh();
+        } else if (verifyCache) {
+            verify();
+        }
+    }
+
+    private void verify() {
+        IBlockState realState = world.getBlockState(pos);
+        TileEntity realTile = world.getTileEntity(pos);
+        if (realState != state || realTile != tile) {
+            BCLog.logger.warn("TileBuffer at " + pos + " was out of date: had " + state + ", " + tile + " but the world has " + realState + ", "
+                + realTile);
+            state = realState;
+            tile = realTile;
+        }
     }
 
     public IBlockState getBlockState() {
@@ -69,32 +130,33 @@ public final class TileBuffer {
         return getTile(false);
     }
 
-    // This is severely broken :( FIXME
     public TileEntity getTile(boolean forceUpdate) {
-        // if (!Utils.CAULDRON_DETECTED && tile != null && !tile.isInvalid()) {
-        // return tile;
-        // }
-
-        // if (Utils.CAULDRON_DETECTED || (forceUpdate && tile != null && tile.isInvalid()) ||
-        // tracker.markTimeIfDelay(world)) {
-        refresh();
+        if (forceUpdate) {
+            refresh();
+        } else {
+            tryRefresh();
+        }
 
-        // if (tile != null && !tile.isInvalid()) {
         return tile;
-        // }
-        // }
-
-        // return null;
     }
 
     public boolean exists() {
-        // if (tile != null && !Utils.CAULDRON_DETECTED && !tile.isInvalid()) {
-        // return true;
-        // }
+        if (tile != null && !isStale()) {
+            return true;
+        }
 
         return world.isBlockLoaded(pos);
     }
 
+    /** Invalidates every buffer in the given array, if there is one. */
+    public static void invalidate(TileBuffer[] buffer) {
+        if (buffer != null) {
+            for (TileBuffer b : buffer) {
+                b.invalidate();
+            }
+        }
+    }
+
     public static TileBuffer[] makeBuffer(World world, BlockPos pos, boolean loadUnloaded) {
         TileBuffer[] buffer = new TileBuffer[6];
 
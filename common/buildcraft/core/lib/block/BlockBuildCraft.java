@@ -4,6 +4,7 @@
  * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
 package buildcraft.core.lib.block;
 
+import net.minecraft.block.Block;
 import net.minecraft.block.ITileEntityProvider;
 import net.minecraft.block.material.Material;
 import net.minecraft.block.state.IBlockState;
@@ -108,6 +109,29 @@ public abstract class BlockBuildCraft extends BlockBuildCraftBase implements ITi
         super.breakBlock(world, pos, state);
     }
 
+    @Override
+    public void onNeighborBlockChange(World world, BlockPos pos, IBlockState state, Block neighbour) {
+        super.onNeighborBlockChange(world, pos, state, neighbour);
+        TileEntity tile = world.getTileEntity(pos);
+        if (tile instanceof TileBuildCraft) {
+            ((TileBuildCraft) tile).invalidateTileCache(null);
+        }
+    }
+
+    @Override
+    public void onNeighborChange(IBlockAccess world, BlockPos pos, BlockPos neighbor) {
+        super.onNeighborChange(world, pos, neighbor);
+        TileEntity tile = world.getTileEntity(pos);
+        if (tile instanceof TileBuildCraft) {
+            for (EnumFacing face : EnumFacing.VALUES) {
+                if (pos.offset(face).equals(neighbor)) {
+                    ((TileBuildCraft) tile).invalidateTileCache(face);
+                    return;
+                }
+            }
+        }
+    }
+
     @Override
     public int getLightValue(IBlockAccess world, BlockPos pos) {
         TileEntity tile = world.getTileEntity(pos);
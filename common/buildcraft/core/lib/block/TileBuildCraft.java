@@ -12,10 +12,13 @@ import buildcraft.api.tiles.IControllable.Mode;
 import buildcraft.core.DefaultProps;
 import buildcraft.core.lib.RFBattery;
 import buildcraft.core.lib.TileBuffer;
+import buildcraft.core.lib.network.PacketTileDelta;
 import buildcraft.core.lib.network.PacketTileUpdate;
+import buildcraft.core.lib.network.SyncedFields;
 import buildcraft.core.lib.network.base.Packet;
 import buildcraft.core.lib.utils.NBTUtils;
 import buildcraft.core.lib.utils.NetworkUtils;
+import buildcraft.core.lib.utils.TickProfiler;
 import cofh.api.energy.IEnergyProvider;
 import cofh.api.energy.IEnergyReceiver;
 import io.netty.buffer.ByteBuf;
@@ -52,7 +55,10 @@ public abstract class TileBuildCraft extends TileEntity implements IEnergyProvid
     protected TileBuffer[] cache;
     protected HashSet<EntityPlayer> guiWatchers = new HashSet<>();
     protected IControllable.Mode mode;
-    private boolean sendNetworkUpdate = false;
+    /** Fields that are sent to the client on their own when {@link #sendSyncUpdate()} is called, instead of sending
+     * the whole of {@link #writeData(ByteBuf)}. Subclasses add their own in their constructor. */
+    protected final SyncedFields syncedFields = new SyncedFields();
+    private boolean sendNetworkUpdate = false, sendSyncUpdate = false;
 
     protected int init = 0;
     private String owner = "[BuildCraft]";
@@ -68,6 +74,11 @@ public abstract class TileBuildCraft extends TileEntity implements IEnergyProvid
      * be implemented until this pre-release has gone out for a while now. */
     private NBTTagCompound lastBlockState = null;
 
+    public TileBuildCraft() {
+        syncedFields.addInt(() -> ledPower, v -> ledPower = v);
+        syncedFields.addEnum(IControllable.Mode.class, () -> mode, v -> mode = v);
+    }
+
     public String getOwner() {
         return owner;
     }
@@ -84,9 +95,17 @@ public abstract class TileBuildCraft extends TileEntity implements IEnergyProvid
         }
     }
 
+    /** Times the whole tick, including whatever subclasses do in {@link #updateTile()}. */
     @Override
-    public void update() {
+    public final void update() {
         if (worldObj == null) throw new NullPointerException("worldObj");
+        long profile = TickProfiler.start();
+        updateTile();
+        TickProfiler.end(profile, TickProfiler.Section.TILE, getClass(), worldObj, pos);
+    }
+
+    /** Called once per tick from {@link #update()}. Overrides should call super.updateTile() first. */
+    protected void updateTile() {
         if (init != 2 && !isInvalid()) {
             if (init < 1) {
                 init++;
@@ -109,7 +128,7 @@ public abstract class TileBuildCraft extends TileEntity implements IEnergyProvid
                     ledPower = stored * 2 / max + 1;
                 }
                 if (prePower != ledPower) {
-                    sendNetworkUpdate();
+                    sendSyncUpdate();
                 }
             }
         }
@@ -128,16 +147,26 @@ public abstract class TileBuildCraft extends TileEntity implements IEnergyProvid
             if (worldObj.isRemote) {
                 worldObj.markBlockForUpdate(getPos());
             } else {
-                sendNetworkUpdate();
+                sendSyncUpdate();
             }
             lastLedPower = ledPower;
             lastLedDone = ledDone;
         }
 
-        if (sendNetworkUpdate) {
-            if (worldObj != null && !worldObj.isRemote) {
+        if (!worldObj.isRemote) {
+            if (sendNetworkUpdate) {
                 BuildCraftCore.instance.sendToPlayers(getPacketUpdate(), worldObj, getPos(), DefaultProps.NETWORK_UPDATE_RANGE);
+                // The full update contains every synced field as well
+                syncedFields.markAllSent();
                 sendNetworkUpdate = false;
+                sendSyncUpdate = false;
+            } else if (sendSyncUpdate) {
+                ByteBuf fieldData = Unpooled.buffer();
+                if (syncedFields.writeChanged(fieldData)) {
+                    BuildCraftCore.instance.sendToPlayers(new PacketTileDelta(this, fieldData), worldObj, getPos(),
+                            DefaultProps.NETWORK_UPDATE_RANGE);
+                }
+                sendSyncUpdate = false;
             }
         }
     }
@@ -174,6 +203,20 @@ public abstract class TileBuildCraft extends TileEntity implements IEnergyProvid
         sendNetworkUpdate = true;
     }
 
+    /** Sends only the {@link #syncedFields} that have changed at the end of this tick. If
+     * {@link #sendNetworkUpdate()} is called as well then the full update is sent instead. */
+    public void sendSyncUpdate() {
+        sendSyncUpdate = true;
+    }
+
+    public void readSyncedFields(ByteBuf data) {
+        syncedFields.read(data);
+        onSyncedFieldsRead();
+    }
+
+    /** Called on the client after some of the {@link #syncedFields} have been changed by the server. */
+    protected void onSyncedFieldsRead() {}
+
     @Override
     public void writeData(ByteBuf stream) {
         stream.writeByte(ledPower);
@@ -361,6 +404,15 @@ public abstract class TileBuildCraft extends TileEntity implements IEnergyProvid
         this.battery = battery;
     }
 
+    /** Makes the cached neighbours look at the world again, on the given side or on every side if it is null. */
+    public void invalidateTileCache(EnumFacing side) {
+        if (side == null) {
+            TileBuffer.invalidate(cache);
+        } else if (cache != null) {
+            cache[side.ordinal()].invalidate();
+        }
+    }
+
     public IBlockState getBlockState(EnumFacing side) {
         if (isNotReady()) return null;
         if (cache == null) {
@@ -383,7 +435,7 @@ public abstract class TileBuildCraft extends TileEntity implements IEnergyProvid
 
     public void setControlMode(IControllable.Mode mode) {
         this.mode = mode;
-        sendNetworkUpdate();
+        sendSyncUpdate();
     }
 
     // Capability wrapper
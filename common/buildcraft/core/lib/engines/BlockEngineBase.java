@@ -192,6 +192,7 @@ public abstract class BlockEngineBase extends BlockBuildCraft implements ICustom
 
     @Override
     public void onNeighborBlockChange(World world, BlockPos pos, IBlockState state, Block neighbour) {
+        super.onNeighborBlockChange(world, pos, state, neighbour);
         TileEntity tile = world.getTileEntity(pos);
 
         if (tile instanceof TileEngineBase) {
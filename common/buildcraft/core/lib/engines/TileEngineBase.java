@@ -164,8 +164,8 @@ public abstract class TileEngineBase extends TileBuildCraft implements IPipeConn
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (lastTick < 4) {
             lastTick++;
@@ -1,14 +1,38 @@
 package buildcraft.core.lib.event;
 
-import java.util.Collection;
-
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Multimap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
+/** Calls every handler of every registered object that listens to a type of the fired event.
+ * <p>
+ * Which handlers listen to an event class is worked out the first time that an event of that class is fired, and is
+ * kept as an array. Registering or unregistering an object replaces the arrays that it changes rather than changing
+ * them, so handlers may (un)register objects at any time: it applies straight away to every event fired after it
+ * (including events fired by other handlers of the current one), while the events that are already being fired carry
+ * on with the handlers that they started with. Firing an event is then a plain loop, without allocating anything. */
 public class EventBusASM<T> implements IEventBus<T> {
-    private final Multimap<Object, IEventHandler<T>> handlers = HashMultimap.create();
+    /** A handler, along with the class of events that it listens to. */
+    private static class TypedHandler<T> {
+        final Class<?> eventClass;
+        final IEventHandler<T> handler;
+
+        TypedHandler(Class<?> eventClass, IEventHandler<T> handler) {
+            this.eventClass = eventClass;
+            this.handler = handler;
+        }
+    }
+
+    private static final IEventHandler<?>[] NO_HANDLERS = new IEventHandler<?>[0];
+
     private final EventBusProviderASM<T> provider;
+    /** Every registered object, in the order that they were registered, with all of their handlers. */
+    private final Map<Object, List<TypedHandler<T>>> registered = new IdentityHashMap<>();
+    private final List<Object> registrationOrder = new ArrayList<>();
+    /** The handlers of every concrete event class that has been fired so far. */
+    private final Map<Class<?>, IEventHandler<T>[]> dispatch = new HashMap<>();
 
     public EventBusASM(EventBusProviderASM<T> provider) {
         this.provider = provider;
@@ -16,22 +40,93 @@ public class EventBusASM<T> implements IEventBus<T> {
 
     @Override
     public void registerHandler(Object handler) {
+        if (registered.containsKey(handler)) {
+            return;
+        }
+
         EventProviderASM<T> eventProvider = provider.getProviderFor(handler.getClass());
-        handlers.putAll(handler, eventProvider.getNewHandlerSet(handler));
+        List<IEventHandler<T>> handlers = eventProvider.getNewHandlerSet(handler);
+        List<TypedHandler<T>> typed = new ArrayList<>(handlers.size());
+        for (int i = 0; i < handlers.size(); i++) {
+            typed.add(new TypedHandler<>(eventProvider.getEventClass(i), handlers.get(i)));
+        }
+        registered.put(handler, typed);
+        registrationOrder.add(handler);
+
+        // New handlers always go at the end, so only the arrays that they are added to need to change
+        for (Map.Entry<Class<?>, IEventHandler<T>[]> entry : dispatch.entrySet()) {
+            IEventHandler<T>[] old = entry.getValue();
+            List<IEventHandler<T>> added = null;
+            for (TypedHandler<T> typedHandler : typed) {
+                if (typedHandler.eventClass.isAssignableFrom(entry.getKey())) {
+                    if (added == null) {
+                        added = new ArrayList<>(old.length + typed.size());
+                        for (IEventHandler<T> existing : old) {
+                            added.add(existing);
+                        }
+                    }
+                    added.add(typedHandler.handler);
+                }
+            }
+            if (added != null) {
+                entry.setValue(toArray(added));
+            }
+        }
     }
 
     @Override
     public void unregisterHandler(Object handler) {
-        handlers.removeAll(handler);
+        List<TypedHandler<T>> typed = registered.remove(handler);
+        if (typed == null) {
+            return;
+        }
+        registrationOrder.remove(handler);
+
+        for (Map.Entry<Class<?>, IEventHandler<T>[]> entry : dispatch.entrySet()) {
+            boolean changed = false;
+            for (TypedHandler<T> typedHandler : typed) {
+                if (typedHandler.eventClass.isAssignableFrom(entry.getKey())) {
+                    changed = true;
+                    break;
+                }
+            }
+            if (changed) {
+                entry.setValue(resolve(entry.getKey()));
+            }
+        }
     }
 
     @Override
     public void handleEvent(T event) {
-        // This allows handlers to be registered and unregistered at any time, event during event firing.
-        Collection<IEventHandler<T>> handlers = this.handlers.values();
-        handlers = ImmutableList.copyOf(handlers);
+        IEventHandler<T>[] handlers = dispatch.get(event.getClass());
+        if (handlers == null) {
+            handlers = resolve(event.getClass());
+            dispatch.put(event.getClass(), handlers);
+        }
+        // (Un)registering replaces the array rather than changing it, so this loop is never affected by that
         for (IEventHandler<T> handler : handlers) {
             handler.handle(event);
         }
     }
+
+    /** @return Every handler that listens to the given event class, in the order that they were registered. */
+    private IEventHandler<T>[] resolve(Class<?> eventClass) {
+        List<IEventHandler<T>> handlers = new ArrayList<>();
+        for (Object owner : registrationOrder) {
+            for (TypedHandler<T> typedHandler : registered.get(owner)) {
+                if (typedHandler.eventClass.isAssignableFrom(eventClass)) {
+                    handlers.add(typedHandler.handler);
+                }
+            }
+        }
+        return toArray(handlers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> IEventHandler<T>[] toArray(List<IEventHandler<T>> handlers) {
+        if (handlers.isEmpty()) {
+            return (IEventHandler<T>[]) NO_HANDLERS;
+        }
+        return handlers.toArray((IEventHandler<T>[]) new IEventHandler<?>[handlers.size()]);
+    }
 }
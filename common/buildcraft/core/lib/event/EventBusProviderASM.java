@@ -2,6 +2,7 @@ package buildcraft.core.lib.event;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -16,9 +17,14 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
 
+import buildcraft.BuildCraftCore;
 import buildcraft.api.core.BCLog;
+import buildcraft.core.lib.config.DetailedConfigOption;
 
 public class EventBusProviderASM<T> implements IEventBusProvider<T> {
+    /** Writes every generated class to ./asm/buildcraft/ as well, so that it can be inspected. */
+    private static final DetailedConfigOption OPTION_DUMP_CLASSES = new DetailedConfigOption("debug.asm.dump", "false");
+
     private final Class<T> eventBaseClass;
     private final Class<? extends Annotation> annotationClass;
 
@@ -49,6 +55,7 @@ public class EventBusProviderASM<T> implements IEventBusProvider<T> {
 
     private EventProviderASM<T> generateProvider(Class<?> clazz) {
         List<IEventHandlerProvider<T>> providers = Lists.newArrayList();
+        List<Class<?>> eventClasses = Lists.newArrayList();
         for (Method meth : clazz.getMethods()) {
             if (!Modifier.isPublic(meth.getModifiers())) continue;
             Annotation annotation = meth.getAnnotation(annotationClass);
@@ -73,11 +80,18 @@ public class EventBusProviderASM<T> implements IEventBusProvider<T> {
                 continue;
             }
             providers.add(generateSingleProvider(meth, par));
+            eventClasses.add(par);
         }
-        return new EventProviderASM<>(providers);
+        return new EventProviderASM<>(providers, eventClasses);
     }
 
-    private IEventHandlerProvider<T> generateSingleProvider(Method meth, Class<?> parClass) {
+    /** Generates a provider of handlers that call the given method directly, without any reflection. The method and
+     * its declaring class must both be public, as the generated classes live in a different package.
+     *
+     * @param meth The method to call. It must take a single argument.
+     * @param parClass The class of events that the method should be called with. Events that are not an instance of
+     *            this are ignored by the generated handlers. */
+    public static <T> IEventHandlerProvider<T> generateSingleProvider(Method meth, Class<?> parClass) {
         String clsName = "buildcraft.core.lib.event._GENERATED_.";
         clsName += meth.getDeclaringClass().getName() + "._METHOD_.";
         clsName += meth.getName() + "._EVENT_." + parClass.getName();
@@ -97,7 +111,7 @@ public class EventBusProviderASM<T> implements IEventBusProvider<T> {
         }
     }
 
-    private byte[] generateGenerator(Class<? extends IEventHandler<?>> handlerClass, Class<?> parClass, String clsName) {
+    private static byte[] generateGenerator(Class<? extends IEventHandler<?>> handlerClass, Class<?> parClass, String clsName) {
         ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
         ClassNode node = new ClassNode();
         node.name = clsName.replace('.', '/');
@@ -153,7 +167,7 @@ public class EventBusProviderASM<T> implements IEventBusProvider<T> {
         return writer.toByteArray();
     }
 
-    private byte[] generateDirectHandler(Method meth, Class<?> parClass, String clsName) {
+    private static byte[] generateDirectHandler(Method meth, Class<?> parClass, String clsName) {
         ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
         ClassNode node = new ClassNode();
         node.name = clsName.replace('.', '/');
@@ -243,18 +257,17 @@ public class EventBusProviderASM<T> implements IEventBusProvider<T> {
         return bytecode;
     }
 
-    private <A> Class<A> writeAndLoadClassOfA(byte[] bytes, String clsName) {
-        try {
-            // Just output the classes for debugging. Remove this later when we know it works fully.
+    private static <A> Class<A> writeAndLoadClassOfA(byte[] bytes, String clsName) {
+        // The detailed config doesn't exist outside of the game (or before pre-init)
+        if (BuildCraftCore.detailedConfigManager != null && OPTION_DUMP_CLASSES.getAsBoolean()) {
+            // Only for debugging the generated code: the class is always defined from memory
             File folder = new File("./asm/buildcraft/");
             folder.mkdirs();
-            FileOutputStream fos = new FileOutputStream("./asm/buildcraft/" + clsName + ".class");
-            fos.write(bytes);
-            fos.flush();
-            fos.close();
-        } catch (Exception e) {
-            // We should never NOT be able to write the class to debug it.
-            throw new RuntimeException(e);
+            try (FileOutputStream fos = new FileOutputStream(new File(folder, clsName + ".class"))) {
+                fos.write(bytes);
+            } catch (IOException e) {
+                BCLog.logger.warn("Could not write the generated class " + clsName + " for debugging: " + e.getMessage());
+            }
         }
 
         Class<?> cls = ByteCodeLoader.INSTANCE.define(clsName, bytes);
@@ -275,7 +288,6 @@ public class EventBusProviderASM<T> implements IEventBusProvider<T> {
             // time
             synchronized (classDefinitionMap) {
                 if (!classDefinitionMap.containsKey(name)) {
-                    BCLog.logger.info("Defining the class " + name);
                     classDefinitionMap.put(name, defineClass(name, data, 0, data.length));
                 }
                 return classDefinitionMap.get(name);
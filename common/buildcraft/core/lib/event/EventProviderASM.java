@@ -7,9 +7,13 @@ import com.google.common.collect.Lists;
 
 public class EventProviderASM<T> {
     private final List<IEventHandlerProvider<T>> handlerProviders;
+    private final List<Class<?>> eventClasses;
 
-    public EventProviderASM(List<IEventHandlerProvider<T>> handlerProviders) {
+    /** @param eventClasses The class of events that each of the providers' handlers listen to. */
+    public EventProviderASM(List<IEventHandlerProvider<T>> handlerProviders, List<Class<?>> eventClasses) {
+        if (handlerProviders.size() != eventClasses.size()) throw new IllegalArgumentException("Every provider needs an event class!");
         this.handlerProviders = ImmutableList.copyOf(handlerProviders);
+        this.eventClasses = ImmutableList.copyOf(eventClasses);
     }
 
     public List<IEventHandler<T>> getNewHandlerSet(Object obj) {
@@ -19,4 +23,10 @@ public class EventProviderASM<T> {
         }
         return handlers;
     }
+
+    /** @return The class of events that the handler at the given index of {@link #getNewHandlerSet(Object)} listens
+     *         to. */
+    public Class<?> getEventClass(int index) {
+        return eventClasses.get(index);
+    }
 }
@@ -8,6 +8,7 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 
 import buildcraft.core.lib.network.base.Packet;
+import buildcraft.core.lib.utils.NetworkUtils;
 
 import io.netty.buffer.ByteBuf;
 
@@ -31,15 +32,13 @@ public abstract class PacketCoordinates extends Packet {
     @Override
     public void writeData(ByteBuf data) {
         super.writeData(data);
-        data.writeInt(pos.getX());
-        data.writeInt(pos.getY());
-        data.writeInt(pos.getZ());
+        NetworkUtils.writeCompactBlockPos(data, pos);
     }
 
     @Override
     public void readData(ByteBuf data) {
         super.readData(data);
-        pos = new BlockPos(data.readInt(), data.readInt(), data.readInt());
+        pos = NetworkUtils.readCompactBlockPos(data);
     }
 
     @Override
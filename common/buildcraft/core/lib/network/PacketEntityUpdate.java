@@ -34,6 +34,11 @@ public class PacketEntityUpdate extends PacketUpdate {
         entityId = data.readInt();
     }
 
+    @Override
+    public Object getCoalesceKey() {
+        return makeCoalesceKey(entityId);
+    }
+
     public boolean targetExists(World world) {
         return world.getEntityByID(entityId) != null;
     }
@@ -12,6 +12,7 @@ import net.minecraft.world.World;
 
 import buildcraft.BuildCraftCore;
 import buildcraft.core.lib.network.base.Packet;
+import buildcraft.core.lib.utils.NetworkUtils;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -48,9 +49,7 @@ public class PacketGuiReturn extends Packet {
         if (obj instanceof TileEntity) {
             TileEntity tile = (TileEntity) obj;
             data.writeBoolean(true);
-            data.writeInt(tile.getPos().getX());
-            data.writeInt(tile.getPos().getY());
-            data.writeInt(tile.getPos().getZ());
+            NetworkUtils.writeCompactBlockPos(data, tile.getPos());
         } else if (obj instanceof Entity) {
             Entity entity = (Entity) obj;
             data.writeBoolean(false);
@@ -78,7 +77,7 @@ public class PacketGuiReturn extends Packet {
         tileReturn = data.readBoolean();
 
         if (tileReturn) {
-            pos = new BlockPos(data.readInt(), data.readInt(), data.readInt());
+            pos = NetworkUtils.readCompactBlockPos(data);
 
             int length = data.readInt();
             heldData = data.readBytes(length);
@@ -0,0 +1,56 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.lib.network;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import buildcraft.core.lib.block.TileBuildCraft;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/** Sends the {@link SyncedFields} of a tile that have changed. Unlike {@link PacketTileUpdate} the values are written
+ * when this is created, because the tile has already remembered them as sent. So these are never coalesced. */
+public class PacketTileDelta extends PacketCoordinates {
+    private ByteBuf fieldData;
+
+    public PacketTileDelta() {
+        super();
+    }
+
+    public PacketTileDelta(TileEntity tile, ByteBuf fieldData) {
+        super(tile);
+        this.fieldData = fieldData;
+    }
+
+    @Override
+    public void writeData(ByteBuf data) {
+        super.writeData(data);
+        data.writeInt(fieldData.readableBytes());
+        data.writeBytes(fieldData, fieldData.readerIndex(), fieldData.readableBytes());
+    }
+
+    @Override
+    public void readData(ByteBuf data) {
+        super.readData(data);
+        int length = data.readInt();
+        fieldData = Unpooled.copiedBuffer(data.readBytes(length));
+    }
+
+    @Override
+    public void applyData(World world, EntityPlayer player) {
+        if (!world.isBlockLoaded(pos)) {
+            return;
+        }
+
+        TileEntity tile = world.getTileEntity(pos);
+
+        if (tile instanceof TileBuildCraft) {
+            ((TileBuildCraft) tile).readSyncedFields(fieldData);
+        }
+    }
+}
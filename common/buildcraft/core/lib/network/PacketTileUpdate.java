@@ -10,6 +10,7 @@ import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 
 import buildcraft.api.core.ISerializable;
+import buildcraft.core.lib.utils.NetworkUtils;
 
 import io.netty.buffer.ByteBuf;
 
@@ -29,14 +30,18 @@ public class PacketTileUpdate extends PacketUpdate {
 
     @Override
     public void writeIdentificationData(ByteBuf data) {
-        data.writeInt(pos.getX());
-        data.writeInt(pos.getY());
-        data.writeInt(pos.getZ());
+        NetworkUtils.writeCompactBlockPos(data, pos);
     }
 
     @Override
     public void readIdentificationData(ByteBuf data) {
-        pos = new BlockPos(data.readInt(), data.readInt(), data.readInt());
+        pos = NetworkUtils.readCompactBlockPos(data);
+    }
+
+    @Override
+    public Object getCoalesceKey() {
+        // The payload is only written when this is sent, so every update of a tile in a tick sends the same data
+        return makeCoalesceKey(pos.toLong());
     }
 
     public boolean targetExists(World world) {
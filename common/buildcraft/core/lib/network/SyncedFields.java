@@ -0,0 +1,418 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.lib.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.Vec3;
+
+import net.minecraftforge.fluids.Fluid;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+
+import buildcraft.core.lib.utils.NetworkUtils;
+
+import io.netty.buffer.ByteBuf;
+
+/** A list of fields that a tile sends to the client on their own, whenever they change. Each field is given as a getter
+ * (used on the server) and a setter (used on the client), in the same order on both sides:
+ *
+ * <pre>
+ * syncedFields.addInt(() -&gt; progress, v -&gt; progress = v);
+ * </pre>
+ *
+ * The server remembers the value that it last sent for each field. {@link #writeChanged(ByteBuf)} writes a bitmask of
+ * the fields that are different to that, followed by only their values. Fields that are changed in place (instead of
+ * being replaced) can be sent anyway with {@link #markDirty(int)}.
+ * <p>
+ * This does not replace the full update of a tile: that is still sent when a player starts to watch it, and whenever
+ * the tile calls sendNetworkUpdate(). */
+public class SyncedFields {
+    /** The most fields that can be registered, as the bitmask is an int. */
+    public static final int MAX_FIELDS = 32;
+
+    private abstract static class Field {
+        /** False until the value has been sent once, so that the first delta always contains it. */
+        boolean sent = false;
+
+        /** @return True if the current value is different to the last one that was sent. */
+        abstract boolean hasChanged();
+
+        /** Writes the current value, and remembers it as the last one sent. */
+        abstract void write(ByteBuf data);
+
+        /** Remembers the current value as the last one sent, without writing it. */
+        abstract void markSent();
+
+        abstract void read(ByteBuf data);
+    }
+
+    private final List<Field> fields = new ArrayList<>();
+    private int dirty = 0;
+
+    private int add(Field field) {
+        if (fields.size() >= MAX_FIELDS) {
+            throw new IllegalStateException("Cannot sync more than " + MAX_FIELDS + " fields!");
+        }
+        fields.add(field);
+        return fields.size() - 1;
+    }
+
+    /** @return The index of the field, for {@link #markDirty(int)}. */
+    public int addInt(final IntSupplier getter, final IntConsumer setter) {
+        return add(new Field() {
+            int last;
+
+            @Override
+            boolean hasChanged() {
+                return !sent || getter.getAsInt() != last;
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                NetworkUtils.writeSignedVarInt(data, last);
+            }
+
+            @Override
+            void markSent() {
+                last = getter.getAsInt();
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                setter.accept(NetworkUtils.readSignedVarInt(data));
+            }
+        });
+    }
+
+    public int addBoolean(final Supplier<Boolean> getter, final Consumer<Boolean> setter) {
+        return add(new Field() {
+            boolean last;
+
+            @Override
+            boolean hasChanged() {
+                return !sent || getter.get() != last;
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                data.writeBoolean(last);
+            }
+
+            @Override
+            void markSent() {
+                last = getter.get();
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                setter.accept(data.readBoolean());
+            }
+        });
+    }
+
+    /** A field that is sent as a float, so the client gets less precision than the server has. */
+    public int addFloat(final DoubleSupplier getter, final DoubleConsumer setter) {
+        return add(new Field() {
+            float last;
+
+            @Override
+            boolean hasChanged() {
+                return !sent || Float.floatToIntBits((float) getter.getAsDouble()) != Float.floatToIntBits(last);
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                data.writeFloat(last);
+            }
+
+            @Override
+            void markSent() {
+                last = (float) getter.getAsDouble();
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                setter.accept(data.readFloat());
+            }
+        });
+    }
+
+    public int addDouble(final DoubleSupplier getter, final DoubleConsumer setter) {
+        return add(new Field() {
+            double last;
+
+            @Override
+            boolean hasChanged() {
+                return !sent || Double.doubleToLongBits(getter.getAsDouble()) != Double.doubleToLongBits(last);
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                data.writeDouble(last);
+            }
+
+            @Override
+            void markSent() {
+                last = getter.getAsDouble();
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                setter.accept(data.readDouble());
+            }
+        });
+    }
+
+    /** An enum field, sent as its ordinal. Null is allowed. */
+    public <E extends Enum<E>> int addEnum(final Class<E> clazz, final Supplier<E> getter, final Consumer<E> setter) {
+        return add(new Field() {
+            E last;
+
+            @Override
+            boolean hasChanged() {
+                return !sent || getter.get() != last;
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                NetworkUtils.writeVarInt(data, last == null ? 0 : last.ordinal() + 1);
+            }
+
+            @Override
+            void markSent() {
+                last = getter.get();
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                int ordinal = NetworkUtils.readVarInt(data);
+                E[] values = clazz.getEnumConstants();
+                setter.accept(ordinal == 0 || ordinal > values.length ? null : values[ordinal - 1]);
+            }
+        });
+    }
+
+    /** A string field. Null is sent as an empty string. */
+    public int addString(final Supplier<String> getter, final Consumer<String> setter) {
+        return add(new Field() {
+            String last;
+
+            @Override
+            boolean hasChanged() {
+                String current = getter.get();
+                return !sent || (current == null ? last != null : !current.equals(last));
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                NetworkUtils.writeUTF(data, last);
+            }
+
+            @Override
+            void markSent() {
+                last = getter.get();
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                setter.accept(NetworkUtils.readUTF(data));
+            }
+        });
+    }
+
+    /** A block position field. Null is allowed. */
+    public int addBlockPos(final Supplier<BlockPos> getter, final Consumer<BlockPos> setter) {
+        return add(new Field() {
+            BlockPos last;
+
+            @Override
+            boolean hasChanged() {
+                BlockPos current = getter.get();
+                return !sent || (current == null ? last != null : !current.equals(last));
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                data.writeBoolean(last != null);
+                if (last != null) {
+                    NetworkUtils.writeCompactBlockPos(data, last);
+                }
+            }
+
+            @Override
+            void markSent() {
+                last = getter.get();
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                setter.accept(data.readBoolean() ? NetworkUtils.readCompactBlockPos(data) : null);
+            }
+        });
+    }
+
+    /** A vector field. Vec3 does not implement equals, so its coordinates are compared instead. */
+    public int addVec3(final Supplier<Vec3> getter, final Consumer<Vec3> setter) {
+        return add(new Field() {
+            double x, y, z;
+
+            @Override
+            boolean hasChanged() {
+                Vec3 current = getter.get();
+                return !sent || current.xCoord != x || current.yCoord != y || current.zCoord != z;
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                data.writeDouble(x);
+                data.writeDouble(y);
+                data.writeDouble(z);
+            }
+
+            @Override
+            void markSent() {
+                Vec3 current = getter.get();
+                x = current.xCoord;
+                y = current.yCoord;
+                z = current.zCoord;
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                setter.accept(new Vec3(data.readDouble(), data.readDouble(), data.readDouble()));
+            }
+        });
+    }
+
+    /** A fluid stack field, compared by fluid and amount. Null (or an empty stack) is allowed. The value that was last
+     * sent is copied, so stacks that are changed in place are still noticed. */
+    public int addFluidStack(final Supplier<FluidStack> getter, final Consumer<FluidStack> setter) {
+        return add(new Field() {
+            FluidStack last;
+
+            @Override
+            boolean hasChanged() {
+                FluidStack current = getter.get();
+                if (!sent) {
+                    return true;
+                } else if (current == null || current.getFluid() == null) {
+                    return last != null;
+                }
+                return !current.isFluidStackIdentical(last);
+            }
+
+            @Override
+            void write(ByteBuf data) {
+                markSent();
+                if (last == null) {
+                    NetworkUtils.writeUTF(data, "");
+                } else {
+                    NetworkUtils.writeUTF(data, last.getFluid().getName());
+                    NetworkUtils.writeSignedVarInt(data, last.amount);
+                }
+            }
+
+            @Override
+            void markSent() {
+                FluidStack current = getter.get();
+                last = current == null || current.getFluid() == null ? null : current.copy();
+                sent = true;
+            }
+
+            @Override
+            void read(ByteBuf data) {
+                String name = NetworkUtils.readUTF(data);
+                if (name == null || name.isEmpty()) {
+                    setter.accept(null);
+                    return;
+                }
+                int amount = NetworkUtils.readSignedVarInt(data);
+                Fluid fluid = FluidRegistry.getFluid(name);
+                setter.accept(fluid == null ? null : new FluidStack(fluid, amount));
+            }
+        });
+    }
+
+    /** Makes the field be sent with the next delta, even if it looks the same as the last value that was sent. */
+    public void markDirty(int index) {
+        dirty |= 1 << index;
+    }
+
+    /** @return A bitmask of every field that needs to be sent. */
+    public int getChanged() {
+        int changed = dirty;
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).hasChanged()) {
+                changed |= 1 << i;
+            }
+        }
+        return changed;
+    }
+
+    /** Writes the bitmask of the changed fields and then their values, and remembers them as sent.
+     *
+     * @return False if nothing had changed, in which case nothing was written. */
+    public boolean writeChanged(ByteBuf data) {
+        int changed = getChanged();
+        if (changed == 0) {
+            return false;
+        }
+        NetworkUtils.writeVarInt(data, changed);
+        for (int i = 0; i < fields.size(); i++) {
+            if ((changed & (1 << i)) != 0) {
+                fields.get(i).write(data);
+            }
+        }
+        dirty = 0;
+        return true;
+    }
+
+    /** Called when the full state has been sent instead, so that the fields are not sent again until they change. */
+    public void markAllSent() {
+        for (Field field : fields) {
+            field.markSent();
+        }
+        dirty = 0;
+    }
+
+    /** Reads something written by {@link #writeChanged(ByteBuf)}, and gives every value in it to its setter. */
+    public void read(ByteBuf data) {
+        int changed = NetworkUtils.readVarInt(data);
+        for (int i = 0; i < fields.size(); i++) {
+            if ((changed & (1 << i)) != 0) {
+                fields.get(i).read(data);
+            }
+        }
+    }
+
+    public int size() {
+        return fields.size();
+    }
+}
@@ -1,26 +1,43 @@
 package buildcraft.core.lib.network.base;
 
+import java.awt.GraphicsEnvironment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
 import net.minecraft.network.INetHandler;
+import net.minecraft.network.PacketBuffer;
 
 import net.minecraftforge.fml.common.network.FMLIndexedMessageToMessageCodec;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
+import net.minecraftforge.fml.relauncher.Side;
 
 import buildcraft.core.lib.network.PacketEntityUpdate;
 import buildcraft.core.lib.network.PacketGuiReturn;
 import buildcraft.core.lib.network.PacketGuiWidget;
 import buildcraft.core.lib.network.PacketSlotChange;
+import buildcraft.core.lib.network.PacketTileDelta;
 import buildcraft.core.lib.network.PacketTileState;
 import buildcraft.core.lib.network.PacketTileUpdate;
 import buildcraft.core.lib.network.base.NetworkStatRecorder.EnumOpType;
+import buildcraft.core.lib.network.command.CommandIds;
 import buildcraft.core.lib.network.command.PacketCommand;
+import buildcraft.core.lib.network.command.PacketCommandIds;
 import buildcraft.core.proxy.CoreProxy;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 
 public final class ChannelHandler extends FMLIndexedMessageToMessageCodec<Packet> {
     private static boolean recordStats = false;
     private int index = 0;
+    /** The number of bytes that forge adds to every packet of this channel, or -1 if it hasn't been worked out yet. */
+    private int headerLength = -1;
+    private final List<Class<? extends Packet>> types = new ArrayList<>();
+    private final Map<Class<? extends Packet>, Integer> discriminators = Maps.newHashMap();
 
     public ChannelHandler() {
         // Packets common to buildcraft.core.network
@@ -31,9 +48,14 @@ public final class ChannelHandler extends FMLIndexedMessageToMessageCodec<Packet
         registerPacketType(PacketGuiWidget.class);
         registerPacketType(PacketCommand.class);
         registerPacketType(PacketEntityUpdate.class);
+        registerPacketType(PacketTileDelta.class);
+        registerPacketType(PacketCommandIds.class);
+        registerPacketType(PacketMulti.class);
     }
 
     public void registerPacketType(Class<? extends Packet> type) {
+        types.add(type);
+        discriminators.put(type, index);
         super.addDiscriminator(index++, type);
     }
 
@@ -42,7 +64,7 @@ public final class ChannelHandler extends FMLIndexedMessageToMessageCodec<Packet
     }
 
     public static void setRecordStats(boolean newValue) {
-        if (newValue != recordStats) {
+        if (newValue != recordStats && !GraphicsEnvironment.isHeadless()) {
             if (newValue) StatisticsFrame.createStatisticsFrame();
             else StatisticsFrame.destroyStatisticsFrame();
         }
@@ -56,29 +78,100 @@ public final class ChannelHandler extends FMLIndexedMessageToMessageCodec<Packet
 
     @Override
     public void encodeInto(ChannelHandlerContext ctx, Packet packet, ByteBuf data) throws Exception {
+        if (packet instanceof PacketMulti) {
+            encodeMulti(ctx, (PacketMulti) packet, data);
+            return;
+        }
         int start = data.writerIndex();
 
+        setCommandIds(ctx, packet);
         packet.writeData(data);
 
         int written = data.writerIndex() - start;
         recordStat(ctx, written, packet, EnumOpType.WRITE);
     }
 
+    private void encodeMulti(ChannelHandlerContext ctx, PacketMulti multi, ByteBuf data) {
+        multi.writeData(data);
+        data.writeShort(multi.packets.size());
+        for (Packet packet : multi.packets) {
+            Integer discriminator = discriminators.get(packet.getClass());
+            if (discriminator == null) {
+                throw new IllegalArgumentException("Tried to send an unregistered packet " + packet.getClass());
+            }
+            data.writeByte(discriminator);
+            // The length is written first, so a packet that reads too little or too much cannot break the others
+            int lengthIndex = data.writerIndex();
+            data.writeInt(0);
+            setCommandIds(ctx, packet);
+            packet.writeData(data);
+            int written = data.writerIndex() - lengthIndex - 4;
+            data.setInt(lengthIndex, written);
+            recordInnerStat(written, packet, EnumOpType.WRITE);
+        }
+    }
+
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf data, Packet packet) {
         int start = data.readerIndex();
 
         INetHandler handler = ctx.channel().attr(NetworkRegistry.NET_HANDLER).get();
+        setCommandIds(ctx, packet);
         packet.readData(data);
         packet.player = CoreProxy.proxy.getPlayerFromNetHandler(handler);
+        if (packet instanceof PacketMulti) {
+            decodeMulti(ctx, (PacketMulti) packet, data);
+            return;
+        }
 
         int read = data.readerIndex() - start;
         recordStat(ctx, read, packet, EnumOpType.READ);
     }
 
+    private void decodeMulti(ChannelHandlerContext ctx, PacketMulti multi, ByteBuf data) {
+        int count = data.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            Class<? extends Packet> type = types.get(data.readUnsignedByte());
+            int length = data.readInt();
+            Packet packet;
+            try {
+                packet = type.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create a packet of " + type, e);
+            }
+            setCommandIds(ctx, packet);
+            packet.readData(data.readSlice(length));
+            packet.player = multi.player;
+            multi.packets.add(packet);
+            recordInnerStat(length, packet, EnumOpType.READ);
+        }
+    }
+
+    /** Gives command packets the ids of this channel, on this side. Only the server can set ids, so a client that sends
+     * ids is ignored. */
+    private static void setCommandIds(ChannelHandlerContext ctx, Packet packet) {
+        if (packet instanceof PacketCommand) {
+            ((PacketCommand) packet).setCommandIds(CommandIds.INSTANCE.getTable(ctx.channel()));
+        } else if (packet instanceof PacketCommandIds && ctx.channel().attr(NetworkRegistry.CHANNEL_SOURCE).get() == Side.CLIENT) {
+            ((PacketCommandIds) packet).setCommandIds(CommandIds.INSTANCE.getTable(ctx.channel()));
+        }
+    }
+
     private void recordStat(ChannelHandlerContext ctx, long bytes, Packet packet, EnumOpType type) {
         if (shouldRecordStats()) {
-            NetworkStatRecorder.recordStat(ctx, bytes, packet, type);
+            if (headerLength < 0) {
+                String channelName = ctx.channel().attr(NetworkRegistry.FML_CHANNEL).get();
+                // The name of the channel, and the discriminator
+                headerLength = new PacketBuffer(Unpooled.buffer()).writeString(channelName).writerIndex() + 1;
+            }
+            NetworkStatRecorder.recordStat(bytes + headerLength, packet, type);
+        }
+    }
+
+    /** Records a packet that was sent inside of a {@link PacketMulti}, which only adds its discriminator and length. */
+    private static void recordInnerStat(long bytes, Packet packet, EnumOpType type) {
+        if (shouldRecordStats()) {
+            NetworkStatRecorder.recordStat(bytes + 5, packet, type);
         }
     }
 }
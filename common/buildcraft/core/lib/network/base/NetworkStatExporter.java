@@ -0,0 +1,86 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.lib.network.base;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import net.minecraft.server.MinecraftServer;
+
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+
+import buildcraft.api.core.BCLog;
+import buildcraft.core.lib.network.base.NetworkStatRecorder.EnumOpType;
+import buildcraft.core.lib.network.base.NetworkStatRecorder.PacketSource;
+import buildcraft.core.lib.network.base.NetworkStatRecorder.PacketStats;
+
+/** Appends every stat in {@link NetworkStatRecorder} to a CSV file in the server directory every
+ * {@link #exportInterval} seconds, while stats are being recorded. */
+public enum NetworkStatExporter {
+    INSTANCE;
+
+    public static final String FILE_NAME = "buildcraft-network-stats.csv";
+
+    /** How often to export, in seconds. 0 never exports on its own. */
+    public static int exportInterval = 0;
+
+    private int ticks = 0;
+
+    @SubscribeEvent
+    public void serverTick(ServerTickEvent event) {
+        if (event.phase != Phase.END || exportInterval <= 0 || !ChannelHandler.shouldRecordStats()) {
+            return;
+        }
+        if (++ticks >= exportInterval * 20) {
+            ticks = 0;
+            export();
+        }
+    }
+
+    /** Appends the current stats to the export file.
+     *
+     * @return The file, or null if it could not be written to. */
+    public File export() {
+        File file = MinecraftServer.getServer().getFile(FILE_NAME);
+        boolean header = !file.exists();
+        int window = Math.max(1, Math.min(exportInterval, PacketStats.HISTORY_SIZE - 1));
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
+            if (header) {
+                StringBuilder line = new StringBuilder("time,class,source,direction,packets,bytes,window_seconds,window_packets,window_bytes");
+                for (int i = 0; i < PacketStats.HISTOGRAM_SIZE; i++) {
+                    line.append(",size_").append(i + 1 < PacketStats.HISTOGRAM_SIZE ? "lt_" + (1 << (i + 4)) : "max");
+                }
+                writer.println(line);
+            }
+            long now = System.currentTimeMillis();
+            for (PacketSource source : NetworkStatRecorder.getSources()) {
+                for (EnumOpType type : EnumOpType.values()) {
+                    PacketStats stats = source.getStats(type);
+                    if (stats.getTotalPackets() == 0) {
+                        continue;
+                    }
+                    StringBuilder line = new StringBuilder();
+                    line.append(now).append(',').append(source.getClassName()).append(',');
+                    line.append(source.getExtraInfo().replace(',', ';')).append(',').append(type.name().toLowerCase());
+                    line.append(',').append(stats.getTotalPackets()).append(',').append(stats.getTotalBytes());
+                    line.append(',').append(window);
+                    line.append(',').append(stats.getWindowPackets(window)).append(',').append(stats.getWindowBytes(window));
+                    for (int i = 0; i < PacketStats.HISTOGRAM_SIZE; i++) {
+                        line.append(',').append(stats.getHistogram(i));
+                    }
+                    writer.println(line);
+                }
+            }
+        } catch (IOException e) {
+            BCLog.logger.warn("Could not export the network stats to " + file, e);
+            return null;
+        }
+        return file;
+    }
+}
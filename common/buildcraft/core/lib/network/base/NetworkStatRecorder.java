@@ -1,52 +1,77 @@
 package buildcraft.core.lib.network.base;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
-import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-
-import net.minecraft.network.PacketBuffer;
 import net.minecraft.tileentity.TileEntity;
 
-import net.minecraftforge.fml.common.network.NetworkRegistry;
-
 import buildcraft.api.core.ISerializable;
 import buildcraft.core.lib.network.PacketCoordinates;
 import buildcraft.core.lib.network.PacketUpdate;
 import buildcraft.core.lib.network.command.PacketCommand;
 
-import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelHandlerContext;
-
+/** Records how many packets and bytes are sent and received, for each packet class and each {@link PacketSource} in it.
+ * Recording a packet does not allocate anything, the packet class and the tile or payload class that it is for are
+ * looked up with a {@link ClassValue} instead of a map, and every counter is a {@link LongAdder}, so this is cheap
+ * enough to leave on all of the time. Nothing is stored unless {@link ChannelHandler#shouldRecordStats()} is true. */
 public class NetworkStatRecorder {
-    static final Map<String, Integer> lengthMap = Maps.newHashMap();
-    static final Map<PacketSource, EnumMap<EnumOpType, PacketStats>> packetMap = new MapMaker().makeMap();
+    /** Every source that has been seen, in no particular order. Only changed when a new source is seen. */
+    static final Map<PacketSource, EnumMap<EnumOpType, PacketStats>> packetMap = new ConcurrentHashMap<>();
 
-    public static void recordStat(ChannelHandlerContext ctx, long bytes, Packet packet, EnumOpType type) {
-        PacketSource source = new PacketSource(packet);
-        if (!packetMap.containsKey(source)) {
-            EnumMap<EnumOpType, PacketStats> map = Maps.newEnumMap(EnumOpType.class);
-            map.put(EnumOpType.READ, new PacketStats());
-            map.put(EnumOpType.WRITE, new PacketStats());
-            packetMap.put(source, map);
+    private static final ClassValue<ClassStats> classStats = new ClassValue<ClassStats>() {
+        @Override
+        protected ClassStats computeValue(Class<?> type) {
+            return new ClassStats(type.asSubclass(Packet.class));
+        }
+    };
+    private static final List<ClassStats> allClassStats = new ArrayList<>();
+
+    public static void recordStat(long bytes, Packet packet, EnumOpType type) {
+        ClassStats stats = classStats.get(packet.getClass());
+        stats.stats.get(type).increment(bytes);
+        stats.getSource(packet).stats.get(type).increment(bytes);
+    }
 
+    /** @return The stats of every packet class that has been recorded so far. */
+    public static List<ClassStats> getClassStats() {
+        synchronized (allClassStats) {
+            return new ArrayList<>(allClassStats);
         }
+    }
+
+    /** @return The stats of every source of packets that has been recorded so far. */
+    public static List<PacketSource> getSources() {
+        return new ArrayList<>(packetMap.keySet());
+    }
 
-        String channelName = ctx.channel().attr(NetworkRegistry.FML_CHANNEL).get();
-        if (!lengthMap.containsKey(channelName)) {
-            lengthMap.put(channelName, new PacketBuffer(Unpooled.buffer()).writeString(channelName).arrayOffset());
+    public static void reset() {
+        for (ClassStats stats : getClassStats()) {
+            for (PacketStats s : stats.stats.values()) {
+                s.reset();
+            }
         }
-        int header = lengthMap.get(channelName);
+        for (PacketSource source : getSources()) {
+            for (PacketStats s : source.stats.values()) {
+                s.reset();
+            }
+        }
+    }
 
-        EnumMap<EnumOpType, PacketStats> map = packetMap.get(source);
-        map.get(type).increment(bytes + header);
+    private static EnumMap<EnumOpType, PacketStats> createStats() {
+        EnumMap<EnumOpType, PacketStats> map = Maps.newEnumMap(EnumOpType.class);
+        map.put(EnumOpType.READ, new PacketStats());
+        map.put(EnumOpType.WRITE, new PacketStats());
+        return map;
     }
 
-    enum EnumOpType {
+    public enum EnumOpType {
         READ("read", "from"),
         WRITE("wrote", "to");
 
@@ -58,111 +83,201 @@ public class NetworkStatRecorder {
         }
     }
 
-    static class PacketStats {
+    public static class PacketStats {
         public static final int HISTORY_SIZE = 120;
         public static final long HISTORY_GAP = 1000;
+        /** Bucket i of the size histogram counts packets of less than 2^(i + 4) bytes. The last bucket counts every
+         * packet that is bigger than that. */
+        public static final int HISTOGRAM_SIZE = 16;
 
-        final int[] packets = new int[HISTORY_SIZE];
-        final long[] bytes = new long[HISTORY_SIZE];
-        final long[] statTime = new long[HISTORY_SIZE];
-        int currentIndex = 0;
+        private final LongAdder totalPackets = new LongAdder();
+        private final LongAdder totalBytes = new LongAdder();
+        private final LongAdder[] sizeHistogram = new LongAdder[HISTOGRAM_SIZE];
+        /** One slot for every {@link #HISTORY_GAP} of time, reused once {@link #HISTORY_SIZE} slots have passed. */
+        private final AtomicLongArray packets = new AtomicLongArray(HISTORY_SIZE);
+        private final AtomicLongArray bytes = new AtomicLongArray(HISTORY_SIZE);
+        private final AtomicLongArray statTime = new AtomicLongArray(HISTORY_SIZE);
 
         private PacketStats() {
-            statTime[currentIndex] = System.currentTimeMillis();
+            for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+                sizeHistogram[i] = new LongAdder();
+            }
+        }
+
+        public static int getHistogramBucket(long bytes) {
+            int bits = 64 - Long.numberOfLeadingZeros(bytes);
+            return Math.min(HISTOGRAM_SIZE - 1, Math.max(0, bits - 4));
         }
 
         public void increment(long bytes) {
-            this.packets[currentIndex]++;
-            this.bytes[currentIndex] += bytes;
-            process();
+            totalPackets.increment();
+            totalBytes.add(bytes);
+            sizeHistogram[getHistogramBucket(bytes)].increment();
+
+            long time = System.currentTimeMillis() / HISTORY_GAP;
+            int index = (int) (time % HISTORY_SIZE);
+            if (statTime.get(index) != time) {
+                roll(index, time);
+            }
+            this.packets.incrementAndGet(index);
+            this.bytes.addAndGet(index, bytes);
         }
 
-        private int incrementIndex() {
-            currentIndex++;
-            if (currentIndex >= HISTORY_SIZE) {
-                currentIndex = 0;
+        private synchronized void roll(int index, long time) {
+            if (statTime.get(index) != time) {
+                packets.set(index, 0);
+                bytes.set(index, 0);
+                statTime.set(index, time);
+                StatisticsFrame.update();
             }
-            return currentIndex;
         }
 
-        public int getLastIndex() {
-            if (currentIndex - 1 < 0) {
-                return HISTORY_SIZE - 1;
+        synchronized void reset() {
+            totalPackets.reset();
+            totalBytes.reset();
+            for (LongAdder adder : sizeHistogram) {
+                adder.reset();
+            }
+            for (int i = 0; i < HISTORY_SIZE; i++) {
+                packets.set(i, 0);
+                bytes.set(i, 0);
+                statTime.set(i, 0);
+            }
+        }
+
+        public long getTotalPackets() {
+            return totalPackets.sum();
+        }
+
+        public long getTotalBytes() {
+            return totalBytes.sum();
+        }
+
+        public long getHistogram(int bucket) {
+            return sizeHistogram[bucket].sum();
+        }
+
+        /** @param ago How many slots ago, where 0 is the slot that is being recorded into now.
+         * @return The packets recorded in that slot, or 0 if nothing was. */
+        public long getPackets(int ago) {
+            long time = System.currentTimeMillis() / HISTORY_GAP - ago;
+            int index = (int) (time % HISTORY_SIZE);
+            return statTime.get(index) == time ? packets.get(index) : 0;
+        }
+
+        public long getBytes(int ago) {
+            long time = System.currentTimeMillis() / HISTORY_GAP - ago;
+            int index = (int) (time % HISTORY_SIZE);
+            return statTime.get(index) == time ? bytes.get(index) : 0;
+        }
+
+        /** @return The packets recorded in the last few full slots, not counting the one that is being recorded into
+         *         now. */
+        public long getWindowPackets(int slots) {
+            long total = 0;
+            for (int i = 1; i <= slots && i < HISTORY_SIZE; i++) {
+                total += getPackets(i);
             }
-            return currentIndex - 1;
+            return total;
         }
 
-        private void process() {
-            long now = System.currentTimeMillis();
-            if (now - statTime[currentIndex] < HISTORY_GAP) {
-                return;
+        public long getWindowBytes(int slots) {
+            long total = 0;
+            for (int i = 1; i <= slots && i < HISTORY_SIZE; i++) {
+                total += getBytes(i);
             }
-            statTime[incrementIndex()] = now;
-            packets[currentIndex] = 0;
-            bytes[currentIndex] = 0;
-            StatisticsFrame.update();
+            return total;
         }
     }
 
-    static class PacketSource {
-        final Class<? extends Packet> clazz;
-        final String className, extraInfo;
-        private final transient int hashCode;
+    /** The stats of every packet of a single class, and of each source in it. */
+    public static class ClassStats {
+        public final Class<? extends Packet> clazz;
+        final EnumMap<EnumOpType, PacketStats> stats = createStats();
+        /** Sources of this class, by their extra info. */
+        private final Map<String, PacketSource> sources = new ConcurrentHashMap<>();
+        /** Sources of this class, by the class of the tile or payload that the packet is for. */
+        private final ClassValue<PacketSource> classSources = new ClassValue<PacketSource>() {
+            @Override
+            protected PacketSource computeValue(Class<?> type) {
+                return getSource(type.getName());
+            }
+        };
+        /** The source for packets that don't have any extra info, so that they don't need a lookup. */
+        private final PacketSource unknownSource;
 
-        public static String extraInfo(Packet packet) {
+        ClassStats(Class<? extends Packet> clazz) {
+            this.clazz = clazz;
+            this.unknownSource = getSource(PacketSource.UNKNOWN);
+            synchronized (allClassStats) {
+                allClassStats.add(this);
+            }
+        }
+
+        /** Only commands need a lookup by name here. They are sent when a player does something, not every tick. */
+        PacketSource getSource(Packet packet) {
             if (packet instanceof PacketCoordinates) {
                 TileEntity tile = ((PacketCoordinates) packet).tile;
-                return tile == null ? "generic" : tile.getClass().getName();
+                return tile == null ? getSource(PacketSource.GENERIC) : classSources.get(tile.getClass());
             } else if (packet instanceof PacketUpdate) {
                 ISerializable ser = ((PacketUpdate) packet).payload;
-                return ser == null ? "generic" : ser.getClass().getName();
+                return ser == null ? getSource(PacketSource.GENERIC) : classSources.get(ser.getClass());
             } else if (packet instanceof PacketCommand) {
-                return ((PacketCommand) packet).command;
+                return getSource(((PacketCommand) packet).command);
             }
-            return null;
+            return unknownSource;
         }
 
-        public PacketSource(Packet packet) {
-            this(packet.getClass(), extraInfo(packet));
+        PacketSource getSource(String extraInfo) {
+            if (extraInfo == null) {
+                return unknownSource;
+            }
+            PacketSource source = sources.get(extraInfo);
+            if (source == null) {
+                synchronized (this) {
+                    source = sources.get(extraInfo);
+                    if (source == null) {
+                        source = new PacketSource(clazz, extraInfo);
+                        sources.put(extraInfo, source);
+                        packetMap.put(source, source.stats);
+                    }
+                }
+            }
+            return source;
         }
 
-        public PacketSource(Class<? extends Packet> packet, String extraInfo) {
+        public PacketStats getStats(EnumOpType type) {
+            return stats.get(type);
+        }
+    }
+
+    public static class PacketSource {
+        static final String UNKNOWN = "unknown";
+        static final String GENERIC = "generic";
+
+        final Class<? extends Packet> clazz;
+        final String className, extraInfo;
+        final EnumMap<EnumOpType, PacketStats> stats = createStats();
+
+        PacketSource(Class<? extends Packet> packet, String extraInfo) {
             if (packet == null) throw new NullPointerException("packet");
-            if (extraInfo == null) extraInfo = "unknown";
+            if (extraInfo == null) extraInfo = UNKNOWN;
 
             this.clazz = packet;
             this.className = packet.getName();
             this.extraInfo = extraInfo;
+        }
 
-            /* Just compute the hash code once instead of every time- this will speed up hash code computation when this
-             * is in a hash map */
-            HashCodeBuilder hcb = new HashCodeBuilder();
-            hcb.append(className);
-            hcb.append(extraInfo);
-            hashCode = hcb.toHashCode();
+        public String getClassName() {
+            return className;
         }
 
-        @Override
-        public int hashCode() {
-            return hashCode;
+        public String getExtraInfo() {
+            return extraInfo;
         }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == this) {
-                return true;
-            }
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            PacketSource other = (PacketSource) obj;
-            EqualsBuilder eb = new EqualsBuilder();
-            eb.append(className, other.className);
-            eb.append(extraInfo, other.extraInfo);
-            return eb.isEquals();
+        public PacketStats getStats(EnumOpType type) {
+            return stats.get(type);
         }
     }
 }
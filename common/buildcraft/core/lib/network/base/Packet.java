@@ -4,6 +4,8 @@
  * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
 package buildcraft.core.lib.network.base;
 
+import java.util.Arrays;
+
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.world.World;
 
@@ -44,6 +46,18 @@ public abstract class Packet {
         hasDoneByteStuff = true;
     }
 
+    /** @return An object that is equal for two packets if the later one makes the earlier one pointless, such as two
+     *         full updates of the same tile. Only the last of those is sent to each player in a tick. Null (the
+     *         default) if this packet must always be sent. */
+    public Object getCoalesceKey() {
+        return null;
+    }
+
+    /** A coalesce key for a packet that replaces every other packet of the same type with the same id. */
+    protected final Object makeCoalesceKey(long id) {
+        return Arrays.asList(getClass(), dimensionId, id);
+    }
+
     /** Called in the main world tick to apply any data that cannot be applied in a different thread. So, everything. */
     public abstract void applyData(World world, EntityPlayer player);
 
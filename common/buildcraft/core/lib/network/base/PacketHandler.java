@@ -83,8 +83,15 @@ public final class PacketHandler extends SimpleChannelInboundHandler<Packet> {
         if (packet.dimensionId == INVALID_DIM_ID) BCLog.logger.warn("Found a packet with an invalid dimension id! [read]");
         if (!packet.hasDoneByteStuff) throw new IllegalArgumentException("Tried to use a packet that hasn't read yet! THIS IS VERY BAD!");
         if (side != null) {
-            getQueue(side, packet.dimensionId).add(packet);
-            livePacketCount++;
+            if (packet instanceof PacketMulti) {
+                for (Packet inner : ((PacketMulti) packet).packets) {
+                    getQueue(side, inner.dimensionId).add(inner);
+                    livePacketCount++;
+                }
+            } else {
+                getQueue(side, packet.dimensionId).add(packet);
+                livePacketCount++;
+            }
         } else {
             BCLog.logger.error("Found a message without a side! THIS IS VERY BAD, MAJOR ERRORS COULD OCCOUR!");
         }
@@ -0,0 +1,36 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.lib.network.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+
+/** Several packets for the same player, sent as one message. {@link ChannelHandler} writes and reads the packets inside
+ * of this, and {@link PacketHandler} queues each of them as if they had been sent on their own. */
+public final class PacketMulti extends Packet {
+    final List<Packet> packets = new ArrayList<>();
+
+    public PacketMulti() {}
+
+    public PacketMulti(int dimId) {
+        super(dimId);
+    }
+
+    public void add(Packet packet) {
+        packets.add(packet);
+    }
+
+    public int size() {
+        return packets.size();
+    }
+
+    @Override
+    public void applyData(World world, EntityPlayer player) {
+        // The packets inside of this are applied on their own
+    }
+}
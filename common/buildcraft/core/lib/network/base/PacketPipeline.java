@@ -0,0 +1,246 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.lib.network.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import net.minecraftforge.fml.common.network.FMLEmbeddedChannel;
+import net.minecraftforge.fml.common.network.FMLOutboundHandler;
+import net.minecraftforge.fml.common.network.FMLOutboundHandler.OutboundTarget;
+import net.minecraftforge.fml.common.network.NetworkRegistry.TargetPoint;
+
+/** Collects every packet that the server sends during a tick, and sends them all at the end of it. The players that each
+ * packet goes to are worked out once per tick for each target, and then every player gets one message per channel with
+ * all of their packets in it. If a packet says that it replaces an earlier one (see {@link Packet#getCoalesceKey()})
+ * then only the last of them is sent.
+ * <p>
+ * No more than {@link #MAX_QUEUED} packets can wait for the end of the tick. Anything that queues a packet after that
+ * sends everything right away instead. */
+public enum PacketPipeline {
+    INSTANCE;
+
+    public static final int MAX_QUEUED = 16384;
+    /** The most packets that are put into a single message. */
+    private static final int MAX_FRAME_PACKETS = 256;
+
+    private static final class SendRequest {
+        final FMLEmbeddedChannel channel;
+        final Packet packet;
+        final OutboundTarget target;
+        final Object args;
+
+        SendRequest(FMLEmbeddedChannel channel, Packet packet, OutboundTarget target, Object args) {
+            this.channel = channel;
+            this.packet = packet;
+            this.target = target;
+            this.args = args;
+        }
+    }
+
+    /** Every packet for one player on one channel, in the order that they were queued. */
+    private static final class PlayerBucket {
+        final List<Packet> packets = new ArrayList<>();
+        final Map<Object, Integer> coalesced = Maps.newHashMap();
+    }
+
+    private final List<SendRequest> queue = new ArrayList<>();
+
+    private long queued, coalesced, packetsSent, framesSent, overflowFlushes;
+    private int peakDepth;
+
+    public synchronized void queue(FMLEmbeddedChannel channel, Packet packet, OutboundTarget target, Object args) {
+        queue.add(new SendRequest(channel, packet, target, args));
+        queued++;
+        peakDepth = Math.max(peakDepth, queue.size());
+        if (queue.size() >= MAX_QUEUED) {
+            overflowFlushes++;
+            flush();
+        }
+    }
+
+    @SubscribeEvent
+    public void serverTick(ServerTickEvent event) {
+        if (event.phase == Phase.END) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+        if (queue.isEmpty()) {
+            return;
+        }
+        MinecraftServer server = MinecraftServer.getServer();
+        if (server == null || server.getConfigurationManager() == null) {
+            queue.clear();
+            return;
+        }
+        List<EntityPlayerMP> allPlayers = server.getConfigurationManager().playerEntityList;
+
+        Map<Object, List<EntityPlayerMP>> resolved = Maps.newHashMap();
+        Map<FMLEmbeddedChannel, Map<EntityPlayerMP, PlayerBucket>> channels = new IdentityHashMap<>();
+        for (SendRequest request : queue) {
+            Map<EntityPlayerMP, PlayerBucket> buckets = channels.get(request.channel);
+            if (buckets == null) {
+                buckets = new LinkedHashMap<>();
+                channels.put(request.channel, buckets);
+            }
+            Object key = request.packet.getCoalesceKey();
+            for (EntityPlayerMP player : resolve(request, allPlayers, resolved)) {
+                PlayerBucket bucket = buckets.get(player);
+                if (bucket == null) {
+                    bucket = new PlayerBucket();
+                    buckets.put(player, bucket);
+                }
+                Integer index = key == null ? null : bucket.coalesced.get(key);
+                if (index != null) {
+                    bucket.packets.set(index, request.packet);
+                    coalesced++;
+                } else {
+                    if (key != null) {
+                        bucket.coalesced.put(key, bucket.packets.size());
+                    }
+                    bucket.packets.add(request.packet);
+                }
+            }
+        }
+        queue.clear();
+
+        for (Map.Entry<FMLEmbeddedChannel, Map<EntityPlayerMP, PlayerBucket>> entry : channels.entrySet()) {
+            FMLEmbeddedChannel channel = entry.getKey();
+            for (Map.Entry<EntityPlayerMP, PlayerBucket> playerEntry : entry.getValue().entrySet()) {
+                send(channel, playerEntry.getKey(), playerEntry.getValue().packets);
+            }
+        }
+    }
+
+    private static List<EntityPlayerMP> resolve(SendRequest request, List<EntityPlayerMP> allPlayers, Map<Object, List<EntityPlayerMP>> resolved) {
+        switch (request.target) {
+            case PLAYER:
+                if (request.args instanceof EntityPlayerMP) {
+                    return Collections.singletonList((EntityPlayerMP) request.args);
+                }
+                return Collections.emptyList();
+            case ALL:
+                return allPlayers;
+            case DIMENSION: {
+                Object key = request.args;
+                List<EntityPlayerMP> players = resolved.get(key);
+                if (players == null) {
+                    players = new ArrayList<>();
+                    int dimensionId = (Integer) request.args;
+                    for (EntityPlayerMP player : allPlayers) {
+                        if (player.dimension == dimensionId) {
+                            players.add(player);
+                        }
+                    }
+                    resolved.put(key, players);
+                }
+                return players;
+            }
+            case ALLAROUNDPOINT: {
+                TargetPoint point = (TargetPoint) request.args;
+                Object key = Arrays.asList(point.dimension, point.x, point.y, point.z, point.range);
+                List<EntityPlayerMP> players = resolved.get(key);
+                if (players == null) {
+                    players = new ArrayList<>();
+                    for (EntityPlayerMP player : allPlayers) {
+                        if (player.dimension == point.dimension) {
+                            double dx = point.x - player.posX;
+                            double dy = point.y - player.posY;
+                            double dz = point.z - player.posZ;
+                            if (dx * dx + dy * dy + dz * dz < point.range * point.range) {
+                                players.add(player);
+                            }
+                        }
+                    }
+                    resolved.put(key, players);
+                }
+                return players;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported target " + request.target);
+        }
+    }
+
+    /** Sends a packet to a player right away, ahead of everything that is waiting for the end of the tick. */
+    public synchronized void sendNow(FMLEmbeddedChannel channel, EntityPlayerMP player, Packet packet) {
+        packetsSent++;
+        write(channel, player, packet);
+    }
+
+    private void send(FMLEmbeddedChannel channel, EntityPlayerMP player, List<Packet> packets) {
+        packetsSent += packets.size();
+        if (packets.size() == 1) {
+            write(channel, player, packets.get(0));
+            return;
+        }
+        for (int start = 0; start < packets.size(); start += MAX_FRAME_PACKETS) {
+            int end = Math.min(packets.size(), start + MAX_FRAME_PACKETS);
+            PacketMulti multi = new PacketMulti(packets.get(start).dimensionId);
+            for (int i = start; i < end; i++) {
+                multi.add(packets.get(i));
+            }
+            write(channel, player, multi);
+        }
+    }
+
+    private void write(FMLEmbeddedChannel channel, EntityPlayerMP player, Packet packet) {
+        framesSent++;
+        try {
+            channel.attr(FMLOutboundHandler.FML_MESSAGETARGET).set(OutboundTarget.PLAYER);
+            channel.attr(FMLOutboundHandler.FML_MESSAGETARGETARGS).set(player);
+            channel.writeOutbound(packet);
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized int getPeakDepth() {
+        return peakDepth;
+    }
+
+    /** @return The number of packets that have been queued, before they were coalesced or sent to players. */
+    public synchronized long getQueued() {
+        return queued;
+    }
+
+    /** @return The number of times that a packet replaced an earlier one for the same player. */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /** @return The number of packets that have been sent to players, counting once for each player. */
+    public synchronized long getPacketsSent() {
+        return packetsSent;
+    }
+
+    /** @return The number of messages that were written to channels. */
+    public synchronized long getFramesSent() {
+        return framesSent;
+    }
+
+    /** @return The number of times that the queue was full, so it had to be sent before the end of the tick. */
+    public synchronized long getOverflowFlushes() {
+        return overflowFlushes;
+    }
+}
@@ -316,13 +316,13 @@ public class StatisticsFrame extends JFrame implements TreeSelectionListener {
                 long[] bytesTo = bytes.get(type);
                 PacketStats stats = entry.getValue();
                 for (int i = 0; i < HISTORY_SIZE; i++) {
-                    int from = (i + stats.currentIndex) % HISTORY_SIZE;
+                    int ago = HISTORY_SIZE - 1 - i;
                     int to = (i + index) % HISTORY_SIZE;
-                    packetsTo[to] = stats.packets[from];
-                    bytesTo[to] = stats.bytes[from];
+                    packetsTo[to] = (int) stats.getPackets(ago);
+                    bytesTo[to] = stats.getBytes(ago);
                 }
-                totalBytes[type.ordinal()] += stats.bytes[stats.getLastIndex()];
-                totalPackets[type.ordinal()] += stats.packets[stats.getLastIndex()];
+                totalBytes[type.ordinal()] += stats.getBytes(1);
+                totalPackets[type.ordinal()] += (int) stats.getPackets(1);
             }
         }
     }
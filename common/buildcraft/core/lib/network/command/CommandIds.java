@@ -0,0 +1,158 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.lib.network.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.Maps;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.PlayerEvent.PlayerLoggedInEvent;
+import net.minecraftforge.fml.common.network.FMLEmbeddedChannel;
+import net.minecraftforge.fml.common.network.FMLNetworkEvent.ClientConnectedToServerEvent;
+import net.minecraftforge.fml.common.network.FMLOutboundHandler.OutboundTarget;
+import net.minecraftforge.fml.common.network.NetworkRegistry;
+import net.minecraftforge.fml.relauncher.Side;
+
+import buildcraft.core.lib.network.base.PacketPipeline;
+
+import io.netty.channel.Channel;
+
+/** Gives each command name that is sent on a channel a small id, so that {@link PacketCommand} doesn't have to write
+ * the name out every time. The server hands out the ids:
+ * <ul>
+ * <li>Every player that logs in is sent all of the ids of each channel, before anything else.</li>
+ * <li>A name that has never been sent before is given the next id, which is sent to every player on the same channel
+ * just before the first command that uses it.</li>
+ * </ul>
+ * The client only uses the ids that it has been told about, and writes any other name out in full (as
+ * {@link #NO_ID}). */
+public enum CommandIds {
+    INSTANCE;
+
+    /** Written in place of an id when the name follows it in full. */
+    public static final int NO_ID = 0;
+
+    public static final class Table {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = Maps.newHashMap();
+
+        /** @return The id of the name, or {@link CommandIds#NO_ID} if it doesn't have one. */
+        public synchronized int getId(String name) {
+            Integer id = ids.get(name);
+            return id == null ? NO_ID : id;
+        }
+
+        /** @return The name with the given id, or null if there isn't one. */
+        public synchronized String getName(int id) {
+            return id > 0 && id <= names.size() ? names.get(id - 1) : null;
+        }
+
+        /** Sets the names from the given id onwards, as sent by the server. */
+        synchronized void set(int start, List<String> newNames) {
+            if (start == 1) {
+                names.clear();
+                ids.clear();
+            } else if (start != names.size() + 1) {
+                // Ids can only be added in order, so this table has missed something. Ignore the rest, and write
+                // the names in full until the next full table is received.
+                return;
+            }
+            for (String name : newNames) {
+                names.add(name);
+                ids.put(name, names.size());
+            }
+        }
+
+        /** @return Every name from the given id onwards. */
+        synchronized List<String> getNames(int start) {
+            return new ArrayList<>(names.subList(start - 1, names.size()));
+        }
+
+        synchronized int add(String name) {
+            names.add(name);
+            ids.put(name, names.size());
+            return names.size();
+        }
+
+        synchronized void clear() {
+            names.clear();
+            ids.clear();
+        }
+    }
+
+    private final Map<String, Table> serverTables = new ConcurrentHashMap<>();
+    private final Map<String, Table> clientTables = new ConcurrentHashMap<>();
+    /** The channel of each server table, so that new players can be sent all of them. */
+    private final Map<String, FMLEmbeddedChannel> serverChannels = new ConcurrentHashMap<>();
+
+    /** @return The ids used by the given (netty) channel, which is one of the halves of an {@link FMLEmbeddedChannel}. */
+    public Table getTable(Channel channel) {
+        Side side = channel.attr(NetworkRegistry.CHANNEL_SOURCE).get();
+        String name = channel.attr(NetworkRegistry.FML_CHANNEL).get();
+        return getTable(side, name);
+    }
+
+    private Table getTable(Side side, String channelName) {
+        Map<String, Table> tables = side == Side.CLIENT ? clientTables : serverTables;
+        Table table = tables.get(channelName);
+        if (table == null) {
+            synchronized (tables) {
+                table = tables.get(channelName);
+                if (table == null) {
+                    table = new Table();
+                    tables.put(channelName, table);
+                }
+            }
+        }
+        return table;
+    }
+
+    /** Called on the server before a command is queued on the given channel, so that every player knows its id before
+     * the command is sent.
+     *
+     * @param dimensionId The dimension of the command, which the id packet is sent in as well. */
+    public synchronized void intern(FMLEmbeddedChannel channel, String command, int dimensionId) {
+        String channelName = channel.attr(NetworkRegistry.FML_CHANNEL).get();
+        Table table = getTable(Side.SERVER, channelName);
+        if (table.getId(command) != NO_ID) {
+            return;
+        }
+        serverChannels.put(channelName, channel);
+        int id = table.add(command);
+        List<String> names = new ArrayList<>();
+        names.add(command);
+        // The table is not locked here, as the pipeline might be writing a command with it
+        PacketPipeline.INSTANCE.queue(channel, new PacketCommandIds(dimensionId, id, names), OutboundTarget.ALL, null);
+    }
+
+    @SubscribeEvent
+    public synchronized void playerLoggedIn(PlayerLoggedInEvent event) {
+        if (!(event.player instanceof EntityPlayerMP)) {
+            return;
+        }
+        EntityPlayerMP player = (EntityPlayerMP) event.player;
+        for (Map.Entry<String, FMLEmbeddedChannel> entry : serverChannels.entrySet()) {
+            List<String> names = getTable(Side.SERVER, entry.getKey()).getNames(1);
+            if (!names.isEmpty()) {
+                // Sent straight away, so that it gets there before any command that was queued earlier this tick
+                PacketPipeline.INSTANCE.sendNow(entry.getValue(), player, new PacketCommandIds(player.dimension, 1, names));
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void clientConnected(ClientConnectedToServerEvent event) {
+        // The ids of the last server mean nothing to this one
+        for (Table table : clientTables.values()) {
+            table.clear();
+        }
+    }
+}
@@ -9,6 +9,8 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 
+import buildcraft.core.lib.utils.NetworkUtils;
+
 import io.netty.buffer.ByteBuf;
 
 public class CommandTargetTile extends CommandTarget {
@@ -20,17 +22,12 @@ public class CommandTargetTile extends CommandTarget {
     @Override
     public void write(ByteBuf data, Object target) {
         TileEntity tile = (TileEntity) target;
-        data.writeInt(tile.getPos().getX());
-        data.writeInt(tile.getPos().getY());
-        data.writeInt(tile.getPos().getZ());
+        NetworkUtils.writeCompactBlockPos(data, tile.getPos());
     }
 
     @Override
     public ICommandReceiver handle(EntityPlayer player, ByteBuf data, World world) {
-        int posX = data.readInt();
-        int posY = data.readInt();
-        int posZ = data.readInt();
-        BlockPos pos = new BlockPos(posX, posY, posZ);
+        BlockPos pos = NetworkUtils.readCompactBlockPos(data);
         if (world.isBlockLoaded(pos)) {
             TileEntity tile = world.getTileEntity(pos);
             if (tile instanceof ICommandReceiver) {
@@ -11,6 +11,7 @@ import net.minecraft.world.World;
 
 import net.minecraftforge.fml.common.FMLCommonHandler;
 
+import buildcraft.api.core.BCLog;
 import buildcraft.core.lib.network.base.Packet;
 import buildcraft.core.lib.utils.NetworkUtils;
 
@@ -23,6 +24,7 @@ public class PacketCommand extends Packet {
     public Object target;
     public CommandTarget handler;
     private CommandWriter writer;
+    private CommandIds.Table commandIds;
 
     static {
         targets = new ArrayList<>();
@@ -54,10 +56,19 @@ public class PacketCommand extends Packet {
         dimensionId = tempWorld.provider.getDimensionId();
     }
 
+    /** Set by the channel handler before this is written or read, to the ids of the channel that it is sent on. */
+    public void setCommandIds(CommandIds.Table commandIds) {
+        this.commandIds = commandIds;
+    }
+
     @Override
     public void writeData(ByteBuf data) {
         super.writeData(data);
-        NetworkUtils.writeUTF(data, command);
+        int id = commandIds == null ? CommandIds.NO_ID : commandIds.getId(command);
+        NetworkUtils.writeVarInt(data, id);
+        if (id == CommandIds.NO_ID) {
+            NetworkUtils.writeUTF(data, command);
+        }
         data.writeByte(targets.indexOf(handler));
         handler.write(data, target);
         if (writer != null) {
@@ -68,14 +79,22 @@ public class PacketCommand extends Packet {
     @Override
     public void readData(ByteBuf data) {
         super.readData(data);
-        command = NetworkUtils.readUTF(data);
+        int id = NetworkUtils.readVarInt(data);
+        if (id == CommandIds.NO_ID) {
+            command = NetworkUtils.readUTF(data);
+        } else {
+            command = commandIds == null ? null : commandIds.getName(id);
+            if (command == null) {
+                BCLog.logger.warn("Received a command with the unknown id " + id + ", ignoring it");
+            }
+        }
         handler = targets.get(data.readUnsignedByte());
         stream = data; // for further reading
     }
 
     @Override
     public void applyData(World world, EntityPlayer player) {
-        if (handler != null) {
+        if (handler != null && command != null) {
             ICommandReceiver receiver = handler.handle(player, stream, world);
             if (receiver != null) {
                 receiver.receiveCommand(command, FMLCommonHandler.instance().getEffectiveSide(), player, stream);
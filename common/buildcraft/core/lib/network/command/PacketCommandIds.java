@@ -0,0 +1,67 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.lib.network.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+
+import buildcraft.core.lib.network.base.Packet;
+import buildcraft.core.lib.utils.NetworkUtils;
+
+import io.netty.buffer.ByteBuf;
+
+/** Tells the client the ids of some command names, from {@link #start} onwards. A start of 1 replaces every id that
+ * the client knew for the channel. The ids are used as soon as this is read, rather than when it is applied, so that
+ * the commands after it in the same connection can be read. */
+public class PacketCommandIds extends Packet {
+    private int start;
+    private List<String> names;
+    private CommandIds.Table commandIds;
+
+    public PacketCommandIds() {}
+
+    public PacketCommandIds(int dimensionId, int start, List<String> names) {
+        super(dimensionId);
+        this.start = start;
+        this.names = names;
+    }
+
+    /** Set by the channel handler before this is read. */
+    public void setCommandIds(CommandIds.Table commandIds) {
+        this.commandIds = commandIds;
+    }
+
+    @Override
+    public void writeData(ByteBuf data) {
+        super.writeData(data);
+        NetworkUtils.writeVarInt(data, start);
+        NetworkUtils.writeVarInt(data, names.size());
+        for (String name : names) {
+            NetworkUtils.writeUTF(data, name);
+        }
+    }
+
+    @Override
+    public void readData(ByteBuf data) {
+        super.readData(data);
+        start = NetworkUtils.readVarInt(data);
+        int count = NetworkUtils.readVarInt(data);
+        names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(NetworkUtils.readUTF(data));
+        }
+        if (commandIds != null) {
+            commandIds.set(start, names);
+        }
+    }
+
+    @Override
+    public void applyData(World world, EntityPlayer player) {
+        // Already used when it was read
+    }
+}
@@ -106,6 +106,39 @@ public final class NetworkUtils {
         }
     }
 
+    /** Writes an int using between 1 and 5 bytes: 7 bits per byte, with the top bit set if there is another byte.
+     * Negative numbers always take 5 bytes, so use {@link #writeSignedVarInt(ByteBuf, int)} for those. */
+    public static void writeVarInt(ByteBuf stream, int value) {
+        while ((value & ~0x7F) != 0) {
+            stream.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        stream.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf stream) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = stream.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("VarInt was too long!");
+    }
+
+    /** Writes an int that is likely to be close to 0 (either positive or negative) with
+     * {@link #writeVarInt(ByteBuf, int)}, by zig-zag encoding it first. */
+    public static void writeSignedVarInt(ByteBuf stream, int value) {
+        writeVarInt(stream, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSignedVarInt(ByteBuf stream) {
+        int value = readVarInt(stream);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
     public static void writeByteArray(ByteBuf stream, byte[] data) {
         stream.writeInt(data.length);
         stream.writeBytes(data);
@@ -140,6 +173,48 @@ public final class NetworkUtils {
         return new BlockPos(stream.readInt(), stream.readInt(), stream.readInt());
     }
 
+    /** Writes a position as the chunk that it is in and then its place in that chunk, with
+     * {@link #writeSignedVarInt(ByteBuf, int)}. A position in one of the 128 by 128 chunks around the origin takes 4 or 5
+     * bytes instead of 12. */
+    public static void writeCompactBlockPos(ByteBuf stream, BlockPos pos) {
+        writeSignedVarInt(stream, pos.getX() >> 4);
+        writeSignedVarInt(stream, pos.getZ() >> 4);
+        stream.writeByte((pos.getX() & 15) << 4 | (pos.getZ() & 15));
+        writeSignedVarInt(stream, pos.getY());
+    }
+
+    public static BlockPos readCompactBlockPos(ByteBuf stream) {
+        int chunkX = readSignedVarInt(stream);
+        int chunkZ = readSignedVarInt(stream);
+        int inChunk = stream.readUnsignedByte();
+        int y = readSignedVarInt(stream);
+        return new BlockPos(chunkX << 4 | inChunk >> 4, y, chunkZ << 4 | (inChunk & 15));
+    }
+
+    /** Writes a long in as few bytes as it needs, 7 bits at a time. Small positive values are the cheapest. */
+    public static void writeVarLong(ByteBuf stream, long value) {
+        while ((value & ~0x7FL) != 0) {
+            stream.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        stream.writeByte((int) value);
+    }
+
+    public static long readVarLong(ByteBuf stream) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 64) {
+                throw new IllegalArgumentException("VarLong is too big");
+            }
+            b = stream.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
     public static <E extends Enum<E>> void writeEnum(ByteBuf stream, E value) {
         // TODO: Make this check if the value imlpements "INetSerialisable" and write using that.
         if (value == null) writeUTF(stream, "");
@@ -0,0 +1,205 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.core.lib.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.World;
+
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+
+/** Measures how long BuildCraft tiles and entities take to tick on the server, for each class and each position. Code
+ * that is measured looks like this:
+ *
+ * <pre>
+ * long profile = TickProfiler.start();
+ * // work
+ * TickProfiler.end(profile, TickProfiler.Section.TILE, getClass(), worldObj, pos);
+ * </pre>
+ *
+ * When the profiler is not running, {@link #start()} is a single volatile read and {@link #end} returns straight away.
+ * The time of each entry is kept in a ring buffer of the last {@link #HISTORY} ticks, so the reports show the average
+ * time per tick over that span.
+ * <p>
+ * Only the server thread records anything. */
+public enum TickProfiler {
+    INSTANCE;
+
+    public static final int HISTORY = 100;
+
+    public enum Section {
+        TILE,
+        PIPE_TRANSPORT,
+        PIPE_PLUGGABLES,
+        PIPE_GATES,
+        PIPE_RENDER_STATE,
+        ROBOT,
+        BUILDER(true),
+        QUARRY(true);
+
+        /** Whether this is measured inside of the {@link #TILE} tick, so its time is already in that position. */
+        public final boolean nested;
+
+        Section() {
+            this(false);
+        }
+
+        Section(boolean nested) {
+            this.nested = nested;
+        }
+    }
+
+    public static final class Entry {
+        public final String name;
+        private final long[] nanos = new long[HISTORY];
+        private final long[] ticks = new long[HISTORY];
+
+        Entry(String name) {
+            this.name = name;
+            for (int i = 0; i < HISTORY; i++) {
+                ticks[i] = -1;
+            }
+        }
+
+        void add(long tick, long time) {
+            int index = (int) (tick % HISTORY);
+            if (ticks[index] != tick) {
+                ticks[index] = tick;
+                nanos[index] = 0;
+            }
+            nanos[index] += time;
+        }
+
+        /** @return The average time per tick over the full ticks in the ring buffer. */
+        public long getNanosPerTick() {
+            long now = INSTANCE.tick;
+            long span = Math.min(HISTORY - 1, now - INSTANCE.startTick);
+            if (span <= 0) {
+                return 0;
+            }
+            long total = 0;
+            for (int i = 0; i < HISTORY; i++) {
+                if (ticks[i] < now && ticks[i] >= now - span) {
+                    total += nanos[i];
+                }
+            }
+            return total / span;
+        }
+    }
+
+    private static volatile boolean running = false;
+
+    private final Map<Class<?>, Entry[]> classes = Maps.newHashMap();
+    private final Map<Integer, Map<Long, Entry>> positions = Maps.newHashMap();
+    private long tick = 0, startTick = 0;
+
+    /** @return The time to pass to {@link #end}, or 0 if the profiler is not running. */
+    public static long start() {
+        return running ? System.nanoTime() : 0;
+    }
+
+    public static void end(long start, Section section, Class<?> clazz, World world, BlockPos pos) {
+        if (start != 0 && !world.isRemote) {
+            INSTANCE.record(System.nanoTime() - start, section, clazz, world.provider.getDimensionId(), pos);
+        }
+    }
+
+    private void record(long time, Section section, Class<?> clazz, int dimensionId, BlockPos pos) {
+        Entry[] entries = classes.get(clazz);
+        if (entries == null) {
+            entries = new Entry[Section.values().length];
+            classes.put(clazz, entries);
+        }
+        Entry entry = entries[section.ordinal()];
+        if (entry == null) {
+            entry = new Entry(clazz.getSimpleName() + " " + section.name().toLowerCase());
+            entries[section.ordinal()] = entry;
+        }
+        entry.add(tick, time);
+        if (section.nested) {
+            return;
+        }
+
+        Map<Long, Entry> dimension = positions.get(dimensionId);
+        if (dimension == null) {
+            dimension = Maps.newHashMap();
+            positions.put(dimensionId, dimension);
+        }
+        Entry position = dimension.get(pos.toLong());
+        if (position == null) {
+            position = new Entry(clazz.getSimpleName() + " at " + pos.getX() + ", " + pos.getY() + ", " + pos.getZ() + " in " + dimensionId);
+            dimension.put(pos.toLong(), position);
+        }
+        position.add(tick, time);
+    }
+
+    @SubscribeEvent
+    public void serverTick(ServerTickEvent event) {
+        if (event.phase == Phase.END && running) {
+            tick++;
+        }
+    }
+
+    public static boolean isRunning() {
+        return running;
+    }
+
+    /** Forgets everything that was recorded before, and starts recording. */
+    public void startProfiling() {
+        classes.clear();
+        positions.clear();
+        startTick = tick;
+        running = true;
+    }
+
+    public void stopProfiling() {
+        running = false;
+    }
+
+    /** @return The classes (and sections of them) that took the most time per tick, slowest first. */
+    public List<Entry> getTopClasses(int count) {
+        List<Entry> entries = new ArrayList<>();
+        for (Entry[] sections : classes.values()) {
+            for (Entry entry : sections) {
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return getTop(entries, count);
+    }
+
+    /** @return The positions that took the most time per tick, slowest first. */
+    public List<Entry> getTopPositions(int count) {
+        List<Entry> entries = new ArrayList<>();
+        for (Map<Long, Entry> dimension : positions.values()) {
+            entries.addAll(dimension.values());
+        }
+        return getTop(entries, count);
+    }
+
+    private static List<Entry> getTop(List<Entry> entries, int count) {
+        final Map<Entry, Long> times = Maps.newIdentityHashMap();
+        for (Entry entry : entries) {
+            times.put(entry, entry.getNanosPerTick());
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return Long.compare(times.get(b), times.get(a));
+            }
+        });
+        return entries.subList(0, Math.min(count, entries.size()));
+    }
+}
@@ -270,8 +270,8 @@ public class TileAutoWorkbench extends TileBuildCraft implements ISidedInventory
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
@@ -55,8 +55,8 @@ public class TileChute extends TileBuildCraft implements IInventory, IRedstoneEn
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
         if (worldObj.isRemote || isEmpty || worldObj.getTotalWorldTime() % 2 != 0) {
             return;
         }
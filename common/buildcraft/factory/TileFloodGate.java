@@ -50,8 +50,8 @@ public class TileFloodGate extends TileBuildCraft implements IFluidHandler, IDeb
     public TileFloodGate() {}
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
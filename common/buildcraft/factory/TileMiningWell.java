@@ -39,8 +39,8 @@ public class TileMiningWell extends TileBuildCraft implements IHasWork, IPipeCon
     /** Dig the next available piece of land if not done. As soon as it reaches bedrock, lava or goes below 0, it's
      * considered done. */
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
@@ -63,8 +63,8 @@ public class TilePump extends TileBuildCraft implements IHasWork, IFluidHandler,
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (powered) {
             pumpLayerQueues.clear();
@@ -58,6 +58,15 @@ public class TileRefinery extends TileBuildCraft implements IFluidHandler, IInve
     public TileRefinery() {
         super();
         this.setBattery(new RFBattery(10000, 1500, 0));
+
+        syncedFields.addFloat(() -> animationSpeed, v -> animationSpeed = (float) v);
+        syncedFields.addString(() -> currentRecipeId, v -> currentRecipeId = v);
+        for (final SingleUseTank tank : tankManager) {
+            syncedFields.addFluidStack(tank::getFluid, v -> {
+                tank.setFluid(v);
+                tank.colorRenderCache = v == null ? 0xFFFFFF : v.getFluid().getColor(v);
+            });
+        }
     }
 
     @Override
@@ -104,8 +113,8 @@ public class TileRefinery extends TileBuildCraft implements IFluidHandler, IInve
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             simpleAnimationIterate();
@@ -113,7 +122,7 @@ public class TileRefinery extends TileBuildCraft implements IFluidHandler, IInve
         }
 
         if (updateNetworkTime.markTimeIfDelay(worldObj)) {
-            sendNetworkUpdate();
+            sendSyncUpdate();
         }
 
         isActive = false;
@@ -331,6 +340,11 @@ public class TileRefinery extends TileBuildCraft implements IFluidHandler, IInve
         currentRecipeId = NetworkUtils.readUTF(stream);
         tankManager.readData(stream);
 
+        onSyncedFieldsRead();
+    }
+
+    @Override
+    protected void onSyncedFieldsRead() {
         currentRecipe = RefineryRecipeManager.INSTANCE.getRecipe(currentRecipeId);
 
         if (currentRecipe != null) {
@@ -56,8 +56,8 @@ public class TileTank extends TileBuildCraft implements IFluidHandler, IDebuggab
 
     /* UPDATING */
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (isNotReady()) return;
 
@@ -102,8 +102,8 @@ public class TileDistiller extends TileBuildCraft implements IFluidHandler, IHas
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) return;
 
@@ -104,8 +104,8 @@ public class TileEnergyHeater extends TileBuildCraft implements IFluidHandler, I
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) return;
 
@@ -110,8 +110,8 @@ public class TileHeatExchange extends TileBuildCraft implements IFluidHandler, I
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) return;
 
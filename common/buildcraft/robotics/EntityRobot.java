@@ -63,6 +63,7 @@ import buildcraft.core.lib.network.command.ICommandReceiver;
 import buildcraft.core.lib.network.command.PacketCommand;
 import buildcraft.core.lib.utils.NBTUtils;
 import buildcraft.core.lib.utils.NetworkUtils;
+import buildcraft.core.lib.utils.TickProfiler;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.core.proxy.CoreProxy;
 import buildcraft.robotics.ai.AIRobotMain;
@@ -277,6 +278,7 @@ public class EntityRobot extends EntityRobotBase implements IEntityAdditionalSpa
     @Override
     public void onEntityUpdate() {
         this.worldObj.theProfiler.startSection("bcEntityRobot");
+        long profile = TickProfiler.start();
         if (!firstUpdateDone) {
             firstUpdate();
             firstUpdateDone = true;
@@ -370,6 +372,7 @@ public class EntityRobot extends EntityRobotBase implements IEntityAdditionalSpa
         // do not tick wearables or equipment from EntityLiving
 
         super.onEntityUpdate();
+        TickProfiler.end(profile, TickProfiler.Section.ROBOT, getClass(), worldObj, getPosition());
         this.worldObj.theProfiler.endSection();
     }
 
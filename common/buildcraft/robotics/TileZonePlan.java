@@ -71,8 +71,8 @@ public class TileZonePlan extends TileBuildCraft implements IInventory {
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
@@ -200,8 +200,8 @@ public class TileAdvancedCraftingTable extends TileLaserTableBase implements IIn
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
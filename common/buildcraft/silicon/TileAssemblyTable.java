@@ -59,8 +59,8 @@ public class TileAssemblyTable extends TileLaserTableBase implements IInventory,
     }
 
     @Override
-    public void update() { // WARNING: run only server-side, see canUpdate()
-        super.update();
+    protected void updateTile() { // WARNING: run only server-side, see canUpdate()
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
@@ -8,8 +8,8 @@ import buildcraft.core.lib.utils.BCStringUtils;
 
 public class TileChargingTable extends TileLaserTableBase implements IHasWork {
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
@@ -43,8 +43,8 @@ public class TileIntegrationTable extends TileLaserTableBase implements ISidedIn
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
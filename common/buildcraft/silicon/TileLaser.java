@@ -67,8 +67,8 @@ public class TileLaser extends TileBuildCraft implements IHasWork, IControllable
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         laser.iterateTexture();
 
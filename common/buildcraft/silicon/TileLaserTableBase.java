@@ -32,8 +32,8 @@ public abstract class TileLaserTableBase extends TileBuildCraft implements ILase
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
         recentEnergyAverageUtil.tick();
     }
 
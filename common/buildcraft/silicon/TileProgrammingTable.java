@@ -40,8 +40,8 @@ public class TileProgrammingTable extends TileLaserTableBase implements IInvento
     }
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
 
         if (worldObj.isRemote) {
             return;
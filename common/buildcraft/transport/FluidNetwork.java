@@ -0,0 +1,285 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.IFluidHandler;
+
+/** Every fluid pipe of the same fluid that is connected together both ways, treated as a single tank.
+ * {@link PipeNetworkManager} solves the whole network once per tick: fluid that was put into any of its pipes during
+ * the tick is already in the tank, and the tank is then emptied into everything next to it that is not part of it, no
+ * faster than its narrowest pipe.
+ * <p>
+ * The sections of the pipes are only filled from the tank when something needs to look at them, such as clients or
+ * saving. A network never changes once it is compiled. Anything that could change it calls {@link #invalidate()},
+ * which puts the fluid back into the sections, and the next pipe to tick compiles a new one. */
+public class FluidNetwork implements IPipeNetwork {
+    final PipeTransportFluids[] pipes;
+    /** Every side of a pipe that fluid can leave the network through, as the index of the pipe and the side. */
+    private final int[] outputPipes;
+    private final byte[] outputSides;
+    private final int capacity, flowRate;
+    /** True if the network had to stop at pipes that had a different fluid in them. */
+    private final boolean fluidBoundary;
+
+    FluidStack fluidType;
+    int amount;
+    boolean valid = true;
+
+    /** True if fluid went in or out of the network during the last tick. */
+    private boolean active = false;
+    private long distributedTick = -1;
+    private int nextOutput = 0;
+
+    private FluidNetwork(List<PipeTransportFluids> members, FluidStack fluidType, boolean fluidBoundary) {
+        int count = members.size();
+        this.pipes = members.toArray(new PipeTransportFluids[count]);
+        this.fluidType = fluidType;
+        this.fluidBoundary = fluidBoundary;
+
+        int minFlowRate = Integer.MAX_VALUE, totalCapacity = 0;
+        List<Integer> outputList = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pipes[i].network = this;
+        }
+        for (int i = 0; i < count; i++) {
+            PipeTransportFluids pipe = pipes[i];
+            minFlowRate = Math.min(minFlowRate, pipe.getFlowRate());
+            totalCapacity += 7 * pipe.getCapacity();
+            for (EnumFacing side : EnumFacing.VALUES) {
+                boolean connected = pipe.container.isPipeConnected(side);
+                pipe.networkNeighbors[side.ordinal()] = connected ? pipe.container.getTile(side) : null;
+                if (connected && pipe.container.pipe.outputOpen(side)) {
+                    PipeTransportFluids other = getMember(pipe, side);
+                    if (other == null || other.network != this) {
+                        outputList.add(i * 6 + side.ordinal());
+                    }
+                }
+            }
+        }
+        this.flowRate = minFlowRate;
+        this.capacity = totalCapacity;
+        this.outputPipes = new int[outputList.size()];
+        this.outputSides = new byte[outputList.size()];
+        for (int i = 0; i < outputPipes.length; i++) {
+            outputPipes[i] = outputList.get(i) / 6;
+            outputSides[i] = (byte) (outputList.get(i) % 6);
+        }
+    }
+
+    /** Finds every pipe connected to the given one that could be in the same network, and takes the fluid out of their
+     * sections. */
+    static FluidNetwork compile(PipeTransportFluids start) {
+        List<PipeTransportFluids> members = new ArrayList<>();
+        members.add(start);
+        start.networkVisit = start;
+        if (start.network != null && start.network.valid) {
+            // The pipes of old networks might be split up, so they need their fluid back first
+            start.network.invalidate();
+        }
+
+        FluidStack fluidType = start.fluidType;
+        boolean fluidBoundary = false;
+        for (int i = 0; i < members.size(); i++) {
+            for (EnumFacing side : EnumFacing.VALUES) {
+                PipeTransportFluids other = getLinked(members.get(i), side);
+                if (other == null || other.networkVisit == start) {
+                    continue;
+                }
+                if (other.fluidType != null && fluidType != null && !other.fluidType.isFluidEqual(fluidType)) {
+                    fluidBoundary = true;
+                    continue;
+                }
+                if (other.network != null && other.network.valid) {
+                    other.network.invalidate();
+                }
+                if (fluidType == null) {
+                    fluidType = other.fluidType;
+                }
+                other.networkVisit = start;
+                members.add(other);
+            }
+        }
+
+        int amount = 0;
+        for (PipeTransportFluids member : members) {
+            member.networkVisit = null;
+            member.network = null;
+            amount += member.getSectionTotal();
+        }
+        FluidNetwork network = new FluidNetwork(members, amount > 0 ? new FluidStack(fluidType, 0) : null, fluidBoundary);
+        network.amount = amount;
+        network.setMemberFluid(network.fluidType);
+        return network;
+    }
+
+    /** @return The pipe on the given side of the given one, if fluid can move between them both ways. This asks the
+     *         pipes rather than their transports, as one-way pipes (like iron and wooden ones) decide it there. */
+    private static PipeTransportFluids getLinked(PipeTransportFluids pipe, EnumFacing side) {
+        PipeTransportFluids other = getMember(pipe, side);
+        if (other == null || !pipe.container.pipe.outputOpen(side) || !pipe.container.pipe.inputOpen(side)) {
+            return null;
+        }
+        EnumFacing back = side.getOpposite();
+        if (!other.container.isPipeConnected(back) || !other.container.pipe.outputOpen(back) || !other.container.pipe.inputOpen(back)) {
+            return null;
+        }
+        return other;
+    }
+
+    /** @return The pipe on the given side of the given one, if it could be part of a network. */
+    private static PipeTransportFluids getMember(PipeTransportFluids pipe, EnumFacing side) {
+        if (!pipe.container.isPipeConnected(side)) {
+            return null;
+        }
+        TileEntity tile = pipe.container.getTile(side);
+        if (tile instanceof TileGenericPipe && !tile.isInvalid()) {
+            Pipe<?> other = ((TileGenericPipe) tile).pipe;
+            if (BlockGenericPipe.isValid(other) && other.transport instanceof PipeTransportFluids) {
+                PipeTransportFluids transport = (PipeTransportFluids) other.transport;
+                return transport.isNetworkMember() ? transport : null;
+            }
+        }
+        return null;
+    }
+
+    /** Puts the fluid back into the sections of the pipes, and forgets this network so that its pipes compile a new
+     * one. */
+    public void invalidate() {
+        if (valid) {
+            distribute(true);
+            valid = false;
+            for (PipeTransportFluids pipe : pipes) {
+                if (pipe.network == this) {
+                    pipe.network = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public int getSize() {
+        return pipes.length;
+    }
+
+    /** Fills the network through the given side of one of its pipes. Each side of each pipe takes no more than the flow
+     * rate of its pipe every tick.
+     *
+     * @param from The side that the fluid comes from, or null if it comes from inside of the pipe. */
+    int fill(PipeTransportFluids pipe, EnumFacing from, FluidStack resource, boolean doFill) {
+        if (fluidType != null && !resource.isFluidEqual(fluidType)) {
+            return 0;
+        }
+        int index = from == null ? 6 : from.ordinal();
+        int filled = Math.min(resource.amount, Math.min(capacity - amount, pipe.getNetworkInputSpace(index)));
+        if (filled <= 0) {
+            return 0;
+        }
+        if (doFill) {
+            if (fluidType == null) {
+                fluidType = new FluidStack(resource, 0);
+                setMemberFluid(fluidType);
+            }
+            amount += filled;
+            pipe.recordNetworkInput(index, filled);
+            setActive();
+        }
+        return filled;
+    }
+
+    /** Empties the network into everything next to it. */
+    @Override
+    public void solve() {
+        if (amount <= 0 || fluidType == null) {
+            if (active) {
+                active = false;
+            } else if (fluidBoundary) {
+                // The pipes around this network might have the fluid that was stopped at it, so join them
+                invalidate();
+            }
+            return;
+        }
+
+        boolean moved = false;
+        int outputs = outputPipes.length;
+        int available = Math.min(amount, flowRate);
+        for (int pass = 0; pass < 2 && available > 0 && outputs > 0; pass++) {
+            // Everything gets the same share at first, and then whatever is left is offered to each of them in turn
+            int share = pass == 0 ? Math.max(1, available / outputs) : available;
+            for (int n = 0; n < outputs && available > 0; n++) {
+                int i = (nextOutput + n) % outputs;
+                PipeTransportFluids pipe = pipes[outputPipes[i]];
+                EnumFacing side = EnumFacing.VALUES[outputSides[i]];
+                TileEntity tile = pipe.container.getTile(side);
+                if (!(tile instanceof IFluidHandler) || tile.isInvalid()) {
+                    continue;
+                }
+                int filled = ((IFluidHandler) tile).fill(side.getOpposite(), new FluidStack(fluidType, Math.min(share, available)), true);
+                if (filled > 0) {
+                    available -= filled;
+                    amount -= filled;
+                    pipe.flow[side.ordinal()] = 1;
+                    moved = true;
+                }
+            }
+        }
+        if (outputs > 0) {
+            nextOutput = (nextOutput + 1) % outputs;
+        }
+
+        if (amount == 0) {
+            fluidType = null;
+            setMemberFluid(null);
+        }
+        if (moved) {
+            setActive();
+        } else {
+            active = false;
+        }
+    }
+
+    private void setActive() {
+        if (!active) {
+            active = true;
+            // Every pipe might look different now, so none of them can stay asleep
+            for (PipeTransportFluids pipe : pipes) {
+                pipe.container.wakeUp();
+            }
+        }
+    }
+
+    private void setMemberFluid(FluidStack fluid) {
+        for (PipeTransportFluids pipe : pipes) {
+            pipe.fluidType = fluid;
+        }
+    }
+
+    /** Spreads the fluid of the network evenly over the sections of its pipes. Only does anything once per tick, unless
+     * forced. */
+    void distribute(boolean force) {
+        long now = pipes[0].container.getWorld().getTotalWorldTime();
+        if (!force && distributedTick == now) {
+            return;
+        }
+        distributedTick = now;
+
+        int count = pipes.length;
+        for (int i = 0; i < count; i++) {
+            int share = amount / count + (i < amount % count ? 1 : 0);
+            pipes[i].setSectionAmounts(share);
+        }
+    }
+}
@@ -54,6 +54,9 @@ public final class Gate implements IGate, ISidedStatementContainer, IRedstoneSta
 
     public ActionActiveState[] actionsState = new ActionActiveState[MAX_STATEMENTS];
     public ArrayList<StatementSlot> activeActions = new ArrayList<>();
+    /** One bit per action slot that was active after the last {@link #resolveActions()}, used to tell the pipe when
+     * its routing might have changed. */
+    private int activeActionMask = 0;
 
     public byte broadcastSignal, prevBroadcastSignal;
     public int redstoneOutput = 0;
@@ -112,6 +115,7 @@ public final class Gate implements IGate, ISidedStatementContainer, IRedstoneSta
         actions[position] = action;
 
         recalculateActionGroups();
+        pipe.invalidateRouting();
     }
 
     public IStatement getAction(int position) {
@@ -126,6 +130,7 @@ public final class Gate implements IGate, ISidedStatementContainer, IRedstoneSta
         actionParameters[action][param] = p;
 
         recalculateActionGroups();
+        pipe.invalidateRouting();
     }
 
     public IStatementParameter getTriggerParameter(int trigger, int param) {
@@ -404,6 +409,8 @@ public final class Gate implements IGate, ISidedStatementContainer, IRedstoneSta
         }
 
         activeActions.clear();
+        int oldActiveActionMask = activeActionMask;
+        activeActionMask = 0;
 
         long now = getPipe().getTile().getWorldBC().getTotalWorldTime();
 
@@ -445,6 +452,7 @@ public final class Gate implements IGate, ISidedStatementContainer, IRedstoneSta
                 } else {
                     activeActions.add(slot);
                 }
+                activeActionMask |= 1 << it;
             } else {
                 tickActivated[it] = -1;
             }
@@ -494,6 +502,10 @@ public final class Gate implements IGate, ISidedStatementContainer, IRedstoneSta
 
         pipe.actionsActivated(activeActions);
 
+        if (oldActiveActionMask != activeActionMask) {
+            pipe.invalidateRouting();
+        }
+
         if (oldRedstoneOutput != redstoneOutput || oldRedstoneOutputSide != redstoneOutputSide) {
             pipe.updateNeighbors(true);
         }
@@ -0,0 +1,17 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+/** A group of connected pipes that is moved through as a whole by a {@link PipeNetworkManager}. */
+public interface IPipeNetwork {
+    /** @return False once this network has been forgotten, after which its pipes compile a new one. */
+    boolean isValid();
+
+    /** Moves one tick of whatever the network carries through the whole network. */
+    void solve();
+
+    /** @return The number of pipes in this network. */
+    int getSize();
+}
@@ -0,0 +1,16 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+import buildcraft.transport.pipes.events.PipeEventItem;
+
+/** Implemented by pipes, pluggables and global handlers that listen to {@link PipeEventItem.FindDest}, to declare
+ * whether a {@link PipeRoutingCache} may remember the destinations they pick. Any handler of that event that does NOT
+ * implement this stops the pipe from caching its routing. */
+public interface IRoutingCacheable {
+    /** @return True if the destinations that are picked only depend on the routing signature of the item (the side it
+     *         came from, its colour and its stack) and on state that invalidates the pipe's routing when it changes. */
+    boolean canCacheRouting();
+}
@@ -12,7 +12,13 @@ import buildcraft.transport.pipes.events.PipeEventItem;
 import buildcraft.transport.pipes.events.PipeEventPriority;
 import buildcraft.transport.pluggable.LensPluggable;
 
-public class LensFilterHandler {
+public class LensFilterHandler implements IRoutingCacheable {
+    @Override
+    public boolean canCacheRouting() {
+        // Only depends on the item's colour and the lenses next to this pipe, and changing lenses invalidates routing
+        return true;
+    }
+
     @PipeEventPriority(priority = -100)
     public void eventHandler(PipeEventItem.FindDest event) {
         IPipeTile container = event.pipe.getTile();
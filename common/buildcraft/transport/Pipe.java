@@ -17,6 +17,7 @@ import buildcraft.core.internal.IDropControlInventory;
 import buildcraft.core.lib.event.IEventBus;
 import buildcraft.core.lib.event.IEventBusProvider;
 import buildcraft.core.lib.inventory.InvUtils;
+import buildcraft.core.lib.utils.TickProfiler;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.transport.gates.GateFactory;
 import buildcraft.transport.pipes.events.PipeEvent;
@@ -83,6 +84,24 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 
     public void onBlockPlacedBy(EntityLivingBase placer) {}
 
+    /** Invalidates the routing of this pipe and of every pipe next to it, as neighbours check if this pipe accepts
+     * their contents when they route. */
+    public void invalidateRouting() {
+        transport.invalidateRouting();
+        if (container == null || container.getWorld() == null) {
+            return;
+        }
+        for (EnumFacing face : EnumFacing.VALUES) {
+            TileEntity tile = container.getTile(face);
+            if (tile instanceof IPipeTile) {
+                Pipe<?> other = (Pipe<?>) ((IPipeTile) tile).getPipe();
+                if (other != null) {
+                    other.transport.invalidateRouting();
+                }
+            }
+        }
+    }
+
     public void onNeighborBlockChange(int blockId) {
         for (EnumFacing face : EnumFacing.values()) {
             transport.onNeighborChange(face);
@@ -126,25 +145,42 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
     public abstract int getIconIndex(EnumFacing direction);
 
     public void updateEntity() {
+        long profile = TickProfiler.start();
         transport.updateEntity();
+        TickProfiler.end(profile, TickProfiler.Section.PIPE_TRANSPORT, getClass(), container.getWorld(), container.getPos());
 
         actionStates.clear();
 
         // Update the gate if we have any
         if (!container.getWorld().isRemote) {
+            profile = TickProfiler.start();
             for (Gate gate : gates) {
                 if (gate != null) {
                     gate.resolveActions();
                     gate.tick();
                 }
             }
+            TickProfiler.end(profile, TickProfiler.Section.PIPE_GATES, getClass(), container.getWorld(), container.getPos());
 
             if (scheduleWireUpdate) {
+                scheduleWireUpdate = false;
                 updateSignalState();
             }
         }
     }
 
+    /** @return True if this pipe can be taken out of the tick loop until it is woken up again. Pipes that override
+     *         {@link #updateEntity()} are never put to sleep unless they override this as well. */
+    public boolean canHibernate() {
+        if (scheduleWireUpdate || hasGate()) {
+            return false;
+        }
+        if (PipeHibernationManager.overridesTick(getClass(), Pipe.class, "updateEntity")) {
+            return false;
+        }
+        return transport.canHibernate();
+    }
+
     public void writeToNBT(NBTTagCompound data) {
         transport.writeToNBT(data);
 
@@ -535,6 +571,9 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 
     public void scheduleWireUpdate() {
         scheduleWireUpdate = true;
+        if (container != null) {
+            container.wakeUp();
+        }
     }
 
     @Override
@@ -1,60 +1,86 @@
 package buildcraft.transport;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
-import com.google.common.collect.Maps;
-
+import buildcraft.api.core.BCLog;
+import buildcraft.core.lib.event.EventBusProviderASM;
 import buildcraft.core.lib.event.IEventBus;
+import buildcraft.core.lib.event.IEventHandler;
+import buildcraft.core.lib.event.IEventHandlerProvider;
 import buildcraft.transport.pipes.events.PipeEvent;
 import buildcraft.transport.pipes.events.PipeEventPriority;
 
+/** Dispatches {@link PipeEvent}s to every public method called "eventHandler" in the registered handlers.
+ * <p>
+ * The handler methods of each class are only looked up once, and each one is compiled into a direct call with
+ * {@link EventBusProviderASM#generateSingleProvider(Method, Class)}. Each bus then keeps an array of handlers per event
+ * class, sorted by priority, so firing an event is a plain loop. The arrays are replaced rather than changed when
+ * handlers are (un)registered, so handlers may do that while an event is being fired. */
 public class PipeEventBus implements IEventBus<PipeEvent> {
-    private class EventHandler {
-        public Method method;
-        public Object owner;
-
-        public EventHandler(Method m, Object o) {
-            this.method = m;
-            this.owner = o;
+    /** A handler method of a class, shared between every instance of that class. */
+    private static class HandlerMethod {
+        public final Class<? extends PipeEvent> eventType;
+        public final int priority;
+        public final IEventHandlerProvider<PipeEvent> provider;
+
+        public HandlerMethod(Class<? extends PipeEvent> eventType, int priority, IEventHandlerProvider<PipeEvent> provider) {
+            this.eventType = eventType;
+            this.priority = priority;
+            this.provider = provider;
         }
+    }
 
-        @Override
-        public boolean equals(Object o) {
-            if (o == null || !(o instanceof EventHandler)) {
-                return false;
-            }
+    /** A handler method bound to one handler object. */
+    private static class EventHandler {
+        public final Object owner;
+        public final int priority;
+        public final IEventHandler<PipeEvent> invoker;
 
-            EventHandler e = (EventHandler) o;
-            return e.method.equals(method) && e.owner == owner;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(method, owner);
+        public EventHandler(Object owner, int priority, IEventHandler<PipeEvent> invoker) {
+            this.owner = owner;
+            this.priority = priority;
+            this.invoker = invoker;
         }
     }
 
-    private static class EventHandlerCompare implements Comparator<EventHandler> {
-        private int getPriority(EventHandler eh) {
-            PipeEventPriority p = eh.method.getAnnotation(PipeEventPriority.class);
-            return p != null ? p.priority() : 0;
+    /** Used for handler methods that the generated classes cannot access, for example in non-public classes. */
+    private static class ReflectiveHandlerProvider implements IEventHandlerProvider<PipeEvent> {
+        private final Method method;
+        private volatile boolean hasWarned = false;
+
+        public ReflectiveHandlerProvider(Method method) {
+            this.method = method;
+            method.setAccessible(true);
         }
 
         @Override
-        public int compare(EventHandler o1, EventHandler o2) {
-            int priority1 = getPriority(o1);
-            int priority2 = getPriority(o2);
-            return priority2 - priority1;
+        public IEventHandler<PipeEvent> createNewHandler(final Object obj) {
+            return event -> {
+                try {
+                    method.invoke(obj, event);
+                } catch (Exception e) {
+                    if (!hasWarned) {
+                        hasWarned = true;
+                        BCLog.logger.warn("The pipe event handler " + method + " failed, further failures will not be logged", e);
+                    }
+                }
+            };
         }
     }
 
-    private static final EventHandlerCompare COMPARATOR = new EventHandlerCompare();
+    private static final EventHandler[] NO_HANDLERS = new EventHandler[0];
+    /** Generation failures are only logged once, as they tend to happen for every handler if they happen at all. */
+    private static volatile boolean hasWarnedFallback = false;
     private static final HashSet<Object> globalHandlers = new HashSet<>();
+    /** Pipes are created on both the client and server threads, so this must be thread safe. */
+    private static final Map<Class<?>, HandlerMethod[]> classHandlers = new ConcurrentHashMap<>();
 
     private final HashSet<Object> registeredHandlers = new HashSet<>();
-    private final HashMap<Object, Map<Method, Class<? extends PipeEvent>>> handlerMethods = Maps.newHashMap();
-    private final HashMap<Class<? extends PipeEvent>, List<EventHandler>> eventHandlers = Maps.newHashMap();
+    private final HashMap<Class<? extends PipeEvent>, EventHandler[]> eventHandlers = new HashMap<>();
 
     public PipeEventBus() {
         for (Object o : globalHandlers) {
@@ -66,43 +92,78 @@ public class PipeEventBus implements IEventBus<PipeEvent> {
         globalHandlers.add(globalHandler);
     }
 
-    private List<EventHandler> getHandlerList(Class<? extends PipeEvent> event) {
-        if (!eventHandlers.containsKey(event)) {
-            eventHandlers.put(event, new ArrayList<EventHandler>());
-        }
-        return eventHandlers.get(event);
+    /** @return True if the given object was registered with {@link #registerGlobalHandler(Object)}. */
+    public static boolean isGlobalHandler(Object handler) {
+        return globalHandlers.contains(handler);
     }
 
-    @Override
-    public void registerHandler(Object handler) {
-        if (registeredHandlers.contains(handler)) {
-            return;
+    private EventHandler[] getHandlers(Class<? extends PipeEvent> event) {
+        EventHandler[] handlers = eventHandlers.get(event);
+        return handlers == null ? NO_HANDLERS : handlers;
+    }
+
+    private static HandlerMethod[] getHandlerMethods(Class<?> clazz) {
+        HandlerMethod[] methods = classHandlers.get(clazz);
+        if (methods == null) {
+            methods = findHandlerMethods(clazz);
+            classHandlers.put(clazz, methods);
         }
+        return methods;
+    }
 
-        registeredHandlers.add(handler);
-        Map<Method, Class<? extends PipeEvent>> methods = new HashMap<>();
+    private static HandlerMethod[] findHandlerMethods(Class<?> clazz) {
+        List<HandlerMethod> methods = new ArrayList<>();
 
-        for (Method m : handler.getClass().getDeclaredMethods()) {
+        for (Method m : clazz.getDeclaredMethods()) {
             if ("eventHandler".equals(m.getName())) {
                 Class<?>[] parameters = m.getParameterTypes();
                 if (parameters.length == 1 && PipeEvent.class.isAssignableFrom(parameters[0])) {
                     Class<? extends PipeEvent> eventType = (Class<? extends PipeEvent>) parameters[0];
-                    List<EventHandler> eventHandlerList = getHandlerList(eventType);
-                    eventHandlerList.add(new EventHandler(m, handler));
-                    updateEventHandlers(eventHandlerList);
-                    methods.put(m, eventType);
-
-                    // BCPipeEventHandler annotation = m.getAnnotation(BCPipeEventHandler.class);
-                    // if (annotation == null) BCLog.logger.warn("Need to add @BCPipeEventHandler to the method " + m);
+                    PipeEventPriority p = m.getAnnotation(PipeEventPriority.class);
+                    int priority = p != null ? p.priority() : 0;
+                    methods.add(new HandlerMethod(eventType, priority, createProvider(m, eventType)));
                 }
             }
         }
 
-        handlerMethods.put(handler, methods);
+        return methods.toArray(new HandlerMethod[methods.size()]);
+    }
+
+    private static IEventHandlerProvider<PipeEvent> createProvider(Method m, Class<? extends PipeEvent> eventType) {
+        if (Modifier.isPublic(m.getModifiers()) && Modifier.isPublic(m.getDeclaringClass().getModifiers())) {
+            try {
+                return EventBusProviderASM.generateSingleProvider(m, eventType);
+            } catch (Throwable t) {
+                if (!hasWarnedFallback) {
+                    hasWarnedFallback = true;
+                    BCLog.logger.warn("Could not generate a pipe event handler for " + m + ", falling back to reflection", t);
+                }
+            }
+        }
+        return new ReflectiveHandlerProvider(m);
     }
 
-    private void updateEventHandlers(List<EventHandler> eventHandlerList) {
-        Collections.sort(eventHandlerList, COMPARATOR);
+    @Override
+    public void registerHandler(Object handler) {
+        if (registeredHandlers.contains(handler)) {
+            return;
+        }
+
+        registeredHandlers.add(handler);
+
+        for (HandlerMethod method : getHandlerMethods(handler.getClass())) {
+            EventHandler[] old = getHandlers(method.eventType);
+            // Keep handlers of equal priority in the order they were registered
+            int index = 0;
+            while (index < old.length && old[index].priority >= method.priority) {
+                index++;
+            }
+            EventHandler[] handlers = new EventHandler[old.length + 1];
+            System.arraycopy(old, 0, handlers, 0, index);
+            handlers[index] = new EventHandler(handler, method.priority, method.provider.createNewHandler(handler));
+            System.arraycopy(old, index, handlers, index + 1, old.length - index);
+            eventHandlers.put(method.eventType, handlers);
+        }
     }
 
     @Override
@@ -112,18 +173,47 @@ public class PipeEventBus implements IEventBus<PipeEvent> {
         }
 
         registeredHandlers.remove(handler);
-        Map<Method, Class<? extends PipeEvent>> methodMap = handlerMethods.get(handler);
-        for (Method m : methodMap.keySet()) {
-            getHandlerList(methodMap.get(m)).remove(new EventHandler(m, handler));
+
+        for (HandlerMethod method : getHandlerMethods(handler.getClass())) {
+            EventHandler[] old = getHandlers(method.eventType);
+            List<EventHandler> handlers = new ArrayList<>(old.length);
+            for (EventHandler eventHandler : old) {
+                if (eventHandler.owner != handler) {
+                    handlers.add(eventHandler);
+                }
+            }
+            if (handlers.isEmpty()) {
+                eventHandlers.remove(method.eventType);
+            } else {
+                eventHandlers.put(method.eventType, handlers.toArray(new EventHandler[handlers.size()]));
+            }
+        }
+    }
+
+    /** @return True if every object with a handler for the given event passes the given test. */
+    public boolean allHandlersMatch(Class<? extends PipeEvent> event, Predicate<Object> test) {
+        for (EventHandler eventHandler : getHandlers(event)) {
+            if (!test.test(eventHandler.owner)) {
+                return false;
+            }
         }
-        handlerMethods.remove(handler);
+        return true;
+    }
+
+    /** @return Every event class that this bus has at least one handler for. */
+    public Set<Class<? extends PipeEvent>> getHandledEvents() {
+        return Collections.unmodifiableSet(eventHandlers.keySet());
     }
 
     @Override
     public void handleEvent(PipeEvent event) {
-        for (EventHandler eventHandler : getHandlerList(event.getClass())) {
+        EventHandler[] handlers = eventHandlers.get(event.getClass());
+        if (handlers == null) {
+            return;
+        }
+        for (EventHandler eventHandler : handlers) {
             try {
-                eventHandler.method.invoke(eventHandler.owner, event);
+                eventHandler.invoker.handle(event);
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -0,0 +1,184 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+/** Removes idle pipes from the tick loop of their world, and puts them back when something happens to them.
+ * <p>
+ * A pipe asks to {@link #requestSleep(TileGenericPipe)} once it has been idle for a while, and anything that gives a
+ * sleeping pipe work calls {@link TileGenericPipe#wakeUp()}. As the world's list of ticking tiles cannot be changed
+ * while it is being ticked, both of these are only applied at the start and end of each world tick. */
+public class PipeHibernationManager {
+    /** Set from the config. */
+    public static boolean enabled = false;
+
+    /** The number of ticks that a pipe has to be idle for before it goes to sleep. */
+    public static final int IDLE_TICKS = 20;
+
+    /** Whether each class overrides each tick method, keyed by the method name. Pipes are created on both the client
+     * and server threads, so this has to be concurrent. */
+    private static final Map<String, Map<Class<?>, Boolean>> tickingClasses = new ConcurrentHashMap<>();
+
+    private class WorldState {
+        final Set<TileGenericPipe> sleeping = Collections.newSetFromMap(new WeakHashMap<TileGenericPipe, Boolean>());
+        final Set<TileGenericPipe> toSleep = Collections.newSetFromMap(new IdentityHashMap<TileGenericPipe, Boolean>());
+        final List<TileGenericPipe> toWake = new ArrayList<>();
+        final TreeMap<Long, List<TileGenericPipe>> scheduled = new TreeMap<>();
+    }
+
+    private final Map<Integer, WorldState> worlds = new HashMap<>();
+
+    /** @return True if the given class overrides the given method from the given base class, so instances of it have to
+     *         keep ticking. */
+    static boolean overridesTick(Class<?> clazz, Class<?> base, String name, Class<?>... parameters) {
+        Map<Class<?>, Boolean> classes = tickingClasses.computeIfAbsent(name, n -> new ConcurrentHashMap<>());
+        Boolean ticks = classes.get(clazz);
+        if (ticks == null) {
+            try {
+                Method method = clazz.getMethod(name, parameters);
+                ticks = method.getDeclaringClass() != base;
+            } catch (NoSuchMethodException e) {
+                ticks = true;
+            }
+            classes.put(clazz, ticks);
+        }
+        return ticks;
+    }
+
+    private WorldState getState(World world) {
+        int dim = world.provider.getDimensionId();
+        WorldState state = worlds.get(dim);
+        if (state == null) {
+            state = new WorldState();
+            worlds.put(dim, state);
+        }
+        return state;
+    }
+
+    void requestSleep(TileGenericPipe pipe) {
+        getState(pipe.getWorld()).toSleep.add(pipe);
+    }
+
+    void requestWakeUp(TileGenericPipe pipe) {
+        WorldState state = getState(pipe.getWorld());
+        state.toSleep.remove(pipe);
+        if (pipe.hibernating) {
+            state.toWake.add(pipe);
+        }
+    }
+
+    /** Wakes the given pipe up after the given number of ticks, if it is asleep by then. */
+    void scheduleWakeUp(TileGenericPipe pipe, int ticks) {
+        WorldState state = getState(pipe.getWorld());
+        long time = pipe.getWorld().getTotalWorldTime() + ticks;
+        List<TileGenericPipe> list = state.scheduled.get(time);
+        if (list == null) {
+            list = new ArrayList<>();
+            state.scheduled.put(time, list);
+        }
+        list.add(pipe);
+    }
+
+    /** Called when a pipe is removed from the world, so that it isn't put back into the tick loop. */
+    void forget(TileGenericPipe pipe) {
+        WorldState state = worlds.get(pipe.getWorld().provider.getDimensionId());
+        if (state != null) {
+            state.toSleep.remove(pipe);
+            state.sleeping.remove(pipe);
+        }
+        pipe.hibernating = false;
+    }
+
+    /** @return The number of pipes that are currently asleep in the given world. */
+    public int getSleepingCount(World world) {
+        WorldState state = worlds.get(world.provider.getDimensionId());
+        return state == null ? 0 : state.sleeping.size();
+    }
+
+    @SubscribeEvent
+    public void tick(TickEvent.WorldTickEvent event) {
+        if (event.world.isRemote) {
+            return;
+        }
+        WorldState state = worlds.get(event.world.provider.getDimensionId());
+        if (state == null) {
+            return;
+        }
+
+        if (event.phase == TickEvent.Phase.START) {
+            long now = event.world.getTotalWorldTime();
+            while (!state.scheduled.isEmpty() && state.scheduled.firstKey() <= now) {
+                for (TileGenericPipe pipe : state.scheduled.pollFirstEntry().getValue()) {
+                    pipe.wakeUp();
+                }
+            }
+        }
+
+        wakePipes(event.world, state);
+
+        if (event.phase == TickEvent.Phase.END) {
+            sleepPipes(event.world, state);
+        }
+    }
+
+    private void wakePipes(World world, WorldState state) {
+        if (state.toWake.isEmpty()) {
+            return;
+        }
+        for (TileGenericPipe pipe : state.toWake) {
+            if (pipe.hibernating && state.sleeping.remove(pipe)) {
+                pipe.hibernating = false;
+                if (!pipe.isInvalid() && pipe.getWorld() == world) {
+                    world.tickableTileEntities.add(pipe);
+                }
+            }
+        }
+        state.toWake.clear();
+    }
+
+    private void sleepPipes(World world, WorldState state) {
+        if (state.toSleep.isEmpty()) {
+            return;
+        }
+        Set<TileEntity> removed = Collections.newSetFromMap(new IdentityHashMap<TileEntity, Boolean>());
+        for (TileGenericPipe pipe : state.toSleep) {
+            // Check again, as something might have happened to it since it asked
+            if (!pipe.hibernating && !pipe.isInvalid() && pipe.getWorld() == world && pipe.canHibernate()) {
+                pipe.hibernating = true;
+                state.sleeping.add(pipe);
+                removed.add(pipe);
+            }
+        }
+        state.toSleep.clear();
+        if (!removed.isEmpty()) {
+            world.tickableTileEntities.removeAll(removed);
+        }
+    }
+
+    @SubscribeEvent
+    public void worldUnload(WorldEvent.Unload event) {
+        if (!event.world.isRemote) {
+            worlds.remove(event.world.provider.getDimensionId());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.world.World;
+
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+/** Solves every network of a world at the end of each tick, once all of the pipes (and so everything that fills the
+ * networks) have ticked. Networks that stop being valid, because they were emptied, joined up with others or found a
+ * removed pipe while solving, are dropped. */
+public class PipeNetworkManager<N extends IPipeNetwork> {
+    private final Map<Integer, List<N>> networks = new HashMap<>();
+
+    /** Adds a network that was just compiled in the given world. */
+    void add(World world, N network) {
+        int dim = world.provider.getDimensionId();
+        List<N> list = networks.get(dim);
+        if (list == null) {
+            list = new ArrayList<>();
+            networks.put(dim, list);
+        }
+        list.add(network);
+    }
+
+    /** @return The number of networks in the given world, and the number of pipes in them. */
+    public int[] getStats(World world) {
+        List<N> list = networks.get(world.provider.getDimensionId());
+        int count = 0, pipes = 0;
+        if (list != null) {
+            for (N network : list) {
+                if (network.isValid()) {
+                    count++;
+                    pipes += network.getSize();
+                }
+            }
+        }
+        return new int[] { count, pipes };
+    }
+
+    @SubscribeEvent
+    public void tick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.world.isRemote) {
+            return;
+        }
+        List<N> list = networks.get(event.world.provider.getDimensionId());
+        if (list == null) {
+            return;
+        }
+        Iterator<N> iterator = list.iterator();
+        while (iterator.hasNext()) {
+            N network = iterator.next();
+            if (network.isValid()) {
+                network.solve();
+            }
+            if (!network.isValid()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void worldUnload(WorldEvent.Unload event) {
+        if (!event.world.isRemote) {
+            networks.remove(event.world.provider.getDimensionId());
+        }
+    }
+}
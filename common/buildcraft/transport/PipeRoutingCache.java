@@ -0,0 +1,167 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.EnumFacing;
+
+/** Remembers where a {@link PipeTransportItems} decided to send items, so that identical items entering from the same
+ * side do not have to go through {@link PipeTransportItems#getPossibleMovements(TravelingItem)} again. Entries are
+ * keyed by the routing signature of an item: the side it entered from, its blacklist, its colour, and the item, damage
+ * and NBT of its stack.
+ * <p>
+ * This does not know when its decisions become stale, so the pipe must call {@link #invalidate()} whenever anything
+ * that routing depends on changes. */
+public class PipeRoutingCache {
+    private static final int CAPACITY = 32;
+    private static final int MASK = CAPACITY - 1;
+    /** Stored in {@link #firsts} if any of the destinations can be picked at random. */
+    private static final byte SHUFFLE = -1;
+
+    private boolean enabled = true;
+    private int size = 0;
+
+    // Lazily created, as most pipes never see an item
+    private ItemStack[] stacks;
+    private int[] hashes;
+    private int[] sides;
+    private byte[] destinations;
+    private byte[] firsts;
+
+    /** Clears every decision. */
+    public void invalidate() {
+        enabled = true;
+        if (size > 0) {
+            Arrays.fill(stacks, null);
+            size = 0;
+        }
+    }
+
+    /** Stops this cache from storing anything until the next {@link #invalidate()}. Used when one of the pipe's
+     * handlers cannot have its decisions cached. */
+    public void disable() {
+        invalidate();
+        enabled = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** @return True if the item can be looked up in (or stored into) this cache at all. */
+    public static boolean canCache(TravelingItem item) {
+        return item.input != null && !item.isCorrupted() && !item.hasExtraData()
+            && item.getInsertionHandler() == TravelingItem.DEFAULT_INSERTION_HANDLER;
+    }
+
+    /** Finds the destination that was cached for the given item.
+     *
+     * @param rand Used to pick between several destinations if the decision was made with shuffling.
+     * @return The ordinal of the destination (or 6 if there was nowhere to go), or -1 if nothing was cached. */
+    public int lookup(TravelingItem item, Random rand) {
+        if (size == 0) {
+            return -1;
+        }
+        int side = sideKey(item);
+        int hash = hash(item.getItemStack(), side);
+        for (int i = hash & MASK, probes = 0; probes < CAPACITY; i = (i + 1) & MASK, probes++) {
+            ItemStack stack = stacks[i];
+            if (stack == null) {
+                return -1;
+            }
+            if (hashes[i] == hash && sides[i] == side && matches(stack, item.getItemStack())) {
+                return pick(i, rand);
+            }
+        }
+        return -1;
+    }
+
+    /** Stores the result of {@link PipeTransportItems#getPossibleMovements(TravelingItem)}, before it was shuffled. */
+    public void store(TravelingItem item, List<EnumFacing> result, boolean shuffle) {
+        if (!enabled) {
+            return;
+        }
+        if (stacks == null) {
+            stacks = new ItemStack[CAPACITY];
+            hashes = new int[CAPACITY];
+            sides = new int[CAPACITY];
+            destinations = new byte[CAPACITY];
+            firsts = new byte[CAPACITY];
+        } else if (size >= CAPACITY / 2) {
+            // Keep the probe sequences short: if a pipe sees this many different items then just start again
+            invalidate();
+        }
+
+        int side = sideKey(item);
+        int hash = hash(item.getItemStack(), side);
+        int i = hash & MASK;
+        while (stacks[i] != null) {
+            i = (i + 1) & MASK;
+        }
+
+        byte mask = 0;
+        for (EnumFacing face : result) {
+            mask |= 1 << face.ordinal();
+        }
+
+        ItemStack key = item.getItemStack().copy();
+        key.stackSize = 1;
+        stacks[i] = key;
+        hashes[i] = hash;
+        sides[i] = side;
+        destinations[i] = mask;
+        firsts[i] = shuffle || result.isEmpty() ? SHUFFLE : (byte) result.get(0).ordinal();
+        size++;
+    }
+
+    private int pick(int index, Random rand) {
+        int mask = destinations[index];
+        if (mask == 0) {
+            return 6;
+        }
+        if (firsts[index] != SHUFFLE) {
+            return firsts[index];
+        }
+        int count = Integer.bitCount(mask);
+        int chosen = count == 1 ? 0 : rand.nextInt(count);
+        for (int face = 0; face < 6; face++) {
+            if ((mask & (1 << face)) != 0 && chosen-- == 0) {
+                return face;
+            }
+        }
+        return 6;
+    }
+
+    private static int sideKey(TravelingItem item) {
+        int blacklist = 0;
+        for (EnumFacing face : EnumFacing.VALUES) {
+            if (item.blacklist.contains(face)) {
+                blacklist |= 1 << face.ordinal();
+            }
+        }
+        int color = item.color == null ? 16 : item.color.getMetadata();
+        return item.input.ordinal() | (blacklist << 3) | (color << 9);
+    }
+
+    private static int hash(ItemStack stack, int side) {
+        int hash = System.identityHashCode(stack.getItem());
+        hash = hash * 31 + stack.getItemDamage();
+        NBTTagCompound tag = stack.getTagCompound();
+        hash = hash * 31 + (tag == null ? 0 : tag.hashCode());
+        hash = hash * 31 + side;
+        // Spread the bits out, as the low bits of identity hashes are not very random
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(ItemStack cached, ItemStack stack) {
+        return cached.getItem() == stack.getItem() && cached.getItemDamage() == stack.getItemDamage() && ItemStack.areItemStackTagsEqual(cached,
+                stack);
+    }
+}
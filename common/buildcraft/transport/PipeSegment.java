@@ -0,0 +1,160 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+import java.util.Comparator;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.EnumFacing;
+
+/** A straight run of passive item pipes, found by {@link PipeSegmentManager}. Items skip every member in front of the
+ * last one (the anchor) in a single step, and are kept by the anchor as {@link Transit}s until they would have reached
+ * it. */
+public class PipeSegment {
+    /** An item that is somewhere inside of a segment. */
+    public static class Transit {
+        public static final Comparator<Transit> BY_EXIT = Comparator.comparingLong(t -> t.exitTick);
+
+        public final TravelingItem item;
+        public final BlockPos start;
+        public final EnumFacing direction;
+        /** The speed that the item had when it entered the first member. */
+        public final float speed;
+        /** The speed that the item has when it reaches the anchor. */
+        public final float exitSpeed;
+        long enterTick, exitTick;
+
+        public Transit(TravelingItem item, BlockPos start, EnumFacing direction, float speed, float exitSpeed, long enterTick, long exitTick) {
+            this.item = item;
+            this.start = start;
+            this.direction = direction;
+            this.speed = speed;
+            this.exitSpeed = exitSpeed;
+            this.enterTick = enterTick;
+            this.exitTick = exitTick;
+        }
+
+        /** Reads a transit whose ticks are relative to the time that it was saved at, until {@link #resume(long)} is
+         * called. */
+        public static Transit readFromNBT(NBTTagCompound nbt) {
+            TravelingItem item = TravelingItem.make(nbt.getCompoundTag("item"));
+            BlockPos start = BlockPos.fromLong(nbt.getLong("start"));
+            EnumFacing direction = EnumFacing.getFront(nbt.getByte("direction"));
+            return new Transit(item, start, direction, nbt.getFloat("speed"), nbt.getFloat("exitSpeed"), -nbt.getInteger("entered"), nbt
+                    .getInteger("remaining"));
+        }
+
+        public void writeToNBT(NBTTagCompound nbt, long now) {
+            NBTTagCompound itemTag = new NBTTagCompound();
+            item.writeToNBT(itemTag);
+            nbt.setTag("item", itemTag);
+            nbt.setLong("start", start.toLong());
+            nbt.setByte("direction", (byte) direction.ordinal());
+            nbt.setFloat("speed", speed);
+            nbt.setFloat("exitSpeed", exitSpeed);
+            nbt.setInteger("entered", (int) Math.min(Integer.MAX_VALUE, now - enterTick));
+            nbt.setInteger("remaining", (int) Math.max(0, exitTick - now));
+        }
+
+        /** Makes the ticks of a transit that was read from NBT relative to the given time. */
+        void resume(long now) {
+            enterTick += now;
+            exitTick += now;
+        }
+    }
+
+    /** Where an item is in a segment at some point in time. */
+    public static class Progress {
+        /** The index of the member that the item is in. */
+        public final int member;
+        /** The speed of the item as it entered that member. */
+        public final float speed;
+        /** The number of ticks that it took the item to get to that member. */
+        public final long ticks;
+
+        public Progress(int member, float speed, long ticks) {
+            this.member = member;
+            this.speed = speed;
+            this.ticks = ticks;
+        }
+    }
+
+    public final BlockPos start;
+    public final EnumFacing direction;
+    /** The slowdown of each member, as its {@link buildcraft.transport.pipes.events.PipeEventItem.AdjustSpeed} event
+     * gave it. */
+    private final float[] slowdowns;
+
+    public PipeSegment(BlockPos start, EnumFacing direction, float[] slowdowns) {
+        this.start = start;
+        this.direction = direction;
+        this.slowdowns = slowdowns;
+    }
+
+    public int getLength() {
+        return slowdowns.length;
+    }
+
+    /** @return False if this segment is too short for skipping it to be worth it. */
+    public boolean isUsable() {
+        return slowdowns.length >= PipeSegmentManager.MIN_LENGTH;
+    }
+
+    public BlockPos getMember(int index) {
+        return start.offset(direction, index);
+    }
+
+    public BlockPos getAnchor() {
+        return getMember(slowdowns.length - 1);
+    }
+
+    /** Follows an item through the members in front of the anchor, changing its speed in each one just like
+     * {@link PipeTransportItems#defaultReadjustSpeed(TravelingItem, float)} would.
+     * <p>
+     * Items never speed up in a segment, so once an item is at {@link TransportConstants#PIPE_MIN_SPEED} every member
+     * after that takes it the same time, and is skipped over all at once.
+     *
+     * @param speed The speed of the item when it entered the first member.
+     * @param ticks How many ticks to follow the item for.
+     * @return The member that the item is in after the given number of ticks, or the anchor if it has reached it. */
+    public Progress follow(float speed, long ticks) {
+        int anchor = slowdowns.length - 1;
+        long elapsed = 0;
+        for (int i = 0; i < anchor; i++) {
+            if (speed <= TransportConstants.PIPE_MIN_SPEED) {
+                int through = ticksThrough(TransportConstants.PIPE_MIN_SPEED);
+                long skipped = Math.min(anchor - i, (ticks - elapsed) / through);
+                return new Progress(i + (int) skipped, skipped == 0 ? speed : TransportConstants.PIPE_MIN_SPEED, elapsed + skipped * through);
+            }
+            float inside = adjustSpeed(speed, slowdowns[i]);
+            int through = ticksThrough(inside);
+            if (elapsed + through > ticks) {
+                return new Progress(i, speed, elapsed);
+            }
+            elapsed += through;
+            speed = inside;
+        }
+        return new Progress(anchor, speed, elapsed);
+    }
+
+    private static float adjustSpeed(float speed, float slowdown) {
+        if (speed > TransportConstants.PIPE_MAX_SPEED) {
+            speed = TransportConstants.PIPE_MAX_SPEED;
+        }
+        if (speed > TransportConstants.PIPE_MIN_SPEED) {
+            speed -= slowdown;
+        }
+        if (speed < TransportConstants.PIPE_MIN_SPEED) {
+            speed = TransportConstants.PIPE_MIN_SPEED;
+        }
+        return speed;
+    }
+
+    /** @return How many ticks an item moving at the given speed takes to go all of the way through a pipe. */
+    private static int ticksThrough(float speed) {
+        return Math.max(1, Math.round(1 / speed));
+    }
+}
@@ -0,0 +1,283 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.world.World;
+
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+import buildcraft.core.lib.inventory.InvUtils;
+import buildcraft.transport.pipes.events.PipeEvent;
+import buildcraft.transport.pipes.events.PipeEventItem;
+
+/** Finds straight runs of passive item pipes, so that items can skip through them in one step rather than going
+ * through every single pipe.
+ * <p>
+ * A pipe is passive if it only connects to the pipes in front of and behind it, has no gates or pluggables, does not
+ * tick on its own and has no event handlers other than the global ones and one that changes how much items slow down.
+ * Segments are found the first time that an item enters them, and are forgotten as soon as anything about one of their
+ * members changes. When that happens every item inside of the segment is put back into the pipe that it would have been
+ * in by then. */
+public class PipeSegmentManager {
+    /** Set from the config. */
+    public static boolean enabled = false;
+
+    /** Shorter runs than this are not worth skipping. */
+    public static final int MIN_LENGTH = 4;
+    /** Longer runs are split up, so that no segment spans too many chunks. */
+    public static final int MAX_LENGTH = 256;
+
+    private class WorldState {
+        /** The segment that starts at each position for each direction. Segments that are not usable are kept as well,
+         * so that they are not searched for again by every item. */
+        final Map<EnumFacing, Map<BlockPos, PipeSegment>> starts = new EnumMap<>(EnumFacing.class);
+        /** Every segment that each position is a member of. */
+        final Map<BlockPos, List<PipeSegment>> members = new HashMap<>();
+
+        WorldState() {
+            for (EnumFacing direction : EnumFacing.VALUES) {
+                starts.put(direction, new HashMap<BlockPos, PipeSegment>());
+            }
+        }
+    }
+
+    private final Map<Integer, WorldState> worlds = new HashMap<>();
+    private final float[] slowdowns = new float[MAX_LENGTH];
+
+    private WorldState getState(World world) {
+        int dim = world.provider.getDimensionId();
+        WorldState state = worlds.get(dim);
+        if (state == null) {
+            state = new WorldState();
+            worlds.put(dim, state);
+        }
+        return state;
+    }
+
+    /** Tries to send an item that is about to enter the given pipe through the segment starting at it.
+     *
+     * @return True if the item is now inside of a segment, false if it should be injected into the pipe as normal. */
+    public boolean enter(TravelingItem item, TileGenericPipe first) {
+        World world = first.getWorld();
+        PipeSegment segment = getSegment(world, first.getPos(), item.output);
+        if (!segment.isUsable()) {
+            return false;
+        }
+        PipeTransportItems anchor = getTransport(world.getTileEntity(segment.getAnchor()));
+        if (anchor == null) {
+            return false;
+        }
+
+        long now = world.getTotalWorldTime();
+        PipeSegment.Progress exit = segment.follow(item.getSpeed(), Long.MAX_VALUE);
+        anchor.addSegmentTransit(new PipeSegment.Transit(item, segment.start, segment.direction, item.getSpeed(), exit.speed, now, now
+                + exit.ticks));
+        return true;
+    }
+
+    private PipeSegment getSegment(World world, BlockPos start, EnumFacing direction) {
+        WorldState state = getState(world);
+        PipeSegment segment = state.starts.get(direction).get(start);
+        if (segment == null) {
+            segment = findSegment(world, start, direction);
+            state.starts.get(direction).put(start, segment);
+            // Remember unusable segments by their start, so that they are searched for again if it changes
+            for (int i = 0; i < Math.max(1, segment.getLength()); i++) {
+                BlockPos pos = segment.getMember(i);
+                List<PipeSegment> list = state.members.get(pos);
+                if (list == null) {
+                    list = new ArrayList<>(2);
+                    state.members.put(pos, list);
+                }
+                list.add(segment);
+            }
+        }
+        return segment;
+    }
+
+    private PipeSegment findSegment(World world, BlockPos start, EnumFacing direction) {
+        BlockPos pos = start;
+        int length = 0;
+        while (length < MAX_LENGTH && world.isBlockLoaded(pos)) {
+            float slowdown = getPassiveSlowdown(world.getTileEntity(pos), direction);
+            if (slowdown < 0) {
+                break;
+            }
+            slowdowns[length++] = slowdown;
+            pos = pos.offset(direction);
+        }
+        return new PipeSegment(start, direction, Arrays.copyOf(slowdowns, length));
+    }
+
+    /** @return How much the given pipe slows down items, or -1 if it is not a passive pipe that goes in the given
+     *         direction. */
+    private static float getPassiveSlowdown(TileEntity tile, EnumFacing direction) {
+        if (!(tile instanceof TileGenericPipe)) {
+            return -1;
+        }
+        TileGenericPipe container = (TileGenericPipe) tile;
+        Pipe<?> pipe = container.pipe;
+        if (!BlockGenericPipe.isValid(pipe) || pipe.transport.getClass() != PipeTransportItems.class || pipe.hasGate()) {
+            return -1;
+        }
+        for (EnumFacing side : EnumFacing.VALUES) {
+            if (container.hasPipePluggable(side) || container.isPipeConnected(side) != (side.getAxis() == direction.getAxis())) {
+                return -1;
+            }
+        }
+        if (!pipe.outputOpen(direction) || !pipe.inputOpen(direction.getOpposite())) {
+            return -1;
+        }
+        if (PipeHibernationManager.overridesTick(pipe.getClass(), Pipe.class, "updateEntity") || !(pipe.eventBus instanceof PipeEventBus)) {
+            return -1;
+        }
+
+        PipeEventBus bus = (PipeEventBus) pipe.eventBus;
+        for (Class<? extends PipeEvent> event : bus.getHandledEvents()) {
+            if (event != PipeEventItem.AdjustSpeed.class && !bus.allHandlersMatch(event, PipeEventBus::isGlobalHandler)) {
+                return -1;
+            }
+        }
+
+        // Handlers that do more than change the slowdown set the event as handled
+        PipeEventItem.AdjustSpeed probe = new PipeEventItem.AdjustSpeed(pipe, new TravelingItem(0));
+        bus.handleEvent(probe);
+        return probe.handled ? -1 : probe.slowdownAmount;
+    }
+
+    private static PipeTransportItems getTransport(TileEntity tile) {
+        if (tile instanceof TileGenericPipe && !tile.isInvalid()) {
+            Pipe<?> pipe = ((TileGenericPipe) tile).pipe;
+            if (BlockGenericPipe.isValid(pipe) && pipe.transport instanceof PipeTransportItems) {
+                return (PipeTransportItems) pipe.transport;
+            }
+        }
+        return null;
+    }
+
+    /** Called when something about the given pipe changes. Every segment that it is a member of is forgotten, and the
+     * items inside of them are put back into the pipes that they are in by now. */
+    public void breakAt(TileGenericPipe pipe) {
+        breakAt(pipe, false);
+    }
+
+    /** Called when the given pipe is removed from the world. This is the same as {@link #breakAt(TileGenericPipe)}, but
+     * items that are inside of the given pipe by now are dropped. */
+    public void remove(TileGenericPipe pipe) {
+        breakAt(pipe, true);
+    }
+
+    private void breakAt(TileGenericPipe pipe, boolean removed) {
+        WorldState state = worlds.get(pipe.getWorld().provider.getDimensionId());
+        if (state == null) {
+            return;
+        }
+        List<PipeSegment> segments = state.members.get(pipe.getPos());
+        if (segments == null) {
+            return;
+        }
+        for (PipeSegment segment : new ArrayList<>(segments)) {
+            forgetSegment(state, segment);
+            if (segment.isUsable()) {
+                release(pipe.getWorld(), segment, pipe, removed);
+            }
+        }
+    }
+
+    /** Puts every item inside of the given segment back into the member that it is in by now. */
+    private void release(World world, PipeSegment segment, TileGenericPipe cause, boolean removed) {
+        BlockPos anchorPos = segment.getAnchor();
+        PipeTransportItems anchor = getTransport(anchorPos.equals(cause.getPos()) ? cause : world.getTileEntity(anchorPos));
+        if (anchor == null) {
+            return;
+        }
+
+        long now = world.getTotalWorldTime();
+        for (PipeSegment.Transit transit : anchor.takeSegmentTransits(segment.start, segment.direction)) {
+            PipeSegment.Progress progress = segment.follow(transit.speed, now - transit.enterTick);
+            BlockPos pos = segment.getMember(progress.member);
+            PipeTransportItems transport = null;
+            if (!pos.equals(cause.getPos())) {
+                transport = getTransport(world.getTileEntity(pos));
+            } else if (!removed) {
+                transport = getTransport(cause);
+            }
+
+            if (transport != null) {
+                transit.item.setSpeed(progress.speed);
+                transport.injectItem(transit.item, segment.direction);
+            } else if (!transit.item.isCorrupted()) {
+                InvUtils.dropItems(world, transit.item.getItemStack(), pos);
+            }
+        }
+    }
+
+    /** Called when the given pipe is unloaded. Every segment that it is a member of is forgotten, but the items inside
+     * of them are left where they are, and still reach the anchor of their segment in time. */
+    public void forget(TileGenericPipe pipe) {
+        WorldState state = worlds.get(pipe.getWorld().provider.getDimensionId());
+        if (state == null) {
+            return;
+        }
+        List<PipeSegment> segments = state.members.get(pipe.getPos());
+        if (segments != null) {
+            for (PipeSegment segment : new ArrayList<>(segments)) {
+                forgetSegment(state, segment);
+            }
+        }
+    }
+
+    private void forgetSegment(WorldState state, PipeSegment segment) {
+        Map<BlockPos, PipeSegment> starts = state.starts.get(segment.direction);
+        if (starts.get(segment.start) == segment) {
+            starts.remove(segment.start);
+        }
+        for (int i = 0; i < Math.max(1, segment.getLength()); i++) {
+            BlockPos pos = segment.getMember(i);
+            List<PipeSegment> list = state.members.get(pos);
+            if (list != null) {
+                list.remove(segment);
+                if (list.isEmpty()) {
+                    state.members.remove(pos);
+                }
+            }
+        }
+    }
+
+    /** @return The number of usable segments that are currently known about in the given world. */
+    public int getSegmentCount(World world) {
+        WorldState state = worlds.get(world.provider.getDimensionId());
+        if (state == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Map<BlockPos, PipeSegment> starts : state.starts.values()) {
+            for (PipeSegment segment : starts.values()) {
+                if (segment.isUsable()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @SubscribeEvent
+    public void worldUnload(WorldEvent.Unload event) {
+        if (!event.world.isRemote) {
+            worlds.remove(event.world.provider.getDimensionId());
+        }
+    }
+}
@@ -74,6 +74,12 @@ public abstract class PipeTransport {
 
     public void updateEntity() {}
 
+    /** @return True if {@link #updateEntity()} has nothing to do until this transport is given something, in which case
+     *         it must call {@link TileGenericPipe#wakeUp()}. */
+    public boolean canHibernate() {
+        return false;
+    }
+
     public void setTile(TileGenericPipe tile) {
         this.container = tile;
     }
@@ -84,8 +90,14 @@ public abstract class PipeTransport {
 
     public void onNeighborChange(EnumFacing direction) {}
 
+    /** Called whenever something that affects where this pipe sends its contents changes. */
+    public void invalidateRouting() {}
+
     public void onBlockPlaced() {}
 
+    /** Called on both sides when the pipe is removed from the world, or its chunk is unloaded. */
+    public void onUnload() {}
+
     public void initialize() {}
 
     public boolean inputOpen(EnumFacing from) {
@@ -97,14 +109,20 @@ public abstract class PipeTransport {
     }
 
     public void allowInput(EnumFacing from, boolean allow) {
-        if (from != null) {
+        if (from != null && inputsOpen[from.ordinal()] != allow) {
             inputsOpen[from.ordinal()] = allow;
+            if (container != null && container.pipe != null) {
+                container.pipe.invalidateRouting();
+            }
         }
     }
 
     public void allowOutput(EnumFacing to, boolean allow) {
-        if (to != null) {
+        if (to != null && outputsOpen[to.ordinal()] != allow) {
             outputsOpen[to.ordinal()] = allow;
+            if (container != null && container.pipe != null) {
+                container.pipe.invalidateRouting();
+            }
         }
     }
 
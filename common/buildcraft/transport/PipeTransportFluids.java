@@ -22,6 +22,7 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.Vec3;
 import net.minecraftforge.fluids.*;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
@@ -37,15 +38,29 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
     public static short OUTPUT_TTL = 80; // 80
     public static short OUTPUT_COOLDOWN = 30; // 30
 
+    /** If true then connected pipes are merged into {@link FluidNetwork}s, which {@link PipeNetworkManager} moves
+     * fluid through as a whole, rather than fluid moving from section to section. */
+    public static boolean networkMode = false;
+
     private static int NETWORK_SYNC_TICKS = BuildCraftCore.updateFactor / 2;
     private static final EnumFacing[] directions = EnumFacing.VALUES;
     private static final int[] orientations = new int[] { 0, 1, 2, 3, 4, 5, 6 };
 
+    /** One of the seven tanks of a pipe. The fluid that entered a section during the last {@link #travelDelay} ticks is
+     * still travelling through it, and cannot leave it yet. How much entered during each tick is kept in a ring buffer
+     * inside of {@link PipeTransportFluids#incoming}, along with a running total, so that none of the operations have
+     * to look at every tick. */
     public class PipeSection {
         public int amount;
 
-        private short currentTime = 0;
-        private short[] incoming = new short[MAX_TRAVEL_DELAY];
+        /** The index of the first slot of this section in {@link PipeTransportFluids#incoming}. */
+        private final int offset;
+        /** The sum of every slot of this section. */
+        private int inFlight;
+
+        private PipeSection(int index) {
+            offset = index * MAX_TRAVEL_DELAY;
+        }
 
         public int fill(int maxFill, boolean doFill) {
             int amountToFill = Math.min(getMaxFillRate(), maxFill);
@@ -54,7 +69,8 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
             }
 
             if (doFill) {
-                incoming[currentTime] += amountToFill;
+                incoming[offset + currentTime] += amountToFill;
+                inFlight += amountToFill;
                 amount += amountToFill;
             }
             return amountToFill;
@@ -78,39 +94,36 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
             }
         }
 
+        /** Lets the fluid that entered this section {@link PipeTransportFluids#travelDelay} ticks ago leave it. */
         public void moveFluids() {
-            incoming[currentTime] = 0;
-        }
-
-        public void setTime(short newTime) {
-            currentTime = newTime;
+            inFlight -= incoming[offset + currentTime];
+            incoming[offset + currentTime] = 0;
         }
 
         public void reset() {
             this.amount = 0;
-            incoming = new short[MAX_TRAVEL_DELAY];
+            this.inFlight = 0;
+            Arrays.fill(incoming, offset, offset + MAX_TRAVEL_DELAY, (short) 0);
         }
 
         /** Get the amount of fluid available to move. This nicely takes care of the travel delay mechanic.
          *
          * @return */
         public int getAvailable() {
-            int all = amount;
-            for (short slot : incoming) {
-                all -= slot;
-            }
-            return all;
+            return amount - inFlight;
         }
 
         public int getMaxFillRate() {
-            return Math.min(getCapacity() - amount, flowRate - incoming[currentTime]);
+            return Math.min(getCapacity() - amount, flowRate - incoming[offset + currentTime]);
         }
 
         public void readFromNBT(NBTTagCompound compoundTag) {
             this.amount = compoundTag.getShort("capacity");
 
+            inFlight = 0;
             for (int i = 0; i < travelDelay; ++i) {
-                incoming[i] = compoundTag.getShort("in[" + i + "]");
+                incoming[offset + i] = compoundTag.getShort("in[" + i + "]");
+                inFlight += incoming[offset + i];
             }
         }
 
@@ -118,7 +131,7 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
             subTag.setShort("capacity", (short) amount);
 
             for (int i = 0; i < travelDelay; ++i) {
-                subTag.setShort("in[" + i + "]", incoming[i]);
+                subTag.setShort("in[" + i + "]", incoming[offset + i]);
             }
         }
     }
@@ -138,6 +151,21 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
     private int clientSyncCounter = 0;
     private int capacity, flowRate;
     private int travelDelay = MAX_TRAVEL_DELAY;
+    /** The fluid that entered each section during each of the last {@link #travelDelay} ticks, {@link #MAX_TRAVEL_DELAY}
+     * slots per section. */
+    private final short[] incoming = new short[7 * MAX_TRAVEL_DELAY];
+    /** The slot of {@link #incoming} for the current tick, the same for every section. */
+    private int currentTime = 0;
+
+    /** The network that this pipe is in, if {@link #networkMode} is on and it has been compiled. */
+    FluidNetwork network;
+    /** Only used while compiling a network. */
+    PipeTransportFluids networkVisit;
+    /** What this pipe was connected to when its network was compiled. */
+    final TileEntity[] networkNeighbors = new TileEntity[6];
+    /** How much fluid went into the network through each side of this pipe during {@link #networkInputTick}. */
+    private final int[] networkInput = new int[7];
+    private long networkInputTick = -1;
 
     public byte[] flow = new byte[6];
 
@@ -153,10 +181,10 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
 
     public PipeTransportFluids() {
         for (EnumFacing direction : directions) {
-            sections[direction.ordinal()] = new PipeSection();
+            sections[direction.ordinal()] = new PipeSection(direction.ordinal());
             transferState[direction.ordinal()] = TransferState.None;
         }
-        sections[6] = new PipeSection();
+        sections[6] = new PipeSection(6);
     }
 
     /** This value has to be the same on client and server!
@@ -171,9 +199,20 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
     }
 
     public void initFromPipe(Class<? extends Pipe<?>> pipeClass) {
-        capacity = 25 * Math.min(1000, BuildCraftTransport.pipeFluidsBaseFlowRate);
-        flowRate = fluidCapacities.get(pipeClass);
-        travelDelay = MathUtils.clamp(Math.round(16F / (flowRate / BuildCraftTransport.pipeFluidsBaseFlowRate)), 1, MAX_TRAVEL_DELAY);
+        initFlowRate(fluidCapacities.get(pipeClass), BuildCraftTransport.pipeFluidsBaseFlowRate);
+    }
+
+    /** Sets how much fluid can move through each section per tick, and the capacity and travel delay that follow from
+     * it. */
+    public void initFlowRate(int flowRate, int baseFlowRate) {
+        this.capacity = 25 * Math.min(1000, baseFlowRate);
+        this.flowRate = flowRate;
+        this.travelDelay = MathUtils.clamp(Math.round(16F / (flowRate / baseFlowRate)), 1, MAX_TRAVEL_DELAY);
+    }
+
+    /** Moves every section on to the travel delay slot of the given world time. */
+    public void setTime(long worldTime) {
+        currentTime = (int) (worldTime % travelDelay);
     }
 
     @Override
@@ -218,12 +257,25 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
             return;
         }
 
+        if (isNetworkMember()) {
+            if (network == null) {
+                BuildCraftTransport.fluidNetworkManager.add(getWorld(), FluidNetwork.compile(this));
+            }
+            // The network has already moved the fluid, so only the clients are left
+            sendFluidUpdate();
+            Arrays.fill(flow, (byte) 0);
+            return;
+        }
+
         for (int i = 0; i < 6; i++) {
             flow[i] = 0;
         }
 
         moveFluids();
+        sendFluidUpdate();
+    }
 
+    private void sendFluidUpdate() {
         if (networkSyncTracker.markTimeIfDelay(container.getWorld())) {
             boolean init = false;
             if (++clientSyncCounter > BuildCraftCore.longUpdateFactor * 2) {
@@ -238,10 +290,30 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
         }
     }
 
+    @Override
+    public boolean canHibernate() {
+        updateSections();
+        if (fluidType != null || renderCache.fluidID != 0) {
+            return false;
+        }
+        for (int i = 0; i < sections.length; i++) {
+            // The client must have been told that the pipe is empty
+            if (sections[i].amount != 0 || renderCache.amount[i] != 0) {
+                return false;
+            }
+        }
+        for (short ttl : inputTTL) {
+            if (ttl != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void moveFluids() {
         if (fluidType != null) {
-            short newTimeSlot = (short) (container.getWorld().getTotalWorldTime() % travelDelay);
-            int outputCount = computeCurrentConnectionStatesAndTickFlows(newTimeSlot > 0 && newTimeSlot < travelDelay ? newTimeSlot : 0);
+            setTime(container.getWorld().getTotalWorldTime());
+            int outputCount = computeCurrentConnectionStatesAndTickFlows();
 
             if (fluidType != null) {
                 moveFromPipe(outputCount);
@@ -364,7 +436,7 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
         }
     }
 
-    private int computeCurrentConnectionStatesAndTickFlows(short newTimeSlot) {
+    private int computeCurrentConnectionStatesAndTickFlows() {
         int outputCount = 0;
         int fluidAmount = 0;
 
@@ -374,7 +446,6 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
             PipeSection section = sections[dirI];
 
             fluidAmount += section.amount;
-            section.setTime(newTimeSlot);
             section.moveFluids();
 
             // Input processing
@@ -422,6 +493,7 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
      * @param persistChange The render cache change is persisted
      * @return PacketFluidUpdate liquid update packet */
     private PacketFluidUpdate computeFluidUpdate(boolean initPacket, boolean persistChange) {
+        updateSections();
         boolean changed = false;
         BitSet delta = new BitSet(8);
 
@@ -488,6 +560,7 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
     }
 
     public FluidStack getStack(EnumFacing direction) {
+        updateSections();
         if (fluidType == null) {
             return null;
         } else {
@@ -497,6 +570,7 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
 
     @Override
     public void dropContents() {
+        updateSections();
         if (fluidType != null) {
             int totalAmount = 0;
             for (int i = 0; i < 7; i++) {
@@ -542,6 +616,7 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
     @Override
     public void writeToNBT(NBTTagCompound nbttagcompound) {
         super.writeToNBT(nbttagcompound);
+        updateSections();
 
         if (fluidType != null) {
             NBTTagCompound fluidTag = new NBTTagCompound();
@@ -573,11 +648,14 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
 
         if (this.container.pipe instanceof IPipeTransportFluidsHook) {
             filled = ((IPipeTransportFluidsHook) this.container.pipe).fill(from, resource, doFill);
+        } else if (network != null) {
+            filled = network.fill(this, from, resource, doFill);
         } else {
             filled = sections[EnumPipePart.ordinal(from)].fill(resource.amount, doFill);
         }
 
         if (doFill && filled > 0) {
+            container.wakeUp();
             if (fluidType == null) {
                 setFluidType(new FluidStack(resource, 0));
             }
@@ -612,12 +690,17 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
 
     @Override
     public FluidTankInfo[] getTankInfo(EnumFacing from) {
+        updateSections();
         return new FluidTankInfo[] { new FluidTankInfo(fluidType, sections[EnumPipePart.ordinal(from)].amount) };
     }
 
     @Override
     public void onNeighborChange(EnumFacing direction) {
         super.onNeighborChange(direction);
+        TileEntity neighbor = container.isPipeConnected(direction) ? container.getTile(direction) : null;
+        if (neighbor != networkNeighbors[direction.ordinal()]) {
+            invalidateNetwork();
+        }
 
         if (!container.isPipeConnected(direction)) {
             sections[direction.ordinal()].reset();
@@ -629,6 +712,72 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
         }
     }
 
+    @Override
+    public void invalidateRouting() {
+        // Pluggables might have closed or opened sides
+        invalidateNetwork();
+    }
+
+    @Override
+    public void onUnload() {
+        invalidateNetwork();
+    }
+
+    private void invalidateNetwork() {
+        if (network != null) {
+            network.invalidate();
+        }
+    }
+
+    /** @return True if this pipe can be part of a {@link FluidNetwork}. Pipes that fill their sections on their own, or
+     *         that choose where fluid goes, keep moving fluid on their own. */
+    boolean isNetworkMember() {
+        if (!networkMode || container.pipe instanceof IPipeTransportFluidsHook || !(container.pipe.eventBus instanceof PipeEventBus)) {
+            return false;
+        }
+        return ((PipeEventBus) container.pipe.eventBus).allHandlersMatch(PipeEventFluid.FindDest.class, PipeEventBus::isGlobalHandler);
+    }
+
+    /** Fills the sections of this pipe from its network, if it is in one. */
+    private void updateSections() {
+        if (network != null) {
+            network.distribute(false);
+        }
+    }
+
+    int getSectionTotal() {
+        int total = 0;
+        for (PipeSection section : sections) {
+            total += section.amount;
+        }
+        return total;
+    }
+
+    /** Spreads the given amount evenly over the sections of this pipe, with nothing travelling through them. */
+    void setSectionAmounts(int total) {
+        for (int i = 0; i < 7; i++) {
+            sections[i].reset();
+            sections[i].amount = total / 7 + (i == 6 ? total % 7 : 0);
+        }
+    }
+
+    /** @return How much more fluid the network can take through the given side of this pipe during this tick. */
+    int getNetworkInputSpace(int side) {
+        long now = container.getWorld().getTotalWorldTime();
+        if (networkInputTick != now) {
+            networkInputTick = now;
+            Arrays.fill(networkInput, 0);
+        }
+        return flowRate - networkInput[side];
+    }
+
+    void recordNetworkInput(int side, int amount) {
+        networkInput[side] += amount;
+        if (side < 6) {
+            flow[side] = -1;
+        }
+    }
+
     @Override
     public boolean canPipeConnect(TileEntity tile, EnumFacing side) {
         if (tile instanceof IPipeTile) {
@@ -668,6 +817,10 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler,
         left.add("");
         left.add("PipeTransportFluids");
         left.add(" - FluidType = " + (fluidType == null ? "empty" : fluidType.getLocalizedName()));
+        if (network != null) {
+            updateSections();
+            left.add(" - network: " + network.getSize() + " pipes, " + network.amount + "mB");
+        }
         for (int section = 6; section >= 0; section--) {
             String sectionName = section == 6 ? "Center" : EnumFacing.values()[section].getName2();
             PipeSection pipe = sections[section];
@@ -8,8 +8,8 @@ import buildcraft.BuildCraftTransport;
 import buildcraft.api.core.BCLog;
 import buildcraft.api.tiles.IDebuggable;
 import buildcraft.api.transport.IPipeTile;
-import buildcraft.core.DefaultProps;
 import buildcraft.core.lib.inventory.ITransactor;
+import buildcraft.core.lib.inventory.StackHelper;
 import buildcraft.core.lib.inventory.Transactor;
 import buildcraft.core.lib.utils.BlockUtils;
 import buildcraft.core.lib.utils.Utils;
@@ -25,6 +25,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumFacing.Axis;
 import net.minecraft.util.Vec3;
@@ -37,8 +38,21 @@ import java.util.*;
 public class PipeTransportItems extends PipeTransport implements IDebuggable {
     public static final int MAX_PIPE_STACKS = PipeTransportItem_BC8.MAX_PIPE_STACKS;
     public static final int MAX_PIPE_ITEMS = PipeTransportItem_BC8.MAX_PIPE_ITEMS;
+    /** If true then items move by a single progress value that is derived from the world time, rather than by moving
+     * their position every tick. */
+    public static boolean progressMotion = false;
+    /** If true then pipes remember where they sent identical items, rather than working it out again every time. */
+    public static boolean routingCacheEnabled = true;
     public boolean allowBouncing = false;
     public final TravelerSet items = new TravelerSet(this);
+    public final PipeRoutingCache routingCache = new PipeRoutingCache();
+    private boolean routingCacheChecked = false;
+    /** Scratch space for {@link #groupEntities()}: the slots of the stacks that other items can still be merged into. */
+    private int[] mergeTargets = new int[0];
+    /** Items inside of the {@link PipeSegment}s that this pipe is the anchor of, in the order that they reach it. */
+    private final PriorityQueue<PipeSegment.Transit> segmentTransits = new PriorityQueue<>(PipeSegment.Transit.BY_EXIT);
+    /** Transits that were read from NBT, and still need to be made relative to the world time. */
+    private final List<PipeSegment.Transit> loadedTransits = new ArrayList<>();
 
     @Override
     public IPipeTile.PipeType getPipeType() {
@@ -72,6 +86,11 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
     }
 
     private void readjustPosition(TravelingItem item) {
+        if (progressMotion) {
+            item.startProgress(container.getPos(), getWorld().getTotalWorldTime());
+            return;
+        }
+
         Vec3 middle = Utils.convertMiddle(container.getPos());
         Vec3 littleBitBelow0Point5 = new Vec3(0.49, 0.49, 0.49);
         Vec3 newPos = Utils.clamp(item.pos, middle.subtract(littleBitBelow0Point5), middle.add(littleBitBelow0Point5));
@@ -80,7 +99,7 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
             newPos = new Vec3(newPos.xCoord, container.getPos().getY() + TransportUtils.getPipeFloorOf(item.getItemStack()), newPos.zCoord);
         }
 
-        item.pos = newPos;
+        item.setPosition(newPos);
     }
 
     public void injectItem(TravelingItem item, EnumFacing inputOrientation) {
@@ -90,6 +109,7 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
             return;
         }
 
+        container.wakeUp();
         item.reset();
         item.input = inputOrientation;
 
@@ -144,6 +164,7 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
             return;
         }
 
+        item.stopProgress();
         item.toCenter = true;
         item.input = item.output.getOpposite();
 
@@ -161,6 +182,8 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
         }
 
         items.unscheduleRemoval(item);
+        // Some of the stack might have been inserted into the target before it bounced back
+        items.refreshWeight(item);
 
         if (!container.getWorld().isRemote) {
             sendTravelerPacket(item, true);
@@ -168,6 +191,30 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
     }
 
     public EnumFacing resolveDestination(TravelingItem data) {
+        if (routingCacheEnabled && PipeRoutingCache.canCache(data)) {
+            if (!routingCacheChecked) {
+                routingCacheChecked = true;
+                if (!canCacheRouting()) {
+                    routingCache.disable();
+                }
+            }
+
+            // The blacklist is part of the key, so make sure it is the same as getPossibleMovements would make it
+            data.blacklist.add(data.input.getOpposite());
+            int cached = routingCache.lookup(data, getWorld().rand);
+            if (cached >= 0) {
+                return cached == 6 ? null : EnumFacing.VALUES[cached];
+            }
+
+            LinkedList<EnumFacing> result = new LinkedList<>();
+            boolean shuffle = findPossibleMovements(data, result);
+            routingCache.store(data, result, shuffle);
+            if (shuffle) {
+                Collections.shuffle(result);
+            }
+            return result.isEmpty() ? null : result.getFirst();
+        }
+
         List<EnumFacing> validDestinations = getPossibleMovements(data);
 
         if (validDestinations.isEmpty()) {
@@ -182,6 +229,17 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
     public List<EnumFacing> getPossibleMovements(TravelingItem item) {
         LinkedList<EnumFacing> result = new LinkedList<>();
 
+        if (findPossibleMovements(item, result)) {
+            Collections.shuffle(result);
+        }
+
+        return result;
+    }
+
+    /** Fills the given list with every possible movement, without shuffling it.
+     *
+     * @return True if the result should be shuffled. */
+    private boolean findPossibleMovements(TravelingItem item, List<EnumFacing> result) {
         item.blacklist.add(item.input.getOpposite());
 
         EnumSet<EnumFacing> sides = EnumSet.complementOf(item.blacklist);
@@ -202,11 +260,87 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
             }
         }
 
-        if (event.shuffle) {
-            Collections.shuffle(result);
+        return event.shuffle;
+    }
+
+    /** @return True if every handler of {@link PipeEventItem.FindDest} in this pipe allows its decisions to be
+     *         cached. */
+    private boolean canCacheRouting() {
+        if (!(container.pipe.eventBus instanceof PipeEventBus)) {
+            return false;
         }
+        PipeEventBus bus = (PipeEventBus) container.pipe.eventBus;
+        return bus.allHandlersMatch(PipeEventItem.FindDest.class, handler -> handler instanceof IRoutingCacheable
+            && ((IRoutingCacheable) handler).canCacheRouting());
+    }
 
-        return result;
+    @Override
+    public boolean canHibernate() {
+        return items.isEmpty() && !items.hasPending() && segmentTransits.isEmpty() && loadedTransits.isEmpty();
+    }
+
+    @Override
+    public void invalidateRouting() {
+        routingCache.invalidate();
+        routingCacheChecked = false;
+        if (PipeSegmentManager.enabled && container != null && container.getWorld() != null && !container.getWorld().isRemote) {
+            BuildCraftTransport.pipeSegmentManager.breakAt(container);
+        }
+    }
+
+    @Override
+    public void onUnload() {
+        if (container.getWorld() != null && container.getWorld().isRemote) {
+            // The client only forgets about items once they leave its pipes
+            items.clear();
+        }
+    }
+
+    void addSegmentTransit(PipeSegment.Transit transit) {
+        container.wakeUp();
+        segmentTransits.add(transit);
+    }
+
+    /** Removes every transit that is inside of the segment with the given start and direction. */
+    List<PipeSegment.Transit> takeSegmentTransits(BlockPos start, EnumFacing direction) {
+        resumeLoadedTransits();
+        List<PipeSegment.Transit> taken = new ArrayList<>();
+        Iterator<PipeSegment.Transit> iterator = segmentTransits.iterator();
+        while (iterator.hasNext()) {
+            PipeSegment.Transit transit = iterator.next();
+            if (transit.direction == direction && transit.start.equals(start)) {
+                taken.add(transit);
+                iterator.remove();
+            }
+        }
+        return taken;
+    }
+
+    private void resumeLoadedTransits() {
+        if (!loadedTransits.isEmpty()) {
+            long now = getWorld().getTotalWorldTime();
+            for (PipeSegment.Transit transit : loadedTransits) {
+                transit.resume(now);
+                segmentTransits.add(transit);
+            }
+            loadedTransits.clear();
+        }
+    }
+
+    /** Injects every item that has reached the end of a segment into this pipe. */
+    private void receiveSegmentTransits() {
+        resumeLoadedTransits();
+        long now = getWorld().getTotalWorldTime();
+        while (!segmentTransits.isEmpty() && segmentTransits.peek().exitTick <= now) {
+            PipeSegment.Transit transit = segmentTransits.poll();
+            transit.item.setSpeed(transit.exitSpeed);
+            injectItem(transit.item, transit.direction);
+        }
+    }
+
+    @Override
+    public void onNeighborChange(EnumFacing direction) {
+        invalidateRouting();
     }
 
     private boolean canReceivePipeObjects(EnumFacing o, TravelingItem item) {
@@ -237,35 +371,57 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
 
     @Override
     public void updateEntity() {
+        if (!getWorld().isRemote) {
+            receiveSegmentTransits();
+        }
         moveSolids();
     }
 
     private void moveSolids() {
         items.flush();
+        long now = getWorld().getTotalWorldTime();
 
         items.iterating = true;
-        for (TravelingItem item : items) {
+        for (int slot = 0; slot < items.getLimit(); slot++) {
+            TravelingItem item = items.get(slot);
+            if (item == null || items.isScheduledForRemoval(slot)) {
+                continue;
+            }
             if (item.getContainer() != this.container) {
-                items.scheduleRemoval(item);
+                items.scheduleRemoval(slot);
                 continue;
             }
 
-            EnumFacing face = item.toCenter ? item.input : item.output;
-            item.movePosition(Utils.convert(face, item.getSpeed()));
+            if (progressMotion) {
+                // The position is derived from the world time, so there is nothing to move
+                if (!item.usesProgressMotion()) {
+                    item.startProgress(container.getPos(), now);
+                }
+            } else {
+                if (item.usesProgressMotion()) {
+                    item.stopProgress();
+                }
+                EnumFacing face = item.toCenter ? item.input : item.output;
+                item.movePosition(Utils.convert(face, item.getSpeed()));
+            }
 
             if ((item.toCenter && middleReached(item)) || outOfBounds(item)) {
                 if (item.isCorrupted()) {
-                    items.remove(item);
+                    items.scheduleRemoval(slot);
                     continue;
                 }
 
                 item.toCenter = false;
 
                 // Reajusting to the middle
-                item.pos = Utils.convert(container.getPos()).add(new Vec3(0.5, TransportUtils.getPipeFloorOf(item.getItemStack()), 0.5));
+                if (item.usesProgressMotion()) {
+                    item.setProgress(0.5, now);
+                } else {
+                    item.pos = Utils.convert(container.getPos()).add(new Vec3(0.5, TransportUtils.getPipeFloorOf(item.getItemStack()), 0.5));
+                }
 
                 if (item.output == null) {
-                    if (items.scheduleRemoval(item)) {
+                    if (items.scheduleRemoval(slot)) {
                         dropItem(item);
                     }
                 } else {
@@ -275,13 +431,13 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
 
             } else if (!item.toCenter && endReached(item)) {
                 if (item.isCorrupted()) {
-                    items.remove(item);
+                    items.scheduleRemoval(slot);
                     continue;
                 }
 
                 if (item.output == null) {
                     // TODO: Figure out why this is actually happening.
-                    items.scheduleRemoval(item);
+                    items.scheduleRemoval(slot);
                     BCLog.logger.warn("Glitched item [Output direction UNKNOWN] removed from world @ " + container.getPos().getX() + ", " + container
                             .getPos().getY() + ", " + container.getPos().getZ() + "!");
                     continue;
@@ -294,7 +450,7 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
                 boolean handleItem = !event.handled;
 
                 // If the item has not been scheduled to removal by the hook
-                if (handleItem && items.scheduleRemoval(item)) {
+                if (handleItem && items.scheduleRemoval(slot)) {
                     handleTileReached(item, tile);
                 }
             }
@@ -307,6 +463,10 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
         if (tile instanceof IPipeTile) {
             Pipe<?> pipe = (Pipe<?>) ((IPipeTile) tile).getPipe();
             if (BlockGenericPipe.isValid(pipe) && pipe.transport instanceof PipeTransportItems) {
+                if (PipeSegmentManager.enabled && !container.getWorld().isRemote && tile instanceof TileGenericPipe
+                    && BuildCraftTransport.pipeSegmentManager.enter(item, (TileGenericPipe) tile)) {
+                    return true;
+                }
                 ((PipeTransportItems) pipe.transport).injectItem(item, item.output);
                 return true;
             }
@@ -364,6 +524,9 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
     }
 
     protected boolean middleReached(TravelingItem item) {
+        if (item.usesProgressMotion()) {
+            return item.getProgress(getWorld().getTotalWorldTime()) >= 0.5;
+        }
         float middleLimit = Math.abs(item.getSpeed() * 1.01F);
         return Math.abs(container.getPos().getX() + 0.5 - item.pos.xCoord) < middleLimit
                 && Math.abs(container.getPos().getY() + TransportUtils.getPipeFloorOf(item.getItemStack()) - item.pos.yCoord) < middleLimit
@@ -371,6 +534,9 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
         }
 
     protected boolean endReached(TravelingItem item) {
+        if (item.usesProgressMotion()) {
+            return item.getProgress(getWorld().getTotalWorldTime()) >= 1;
+        }
         return item.pos.distanceTo(Utils.convertMiddle(container.getPos())) > 0.65;
         // return item.pos.xCoord > container.getPos().getX() + 1 || item.pos.xCoord < container.x() || item.pos.yCoord
         // > container.y() + 1
@@ -378,6 +544,10 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
     }
 
     protected boolean outOfBounds(TravelingItem item) {
+        if (item.usesProgressMotion()) {
+            // Progress is always somewhere between the input and output, so it can never leave the pipe
+            return false;
+        }
         return item.pos.distanceTo(Utils.convertMiddle(container.getPos())) > 1;
         // return item.pos.xCoord > container.x() + 2 || item.pos.xCoord < container.x() - 1 || item.pos.yCoord >
         // container.y() + 2
@@ -411,6 +581,18 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
                 // two versions - ignore these errors.
             }
         }
+
+        NBTTagList transitList = nbt.getTagList("segmentTransits", Constants.NBT.TAG_COMPOUND);
+        for (int j = 0; j < transitList.tagCount(); ++j) {
+            try {
+                PipeSegment.Transit transit = PipeSegment.Transit.readFromNBT(transitList.getCompoundTagAt(j));
+                if (!transit.item.isCorrupted()) {
+                    loadedTransits.add(transit);
+                }
+            } catch (Throwable t) {
+                // Same as above
+            }
+        }
     }
 
     @Override
@@ -426,6 +608,22 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
         }
 
         nbt.setTag("travelingEntities", nbttaglist);
+
+        if (!segmentTransits.isEmpty() || !loadedTransits.isEmpty()) {
+            NBTTagList transitList = new NBTTagList();
+            for (PipeSegment.Transit transit : segmentTransits) {
+                NBTTagCompound dataTag = new NBTTagCompound();
+                transit.writeToNBT(dataTag, getWorld().getTotalWorldTime());
+                transitList.appendTag(dataTag);
+            }
+            for (PipeSegment.Transit transit : loadedTransits) {
+                // These are still relative to the time they were saved at
+                NBTTagCompound dataTag = new NBTTagCompound();
+                transit.writeToNBT(dataTag, 0);
+                transitList.appendTag(dataTag);
+            }
+            nbt.setTag("segmentTransits", transitList);
+        }
     }
 
     protected void doWork() {}
@@ -444,11 +642,14 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
             items.add(item);
         }
 
-        if (packet.forceStackRefresh() || item.getItemStack() == null) {
+        if (packet.getItemStack() != null) {
+            item.setItemStack(packet.getItemStack());
+        } else if (packet.forceStackRefresh() || item.getItemStack() == null) {
+            // Only for travelers that were not sent with their stack
             BuildCraftTransport.instance.sendToServer(new PacketPipeTransportItemStackRequest(container, packet));
         }
 
-        item.pos = packet.getItemPos();
+        item.setPosition(packet.getItemPos());
 
         item.setSpeed(packet.getSpeed());
 
@@ -459,28 +660,15 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
     }
 
     private void sendTravelerPacket(TravelingItem data, boolean forceStackRefresh) {
-        PacketPipeTransportTraveler packet = new PacketPipeTransportTraveler(container, data, forceStackRefresh);
-        BuildCraftTransport.instance.sendToPlayers(packet, container.getWorld(), container.getPos(), DefaultProps.PIPE_CONTENTS_RENDER_DIST);
+        BuildCraftTransport.travelerSyncBatcher.queue(container, data, forceStackRefresh);
     }
 
     public int getNumberOfStacks() {
-        int num = 0;
-        for (TravelingItem item : items) {
-            if (!item.ignoreWeight()) {
-                num++;
-            }
-        }
-        return num;
+        return items.getStackCount();
     }
 
     public int getNumberOfItems() {
-        int num = 0;
-        for (TravelingItem item : items) {
-            if (!item.ignoreWeight() && item.getItemStack() != null) {
-                num += item.getItemStack().stackSize;
-            }
-        }
-        return num;
+        return items.getItemCount();
     }
 
     protected void neighborChange() {}
@@ -513,22 +701,62 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
     }
 
     /** Group all items that are similar, that is to say same dmg, same id, same nbt and no contribution controlling
-     * them */
+     * them.
+     * <p>
+     * Only items in the same merge bucket of {@link #items} are compared. Within a bucket every item is merged into
+     * the first earlier stack that it can be grouped with and that is not yet full, so there is at most one such stack
+     * for each kind of item and this is linear in the number of items rather than quadratic. */
     public void groupEntities() {
-        for (TravelingItem item : items) {
-            if (item.isCorrupted()) {
-                continue;
-            }
-            for (TravelingItem otherItem : items) {
-                if (item.tryMergeInto(otherItem)) {
-                    break;
+        if (mergeTargets.length < items.getLimit()) {
+            mergeTargets = new int[items.getLimit()];
+        }
+        for (int bucket = 0; bucket < TravelerSet.MERGE_BUCKETS; bucket++) {
+            int targets = 0;
+            int slot = items.firstInMergeBucket(bucket);
+            while (slot >= 0) {
+                int next = items.nextInMergeBucket(slot);
+                TravelingItem item = items.get(slot);
+                // Items scheduled for removal might already be in the next pipe
+                if (item.isCorrupted() || items.isScheduledForRemoval(slot)) {
+                    slot = next;
+                    continue;
                 }
+                ItemStack stack = item.getItemStack();
+
+                for (int i = 0; i < targets; i++) {
+                    int targetSlot = mergeTargets[i];
+                    TravelingItem target = items.get(targetSlot);
+                    if (item.canBeGroupedWith(target)) {
+                        stack.stackSize -= StackHelper.mergeStacks(stack, target.getItemStack(), true);
+                        items.refreshWeight(targetSlot);
+                        if (target.getItemStack().stackSize >= target.getItemStack().getMaxStackSize()) {
+                            mergeTargets[i] = mergeTargets[--targets];
+                        }
+                        break;
+                    }
+                }
+
+                items.refreshWeight(slot);
+                if (stack.stackSize <= 0) {
+                    items.remove(item);
+                } else if (stack.stackSize < stack.getMaxStackSize()) {
+                    mergeTargets[targets++] = slot;
+                }
+                slot = next;
             }
         }
     }
 
     @Override
     public void dropContents() {
+        releaseSegmentTransits();
+        for (PipeSegment.Transit transit : segmentTransits) {
+            if (!transit.item.isCorrupted()) {
+                container.pipe.dropItem(transit.item.getItemStack());
+            }
+        }
+        segmentTransits.clear();
+
         groupEntities();
 
         for (TravelingItem item : items) {
@@ -542,10 +770,18 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
 
     @Override
     public List<ItemStack> getDroppedItems() {
+        releaseSegmentTransits();
         groupEntities();
 
         ArrayList<ItemStack> itemsDropped = new ArrayList<>(items.size());
 
+        for (PipeSegment.Transit transit : segmentTransits) {
+            if (!transit.item.isCorrupted()) {
+                itemsDropped.add(transit.item.getItemStack());
+            }
+        }
+        segmentTransits.clear();
+
         for (TravelingItem item : items) {
             if (!item.isCorrupted()) {
                 itemsDropped.add(item.getItemStack());
@@ -555,6 +791,15 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
         return itemsDropped;
     }
 
+    /** Puts the items of every segment that this pipe is in back into the pipes that they are in by now. Only items of
+     * segments that have since been forgotten are left in {@link #segmentTransits} after this. */
+    private void releaseSegmentTransits() {
+        if (container.getWorld() != null && !container.getWorld().isRemote) {
+            resumeLoadedTransits();
+            BuildCraftTransport.pipeSegmentManager.breakAt(container);
+        }
+    }
+
     @Override
     public boolean delveIntoUnloadedChunks() {
         return true;
@@ -565,13 +810,32 @@ public class PipeTransportItems extends PipeTransport implements IDebuggable {
         left.add("");
         left.add("PipeTransportItems");
         left.add("- Items: " + getNumberOfStacks() + "/" + MAX_PIPE_STACKS + " (" + getNumberOfItems() + "/" + MAX_PIPE_ITEMS + ")");
+        if (!segmentTransits.isEmpty() || !loadedTransits.isEmpty()) {
+            // Only looks at the segments: releasing their items here would break them
+            left.add("- Items in segments: " + (segmentTransits.size() + loadedTransits.size()));
+            long now = getWorld().getTotalWorldTime();
+            for (PipeSegment.Transit transit : segmentTransits) {
+                addTransitDebugInfo(left, transit, transit.exitTick - now);
+            }
+            for (PipeSegment.Transit transit : loadedTransits) {
+                // Not resumed yet, so its exit tick is still relative to now
+                addTransitDebugInfo(left, transit, transit.exitTick);
+            }
+        }
         for (TravelingItem item : items) {
             left.add("");
             left.add("  - " + item.itemStack);
-            left.add("    - pos = " + item.pos);
+            left.add("    - pos = " + item.getPosition());
             left.add("    - middle = " + middleReached(item));
             left.add("    - end = " + endReached(item));
             left.add("    - out of boounds = " + outOfBounds(item));
         }
     }
+
+    private static void addTransitDebugInfo(List<String> left, PipeSegment.Transit transit, long remaining) {
+        left.add("");
+        left.add("  - " + transit.item.getItemStack());
+        left.add("    - segment = " + transit.start + " " + transit.direction);
+        left.add("    - arrives in = " + Math.max(0, remaining) + " ticks");
+    }
 }
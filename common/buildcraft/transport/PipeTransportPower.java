@@ -46,6 +46,9 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
     public static final Map<Class<? extends Pipe<?>>, Float> powerLosses = new HashMap<>();
     public static LossMode lossMode = LossMode.LOSSLESS;
     public static boolean canExplode = false;
+    /** If true then power is moved by {@link PipeNetworkManager} for whole networks at once, rather than being passed
+     * on one pipe per tick. */
+    public static boolean networkMode = false;
 
     private static int MAX_POWER = 0;
 
@@ -69,9 +72,26 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
 
     private final AverageInt[] powerAverage = new AverageInt[6];
     private final TileEntity[] tiles = new TileEntity[6];
-    private final Object[] providers = new Object[6];
+    final Object[] providers = new Object[6];
+
+    /** The network that this pipe is in, if {@link #networkMode} is on and it has been compiled. */
+    PowerNetwork network;
+    /** Only used while compiling a network. */
+    PipeTransportPower networkVisit;
+    int networkIndex;
+    /** Power that was given to this pipe by its network, but has not been passed on yet. */
+    double networkBuffer;
+    /** Power that was given to this source pipe during the current tick. */
+    private double networkSupply;
 
     private boolean needsInit = true;
+    /** True if the last power update sent to clients showed no power anywhere. */
+    private boolean sentEmptyDisplay = false;
+    /** The display that clients were last sent, in {@link #POWER_STAGES} and flow directions. Clients start out with
+     * an empty display, so nothing is sent until it changes. */
+    private final short[] sentDisplayPower = new short[6];
+    private final short[] sentDisplayFlow = new short[6];
+    private boolean sentOverload = false;
 
     private int[] powerQuery = new int[6];
     private int energyInputTick = 0;
@@ -174,6 +194,8 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
 
     private void updateTile(EnumFacing side) {
         int o = side.ordinal();
+        TileEntity oldTile = tiles[o];
+        Object oldProvider = providers[o];
         TileEntity tile = container.getTile(side);
         if (tile != null && container.isPipeConnected(side)) {
             tiles[o] = tile;
@@ -185,9 +207,12 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
             displayFlow[o] = 0;
         }
         providers[o] = getEnergyProvider(o);
+        if (tiles[o] != oldTile || providers[o] != oldProvider) {
+            invalidateNetwork();
+        }
     }
 
-    private void init() {
+    void init() {
         if (needsInit) {
             needsInit = false;
             for (EnumFacing side : EnumFacing.VALUES) {
@@ -233,6 +258,16 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
             }
         }
 
+        if (networkMode) {
+            if (network == null) {
+                BuildCraftTransport.powerNetworkManager.add(getWorld(), PowerNetwork.compile(this));
+            }
+            // The network has already moved the power, so only the display is left
+            updateDisplay();
+            sendDisplayUpdate();
+            return;
+        }
+
         // FIXME: LEFT OVER FROM MERGE! LOOK AT THIS!
         Arrays.fill(displayFlow, (short) 0);
 
@@ -294,6 +329,13 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
             }
         }
 
+        updateDisplay();
+        requestPower();
+        sendDisplayUpdate();
+    }
+
+    /** Averages the power that went through each side, and checks for overloads. */
+    private void updateDisplay() {
         short highestPower = 0;
         for (int i = 0; i < 6; i++) {
             powerAverage[i].tick();
@@ -320,7 +362,10 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
         }
 
         energyInputTick = 0;
+    }
 
+    /** Passes on the requests of every receiver next to this pipe, and of the pipes that requested power from it. */
+    private void requestPower() {
         // Compute the tiles requesting energy that are not power pipes
         for (EnumFacing dir : EnumFacing.VALUES) {
             if (!outputOpen(dir)) {
@@ -381,23 +426,157 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
                 }
             }
         }
+    }
 
-        if (tracker.markTimeIfDelay(container.getWorld())) {
-            PacketPowerUpdate packet = new PacketPowerUpdate(container);
-            packet.displayPower = new short[6];
-            for (int i = 0; i < 6; i++) {
-                double val = displayPower[i];
-                val /= MAX_POWER;
-                val = Math.sqrt(val);
-                val *= POWER_STAGES;
-                packet.displayPower[i] = (short) val;
+    /** Sends the display of this pipe to clients, if it has changed enough for them to see. */
+    private void sendDisplayUpdate() {
+        if (!tracker.markTimeIfDelay(container.getWorld())) {
+            return;
+        }
+        boolean overloaded = isOverloaded();
+        boolean changed = overloaded != sentOverload;
+        for (int i = 0; i < 6; i++) {
+            double val = displayPower[i];
+            val /= MAX_POWER;
+            val = Math.sqrt(val);
+            val *= POWER_STAGES;
+            short stage = (short) val;
+            short flow = (short) Integer.signum(displayFlow[i]);
+            if (stage != sentDisplayPower[i] || flow != sentDisplayFlow[i]) {
+                sentDisplayPower[i] = stage;
+                sentDisplayFlow[i] = flow;
+                changed = true;
+            }
+        }
+        sentOverload = overloaded;
+
+        if (changed) {
+            BuildCraftTransport.powerSyncBatcher.queue(createSentDisplayPacket(true));
+        }
+
+        sentEmptyDisplay = !sentOverload;
+        for (int i = 0; i < 6; i++) {
+            if (sentDisplayPower[i] != 0 || sentDisplayFlow[i] != 0) {
+                sentEmptyDisplay = false;
             }
-            packet.displayFlow = displayFlow;
-            packet.overload = isOverloaded();
-            BuildCraftTransport.instance.sendToPlayersNear(packet, container);
         }
     }
 
+    /** @return A packet with the display that clients were last sent, or null if that was empty. */
+    public PacketPowerUpdate createSentDisplayPacket() {
+        return createSentDisplayPacket(false);
+    }
+
+    private PacketPowerUpdate createSentDisplayPacket(boolean evenIfEmpty) {
+        if (!evenIfEmpty && sentEmptyDisplay) {
+            return null;
+        }
+        PacketPowerUpdate packet = new PacketPowerUpdate(container);
+        packet.displayPower = sentDisplayPower.clone();
+        packet.displayFlow = sentDisplayFlow.clone();
+        packet.overload = sentOverload;
+        return packet;
+    }
+
+    @Override
+    public boolean canHibernate() {
+        if (needsInit || overload != 0 || !sentEmptyDisplay || networkBuffer != 0) {
+            return false;
+        }
+        for (int i = 0; i < 6; i++) {
+            if (internalPower[i] != 0 || internalNextPower[i] != 0 || powerQuery[i] != 0 || nextPowerQuery[i] != 0 || displayPower[i] != 0) {
+                return false;
+            }
+            // Receivers that are not pipes are asked how much power they want every tick
+            Object provider = providers[i];
+            if (provider instanceof IEnergyReceiver && !(provider instanceof IPipeTile)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void invalidateRouting() {
+        // Pluggables might have been added or removed
+        needsInit = true;
+        invalidateNetwork();
+    }
+
+    @Override
+    public void onUnload() {
+        invalidateNetwork();
+    }
+
+    private void invalidateNetwork() {
+        if (network != null) {
+            network.invalidate();
+        }
+    }
+
+    /** @return True if power enters the network through this pipe, rather than coming from other pipes. */
+    boolean isNetworkSource() {
+        return container.pipe instanceof IPipeTransportPowerHook;
+    }
+
+    /** Asks this source pipe for the given amount of power, which it should give during the next tick. */
+    void requestNetworkSupply(EnumFacing pipeSide, int amount) {
+        if (amount > 0) {
+            ((IPipeTransportPowerHook) container.pipe).requestEnergy(pipeSide, amount);
+        }
+    }
+
+    /** @return The power that was given to this pipe during this tick. */
+    double takeNetworkSupply() {
+        double supply = networkSupply;
+        networkSupply = 0;
+        return supply;
+    }
+
+    /** @return How much power has to be put into this pipe for the given amount to come out of it. */
+    double grossForLoss(double net) {
+        if (net <= 0) {
+            return 0;
+        }
+        switch (lossMode) {
+            case PERCENTAGE:
+                return powerResistance < 1 ? net / (1 - powerResistance) : 0;
+            case ABSOLUTE:
+                return net + powerResistance;
+            default:
+                return net;
+        }
+    }
+
+    /** @return How much power comes out of this pipe when the given amount is put into it. */
+    double netForLoss(double gross) {
+        switch (lossMode) {
+            case PERCENTAGE:
+                return gross * (1 - powerResistance);
+            case ABSOLUTE:
+                return Math.max(0, gross - powerResistance);
+            default:
+                return gross;
+        }
+    }
+
+    void clearNetworkFlow() {
+        Arrays.fill(displayFlow, (short) 0);
+    }
+
+    /** Shows that the given amount of power went through the given side of this pipe during this tick. */
+    void recordNetworkFlow(int side, double amount, boolean in) {
+        if (amount > 0) {
+            container.wakeUp();
+            powerAverage[side].push((int) Math.ceil(amount));
+            displayFlow[side] = (short) (in ? 1 : -1);
+        }
+    }
+
+    void recordNetworkInput(double amount) {
+        energyInputTick = (int) amount;
+    }
+
     public boolean isOverloaded() {
         return overload >= OVERLOAD_TICKS;
     }
@@ -427,6 +606,7 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
         int side = from.ordinal();
         double val = tVal;
 
+        container.wakeUp();
         step();
 
         dbgEnergyOffered[side] += val;
@@ -438,6 +618,14 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
             }
         }
 
+        if (networkMode) {
+            // The network takes the loss of this pipe into account when it passes the power on
+            val = Math.max(0, Math.min(val, maxPower - networkSupply));
+            networkSupply += val;
+            dbgEnergyInput[side] += val;
+            return val;
+        }
+
         if (internalNextPower[side] > maxPower) {
             return 0;
         }
@@ -472,6 +660,7 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
     }
 
     public void requestEnergy(EnumFacing from, int amount) {
+        container.wakeUp();
         step();
 
         if (this.container.pipe instanceof IPipeTransportPowerHook) {
@@ -585,6 +774,9 @@ public class PipeTransportPower extends PipeTransport implements IDebuggable {
     public void getDebugInfo(List<String> left, List<String> right, EnumFacing side) {
         left.add("");
         left.add("PipeTransportPower (" + maxPower + " RF/t)");
+        if (network != null) {
+            left.add("- network: " + network.getSize() + " pipes");
+        }
         for (EnumFacing face : EnumFacing.VALUES) {
             int ord = face.ordinal();
             left.add(" - " + face.getName2() + " " + displayPower[ord]);
@@ -15,6 +15,11 @@ public class PipeTransportStructure extends PipeTransport {
         return IPipeTile.PipeType.STRUCTURE;
     }
 
+    @Override
+    public boolean canHibernate() {
+        return true;
+    }
+
     @Override
     public boolean canPipeConnect(TileEntity tile, EnumFacing side) {
         if (tile instanceof IPipeTile) {
@@ -0,0 +1,251 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+
+import cofh.api.energy.IEnergyReceiver;
+
+import buildcraft.api.transport.IPipeTile;
+
+/** Every kinesis pipe that is connected together, compiled into a forest of shortest paths from the pipes that power
+ * enters through (the sources) to every other pipe. {@link PipeNetworkManager} solves the whole network once per tick:
+ * the demand of every receiver is summed up towards the sources, capped by the capacity of each pipe and grown by the
+ * loss of each pipe, and then whatever the sources supplied is shared back out along the same paths.
+ * <p>
+ * A network never changes once it is compiled. Anything that could change it calls {@link #invalidate()}, and the next
+ * pipe to tick compiles a new one. */
+public class PowerNetwork implements IPipeNetwork {
+    /** In breadth first order from the sources, so every pipe comes after the one it gets its power from. Pipes that
+     * no source can reach are at the end. */
+    final PipeTransportPower[] pipes;
+    /** The index of the pipe that each pipe gets its power from, or -1 for sources and unreachable pipes. */
+    final int[] parent;
+    /** The side of each pipe that faces the pipe it gets its power from. */
+    final byte[] parentSide;
+    /** A bitmask of the sides of each pipe that have a receiver that is not a pipe on them. */
+    final byte[] receiverSides;
+    /** For each source, a side that another pipe is on, so that it can be asked for power. -1 for other pipes and for
+     * sources without any pipes next to them. */
+    final byte[] sourceSide;
+    boolean valid = true;
+
+    private final double[] demand, childDemand, entering, share;
+    private final int[] requests;
+
+    private PowerNetwork(List<PipeTransportPower> order, int[] parent, byte[] parentSide, byte[] sourceSide) {
+        int count = order.size();
+        this.pipes = order.toArray(new PipeTransportPower[count]);
+        this.parent = parent;
+        this.parentSide = parentSide;
+        this.sourceSide = sourceSide;
+        this.receiverSides = new byte[count];
+        this.demand = new double[count];
+        this.childDemand = new double[count];
+        this.entering = new double[count];
+        this.share = new double[count];
+        this.requests = new int[count * 6];
+
+        for (int i = 0; i < count; i++) {
+            PipeTransportPower pipe = pipes[i];
+            pipe.network = this;
+            for (EnumFacing side : EnumFacing.VALUES) {
+                Object provider = pipe.providers[side.ordinal()];
+                if (provider instanceof IEnergyReceiver && !(provider instanceof IPipeTile) && pipe.outputOpen(side)) {
+                    receiverSides[i] |= 1 << side.ordinal();
+                }
+            }
+        }
+    }
+
+    /** Finds every pipe connected to the given one, and works out how power flows through them. */
+    static PowerNetwork compile(PipeTransportPower start) {
+        List<PipeTransportPower> members = new ArrayList<>();
+        members.add(start);
+        start.networkVisit = start;
+        for (int i = 0; i < members.size(); i++) {
+            for (EnumFacing side : EnumFacing.VALUES) {
+                PipeTransportPower other = getNeighbor(members.get(i), side);
+                if (other != null && other.networkVisit != start) {
+                    other.networkVisit = start;
+                    members.add(other);
+                }
+            }
+        }
+
+        for (PipeTransportPower member : members) {
+            // Make sure that every pipe knows what is next to it, so that none of them invalidate this right away
+            member.init();
+        }
+
+        int count = members.size();
+        List<PipeTransportPower> order = new ArrayList<>(count);
+        int[] parent = new int[count];
+        byte[] parentSide = new byte[count];
+        byte[] sourceSide = new byte[count];
+        Arrays.fill(parent, -1);
+        Arrays.fill(sourceSide, (byte) -1);
+
+        ArrayDeque<PipeTransportPower> queue = new ArrayDeque<>();
+        for (PipeTransportPower member : members) {
+            if (member.isNetworkSource()) {
+                member.networkVisit = null;
+                member.networkIndex = order.size();
+                order.add(member);
+                queue.add(member);
+            }
+            if (member.network != null && member.network.valid) {
+                // The pipes of the old network are all part of this one now
+                member.network.invalidate();
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            PipeTransportPower from = queue.poll();
+            for (EnumFacing side : EnumFacing.VALUES) {
+                PipeTransportPower to = getNeighbor(from, side);
+                if (to == null) {
+                    continue;
+                }
+                if (sourceSide[from.networkIndex] < 0 && from.isNetworkSource()) {
+                    sourceSide[from.networkIndex] = (byte) side.ordinal();
+                }
+                if (to.networkVisit == start && from.outputOpen(side) && to.inputOpen(side.getOpposite())) {
+                    // Visited, but not placed yet
+                    to.networkVisit = null;
+                    to.networkIndex = order.size();
+                    parent[to.networkIndex] = from.networkIndex;
+                    parentSide[to.networkIndex] = (byte) side.getOpposite().ordinal();
+                    order.add(to);
+                    queue.add(to);
+                }
+            }
+        }
+
+        for (PipeTransportPower member : members) {
+            if (member.networkVisit == start) {
+                member.networkIndex = order.size();
+                order.add(member);
+            }
+            member.networkVisit = null;
+        }
+        return new PowerNetwork(order, parent, parentSide, sourceSide);
+    }
+
+    private static PipeTransportPower getNeighbor(PipeTransportPower pipe, EnumFacing side) {
+        if (!pipe.container.isPipeConnected(side)) {
+            return null;
+        }
+        TileEntity tile = pipe.container.getTile(side);
+        if (tile instanceof TileGenericPipe && !tile.isInvalid()) {
+            Pipe<?> other = ((TileGenericPipe) tile).pipe;
+            if (BlockGenericPipe.isValid(other) && other.transport instanceof PipeTransportPower) {
+                return (PipeTransportPower) other.transport;
+            }
+        }
+        return null;
+    }
+
+    /** Forgets this network, so that its pipes compile a new one. */
+    public void invalidate() {
+        if (valid) {
+            valid = false;
+            for (PipeTransportPower pipe : pipes) {
+                if (pipe.network == this) {
+                    pipe.network = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public int getSize() {
+        return pipes.length;
+    }
+
+    /** Moves one tick of power through the whole network. */
+    @Override
+    public void solve() {
+        int count = pipes.length;
+        Arrays.fill(childDemand, 0);
+
+        // Work out how much power each pipe wants, from the receivers back to the sources
+        for (int i = count - 1; i >= 0; i--) {
+            PipeTransportPower pipe = pipes[i];
+            if (pipe.container.isInvalid()) {
+                invalidate();
+                return;
+            }
+            pipe.clearNetworkFlow();
+
+            double wanted = 0;
+            int sides = receiverSides[i];
+            for (int s = 0; sides != 0; s++, sides >>>= 1) {
+                int request = 0;
+                if ((sides & 1) != 0) {
+                    EnumFacing side = EnumFacing.VALUES[s];
+                    IEnergyReceiver receiver = (IEnergyReceiver) pipe.providers[s];
+                    if (receiver.canConnectEnergy(side.getOpposite())) {
+                        request = receiver.receiveEnergy(side.getOpposite(), pipe.maxPower, true);
+                    }
+                }
+                requests[i * 6 + s] = request;
+                wanted += request;
+            }
+            demand[i] = wanted;
+            entering[i] = pipe.grossForLoss(Math.min(wanted + childDemand[i], pipe.maxPower));
+            if (parent[i] >= 0) {
+                childDemand[parent[i]] += entering[i];
+            } else if (sourceSide[i] >= 0) {
+                pipe.requestNetworkSupply(EnumFacing.VALUES[sourceSide[i]], (int) Math.ceil(entering[i]));
+            }
+        }
+
+        // Share out what was supplied, from the sources to the receivers
+        for (int i = 0; i < count; i++) {
+            PipeTransportPower pipe = pipes[i];
+            double available;
+            if (parent[i] < 0) {
+                available = pipe.netForLoss(pipe.takeNetworkSupply());
+            } else {
+                double given = entering[i] * share[parent[i]];
+                available = pipe.netForLoss(given);
+                if (given > 0) {
+                    pipe.recordNetworkFlow(parentSide[i], given, true);
+                    pipes[parent[i]].recordNetworkFlow(parentSide[i] ^ 1, given, false);
+                }
+            }
+            available = Math.min(available + pipe.networkBuffer, pipe.maxPower);
+
+            double wanted = demand[i] + childDemand[i];
+            share[i] = wanted > 0 ? Math.min(1, available / wanted) : 0;
+
+            double used = childDemand[i] * share[i];
+            int sides = receiverSides[i];
+            for (int s = 0; sides != 0; s++, sides >>>= 1) {
+                int offered = (int) (requests[i * 6 + s] * share[i]);
+                if ((sides & 1) != 0 && offered > 0) {
+                    IEnergyReceiver receiver = (IEnergyReceiver) pipe.providers[s];
+                    int accepted = receiver.receiveEnergy(EnumFacing.VALUES[s].getOpposite(), offered, false);
+                    used += accepted;
+                    pipe.recordNetworkFlow(s, accepted, false);
+                }
+            }
+            pipe.networkBuffer = Math.max(0, available - used);
+            pipe.recordNetworkInput(available);
+        }
+    }
+}
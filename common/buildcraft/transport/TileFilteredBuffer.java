@@ -18,8 +18,8 @@ public class TileFilteredBuffer extends TileBuildCraft implements IInventory {
     private final SimpleInventory inventoryStorage = new SimpleInventory(9, "FilteredBufferStorage", 64);
 
     @Override
-    public void update() {
-        super.update();
+    protected void updateTile() {
+        super.updateTile();
     }
 
     public IInventory getFilters() {
@@ -57,6 +57,7 @@ import buildcraft.core.lib.network.ISyncedTile;
 import buildcraft.core.lib.network.PacketTileState;
 import buildcraft.core.lib.network.base.Packet;
 import buildcraft.core.lib.utils.NetworkUtils;
+import buildcraft.core.lib.utils.TickProfiler;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.core.proxy.CoreProxy;
 import buildcraft.transport.ItemFacade.FacadeState;
@@ -89,6 +90,9 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
     protected boolean resyncGateExpansions = false;
     protected boolean attachPluggables = false;
     protected SideProperties sideProperties = new SideProperties();
+    /** True if this has been taken out of the tick loop by the {@link PipeHibernationManager}. */
+    boolean hibernating = false;
+    private int idleTicks = 0;
 
     private TileBuffer[] tileBuffer;
     private int glassColor = -1;
@@ -347,9 +351,26 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
     @Override
     public void invalidate() {
         initialized = false;
+        if (tileBuffer != null) {
+            for (EnumFacing o : EnumFacing.VALUES) {
+                TileEntity tile = tileBuffer[o.ordinal()].getTile();
+                if (tile instanceof ITileBufferHolder) {
+                    ((ITileBufferHolder) tile).blockRemoved(o);
+                }
+            }
+        }
         tileBuffer = null;
+        if (worldObj != null && !worldObj.isRemote) {
+            BuildCraftTransport.pipeHibernationManager.forget(this);
+            if (PipeSegmentManager.enabled) {
+                BuildCraftTransport.pipeSegmentManager.remove(this);
+            }
+        }
 
         if (pipe != null) {
+            if (pipe.transport != null) {
+                pipe.transport.onUnload();
+            }
             pipe.invalidate();
         }
 
@@ -407,6 +428,7 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
                         sideProperties.pluggables[i].onAttachedPipe(this, EnumFacing.getFront(i));
                     }
                 }
+                pipe.invalidateRouting();
                 notifyBlockChanged();
             }
 
@@ -416,12 +438,14 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
 
             pipe.updateEntity();
 
+            long profile = TickProfiler.start();
             for (EnumFacing direction : EnumFacing.VALUES) {
                 PipePluggable p = getPipePluggable(direction);
                 if (p != null) {
                     p.update(this, direction);
                 }
             }
+            TickProfiler.end(profile, TickProfiler.Section.PIPE_PLUGGABLES, pipe.getClass(), worldObj, pos);
 
             if (worldObj.isRemote) {
                 if (resyncGateExpansions) {
@@ -431,6 +455,7 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
                 return;
             }
 
+            profile = TickProfiler.start();
             if (blockNeighborChange) {
                 for (int i = 0; i < 6; i++) {
                     if ((blockNeighborChangedSides & (1 << i)) != 0) {
@@ -447,6 +472,7 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
                 refreshRenderState();
                 refreshRenderState = false;
             }
+            TickProfiler.end(profile, TickProfiler.Section.PIPE_RENDER_STATE, pipe.getClass(), worldObj, pos);
 
             if (sendClientUpdate) {
                 sendClientUpdate = false;
@@ -456,12 +482,60 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
                     BuildCraftCore.instance.sendToPlayersNear(updatePacket, this);
                 }
             }
+
+            if (PipeHibernationManager.enabled && canHibernate()) {
+                if (++idleTicks >= PipeHibernationManager.IDLE_TICKS) {
+                    idleTicks = 0;
+                    BuildCraftTransport.pipeHibernationManager.requestSleep(this);
+                }
+            } else {
+                idleTicks = 0;
+            }
         } catch (Throwable t) {
             BCLog.logger.warn("CRASH! OH NO!", t);
             Throwables.propagate(t);
         }
     }
 
+    /** @return True if this pipe has nothing to do until something else happens to it. Only valid on the server. */
+    boolean canHibernate() {
+        if (!initialized || pipe == null || deletePipe || attachPluggables || blockNeighborChange || refreshRenderState || sendClientUpdate) {
+            return false;
+        }
+        for (PipePluggable pluggable : sideProperties.pluggables) {
+            if (pluggable != null && PipeHibernationManager.overridesTick(pluggable.getClass(), PipePluggable.class, "update", IPipeTile.class,
+                    EnumFacing.class)) {
+                return false;
+            }
+        }
+        return pipe.canHibernate();
+    }
+
+    /** @return True if this pipe has been taken out of the tick loop. */
+    public boolean isHibernating() {
+        return hibernating;
+    }
+
+    /** Puts this pipe back into the tick loop if it was asleep, and stops it from going to sleep for a while. This must
+     * be called by anything that gives this pipe something to do. */
+    public void wakeUp() {
+        idleTicks = 0;
+        // Pipes that went to sleep before hibernation was turned off still have to be woken up
+        if (!PipeHibernationManager.enabled && !hibernating) {
+            return;
+        }
+        if (worldObj != null && !worldObj.isRemote) {
+            BuildCraftTransport.pipeHibernationManager.requestWakeUp(this);
+        }
+    }
+
+    /** Wakes this pipe up after the given number of ticks. */
+    public void scheduleWakeUp(int ticks) {
+        if (PipeHibernationManager.enabled && worldObj != null && !worldObj.isRemote) {
+            BuildCraftTransport.pipeHibernationManager.scheduleWakeUp(this, ticks);
+        }
+    }
+
     public void initializeFromItemMetadata(int i) {
         if (i >= 1 && i <= 16) {
             setPipeColor((i - 1) & 15);
@@ -624,13 +698,21 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
 
     @Override
     public void scheduleNeighborChange() {
+        TileBuffer.invalidate(tileBuffer);
         blockNeighborChange = true;
         blockNeighborChangedSides = 0x3F;
+        wakeUp();
     }
 
     public void scheduleNeighborChange(EnumPipePart part) {
+        if (part == EnumPipePart.CENTER) {
+            TileBuffer.invalidate(tileBuffer);
+        } else if (tileBuffer != null) {
+            tileBuffer[part.ordinal()].invalidate();
+        }
         blockNeighborChange = true;
         blockNeighborChangedSides |= part == EnumPipePart.CENTER ? 0x3F : (1 << part.ordinal());
+        wakeUp();
     }
 
     @Override
@@ -730,11 +812,14 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
 
     public void sendNetworkUpdate() {
         sendClientUpdate = true;
+        wakeUp();
     }
 
     @Override
     public void blockRemoved(EnumFacing from) {
-
+        if (tileBuffer != null) {
+            tileBuffer[from.getOpposite().ordinal()].invalidate();
+        }
     }
 
     public TileBuffer[] getTileCache() {
@@ -870,14 +955,7 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
             return;
         }
 
-        // TileBuffer t = cache[side.ordinal()];
-        // For blocks which are not loaded, keep the old connection value.
-        // if (t.exists() || !initialized) {
-        // t.refresh();
-
-        pipeConnectionsBuffer[side.ordinal()] = canPipeConnect(worldObj.getTileEntity(pos.offset(side))/* t.getTile(
-                                                                                                        * ) */, side);
-        // }
+        pipeConnectionsBuffer[side.ordinal()] = canPipeConnect(cache[side.ordinal()].getTile(), side);
     }
 
     @Override
@@ -901,7 +979,16 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
 
     @Override
     public void onChunkUnload() {
+        if (worldObj != null && !worldObj.isRemote) {
+            BuildCraftTransport.pipeHibernationManager.forget(this);
+            if (PipeSegmentManager.enabled) {
+                BuildCraftTransport.pipeSegmentManager.forget(this);
+            }
+        }
         if (pipe != null) {
+            if (pipe.transport != null) {
+                pipe.transport.onUnload();
+            }
             pipe.onChunkUnload();
         }
     }
@@ -960,6 +1047,7 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
     @Override
     public void scheduleRenderUpdate() {
         refreshRenderState = true;
+        wakeUp();
     }
 
     public boolean hasFacade(EnumFacing direction) {
@@ -1003,6 +1091,7 @@ public class TileGenericPipe extends TileEntity implements IFluidHandler, IPipeT
             pluggable.onAttachedPipe(this, direction);
         }
 
+        pipe.invalidateRouting();
         notifyBlockChanged();
         worldObj.notifyNeighborsRespectDebug(getPos(), getBlock());
         return true;
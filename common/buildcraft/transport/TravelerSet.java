@@ -4,77 +4,242 @@
  * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
 package buildcraft.transport;
 
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.NoSuchElementException;
 
-import com.google.common.collect.ForwardingSet;
-import com.google.common.collect.Sets;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
 
-/** Um, no. This is not needed anymore, as indervidual items will be stored in a Map<Integer, TravellingItem_BC8>,
- * provided there are no problems implementing it.
- * 
- * AND NEPTUNE IS A THING :) */
-@Deprecated
-public class TravelerSet extends ForwardingSet<TravelingItem> {
+/** Stores every {@link TravelingItem} inside of a {@link PipeTransportItems}. This is NOT thread safe: it should only
+ * ever be accessed from the thread that ticks the owning pipe.
+ * <p>
+ * Items are kept in a slot array with a free list, so an item keeps the same slot for as long as it stays in the pipe.
+ * Removals requested while the pipe is {@link #iterating} are recorded in a bitmap and additions are queued, both are
+ * applied by {@link #flush()}. The number of stacks and items are kept as running totals so they never need to be
+ * recounted.
+ * <p>
+ * Every slot is also linked into one of {@link #MERGE_BUCKETS} chains, picked from the item, damage and NBT of its
+ * stack, so that {@link PipeTransportItems#groupEntities()} only has to compare items that could possibly merge.
+ * <p>
+ * Hot code should loop from 0 to {@link #getLimit()} and use {@link #get(int)} rather than {@link #iterator()}, as that
+ * does not allocate anything. */
+public class TravelerSet implements Iterable<TravelingItem> {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int LOAD_DELAY = 10;
+    static final int MERGE_BUCKETS = 16;
 
     public boolean iterating;
 
-    private final Set<TravelingItem> items = Sets.newConcurrentHashSet();
-    private final Set<TravelingItem> toLoad = Sets.newConcurrentHashSet();
-    private final Set<TravelingItem> toAdd = Sets.newConcurrentHashSet();
-    private final Set<TravelingItem> toRemove = Sets.newConcurrentHashSet();
-    private int delay = 0;
     private final PipeTransportItems transport;
 
+    private TravelingItem[] slots = new TravelingItem[INITIAL_CAPACITY];
+    /** The number of items that each slot adds to {@link #itemCount}, or -1 if the slot is ignored for weight. */
+    private int[] weights = new int[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private final int[] mergeHeads = new int[MERGE_BUCKETS];
+    private int[] mergeNext = new int[INITIAL_CAPACITY];
+    private int[] mergePrev = new int[INITIAL_CAPACITY];
+    private int freeCount = 0;
+    /** One more than the highest slot that is (or was) in use. */
+    private int limit = 0;
+    private int size = 0;
+
+    private long[] toRemove = new long[1];
+    private TravelingItem[] toAdd = new TravelingItem[INITIAL_CAPACITY];
+    private int toAddCount = 0;
+    private TravelingItem[] toLoad = new TravelingItem[INITIAL_CAPACITY];
+    private int toLoadCount = 0;
+    private int delay = 0;
+
+    private int stackCount = 0;
+    private int itemCount = 0;
+
     public TravelerSet(PipeTransportItems transport) {
         this.transport = transport;
+        Arrays.fill(mergeHeads, -1);
     }
 
-    @Override
-    protected Set<TravelingItem> delegate() {
-        return items;
+    // Reading
+
+    /** @return One more than the highest slot index that might contain an item. */
+    public int getLimit() {
+        return limit;
     }
 
-    @Override
+    /** @return The item in the given slot, or null if the slot is empty. */
+    public TravelingItem get(int slot) {
+        return slots[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** @return True if there are items waiting to be added to this set by {@link #flush()}. */
+    public boolean hasPending() {
+        return toAddCount > 0 || toLoadCount > 0;
+    }
+
+    public boolean contains(TravelingItem item) {
+        return indexOf(item) >= 0;
+    }
+
+    /** @return The number of stacks in this pipe that count towards its weight. */
+    public int getStackCount() {
+        return stackCount;
+    }
+
+    /** @return The total stack size of every item in this pipe that counts towards its weight. */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public boolean isScheduledForRemoval(int slot) {
+        return (toRemove[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /** @return The first slot in the given merge bucket, or -1 if the bucket is empty. */
+    int firstInMergeBucket(int bucket) {
+        return mergeHeads[bucket];
+    }
+
+    /** @return The slot after the given one in its merge bucket, or -1 if it was the last one. */
+    int nextInMergeBucket(int slot) {
+        return mergeNext[slot];
+    }
+
+    // Mutating
+
     public boolean add(TravelingItem item) {
         if (iterating) {
-            return toAdd.add(item);
+            for (int i = 0; i < toAddCount; i++) {
+                if (toAdd[i] == item) {
+                    return false;
+                }
+            }
+            toAdd = push(toAdd, toAddCount++, item);
+            return true;
         }
         item.setContainer(transport.container);
-        items.add(item);
+        if (indexOf(item) >= 0) {
+            return false;
+        }
+        insert(item);
         return true;
     }
 
-    @Override
-    public boolean addAll(Collection<? extends TravelingItem> collection) {
+    public boolean remove(TravelingItem item) {
+        int slot = indexOf(item);
+        if (slot < 0) {
+            return removePending(item);
+        }
         if (iterating) {
-            return toAdd.addAll(collection);
+            return scheduleRemoval(slot);
         }
-        return standardAddAll(collection);
+        removeSlot(slot);
+        return true;
     }
 
-    @Override
-    public boolean remove(Object object) {
+    /** Removes every item, including the ones that are waiting to be added or loaded. If the pipe is
+     * {@link #iterating} then the items in it are only scheduled for removal. */
+    public void clear() {
         if (iterating) {
-            return toRemove.add((TravelingItem) object);
+            for (int i = 0; i < limit; i++) {
+                if (slots[i] != null) {
+                    scheduleRemoval(i);
+                }
+            }
+        } else {
+            for (int i = 0; i < limit; i++) {
+                TravelingItem item = slots[i];
+                if (item != null) {
+                    release(item);
+                    if (item.travelerSet == this) {
+                        item.travelerSet = null;
+                        item.travelerSlot = -1;
+                    }
+                }
+            }
+            Arrays.fill(slots, 0, limit, null);
+            Arrays.fill(toRemove, 0L);
+            Arrays.fill(mergeHeads, -1);
+            Arrays.fill(toAdd, 0, toAddCount, null);
+            Arrays.fill(toLoad, 0, toLoadCount, null);
+            toAddCount = 0;
+            toLoadCount = 0;
+            delay = 0;
+            freeCount = 0;
+            limit = 0;
+            size = 0;
+            stackCount = 0;
+            itemCount = 0;
         }
-        return delegate().remove(object);
     }
 
-    @Override
-    public boolean removeAll(Collection<?> collection) {
-        throw new UnsupportedOperationException();
+    void scheduleLoad(TravelingItem item) {
+        delay = LOAD_DELAY;
+        toLoad = push(toLoad, toLoadCount++, item);
     }
 
-    @Override
-    public boolean retainAll(Collection<?> collection) {
-        throw new UnsupportedOperationException();
+    /** Marks the item to be removed on the next {@link #flush()}.
+     *
+     * @return True if the item was not already scheduled for removal. */
+    public boolean scheduleRemoval(TravelingItem item) {
+        int slot = indexOf(item);
+        if (slot < 0) {
+            return removePending(item);
+        }
+        return scheduleRemoval(slot);
     }
 
-    void scheduleLoad(TravelingItem item) {
-        delay = 10;
-        toLoad.add(item);
+    /** Slot based version of {@link #scheduleRemoval(TravelingItem)}. */
+    public boolean scheduleRemoval(int slot) {
+        long bit = 1L << slot;
+        long word = toRemove[slot >>> 6];
+        toRemove[slot >>> 6] = word | bit;
+        return (word & bit) == 0;
+    }
+
+    public boolean unscheduleRemoval(TravelingItem item) {
+        int slot = indexOf(item);
+        if (slot < 0) {
+            return false;
+        }
+        long bit = 1L << slot;
+        long word = toRemove[slot >>> 6];
+        toRemove[slot >>> 6] = word & ~bit;
+        return (word & bit) != 0;
+    }
+
+    /** Recalculates the weight of the given item. This should be called whenever the stack size of an item that is
+     * already inside this set is changed. */
+    public void refreshWeight(TravelingItem item) {
+        int slot = indexOf(item);
+        if (slot >= 0) {
+            refreshWeight(slot);
+        }
+    }
+
+    /** Slot based version of {@link #refreshWeight(TravelingItem)}. */
+    public void refreshWeight(int slot) {
+        int old = weights[slot];
+        if (old < 0) {
+            return;
+        }
+        int current = weightOf(slots[slot]);
+        weights[slot] = current;
+        itemCount += current - old;
+    }
+
+    void flush() {
+        loadScheduledItems();
+        addScheduledItems();
+        removeScheduledItems();
     }
 
     private void loadScheduledItems() {
@@ -82,48 +247,227 @@ public class TravelerSet extends ForwardingSet<TravelingItem> {
             delay--;
             return;
         }
-        addAll(toLoad);
-        toLoad.clear();
+        for (int i = 0; i < toLoadCount; i++) {
+            add(toLoad[i]);
+            toLoad[i] = null;
+        }
+        toLoadCount = 0;
     }
 
     private void addScheduledItems() {
-        addAll(toAdd);
-        toAdd.clear();
+        int count = toAddCount;
+        toAddCount = 0;
+        for (int i = 0; i < count; i++) {
+            add(toAdd[i]);
+            toAdd[i] = null;
+        }
     }
 
-    public boolean scheduleRemoval(TravelingItem item) {
-        return toRemove.add(item);
+    void removeScheduledItems() {
+        for (int w = 0; w < toRemove.length; w++) {
+            long word = toRemove[w];
+            while (word != 0) {
+                int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                TravelingItem item = slots[slot];
+                if (item != null) {
+                    item.cleanup();
+                    removeSlot(slot);
+                }
+            }
+            toRemove[w] = 0;
+        }
     }
 
-    public boolean unscheduleRemoval(TravelingItem item) {
-        return toRemove.remove(item);
+    // Internal
+
+    private int indexOf(TravelingItem item) {
+        if (item.travelerSet == this) {
+            int slot = item.travelerSlot;
+            if (slot < limit && slots[slot] == item) {
+                return slot;
+            }
+        }
+        // The item has already moved on to another pipe, but is still waiting to be removed from this one
+        for (int i = 0; i < limit; i++) {
+            if (slots[i] == item) {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    void removeScheduledItems() {
-        for (TravelingItem i : toRemove) {
-            i.cleanup();
-            items.remove(i);
+    private boolean removePending(TravelingItem item) {
+        for (int i = 0; i < toAddCount; i++) {
+            if (toAdd[i] == item) {
+                toAddCount--;
+                toAdd[i] = toAdd[toAddCount];
+                toAdd[toAddCount] = null;
+                return true;
+            }
         }
-        toRemove.clear();
+        return false;
     }
 
-    void flush() {
-        loadScheduledItems();
-        addScheduledItems();
-        removeScheduledItems();
+    private void insert(TravelingItem item) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = limit++;
+            if (slot >= slots.length) {
+                int newLength = slots.length * 2;
+                slots = Arrays.copyOf(slots, newLength);
+                weights = Arrays.copyOf(weights, newLength);
+                freeSlots = Arrays.copyOf(freeSlots, newLength);
+                mergeNext = Arrays.copyOf(mergeNext, newLength);
+                mergePrev = Arrays.copyOf(mergePrev, newLength);
+            }
+            if ((slot >>> 6) >= toRemove.length) {
+                toRemove = Arrays.copyOf(toRemove, toRemove.length * 2);
+            }
+        }
+        slots[slot] = item;
+        item.travelerSet = this;
+        item.travelerSlot = slot;
+        size++;
+
+        int bucket = mergeBucketOf(item.getItemStack());
+        int head = mergeHeads[bucket];
+        mergePrev[slot] = -1;
+        mergeNext[slot] = head;
+        if (head >= 0) {
+            mergePrev[head] = slot;
+        }
+        mergeHeads[bucket] = slot;
+
+        if (item.ignoreWeight()) {
+            weights[slot] = -1;
+        } else {
+            int weight = weightOf(item);
+            weights[slot] = weight;
+            stackCount++;
+            itemCount += weight;
+        }
     }
 
-    @Override
-    public Iterator<TravelingItem> iterator() {
-        return items.iterator();
+    /** Lets the client forget about an item that has left its pipes, rather than moved on to another pipe. */
+    private void release(TravelingItem item) {
+        TileGenericPipe container = transport.container;
+        if (container != null && item.getContainer() == container && container.getWorld() != null && container.getWorld().isRemote) {
+            TravelingItem.clientCache.remove(item);
+        }
     }
 
-    @Override
-    public void clear() {
-        if (iterating) {
-            toRemove.addAll(this);
+    private void removeSlot(int slot) {
+        TravelingItem item = slots[slot];
+        release(item);
+        slots[slot] = null;
+        toRemove[slot >>> 6] &= ~(1L << slot);
+        if (item.travelerSet == this && item.travelerSlot == slot) {
+            item.travelerSet = null;
+            item.travelerSlot = -1;
+        }
+        size--;
+
+        int prev = mergePrev[slot];
+        int next = mergeNext[slot];
+        if (prev >= 0) {
+            mergeNext[prev] = next;
+        } else {
+            // The stack might have changed since it was inserted, so find the bucket by the chain rather than the stack
+            for (int bucket = 0; bucket < MERGE_BUCKETS; bucket++) {
+                if (mergeHeads[bucket] == slot) {
+                    mergeHeads[bucket] = next;
+                    break;
+                }
+            }
+        }
+        if (next >= 0) {
+            mergePrev[next] = prev;
+        }
+
+        int weight = weights[slot];
+        if (weight >= 0) {
+            stackCount--;
+            itemCount -= weight;
+        }
+
+        if (slot == limit - 1) {
+            limit--;
         } else {
-            items.clear();
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    private static int mergeBucketOf(ItemStack stack) {
+        if (stack == null || stack.getItem() == null) {
+            return 0;
         }
+        int hash = System.identityHashCode(stack.getItem());
+        hash = hash * 31 + stack.getItemDamage();
+        NBTTagCompound tag = stack.getTagCompound();
+        hash = hash * 31 + (tag == null ? 0 : tag.hashCode());
+        hash ^= hash >>> 16;
+        return hash & (MERGE_BUCKETS - 1);
+    }
+
+    private static int weightOf(TravelingItem item) {
+        return item.getItemStack() == null ? 0 : item.getItemStack().stackSize;
+    }
+
+    private static TravelingItem[] push(TravelingItem[] array, int index, TravelingItem item) {
+        if (index >= array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = item;
+        return array;
+    }
+
+    /** Iterates over every item in this set. This allocates, so prefer {@link #get(int)} for anything that runs every
+     * tick. */
+    @Override
+    public Iterator<TravelingItem> iterator() {
+        return new Iterator<TravelingItem>() {
+            private int next = advance(0);
+            private int last = -1;
+
+            private int advance(int from) {
+                while (from < limit && slots[from] == null) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < limit;
+            }
+
+            @Override
+            public TravelingItem next() {
+                if (next >= limit) {
+                    throw new NoSuchElementException();
+                }
+                TravelingItem item = slots[next];
+                last = next;
+                next = advance(next + 1);
+                return item;
+            }
+
+            /** Removes the last item straight away, or schedules it for removal if the pipe is {@link #iterating}. */
+            @Override
+            public void remove() {
+                if (last < 0 || slots[last] == null) {
+                    throw new IllegalStateException();
+                }
+                if (iterating) {
+                    scheduleRemoval(last);
+                } else {
+                    removeSlot(last);
+                }
+                last = -1;
+            }
+        };
     }
 }
@@ -6,14 +6,17 @@ package buildcraft.transport;
 
 import buildcraft.BuildCraftCore;
 import buildcraft.core.lib.inventory.StackHelper;
+import buildcraft.core.lib.utils.MathUtils;
 import buildcraft.core.lib.utils.NBTUtils;
 import buildcraft.core.lib.utils.Utils;
+import buildcraft.transport.utils.TransportUtils;
 import com.google.common.collect.MapMaker;
 import net.minecraft.entity.item.EntityItem;
 import net.minecraft.item.EnumDyeColor;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.Vec3;
 import net.minecraftforge.fml.common.FMLCommonHandler;
@@ -22,10 +25,12 @@ import net.minecraftforge.fml.relauncher.Side;
 import java.util.EnumSet;
 import java.util.Map;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
+
 public class TravelingItem {
 
     public static final TravelingItemCache serverCache = new TravelingItemCache();
-    public static final TravelingItemCache clientCache = new TravelingItemCache();
+    public static final ClientTravelingItemCache clientCache = new ClientTravelingItemCache();
     public static final InsertionHandler DEFAULT_INSERTION_HANDLER = new InsertionHandler();
     private static int maxId = 0;
 
@@ -43,11 +48,22 @@ public class TravelingItem {
 
     protected float speed = 0.01F;
 
+    /** If true then {@link #pos} is stale, and the real position is derived from {@link #progress} instead. */
+    protected boolean progressMotion = false;
+    /** How far through its container this item was at {@link #progressTick}: 0 is the input side, 0.5 is the center
+     * and 1 is the output side. */
+    protected double progress;
+    protected long progressTick;
+
     protected ItemStack itemStack;
     protected TileEntity container;
     protected NBTTagCompound extraData;
     protected InsertionHandler insertionHandler = DEFAULT_INSERTION_HANDLER;
 
+    /** The {@link TravelerSet} that most recently stored this item, and the slot it was stored in. */
+    TravelerSet travelerSet;
+    int travelerSlot = -1;
+
     /* CONSTRUCTORS */
     protected TravelingItem(int id) {
         this.id = id;
@@ -60,7 +76,9 @@ public class TravelingItem {
     }
 
     public static TravelingItem make() {
-        return make(maxId < Short.MAX_VALUE ? ++maxId : (maxId = Short.MIN_VALUE));
+        // Ids are positive so that they stay short on the wire, and only wrap around after two billion items
+        maxId = maxId == Integer.MAX_VALUE ? 1 : maxId + 1;
+        return make(maxId);
     }
 
     public static TravelingItem make(Vec3 pos, ItemStack stack) {
@@ -87,11 +105,83 @@ public class TravelingItem {
         pos = pos.add(toAdd);
     }
 
+    /** @return The current position of this item. For items using progress motion this is calculated (and written
+     *         back to {@link #pos}), so only call this when the position is really needed. */
+    public Vec3 getPosition() {
+        if (progressMotion && container != null && container.getWorld() != null) {
+            pos = interpolatePosition(container.getWorld().getTotalWorldTime(), 0);
+        }
+        return pos;
+    }
+
+    /** Sets the position of this item directly, switching it back to moving by {@link #pos}. */
+    public void setPosition(Vec3 pos) {
+        this.pos = pos;
+        progressMotion = false;
+    }
+
+    /* PROGRESS MOTION */
+    public boolean usesProgressMotion() {
+        return progressMotion;
+    }
+
+    /** Switches this item over to progress motion, starting from wherever {@link #getPosition()} currently is along
+     * the {@link #input} axis of the given pipe. */
+    public void startProgress(BlockPos pipe, long tick) {
+        stopProgress();
+        progressTick = tick;
+        progressMotion = true;
+        if (input == null) {
+            progress = 0.5;
+            return;
+        }
+        Vec3 current = pos;
+        double along = (current.xCoord - pipe.getX() - 0.5) * input.getFrontOffsetX();
+        along += (current.yCoord - pipe.getY() - TransportUtils.getPipeFloorOf(itemStack)) * input.getFrontOffsetY();
+        along += (current.zCoord - pipe.getZ() - 0.5) * input.getFrontOffsetZ();
+        progress = MathUtils.clamp(0.5 + along, 0, 0.5);
+    }
+
+    /** Writes the current position back into {@link #pos} and switches this item back to moving by position. */
+    public void stopProgress() {
+        setPosition(getPosition());
+    }
+
+    public double getProgress(long tick) {
+        return progress + speed * (tick - progressTick);
+    }
+
+    public void setProgress(double progress, long tick) {
+        this.progress = progress;
+        this.progressTick = tick;
+    }
+
+    /** Calculates where this item would be at the given tick. This only works for items that use progress motion. */
+    public Vec3 interpolatePosition(long tick, float partialTicks) {
+        double through = getProgress(tick) + speed * partialTicks;
+        BlockPos pipe = container.getPos();
+        EnumFacing face = toCenter ? input : output;
+        double offset = toCenter ? Math.min(through, 0.5) - 0.5 : Math.min(through, 1) - 0.5;
+        if (face == null) {
+            offset = 0;
+            face = EnumFacing.UP;
+        }
+        double x = pipe.getX() + 0.5 + face.getFrontOffsetX() * offset;
+        double y = pipe.getY() + TransportUtils.getPipeFloorOf(itemStack) + face.getFrontOffsetY() * offset;
+        double z = pipe.getZ() + 0.5 + face.getFrontOffsetZ() * offset;
+        return new Vec3(x, y, z);
+    }
+
     public float getSpeed() {
         return speed;
     }
 
     public void setSpeed(float speed) {
+        if (progressMotion && container != null && container.getWorld() != null) {
+            // Keep the current progress, and only change how fast it grows from now on
+            long now = container.getWorld().getTotalWorldTime();
+            setProgress(getProgress(now), now);
+        }
         this.speed = speed;
     }
 
@@ -134,6 +224,7 @@ public class TravelingItem {
     }
 
     public void reset() {
+        stopProgress();
         toCenter = true;
         blacklist.clear();
         input = null;
@@ -162,6 +253,7 @@ public class TravelingItem {
     }
 
     public void writeToNBT(NBTTagCompound data) {
+        Vec3 pos = getPosition();
         data.setDouble("x", pos.xCoord);
         data.setDouble("y", pos.yCoord);
         data.setDouble("z", pos.zCoord);
@@ -189,6 +281,7 @@ public class TravelingItem {
 
             Vec3 motion = Utils.convert(output, 0.1 + getSpeed() * 2D);
 
+            Vec3 pos = getPosition();
             EntityItem entity = new EntityItem(container.getWorld(), pos.xCoord, pos.yCoord, pos.zCoord, getItemStack());
             entity.lifespan = BuildCraftCore.itemLifespan * 20;
             entity.setDefaultPickupDelay();
@@ -213,7 +306,7 @@ public class TravelingItem {
 
         double d = 2 / 3D;
         // int k = MathHelper.floor_double(pos.yCoord + d);
-        return container.getWorld().getLightBrightness(Utils.convertFloor(pos.addVector(0, d, 0)));
+        return container.getWorld().getLightBrightness(Utils.convertFloor(getPosition().addVector(0, d, 0)));
         // } else {
         // return 0.0F;
         // }
@@ -306,14 +399,65 @@ public class TravelingItem {
     }
 
     public static class TravelingItemCache {
-        private final Map<Integer, TravelingItem> itemCache = new MapMaker().weakValues().makeMap();
+        /** Null in subclasses that keep their items somewhere else. */
+        private final Map<Integer, TravelingItem> itemCache;
 
+        public TravelingItemCache() {
+            this(new MapMaker().weakValues().<Integer, TravelingItem> makeMap());
+        }
+
+        TravelingItemCache(Map<Integer, TravelingItem> itemCache) {
+            this.itemCache = itemCache;
+        }
+
+        public void cache(TravelingItem item) {
+            itemCache.put(item.id, item);
+        }
+
+        public TravelingItem get(int id) {
+            return itemCache.get(id);
+        }
+
+        /** Removes the given item, unless its id has been given to a different item since. */
+        public void remove(TravelingItem item) {
+            itemCache.remove(item.id, item);
+        }
+
+        public void clear() {
+            itemCache.clear();
+        }
+    }
+
+    /** The client only ever sees the items of the world that it is in, and removes every item itself once it leaves
+     * its pipes, so it keeps them in a primitive map rather than behind weak references. This is only accessed from the
+     * client thread. */
+    public static class ClientTravelingItemCache extends TravelingItemCache {
+        private final TIntObjectHashMap<TravelingItem> itemCache = new TIntObjectHashMap<>();
+
+        public ClientTravelingItemCache() {
+            super(null);
+        }
+
+        @Override
         public void cache(TravelingItem item) {
             itemCache.put(item.id, item);
         }
 
+        @Override
         public TravelingItem get(int id) {
             return itemCache.get(id);
         }
+
+        @Override
+        public void remove(TravelingItem item) {
+            if (itemCache.get(item.id) == item) {
+                itemCache.remove(item.id);
+            }
+        }
+
+        @Override
+        public void clear() {
+            itemCache.clear();
+        }
     }
 }
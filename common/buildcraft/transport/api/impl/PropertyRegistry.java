@@ -1,5 +1,10 @@
 package buildcraft.transport.api.impl;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import buildcraft.api.transport.pipe_bc8.IPipePropertyProvider.IPipeProperty;
 import buildcraft.api.transport.pipe_bc8.IPipePropertyProvider.IPipePropertyImplicit;
 import buildcraft.api.transport.pipe_bc8.IPipePropertyProvider.IPipePropertyValue;
 import buildcraft.api.transport.pipe_bc8.IPropertyRegistry;
@@ -7,6 +12,56 @@ import buildcraft.api.transport.pipe_bc8.IPropertyRegistry;
 public enum PropertyRegistry implements IPropertyRegistry {
     INSTANCE;
 
+    /** How the value of a property is stored by a {@link buildcraft.transport.pipes.bc8.PipePropertyProviderEditable}.
+     * Properties with integer or boolean defaults get primitive slots, so reading them does not box anything. */
+    public enum EnumSlotType {
+        INT,
+        BOOLEAN,
+        OBJECT
+    }
+
+    private final Map<IPipeProperty<?>, Integer> indices = new ConcurrentHashMap<>();
+    private volatile IPipeProperty<?>[] properties = new IPipeProperty<?>[0];
+    private volatile EnumSlotType[] slotTypes = new EnumSlotType[0];
+
+    /** @return A dense index for the given property, starting from 0. Properties get their index the first time that it
+     *         is asked for, and keep it for as long as the game is running. */
+    public int getIndex(IPipeProperty<?> property) {
+        Integer index = indices.get(property);
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = indices.get(property);
+            if (index == null) {
+                index = properties.length;
+                Object def = property.getDefault();
+                EnumSlotType type = def instanceof Integer ? EnumSlotType.INT : def instanceof Boolean ? EnumSlotType.BOOLEAN : EnumSlotType.OBJECT;
+                IPipeProperty<?>[] newProperties = Arrays.copyOf(properties, index + 1);
+                newProperties[index] = property;
+                EnumSlotType[] newTypes = Arrays.copyOf(slotTypes, index + 1);
+                newTypes[index] = type;
+                properties = newProperties;
+                slotTypes = newTypes;
+                indices.put(property, index);
+            }
+            return index;
+        }
+    }
+
+    public IPipeProperty<?> getProperty(int index) {
+        return properties[index];
+    }
+
+    public EnumSlotType getSlotType(int index) {
+        return slotTypes[index];
+    }
+
+    /** @return The number of properties that have an index. */
+    public int getPropertyCount() {
+        return properties.length;
+    }
+
     @Override
     public <T> IPipePropertyValue<T> getValueProperty(String modId, String name) {
         return null;
@@ -61,11 +61,16 @@ public class PipeTransportRendererItems extends PipeTransportRenderer<PipeTransp
                 continue;
             }
 
-            EnumFacing face = item.toCenter ? item.input : item.output;
-            Vec3 motion = Utils.convert(face, item.getSpeed() * f);
+            Vec3 itemPos;
+            if (item.usesProgressMotion()) {
+                itemPos = item.interpolatePosition(pipe.container.getWorld().getTotalWorldTime(), f);
+            } else {
+                EnumFacing face = item.toCenter ? item.input : item.output;
+                itemPos = item.pos.add(Utils.convert(face, item.getSpeed() * f));
+            }
 
-            doRenderItem(item, x + item.pos.xCoord - pipe.container.getPos().getX() + motion.xCoord, y + item.pos.yCoord - pipe.container.getPos()
-                    .getY() + motion.yCoord, z + item.pos.zCoord - pipe.container.getPos().getZ() + motion.zCoord, light, item.color);
+            doRenderItem(item, x + itemPos.xCoord - pipe.container.getPos().getX(), y + itemPos.yCoord - pipe.container.getPos().getY(), z
+                + itemPos.zCoord - pipe.container.getPos().getZ(), light, item.color);
             count++;
         }
 
@@ -0,0 +1,60 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport.command;
+
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.WorldServer;
+
+import buildcraft.BuildCraftTransport;
+import buildcraft.core.lib.commands.CommandHelpers;
+import buildcraft.core.lib.commands.SubCommand;
+import buildcraft.transport.PipeHibernationManager;
+import buildcraft.transport.PipeSegmentManager;
+import buildcraft.transport.PipeTransportFluids;
+import buildcraft.transport.PipeTransportPower;
+import buildcraft.transport.TileGenericPipe;
+
+/** Reports how many pipes are in the tick loop of each world, and how many have been put to sleep by the
+ * {@link PipeHibernationManager}. */
+public class SubCommandPipes extends SubCommand {
+    public SubCommandPipes() {
+        super("pipes");
+        setPermLevel(PermLevel.ADMIN);
+    }
+
+    @Override
+    public void processSubCommand(ICommandSender sender, String[] args) {
+        if (!PipeHibernationManager.enabled) {
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.pipes.disabled");
+        }
+
+        for (WorldServer world : MinecraftServer.getServer().worldServers) {
+            int awake = 0;
+            for (TileEntity tile : world.tickableTileEntities) {
+                if (tile instanceof TileGenericPipe) {
+                    awake++;
+                }
+            }
+            int sleeping = BuildCraftTransport.pipeHibernationManager.getSleepingCount(world);
+            CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.pipes.stats", world.provider.getDimensionId(), awake, sleeping);
+            if (PipeSegmentManager.enabled) {
+                int segments = BuildCraftTransport.pipeSegmentManager.getSegmentCount(world);
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.pipes.segments", world.provider.getDimensionId(), segments);
+            }
+            if (PipeTransportPower.networkMode) {
+                int[] networks = BuildCraftTransport.powerNetworkManager.getStats(world);
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.pipes.power", world.provider.getDimensionId(), networks[0],
+                        networks[1]);
+            }
+            if (PipeTransportFluids.networkMode) {
+                int[] networks = BuildCraftTransport.fluidNetworkManager.getStats(world);
+                CommandHelpers.sendLocalizedChatMessage(sender, "command.buildcraft.pipes.fluid", world.provider.getDimensionId(), networks[0],
+                        networks[1]);
+            }
+        }
+    }
+}
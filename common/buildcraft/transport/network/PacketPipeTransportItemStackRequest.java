@@ -31,13 +31,13 @@ public class PacketPipeTransportItemStackRequest extends Packet {
     @Override
     public void writeData(ByteBuf data) {
         super.writeData(data);
-        data.writeShort(travelerID);
+        data.writeInt(travelerID);
     }
 
     @Override
     public void readData(ByteBuf data) {
         super.readData(data);
-        travelerID = data.readShort();
+        travelerID = data.readInt();
         TravelingItem.TravelingItemCache cache = TravelingItem.serverCache;
         item = cache.get(travelerID);
     }
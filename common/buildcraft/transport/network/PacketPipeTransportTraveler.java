@@ -6,6 +6,7 @@ package buildcraft.transport.network;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.EnumDyeColor;
+import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing;
@@ -13,6 +14,7 @@ import net.minecraft.util.Vec3;
 import net.minecraft.world.World;
 
 import buildcraft.core.lib.network.base.Packet;
+import buildcraft.core.lib.utils.NetworkUtils;
 import buildcraft.core.lib.utils.Utils;
 import buildcraft.transport.PipeTransportItems;
 import buildcraft.transport.TileGenericPipe;
@@ -21,10 +23,14 @@ import buildcraft.transport.TravelingItem;
 import io.netty.buffer.ByteBuf;
 
 public class PacketPipeTransportTraveler extends Packet {
+    private static final Vec3 INSIDE_PIPE = new Vec3(0.49, 0.49, 0.49);
+    /** The compact form stores positions relative to the middle of the pipe in 1/65536ths of a block. */
+    private static final double POSITION_SCALE = 65536;
+    /** The compact form stores speeds in 1/16384ths of a block per tick. */
+    private static final double SPEED_SCALE = 16384;
 
     public BlockPos pos;
 
-    private TravelingItem item;
     private boolean forceStackRefresh;
     private int entityId;
     private EnumFacing input;
@@ -32,33 +38,108 @@ public class PacketPipeTransportTraveler extends Packet {
     private EnumDyeColor color;
     private Vec3 itemPos;
     private float speed;
+    /** On the server this is the live stack of the item, and must only be read on the server thread. On the client
+     * this is only set for travelers that were sent in a {@link PacketPipeTransportTravelerBatch}. */
+    private ItemStack stack;
 
     public PacketPipeTransportTraveler() {}
 
     public PacketPipeTransportTraveler(TileEntity tile, TravelingItem item, boolean forceStackRefresh) {
         super(tile.getWorld());
-        this.item = item;
+        this.pos = tile.getPos();
         this.forceStackRefresh = forceStackRefresh;
+        // The client finds the pipe from the position, so make sure that it is inside of it
+        Vec3 middle = Utils.convertMiddle(pos);
+        this.itemPos = Utils.clamp(item.getPosition(), middle.subtract(INSIDE_PIPE), middle.add(INSIDE_PIPE));
+        // Copy everything else now, as this is written on a different thread
+        this.entityId = item.id;
+        this.input = item.input;
+        this.output = item.output;
+        this.color = item.color;
+        this.speed = item.getSpeed();
+        this.stack = item.getItemStack();
     }
 
     @Override
     public void writeData(ByteBuf data) {
         super.writeData(data);
-        data.writeFloat((float) item.pos.xCoord);
-        data.writeFloat((float) item.pos.yCoord);
-        data.writeFloat((float) item.pos.zCoord);
+        data.writeFloat((float) itemPos.xCoord);
+        data.writeFloat((float) itemPos.yCoord);
+        data.writeFloat((float) itemPos.zCoord);
+
+        data.writeInt(entityId);
+        data.writeByte(getFlags());
+        data.writeByte(color != null ? color.ordinal() : -1);
+        data.writeFloat(speed);
+    }
 
-        data.writeShort(item.id);
+    /** Writes this traveler for a {@link PacketPipeTransportTravelerBatch}, which has already written the chunk of the
+     * pipe.
+     *
+     * @param stackReference The reference to the stack in the {@link TravelerStackDictionary} of the player.
+     * @param definition The stack to define the reference as, if the player does not know about it yet.
+     * @param stackSize The size of the stack. */
+    void writeCompact(ByteBuf data, int stackReference, ItemStack definition, int stackSize) {
+        data.writeByte(((pos.getX() & 15) << 4) | (pos.getZ() & 15));
+        data.writeByte(pos.getY());
+        Vec3 middle = Utils.convertMiddle(pos);
+        data.writeShort((int) Math.round((itemPos.xCoord - middle.xCoord) * POSITION_SCALE));
+        data.writeShort((int) Math.round((itemPos.yCoord - middle.yCoord) * POSITION_SCALE));
+        data.writeShort((int) Math.round((itemPos.zCoord - middle.zCoord) * POSITION_SCALE));
+
+        NetworkUtils.writeVarInt(data, entityId);
+        data.writeByte(getFlags());
+        data.writeByte(color != null ? color.ordinal() : -1);
+        data.writeShort((int) Math.min(0xFFFF, Math.round(speed * SPEED_SCALE)));
+
+        NetworkUtils.writeVarInt(data, stackReference);
+        if (TravelerStackDictionary.isDefinition(stackReference)) {
+            NetworkUtils.writeStack(data, definition);
+        }
+        NetworkUtils.writeVarInt(data, stackSize);
+    }
 
-        int out = item.output == null ? 6 : item.output.ordinal();
-        int in = item.input == null ? 6 : item.input.ordinal();
+    /** Reads a traveler written by {@link #writeCompact(ByteBuf)}.
+     *
+     * @param chunkX The x coordinate of the chunk that the pipe is in.
+     * @param chunkZ The z coordinate of the chunk that the pipe is in. */
+    void readCompact(ByteBuf data, int chunkX, int chunkZ) {
+        int xz = data.readUnsignedByte();
+        int y = data.readUnsignedByte();
+        pos = new BlockPos((chunkX << 4) | (xz >> 4), y, (chunkZ << 4) | (xz & 15));
+        Vec3 middle = Utils.convertMiddle(pos);
+        double x = middle.xCoord + data.readShort() / POSITION_SCALE;
+        double ry = middle.yCoord + data.readShort() / POSITION_SCALE;
+        double z = middle.zCoord + data.readShort() / POSITION_SCALE;
+        itemPos = new Vec3(x, ry, z);
+
+        entityId = NetworkUtils.readVarInt(data);
+        readFlags(data.readUnsignedByte());
+        byte c = data.readByte();
+        color = c != -1 ? EnumDyeColor.byMetadata(c) : null;
+        speed = (float) (data.readUnsignedShort() / SPEED_SCALE);
 
-        byte flags = (byte) ((out & 7) | ((in & 7) << 3) | (forceStackRefresh ? 64 : 0));
-        data.writeByte(flags);
+        int stackReference = NetworkUtils.readVarInt(data);
+        if (TravelerStackDictionary.isDefinition(stackReference)) {
+            TravelerStackDictionary.define(stackReference, NetworkUtils.readStack(data));
+        }
+        stack = TravelerStackDictionary.resolve(stackReference, NetworkUtils.readVarInt(data));
+    }
 
-        data.writeByte(item.color != null ? item.color.ordinal() : -1);
+    private int getFlags() {
+        int out = output == null ? 6 : output.ordinal();
+        int in = input == null ? 6 : input.ordinal();
+        return (out & 7) | ((in & 7) << 3) | (forceStackRefresh ? 64 : 0);
+    }
+
+    private void readFlags(int flags) {
+        int in = (flags >> 3) & 7;
+        this.input = in == 6 ? null : EnumFacing.getFront(in);
+
+        int out = flags & 7;
+        this.output = out == 6 ? null : EnumFacing.getFront(out);
 
-        data.writeFloat(item.getSpeed());
+        this.forceStackRefresh = (flags & 0x40) > 0;
     }
 
     @Override
@@ -68,23 +149,9 @@ public class PacketPipeTransportTraveler extends Packet {
 
         pos = Utils.convertFloor(itemPos);
 
-        this.entityId = data.readShort();
-
-        int flags = data.readUnsignedByte();
+        this.entityId = data.readInt();
 
-        int in = (flags >> 3) & 7;
-        if (in == 6) {
-            this.input = null;
-        } else {
-            this.input = EnumFacing.getFront(in);
-        }
-
-        int out = flags & 7;
-        if (out == 6) {
-            this.output = null;
-        } else {
-            this.output = EnumFacing.getFront(out);
-        }
+        readFlags(data.readUnsignedByte());
 
         byte c = data.readByte();
         if (c != -1) {
@@ -92,8 +159,6 @@ public class PacketPipeTransportTraveler extends Packet {
         }
 
         this.speed = data.readFloat();
-
-        this.forceStackRefresh = (flags & 0x40) > 0;
     }
 
     public int getTravelingEntityId() {
@@ -120,6 +185,11 @@ public class PacketPipeTransportTraveler extends Packet {
         return speed;
     }
 
+    /** @return The stack of the item. On the client this is null unless this was sent in a batch. */
+    public ItemStack getItemStack() {
+        return stack;
+    }
+
     public boolean forceStackRefresh() {
         return forceStackRefresh;
     }
@@ -0,0 +1,97 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
+
+import buildcraft.core.lib.network.base.Packet;
+import buildcraft.core.lib.utils.NetworkUtils;
+
+import io.netty.buffer.ByteBuf;
+
+/** Every traveler update that a single player should see in a single tick. The travelers are grouped by chunk, so each
+ * pipe position only needs the two bytes of its position inside of the chunk. */
+public class PacketPipeTransportTravelerBatch extends Packet {
+    /** A traveler, along with the reference to its stack in the dictionary of the player it is sent to. */
+    public static class Entry {
+        public final PacketPipeTransportTraveler traveler;
+        public final int stackReference;
+        public final ItemStack definition;
+        public final int stackSize;
+
+        public Entry(PacketPipeTransportTraveler traveler, int stackReference, ItemStack definition, int stackSize) {
+            this.traveler = traveler;
+            this.stackReference = stackReference;
+            this.definition = definition;
+            this.stackSize = stackSize;
+        }
+    }
+
+    /** The travelers of a single chunk. */
+    public static class ChunkGroup {
+        public final int chunkX, chunkZ;
+        public final List<Entry> entries = new ArrayList<>();
+
+        public ChunkGroup(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    private List<ChunkGroup> groups;
+    private List<PacketPipeTransportTraveler> travelers;
+
+    public PacketPipeTransportTravelerBatch() {}
+
+    /** @param groups The groups to send. These must not be changed afterwards, as they are written on a different
+     *            thread. */
+    public PacketPipeTransportTravelerBatch(World world, List<ChunkGroup> groups) {
+        super(world);
+        this.groups = groups;
+    }
+
+    @Override
+    public void writeData(ByteBuf data) {
+        super.writeData(data);
+        NetworkUtils.writeVarInt(data, groups.size());
+        for (ChunkGroup group : groups) {
+            NetworkUtils.writeSignedVarInt(data, group.chunkX);
+            NetworkUtils.writeSignedVarInt(data, group.chunkZ);
+            NetworkUtils.writeVarInt(data, group.entries.size());
+            for (Entry entry : group.entries) {
+                entry.traveler.writeCompact(data, entry.stackReference, entry.definition, entry.stackSize);
+            }
+        }
+    }
+
+    @Override
+    public void readData(ByteBuf data) {
+        super.readData(data);
+        travelers = new ArrayList<>();
+        int groupCount = NetworkUtils.readVarInt(data);
+        for (int g = 0; g < groupCount; g++) {
+            int chunkX = NetworkUtils.readSignedVarInt(data);
+            int chunkZ = NetworkUtils.readSignedVarInt(data);
+            int count = NetworkUtils.readVarInt(data);
+            for (int i = 0; i < count; i++) {
+                PacketPipeTransportTraveler traveler = new PacketPipeTransportTraveler();
+                traveler.readCompact(data, chunkX, chunkZ);
+                travelers.add(traveler);
+            }
+        }
+    }
+
+    @Override
+    public void applyData(World world, EntityPlayer player) {
+        for (PacketPipeTransportTraveler traveler : travelers) {
+            traveler.applyData(world, player);
+        }
+    }
+}
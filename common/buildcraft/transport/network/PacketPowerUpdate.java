@@ -6,6 +6,7 @@ package buildcraft.transport.network;
 
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
 import net.minecraft.world.World;
 
 import buildcraft.core.lib.network.PacketCoordinates;
@@ -48,6 +49,54 @@ public class PacketPowerUpdate extends PacketCoordinates {
         }
     }
 
+    /** Writes this update as part of a {@link PacketPowerUpdateBatch}. Only the position inside of the chunk is written,
+     * along with the sides that have any power or flow on them. */
+    void writeCompact(ByteBuf data) {
+        data.writeByte(((pos.getX() & 15) << 4) | (pos.getZ() & 15));
+        data.writeByte(pos.getY());
+        int powered = 0, flowIn = 0, flowOut = 0;
+        for (int i = 0; i < 6; i++) {
+            if (displayPower[i] != 0) {
+                powered |= 1 << i;
+            }
+            if (displayFlow[i] > 0) {
+                flowIn |= 1 << i;
+            } else if (displayFlow[i] < 0) {
+                flowOut |= 1 << i;
+            }
+        }
+        data.writeByte(powered | (overload ? 64 : 0));
+        data.writeByte(flowIn);
+        data.writeByte(flowOut);
+        for (int i = 0; i < 6; i++) {
+            if (displayPower[i] != 0) {
+                data.writeByte(displayPower[i]);
+            }
+        }
+    }
+
+    /** Reads an update written by {@link #writeCompact(ByteBuf)}.
+     *
+     * @param chunkX The x coordinate of the chunk that the pipe is in.
+     * @param chunkZ The z coordinate of the chunk that the pipe is in. */
+    void readCompact(ByteBuf data, int chunkX, int chunkZ) {
+        int xz = data.readUnsignedByte();
+        int y = data.readUnsignedByte();
+        pos = new BlockPos((chunkX << 4) | (xz >> 4), y, (chunkZ << 4) | (xz & 15));
+        int flags = data.readUnsignedByte();
+        int flowIn = data.readUnsignedByte();
+        int flowOut = data.readUnsignedByte();
+        overload = (flags & 64) != 0;
+        displayPower = new short[6];
+        displayFlow = new short[6];
+        for (int i = 0; i < 6; i++) {
+            if ((flags & (1 << i)) != 0) {
+                displayPower[i] = data.readUnsignedByte();
+            }
+            displayFlow[i] = (short) ((flowIn >> i & 1) - (flowOut >> i & 1));
+        }
+    }
+
     @Override
     public void applyData(World world, EntityPlayer player) {
         if (!world.isBlockLoaded(pos)) {
@@ -0,0 +1,81 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+
+import buildcraft.core.lib.network.base.Packet;
+import buildcraft.core.lib.utils.NetworkUtils;
+
+import io.netty.buffer.ByteBuf;
+
+/** Every kinesis pipe display change that a single player should see in a single tick, grouped by chunk like
+ * {@link PacketPipeTransportTravelerBatch}. */
+public class PacketPowerUpdateBatch extends Packet {
+    /** The updates of a single chunk. */
+    public static class ChunkGroup {
+        public final int chunkX, chunkZ;
+        public final List<PacketPowerUpdate> updates = new ArrayList<>();
+
+        public ChunkGroup(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    private List<ChunkGroup> groups;
+    private List<PacketPowerUpdate> updates;
+
+    public PacketPowerUpdateBatch() {}
+
+    /** @param groups The groups to send. These must not be changed afterwards, as they are written on a different
+     *            thread. */
+    public PacketPowerUpdateBatch(World world, List<ChunkGroup> groups) {
+        super(world);
+        this.groups = groups;
+    }
+
+    @Override
+    public void writeData(ByteBuf data) {
+        super.writeData(data);
+        NetworkUtils.writeVarInt(data, groups.size());
+        for (ChunkGroup group : groups) {
+            NetworkUtils.writeSignedVarInt(data, group.chunkX);
+            NetworkUtils.writeSignedVarInt(data, group.chunkZ);
+            NetworkUtils.writeVarInt(data, group.updates.size());
+            for (PacketPowerUpdate update : group.updates) {
+                update.writeCompact(data);
+            }
+        }
+    }
+
+    @Override
+    public void readData(ByteBuf data) {
+        super.readData(data);
+        updates = new ArrayList<>();
+        int groupCount = NetworkUtils.readVarInt(data);
+        for (int g = 0; g < groupCount; g++) {
+            int chunkX = NetworkUtils.readSignedVarInt(data);
+            int chunkZ = NetworkUtils.readSignedVarInt(data);
+            int count = NetworkUtils.readVarInt(data);
+            for (int i = 0; i < count; i++) {
+                PacketPowerUpdate update = new PacketPowerUpdate();
+                update.readCompact(data, chunkX, chunkZ);
+                updates.add(update);
+            }
+        }
+    }
+
+    @Override
+    public void applyData(World world, EntityPlayer player) {
+        for (PacketPowerUpdate update : updates) {
+            update.applyData(world, player);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.management.PlayerManager;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+
+import net.minecraftforge.event.world.ChunkWatchEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import buildcraft.BuildCraftTransport;
+import buildcraft.transport.PipeTransportPower;
+import buildcraft.transport.TileGenericPipe;
+import buildcraft.transport.network.PacketPowerUpdateBatch.ChunkGroup;
+
+/** Collects the kinesis pipe display changes made in a world during a tick, and sends them at the end of the tick as one
+ * {@link PacketPowerUpdateBatch} per player, to every player that is watching their chunk.
+ * <p>
+ * Pipes only queue an update when their display actually changes, so a player that starts watching a chunk is sent the
+ * current display of every pipe in it that is not empty. */
+public class PowerSyncBatcher {
+    private final Map<Integer, Map<Long, ChunkGroup>> pending = new HashMap<>();
+
+    /** @param update An update that must not be changed afterwards, as it is written on a different thread. */
+    public void queue(PacketPowerUpdate update) {
+        int dim = update.dimensionId;
+        Map<Long, ChunkGroup> chunks = pending.get(dim);
+        if (chunks == null) {
+            chunks = new LinkedHashMap<>();
+            pending.put(dim, chunks);
+        }
+        int chunkX = update.pos.getX() >> 4;
+        int chunkZ = update.pos.getZ() >> 4;
+        long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        ChunkGroup group = chunks.get(key);
+        if (group == null) {
+            group = new ChunkGroup(chunkX, chunkZ);
+            chunks.put(key, group);
+        }
+        group.updates.add(update);
+    }
+
+    @SubscribeEvent
+    public void tick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.world.isRemote) {
+            return;
+        }
+        Map<Long, ChunkGroup> chunks = pending.remove(event.world.provider.getDimensionId());
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+
+        PlayerManager manager = ((WorldServer) event.world).getPlayerManager();
+        for (EntityPlayer player : event.world.playerEntities) {
+            if (!(player instanceof EntityPlayerMP)) {
+                continue;
+            }
+            List<ChunkGroup> visible = new ArrayList<>();
+            for (ChunkGroup group : chunks.values()) {
+                if (manager.isPlayerWatchingChunk((EntityPlayerMP) player, group.chunkX, group.chunkZ)) {
+                    visible.add(group);
+                }
+            }
+            if (!visible.isEmpty()) {
+                BuildCraftTransport.instance.sendToPlayer(player, new PacketPowerUpdateBatch(event.world, visible));
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void chunkWatch(ChunkWatchEvent.Watch event) {
+        World world = event.player.worldObj;
+        int chunkX = event.chunk.chunkXPos;
+        int chunkZ = event.chunk.chunkZPos;
+        if (!world.getChunkProvider().chunkExists(chunkX, chunkZ)) {
+            return;
+        }
+
+        Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+        ChunkGroup group = new ChunkGroup(chunkX, chunkZ);
+        for (TileEntity tile : chunk.getTileEntityMap().values()) {
+            if (tile instanceof TileGenericPipe && !tile.isInvalid()) {
+                TileGenericPipe pipe = (TileGenericPipe) tile;
+                if (pipe.pipe != null && pipe.pipe.transport instanceof PipeTransportPower) {
+                    PacketPowerUpdate update = ((PipeTransportPower) pipe.pipe.transport).createSentDisplayPacket();
+                    if (update != null) {
+                        group.updates.add(update);
+                    }
+                }
+            }
+        }
+
+        if (!group.updates.isEmpty()) {
+            List<ChunkGroup> groups = new ArrayList<>(1);
+            groups.add(group);
+            BuildCraftTransport.instance.sendToPlayer(event.player, new PacketPowerUpdateBatch(world, groups));
+        }
+    }
+
+    @SubscribeEvent
+    public void worldUnload(WorldEvent.Unload event) {
+        if (!event.world.isRemote) {
+            pending.remove(event.world.provider.getDimensionId());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport.network;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+/** Gives every distinct stack (ignoring its size) that travels through pipes near a player a small id, so that
+ * traveler updates only have to send the id. There is one of these per player on the server, and the client keeps
+ * every definition it was sent in {@link #clientStacks}.
+ * <p>
+ * Both sides hold at most {@link #CAPACITY} stacks. When the server runs out of ids it reuses the least recently sent
+ * one, and sends the new definition along with the first traveler that uses it, which replaces the old one on the
+ * client. */
+public class TravelerStackDictionary {
+    public static final int CAPACITY = 512;
+
+    /** Written to the stream in place of a reference if the traveler had no stack. */
+    static final int NO_STACK = 0;
+
+    /** The definitions that this client has been sent. Only accessed from the network thread. */
+    private static final ItemStack[] clientStacks = new ItemStack[CAPACITY];
+
+    private static final class StackKey {
+        private final Item item;
+        private final int damage;
+        private final NBTTagCompound tag;
+        private final int hash;
+
+        StackKey(ItemStack stack) {
+            this.item = stack.getItem();
+            this.damage = stack.getItemDamage();
+            this.tag = stack.getTagCompound();
+            int h = System.identityHashCode(item);
+            h = h * 31 + damage;
+            h = h * 31 + (tag == null ? 0 : tag.hashCode());
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StackKey)) {
+                return false;
+            }
+            StackKey other = (StackKey) obj;
+            return hash == other.hash && item == other.item && damage == other.damage && (tag == null ? other.tag == null
+                : tag.equals(other.tag));
+        }
+    }
+
+    /** In access order, so the first entry is always the least recently used one. */
+    private final LinkedHashMap<StackKey, Integer> ids = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Finds (or assigns) the id for the given stack.
+     *
+     * @return A reference to send to the client. The lowest bit is set if the client does not know about this stack
+     *         yet, in which case {@link #definitionOf(ItemStack)} must be sent with it. */
+    public int getReference(ItemStack stack) {
+        if (stack == null || stack.getItem() == null) {
+            return NO_STACK;
+        }
+        StackKey key = new StackKey(stack);
+        Integer id = ids.get(key);
+        if (id != null) {
+            return (id + 1) << 1;
+        }
+
+        int newId;
+        if (ids.size() < CAPACITY) {
+            newId = ids.size();
+        } else {
+            Iterator<Map.Entry<StackKey, Integer>> iterator = ids.entrySet().iterator();
+            newId = iterator.next().getValue();
+            iterator.remove();
+        }
+        // Copy the key's tag, as the stack might be changed after this
+        ids.put(new StackKey(definitionOf(stack)), newId);
+        return ((newId + 1) << 1) | 1;
+    }
+
+    /** @return A copy of the given stack, with a size of 1, that can be sent as a definition. */
+    public static ItemStack definitionOf(ItemStack stack) {
+        ItemStack copy = stack.copy();
+        copy.stackSize = 1;
+        return copy;
+    }
+
+    static boolean isDefinition(int reference) {
+        return (reference & 1) != 0;
+    }
+
+    /** Stores a definition that was read on the client. */
+    static void define(int reference, ItemStack stack) {
+        int id = (reference >> 1) - 1;
+        if (id >= 0 && id < CAPACITY) {
+            clientStacks[id] = stack;
+        }
+    }
+
+    /** Forgets every definition this client was sent, when it disconnects. Dimension changes keep them, as the
+     * server keeps the same dictionary for a player until they log out. */
+    public static void clearClient() {
+        Arrays.fill(clientStacks, null);
+    }
+
+    /** @return A new stack of the given size for the given reference, or null if this client doesn't know about it. */
+    static ItemStack resolve(int reference, int stackSize) {
+        if (reference == NO_STACK) {
+            return null;
+        }
+        int id = (reference >> 1) - 1;
+        if (id < 0 || id >= CAPACITY || clientStacks[id] == null) {
+            return null;
+        }
+        ItemStack stack = clientStacks[id].copy();
+        stack.stackSize = stackSize;
+        return stack;
+    }
+}
@@ -0,0 +1,138 @@
+/** Copyright (c) 2011-2015, SpaceToad and the BuildCraft Team http://www.mod-buildcraft.com
+ * <p/>
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public License 1.0, or MMPL. Please check the contents
+ * of the license located in http://www.mod-buildcraft.com/MMPL-1.0.txt */
+package buildcraft.transport.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.management.PlayerManager;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import buildcraft.BuildCraftTransport;
+import buildcraft.core.DefaultProps;
+import buildcraft.transport.TileGenericPipe;
+import buildcraft.transport.TravelingItem;
+import buildcraft.transport.network.PacketPipeTransportTravelerBatch.ChunkGroup;
+import buildcraft.transport.network.PacketPipeTransportTravelerBatch.Entry;
+
+/** Collects every traveler update made in a world during a tick, and sends them at the end of the tick as one
+ * {@link PacketPipeTransportTravelerBatch} per player, rather than one {@link PacketPipeTransportTraveler} per item per
+ * pipe. Each player only gets the travelers in chunks that they are watching that are within
+ * {@link DefaultProps#PIPE_CONTENTS_RENDER_DIST} of them.
+ * <p>
+ * Stacks are sent through a {@link TravelerStackDictionary} for each player, so the client never has to ask the server
+ * for the stack of an item. */
+public class TravelerSyncBatcher {
+    private final Map<Integer, List<PacketPipeTransportTraveler>> pending = new HashMap<>();
+    /** Players get a new entity when they respawn or change dimension, but they will still be sent every stack that
+     * they need again through their new dictionary. */
+    private final Map<EntityPlayerMP, TravelerStackDictionary> dictionaries = new WeakHashMap<>();
+
+    public void queue(TileGenericPipe pipe, TravelingItem item, boolean forceStackRefresh) {
+        World world = pipe.getWorld();
+        int dim = world.provider.getDimensionId();
+        List<PacketPipeTransportTraveler> list = pending.get(dim);
+        if (list == null) {
+            list = new ArrayList<>();
+            pending.put(dim, list);
+        }
+        list.add(new PacketPipeTransportTraveler(pipe, item, forceStackRefresh));
+    }
+
+    @SubscribeEvent
+    public void tick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.world.isRemote) {
+            return;
+        }
+        List<PacketPipeTransportTraveler> list = pending.remove(event.world.provider.getDimensionId());
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+
+        Map<Long, ChunkGroup> chunks = new LinkedHashMap<>();
+        for (PacketPipeTransportTraveler traveler : list) {
+            int chunkX = traveler.pos.getX() >> 4;
+            int chunkZ = traveler.pos.getZ() >> 4;
+            long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+            ChunkGroup group = chunks.get(key);
+            if (group == null) {
+                group = new ChunkGroup(chunkX, chunkZ);
+                chunks.put(key, group);
+            }
+            ItemStack stack = traveler.getItemStack();
+            group.entries.add(new Entry(traveler, TravelerStackDictionary.NO_STACK, null, stack == null ? 0 : stack.stackSize));
+        }
+
+        PlayerManager manager = ((WorldServer) event.world).getPlayerManager();
+        int maxDistanceSq = DefaultProps.PIPE_CONTENTS_RENDER_DIST * DefaultProps.PIPE_CONTENTS_RENDER_DIST;
+
+        for (EntityPlayer player : event.world.playerEntities) {
+            if (!(player instanceof EntityPlayerMP)) {
+                continue;
+            }
+            EntityPlayerMP playerMP = (EntityPlayerMP) player;
+            List<ChunkGroup> visible = new ArrayList<>();
+            TravelerStackDictionary dictionary = null;
+
+            for (ChunkGroup group : chunks.values()) {
+                if (!manager.isPlayerWatchingChunk(playerMP, group.chunkX, group.chunkZ)) {
+                    continue;
+                }
+                ChunkGroup near = null;
+                for (Entry entry : group.entries) {
+                    PacketPipeTransportTraveler traveler = entry.traveler;
+                    BlockPos pos = traveler.pos;
+                    if (player.getDistanceSqToCenter(pos) < maxDistanceSq) {
+                        if (near == null) {
+                            near = new ChunkGroup(group.chunkX, group.chunkZ);
+                            visible.add(near);
+                        }
+                        if (dictionary == null) {
+                            dictionary = getDictionary(playerMP);
+                        }
+                        ItemStack stack = traveler.getItemStack();
+                        int reference = dictionary.getReference(stack);
+                        ItemStack definition = TravelerStackDictionary.isDefinition(reference) ? TravelerStackDictionary.definitionOf(stack)
+                            : null;
+                        near.entries.add(new Entry(traveler, reference, definition, entry.stackSize));
+                    }
+                }
+            }
+
+            if (!visible.isEmpty()) {
+                BuildCraftTransport.instance.sendToPlayer(player, new PacketPipeTransportTravelerBatch(event.world, visible));
+            }
+        }
+    }
+
+    private TravelerStackDictionary getDictionary(EntityPlayerMP player) {
+        TravelerStackDictionary dictionary = dictionaries.get(player);
+        if (dictionary == null) {
+            dictionary = new TravelerStackDictionary();
+            dictionaries.put(player, dictionary);
+        }
+        return dictionary;
+    }
+
+    @SubscribeEvent
+    public void worldUnload(WorldEvent.Unload event) {
+        if (!event.world.isRemote) {
+            pending.remove(event.world.provider.getDimensionId());
+        }
+    }
+}
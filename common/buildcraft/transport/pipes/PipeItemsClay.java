@@ -17,13 +17,14 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 import buildcraft.BuildCraftTransport;
 import buildcraft.api.core.IIconProvider;
 import buildcraft.api.transport.IPipeTile;
+import buildcraft.transport.IRoutingCacheable;
 import buildcraft.transport.Pipe;
 import buildcraft.transport.PipeIconProvider;
 import buildcraft.transport.PipeTransportItems;
 import buildcraft.transport.pipes.events.PipeEventItem;
 import buildcraft.transport.pipes.events.PipeEventPriority;
 
-public class PipeItemsClay extends Pipe<PipeTransportItems> {
+public class PipeItemsClay extends Pipe<PipeTransportItems> implements IRoutingCacheable {
 
     public PipeItemsClay(Item item) {
         super(new PipeTransportItems(), item);
@@ -42,6 +43,12 @@ public class PipeItemsClay extends Pipe<PipeTransportItems> {
         return PipeIconProvider.TYPE.PipeItemsClay.ordinal();
     }
 
+    @Override
+    public boolean canCacheRouting() {
+        // We pick a random inventory before a random pipe, which the cache cannot remember
+        return false;
+    }
+
     @PipeEventPriority(priority = -200)
     public void eventHandler(PipeEventItem.FindDest event) {
         LinkedList<EnumFacing> nonPipesList = new LinkedList<>();
@@ -29,6 +29,7 @@ import buildcraft.api.statements.StatementSlot;
 import buildcraft.api.tools.IToolWrench;
 import buildcraft.api.transport.IPipeTile;
 import buildcraft.core.lib.utils.ColorUtils;
+import buildcraft.transport.IRoutingCacheable;
 import buildcraft.transport.Pipe;
 import buildcraft.transport.PipeIconProvider;
 import buildcraft.transport.PipeTransportItems;
@@ -38,7 +39,7 @@ import buildcraft.transport.statements.ActionPipeDirection;
 
 import io.netty.buffer.ByteBuf;
 
-public class PipeItemsDaizuli extends Pipe<PipeTransportItems> implements ISerializable {
+public class PipeItemsDaizuli extends Pipe<PipeTransportItems> implements ISerializable, IRoutingCacheable {
 
     private int standardIconIndex = PipeIconProvider.TYPE.PipeItemsDaizuli_Black.ordinal();
     private int solidIconIndex = PipeIconProvider.TYPE.PipeItemsDaizuli_Solid.ordinal();
@@ -76,6 +77,7 @@ public class PipeItemsDaizuli extends Pipe<PipeTransportItems> implements ISeria
     public void setColor(EnumDyeColor c) {
         if (color != c.ordinal()) {
             this.color = c.ordinal();
+            transport.invalidateRouting();
             container.scheduleRenderUpdate();
         }
     }
@@ -139,6 +141,12 @@ public class PipeItemsDaizuli extends Pipe<PipeTransportItems> implements ISeria
         return true;
     }
 
+    @Override
+    public boolean canCacheRouting() {
+        // Only depends on the item's colour, our colour and our facing, and changing either invalidates routing
+        return true;
+    }
+
     public void eventHandler(PipeEventItem.FindDest event) {
         EnumFacing output = EnumFacing.getFront(container.getBlockMetadata());
         if (event.item.color == getColor() && event.destinations.contains(output)) {
@@ -25,6 +25,7 @@ import buildcraft.core.lib.inventory.StackHelper;
 import buildcraft.core.lib.utils.NetworkUtils;
 import buildcraft.transport.BlockGenericPipe;
 import buildcraft.transport.IDiamondPipe;
+import buildcraft.transport.IRoutingCacheable;
 import buildcraft.transport.Pipe;
 import buildcraft.transport.PipeIconProvider;
 import buildcraft.transport.PipeTransportItems;
@@ -33,7 +34,7 @@ import buildcraft.transport.pipes.events.PipeEventPriority;
 
 import io.netty.buffer.ByteBuf;
 
-public class PipeItemsDiamond extends Pipe<PipeTransportItems> implements IDiamondPipe {
+public class PipeItemsDiamond extends Pipe<PipeTransportItems> implements IDiamondPipe, IRoutingCacheable {
     private class SimpleFilterInventory extends SimpleInventory {
         protected int[] filterCounts = new int[6];
 
@@ -44,6 +45,7 @@ public class PipeItemsDiamond extends Pipe<PipeTransportItems> implements IDiamo
         @Override
         public void markDirty() {
             super.markDirty();
+            transport.invalidateRouting();
 
             for (int i = 0; i < 6; i++) {
                 filterCounts[i] = 0;
@@ -100,6 +102,12 @@ public class PipeItemsDiamond extends Pipe<PipeTransportItems> implements IDiamo
         return true;
     }
 
+    @Override
+    public boolean canCacheRouting() {
+        // Filters that match the same item are used in turn, so the same item does not always go the same way
+        return false;
+    }
+
     private boolean findDest(PipeEventItem.FindDest event) {
         for (EnumFacing dir : event.destinations) {
             if (filters.filterCounts[dir.ordinal()] > 0) {
@@ -90,6 +90,7 @@ public abstract class PipeLogicIron {
 
         if (ordinal != oldOrdinal && isValidFacing(facing)) {
             pipe.container.getWorld().setBlockState(pipe.container.getPos(), state.withProperty(BuildCraftProperties.GENERIC_PIPE_DATA, ordinal));
+            pipe.invalidateRouting();
             pipe.container.scheduleRenderUpdate();
             return true;
         }
@@ -52,6 +52,8 @@ public abstract class PipeLogicWood {
                 IBlockState state = pipe.container.getWorld().getBlockState(pipe.container.getPos());
                 state = state.withProperty(BlockGenericPipe.GENERIC_PIPE_DATA, newFacing.ordinal());
                 pipe.container.getWorld().setBlockState(pipe.container.getPos(), state);
+                // The source side can't be output to, so fluid networks have to find their outputs again
+                pipe.invalidateRouting();
                 pipe.container.scheduleRenderUpdate();
             }
             return true;
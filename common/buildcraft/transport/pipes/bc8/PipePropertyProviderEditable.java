@@ -1,26 +1,47 @@
 package buildcraft.transport.pipes.bc8;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.LinkedHashSet;
+import java.util.Objects;
 import java.util.Set;
 
-import com.google.common.collect.Maps;
-
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 
 import buildcraft.api.transport.pipe_bc8.IPipePropertyProvider;
 import buildcraft.api.transport.pipe_bc8.IPipePropertyProvider.IPipePropertyProviderEditable;
 import buildcraft.api.transport.pipe_bc8.IPipe_BC8;
+import buildcraft.api.transport.pipe_bc8.PipeAPI_BC8;
+import buildcraft.transport.api.impl.PropertyRegistry;
+import buildcraft.transport.api.impl.PropertyRegistry.EnumSlotType;
 
 import io.netty.buffer.ByteBuf;
 
+/** Stores values by the index that {@link PropertyRegistry} gives each property. Reading a property by its index (see
+ * {@link Indices}) is an array load, while reading it by the property itself has to look its index up first. Which
+ * properties are present is kept as a bitmask, so two providers can be compared without looking anything up. */
 public class PipePropertyProviderEditable implements IPipePropertyProviderEditable {
-    private final Map<IPipePropertyValue<?>, Object> values = Maps.newHashMap();
-    // Ignore the generic type mismatch. Its horrible. TODO: Fix this
-    private final Set valueSet = Collections.unmodifiableSet(values.keySet());
+    private static final PropertyRegistry REGISTRY = PropertyRegistry.INSTANCE;
+
+    /** The indices of the properties that are read every tick. These are only looked up when one of them is first used,
+     * by which point the properties have been created. */
+    public static final class Indices {
+        public static final int ITEM_PAUSED = REGISTRY.getIndex(PipeAPI_BC8.ITEM_PAUSED);
+        public static final int STACK_COUNT = REGISTRY.getIndex(PipeAPI_BC8.STACK_COUNT);
+
+        private Indices() {}
+    }
+
     private final IPipe_BC8 pipe;
+    private final BitSet present = new BitSet();
+    /** The values of properties with a {@link EnumSlotType#BOOLEAN} slot. */
+    private final BitSet booleans = new BitSet();
+    private int[] ints = new int[0];
+    private Object[] objects = new Object[0];
+    /** Only created when something asks for it, as nothing needs it when ticking. */
+    private Set<IPipeProperty<?>> propertySet;
 
     public PipePropertyProviderEditable() {
         this(null);
@@ -33,32 +54,140 @@ public class PipePropertyProviderEditable implements IPipePropertyProviderEditab
     @Override
     public <T> T getValue(IPipeProperty<T> property) {
         if (property instanceof IPipePropertyImplicit) {
-            if (pipe != null) return ((IPipePropertyImplicit<T>) property).getValue(pipe);
-            return property.getDefault();
+            return getImplicit((IPipePropertyImplicit<T>) property);
+        }
+        return getStored(property, REGISTRY.getIndex(property));
+    }
+
+    /** Like {@link #getValue(IPipeProperty)}, for the property with the given {@link PropertyRegistry} index. */
+    public <T> T getValue(int index) {
+        IPipeProperty<T> property = (IPipeProperty<T>) REGISTRY.getProperty(index);
+        if (property instanceof IPipePropertyImplicit) {
+            return getImplicit((IPipePropertyImplicit<T>) property);
         }
-        if (values.containsKey(property)) return (T) values.get(property);
+        return getStored(property, index);
+    }
+
+    private <T> T getImplicit(IPipePropertyImplicit<T> property) {
+        if (pipe != null) return property.getValue(pipe);
         return property.getDefault();
     }
 
+    private <T> T getStored(IPipeProperty<T> property, int index) {
+        if (!present.get(index)) return property.getDefault();
+        switch (REGISTRY.getSlotType(index)) {
+            case INT:
+                return (T) Integer.valueOf(ints[index]);
+            case BOOLEAN:
+                return (T) Boolean.valueOf(booleans.get(index));
+            default:
+                return (T) objects[index];
+        }
+    }
+
+    /** Like {@link #getValue(IPipeProperty)}, but without boxing the value. The property must have an integer
+     * default. */
+    public int getInt(IPipeProperty<Integer> property) {
+        return getInt(REGISTRY.getIndex(property));
+    }
+
+    /** Like {@link #getInt(IPipeProperty)}, for the property with the given {@link PropertyRegistry} index. */
+    public int getInt(int index) {
+        if (!present.get(index)) return (Integer) REGISTRY.getProperty(index).getDefault();
+        return ints[index];
+    }
+
+    /** Like {@link #getValue(IPipeProperty)}, but without boxing the value. The property must have a boolean
+     * default. */
+    public boolean getBoolean(IPipeProperty<Boolean> property) {
+        return getBoolean(REGISTRY.getIndex(property));
+    }
+
+    /** Like {@link #getBoolean(IPipeProperty)}, for the property with the given {@link PropertyRegistry} index. */
+    public boolean getBoolean(int index) {
+        if (!present.get(index)) return (Boolean) REGISTRY.getProperty(index).getDefault();
+        return booleans.get(index);
+    }
+
+    /** Sets the value of the given property, adding it if this does not have it already. */
+    public <T> void setValue(IPipePropertyValue<T> property, T value) {
+        int index = REGISTRY.getIndex(property);
+        ensureCapacity(index);
+        switch (REGISTRY.getSlotType(index)) {
+            case INT:
+                ints[index] = (Integer) value;
+                break;
+            case BOOLEAN:
+                booleans.set(index, (Boolean) value);
+                break;
+            default:
+                objects[index] = value;
+        }
+        if (!present.get(index)) {
+            present.set(index);
+            propertySet = null;
+        }
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= ints.length) {
+            int size = Math.max(index + 1, REGISTRY.getPropertyCount());
+            ints = Arrays.copyOf(ints, size);
+            objects = Arrays.copyOf(objects, size);
+        }
+    }
+
     @Override
     public boolean hasProperty(IPipeProperty<?> property) {
         if (property instanceof IPipePropertyImplicit) return pipe != null;
-        return values.containsKey(property);
+        return present.get(REGISTRY.getIndex(property));
     }
 
     @Override
     public Set<IPipeProperty<?>> getPropertySet() {
-        return valueSet;
+        if (propertySet == null) {
+            Set<IPipeProperty<?>> set = new LinkedHashSet<>();
+            for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                set.add(REGISTRY.getProperty(i));
+            }
+            propertySet = Collections.unmodifiableSet(set);
+        }
+        return propertySet;
+    }
+
+    /** @return True if both of these have exactly the same properties, with equal values. */
+    public boolean hasSameValues(PipePropertyProviderEditable other) {
+        if (!present.equals(other.present)) return false;
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            switch (REGISTRY.getSlotType(i)) {
+                case INT:
+                    if (ints[i] != other.ints[i]) return false;
+                    break;
+                case BOOLEAN:
+                    if (booleans.get(i) != other.booleans.get(i)) return false;
+                    break;
+                default:
+                    if (!Objects.equals(objects[i], other.objects[i])) return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public <T> void addProperty(IPipePropertyValue<T> property) {
-        values.put(property, property.getDefault());
+        setValue(property, property.getDefault());
     }
 
     @Override
     public <T> void removeProperty(IPipePropertyValue<T> property) {
-        values.remove(property);
+        int index = REGISTRY.getIndex(property);
+        if (present.get(index)) {
+            present.clear(index);
+            booleans.clear(index);
+            ints[index] = 0;
+            objects[index] = null;
+            propertySet = null;
+        }
     }
 
     @Override
@@ -74,9 +203,9 @@ public class PipePropertyProviderEditable implements IPipePropertyProviderEditab
     @Override
     public NBTBase writeToNBT() {
         NBTTagCompound nbt = new NBTTagCompound();
-        for (Entry<IPipePropertyValue<?>, Object> entry : values.entrySet()) {
-            IPipePropertyValue<?> property = entry.getKey();
-            String name = entry.getKey().getName();
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            IPipePropertyValue<?> property = (IPipePropertyValue<?>) REGISTRY.getProperty(i);
+            String name = property.getName();
             nbt.setTag(name, property.writeToNBT());
         }
         return nbt;
@@ -1,11 +1,14 @@
 package buildcraft.transport.pipes.bc8;
 
 import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagList;
 
 import buildcraft.api.transport.pipe_bc8.*;
 import buildcraft.api.transport.pipe_bc8.IPipeContentsEditable.IPipeContentsEditableItem;
 import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEventConnection_BC8;
 import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEventContents_BC8;
+import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEvent_BC8;
+import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEvent_BC8.PropertyQuery;
 import buildcraft.transport.PipeTransportItems;
 
 import io.netty.buffer.ByteBuf;
@@ -16,9 +19,11 @@ public class PipeTransportItem_BC8 implements IPipeListener {
     public static final double SPEED_NORMALIZER = 20;
 
     public final IPipe_BC8 pipe;
+    private final TravellingItemContainer_BC8 items;
 
     public PipeTransportItem_BC8(IPipe_BC8 pipe) {
         this.pipe = pipe;
+        this.items = new TravellingItemContainer_BC8(this);
     }
 
     // Event disabled because it is not technically needed
@@ -45,11 +50,7 @@ public class PipeTransportItem_BC8 implements IPipeListener {
     public void itemInsertion(IPipeEventContents_BC8.Enter enter) {
         // If somebody else has already handled this then don't even bother to handle it
         if (enter.hasBeenHandled()) return;
-
-        // if we are the limit then don't add it either
-        int stacks = enter.getPipe().getProperties().getValue(PipeAPI_BC8.STACK_COUNT);
-        // Note that a travelling item will probably add it to itself at this point.
-        if (stacks >= PipeTransportItems.MAX_PIPE_STACKS) return;
+        if (!(enter.getContents() instanceof IPipeContentsEditableItem)) return;
 
         // Setup the item to make it tick immediately
         IPipeContentsEditableItem item = (IPipeContentsEditableItem) enter.getContents();
@@ -57,33 +58,68 @@ public class PipeTransportItem_BC8 implements IPipeListener {
         item.setDirection(enter.getFrom().getOpposite());
         long now = pipe.getWorld().getTotalWorldTime();
 
-        TravellingItem_BC8 travellingItem = new TravellingItem_BC8(pipe, item, now, now);
+        IPipePropertyProvider properties = enter.getPipe().getProperties();
+        int stacks;
+        if (properties instanceof PipePropertyProviderEditable) {
+            stacks = ((PipePropertyProviderEditable) properties).<Integer> getValue(PipePropertyProviderEditable.Indices.STACK_COUNT);
+        } else {
+            stacks = properties.getValue(PipeAPI_BC8.STACK_COUNT);
+        }
+        if (stacks >= PipeTransportItems.MAX_PIPE_STACKS) {
+            // If we are at the limit then the item can only be added to one that is already here
+            if (items.tryEncompass(item, now)) {
+                enter.handle();
+            }
+            return;
+        }
+
+        /* Actually add the item to our container, which will make it render itself, tick itself, send client updates,
+         * etc. */
+        items.add(new TravellingItem_BC8(pipe, items, item, now, now));
+        // Tell the event that we have consumed the item
+        enter.handle();
+    }
+
+    @BCPipeEventHandler
+    public void tick(IPipeEvent_BC8.Tick tick) {
+        items.tick(tick);
+    }
 
-        /* Actually add the item to the bus, which will make it render itself, tick itself, send client updates, etc. */
-        if (pipe.addEventListener(travellingItem)) {
-            // Tell the event that we have consumed the item, but only if it was actually added to the bus
-            enter.handle();
+    @BCPipeEventHandler
+    public <T> void queryProperty(IPipeEvent_BC8.PropertyQuery<T> property) {
+        if (property.getProperty() == PipeAPI_BC8.ITEM_COUNT) {
+            PropertyQuery<Integer> event = (PropertyQuery<Integer>) property;
+            event.setValue(event.getValue() + items.getItemCount());
+        } else if (property.getProperty() == PipeAPI_BC8.STACK_COUNT) {
+            PropertyQuery<Integer> event = (PropertyQuery<Integer>) property;
+            event.setValue(event.getValue() + items.getStackCount());
         }
     }
 
-    /* This doesn't have any state, so it won't actually read or write anything to disk or to the network- all data is
-     * saved in the indervidual Travelling Item instances */
+    /* Every item is saved by the container, and only the items that have changed are sent to clients. */
 
     @Override
     public PipeTransportItem_BC8 readFromNBT(NBTBase nbt) {
-        return this;
+        PipeTransportItem_BC8 transport = new PipeTransportItem_BC8(pipe);
+        if (nbt instanceof NBTTagList) {
+            transport.items.readFromNBT((NBTTagList) nbt);
+        }
+        return transport;
     }
 
     @Override
     public NBTBase writeToNBT() {
-        return null;
+        return items.writeToNBT();
     }
 
     @Override
     public PipeTransportItem_BC8 readFromByteBuf(ByteBuf buf) {
+        items.readChanges(buf);
         return this;
     }
 
     @Override
-    public void writeToByteBuf(ByteBuf buf) {}
+    public void writeToByteBuf(ByteBuf buf) {
+        items.writeChanges(buf);
+    }
 }
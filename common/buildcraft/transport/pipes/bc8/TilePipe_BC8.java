@@ -46,7 +46,7 @@ public class TilePipe_BC8 extends TileBuildCraft implements IPipeHolder_BC8 {
     }
 
     @Override
-    public void update() {
+    protected void updateTile() {
         if (pipe.initialize()) return;
         IPipeEvent_BC8.Tick tick = getWorld().isRemote ? new PipeEvent_BC8.Tick.Client(pipe) : new PipeEvent_BC8.Tick.Server(pipe);
         pipe.fireEvent(tick);
@@ -0,0 +1,194 @@
+package buildcraft.transport.pipes.bc8;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.EnumFacing;
+
+import buildcraft.api.transport.pipe_bc8.EnumContentsJourneyPart;
+import buildcraft.api.transport.pipe_bc8.IPipeContentsEditable.IPipeContentsEditableItem;
+import buildcraft.api.transport.pipe_bc8.IPipe_BC8;
+import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEvent_BC8;
+
+import io.netty.buffer.ByteBuf;
+
+/** Every item that is travelling through a single pipe. The items are not event listeners themselves: the
+ * {@link PipeTransportItem_BC8} of the pipe receives each event once and passes it on to every item here, so the cost
+ * of an event does not depend on how many items the pipe has in it.
+ * <p>
+ * Items are also indexed by their direction and journey part, as only items that share both can be grouped together. */
+public class TravellingItemContainer_BC8 {
+    private final PipeTransportItem_BC8 transport;
+    private final IPipe_BC8 pipe;
+    private final List<TravellingItem_BC8> items = new ArrayList<>();
+    private final ListMultimap<Integer, TravellingItem_BC8> groups = ArrayListMultimap.create();
+    /** The items that have changed since the last client update. */
+    private final List<TravellingItem_BC8> dirty = new ArrayList<>();
+    private int nextId = 0;
+
+    /** The group key of items that are not in this container. */
+    static final int NO_GROUP = -1;
+
+    private boolean countsDirty = false;
+    private int itemCount = 0, stackCount = 0;
+
+    public TravellingItemContainer_BC8(PipeTransportItem_BC8 transport) {
+        this.transport = transport;
+        this.pipe = transport.pipe;
+    }
+
+    private static int getGroupKey(IPipeContentsEditableItem item) {
+        EnumFacing direction = item.getDirection();
+        EnumContentsJourneyPart part = item.getJourneyPart();
+        int dir = direction == null ? 6 : direction.ordinal();
+        return dir * 8 + (part == null ? 7 : part.ordinal());
+    }
+
+    public void add(TravellingItem_BC8 item) {
+        item.id = nextId++;
+        item.groupKey = getGroupKey(item.item);
+        items.add(item);
+        groups.put(item.groupKey, item);
+        countsDirty = true;
+    }
+
+    public void remove(TravellingItem_BC8 item) {
+        if (items.remove(item)) {
+            groups.remove(item.groupKey, item);
+            item.groupKey = NO_GROUP;
+            dirty.remove(item);
+            countsDirty = true;
+        }
+    }
+
+    /** Must be called whenever the direction or the journey part of an item changes. Every item is also regrouped after
+     * it ticks, which catches anything that changed them through the item's contents. */
+    public void regroup(TravellingItem_BC8 item) {
+        if (item.groupKey == NO_GROUP) {
+            // It has been removed
+            return;
+        }
+        int key = getGroupKey(item.item);
+        if (key != item.groupKey) {
+            groups.remove(item.groupKey, item);
+            item.groupKey = key;
+            groups.put(key, item);
+        }
+    }
+
+    /** Marks the given item as needing to be sent to clients, and schedules an update. */
+    public void markDirty(TravellingItem_BC8 item) {
+        if (!dirty.contains(item)) {
+            dirty.add(item);
+        }
+        countsDirty = true;
+        pipe.scheduleClientUpdate(transport);
+    }
+
+    public void tick(IPipeEvent_BC8.Tick tick) {
+        // Backwards, so that items can remove themselves
+        for (int i = items.size() - 1; i >= 0; i--) {
+            TravellingItem_BC8 item = items.get(i);
+            item.tick(tick);
+            regroup(item);
+        }
+    }
+
+    /** Tries to add the given item to one that is near the entrance of the pipe and could be grouped with it.
+     *
+     * @return True if the item was added to another one. */
+    public boolean tryEncompass(IPipeContentsEditableItem item, long now) {
+        for (TravellingItem_BC8 existing : groups.get(getGroupKey(item))) {
+            /* Don't add it to an item that is far away from the entrance. tryEncompass will check that the items can
+             * actually be grouped together. */
+            if (existing.getWayThrough(now) <= 0.25 && existing.tryEncompass(item)) {
+                countsDirty = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateCounts() {
+        if (countsDirty) {
+            countsDirty = false;
+            itemCount = 0;
+            stackCount = 0;
+            for (TravellingItem_BC8 item : items) {
+                ItemStack stack = item.item.cloneItemStack();
+                itemCount += stack.stackSize;
+                if (stack.stackSize > 0) {
+                    stackCount++;
+                }
+            }
+        }
+    }
+
+    public int getItemCount() {
+        updateCounts();
+        return itemCount;
+    }
+
+    public int getStackCount() {
+        updateCounts();
+        return stackCount;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public NBTTagList writeToNBT() {
+        NBTTagList list = new NBTTagList();
+        for (TravellingItem_BC8 item : items) {
+            list.appendTag(item.writeToNBT());
+        }
+        return list;
+    }
+
+    public void readFromNBT(NBTTagList list) {
+        for (int i = 0; i < list.tagCount(); i++) {
+            add(TravellingItem_BC8.readFromNBT(pipe, this, list.getCompoundTagAt(i)));
+        }
+    }
+
+    /** Writes every item that has changed since the last time this was called. */
+    public void writeChanges(ByteBuf buf) {
+        buf.writeShort(dirty.size());
+        for (TravellingItem_BC8 item : dirty) {
+            buf.writeInt(item.id);
+            item.writeToByteBuf(buf);
+        }
+        dirty.clear();
+    }
+
+    public void readChanges(ByteBuf buf) {
+        int count = buf.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            int id = buf.readInt();
+            TravellingItem_BC8 read = TravellingItem_BC8.readFromByteBuf(pipe, this, buf);
+            TravellingItem_BC8 existing = getById(id);
+            if (existing != null) {
+                remove(existing);
+            }
+            add(read);
+            read.id = id;
+            nextId = Math.max(nextId, id + 1);
+        }
+    }
+
+    private TravellingItem_BC8 getById(int id) {
+        for (TravellingItem_BC8 item : items) {
+            if (item.id == id) {
+                return item;
+            }
+        }
+        return null;
+    }
+}
@@ -3,7 +3,6 @@ package buildcraft.transport.pipes.bc8;
 import java.util.Set;
 
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.Vec3;
 
@@ -12,26 +11,31 @@ import buildcraft.api.transport.pipe_bc8.IPipeContents.IPipeContentsItem;
 import buildcraft.api.transport.pipe_bc8.IPipeContentsEditable.IPipeContentsEditableItem;
 import buildcraft.api.transport.pipe_bc8.IPipePropertyProvider.IPipeProperty;
 import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEventContents_BC8;
-import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEventContents_BC8.Enter;
 import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEvent_BC8;
-import buildcraft.api.transport.pipe_bc8.event_bc8.IPipeEvent_BC8.PropertyQuery;
 import buildcraft.core.lib.inventory.StackHelper;
-import buildcraft.transport.PipeTransportItems;
 
 import io.netty.buffer.ByteBuf;
 
-public class TravellingItem_BC8 implements IPipeListener {
-    private final IPipeContentsEditableItem item;
+/** A single item in a pipe. These are owned and ticked by the {@link TravellingItemContainer_BC8} of the pipe, rather than
+ * listening to the pipe's events themselves. */
+public class TravellingItem_BC8 {
+    final IPipeContentsEditableItem item;
     private final IPipe_BC8 pipe;
+    private final TravellingItemContainer_BC8 container;
+    /** Identifies this item to clients. Set by the container. */
+    int id;
+    /** The group that the container has indexed this item under, or {@link TravellingItemContainer_BC8#NO_GROUP}. */
+    int groupKey = TravellingItemContainer_BC8.NO_GROUP;
     /** Indicates the in-world tick of when it will reach its destination (Generally the other side of the pipe) */
     private long tickStarted, tickFinished;
 
-    public TravellingItem_BC8(IPipe_BC8 pipe, IPipeContentsEditableItem item, long now, long reachDest) {
+    public TravellingItem_BC8(IPipe_BC8 pipe, TravellingItemContainer_BC8 container, IPipeContentsEditableItem item, long now, long reachDest) {
         /* If either of these are null it will cause big problems later on- so don't even allow that to be a
          * possibility. */
         if (pipe == null) throw new NullPointerException("pipe");
         if (item == null) throw new NullPointerException("item");
         this.pipe = pipe;
+        this.container = container;
         this.item = item;
         this.tickStarted = now;
         this.tickFinished = reachDest;
@@ -70,6 +74,13 @@ public class TravellingItem_BC8 implements IPipeListener {
         if (item.getJourneyPart() != other.getJourneyPart()) return false;
         if (!StackHelper.canStacksMerge(item.cloneItemStack(), other.cloneItemStack())) return false;
 
+        IPipePropertyProvider thisProvider = item.getProperties();
+        IPipePropertyProvider otherProvider = other.getProperties();
+        if (thisProvider instanceof PipePropertyProviderEditable && otherProvider instanceof PipePropertyProviderEditable) {
+            // Compares the masks of the properties, and then only loops over the values
+            return ((PipePropertyProviderEditable) thisProvider).hasSameValues((PipePropertyProviderEditable) otherProvider);
+        }
+
         Set<IPipeProperty<?>> thisProperties = item.getProperties().getPropertySet();
         Set<IPipeProperty<?>> otherProperties = other.getProperties().getPropertySet();
         if (thisProperties.size() != otherProperties.size()) return false;
@@ -100,38 +111,16 @@ public class TravellingItem_BC8 implements IPipeListener {
         return false;
     }
 
-    // Event handlers
-
-    @BCPipeEventHandler
-    public void itemInsertion(Enter enter) {
-        // Don't bother to handle it if someone else already has.
-        /* PipeTransportItem will NOT handle it if the number of stacks is greater than or equal to the max, so it falls
-         * down to us to handle it. */
-        if (enter.hasBeenHandled()) return;
-
-        // Only handle the insertion if its an item
-        if (enter.getContents() instanceof IPipeContentsEditableItem) {
-            // Check if the pipe already has a lot of items, if it doesn't, then just ignore it.
-            int stacks = enter.getPipe().getProperties().getValue(PipeAPI_BC8.STACK_COUNT);
-            if (stacks < PipeTransportItems.MAX_PIPE_STACKS) return;
-
-            IPipeContentsEditableItem item = (IPipeContentsEditableItem) enter.getContents();
-            long now = enter.getPipe().getWorld().getTotalWorldTime();
-            double dist = getWayThrough(now);
-            /* Don't add it to ourself if we are far enough away from the entrance. tryEncompass will check for us to
-             * see if we are using going in the same direction. */
-            if (dist > 0.25) return;
-            /* If an item is about to be added to a pipe, try and add it to this item rather than creating a new item */
-            if (tryEncompass(item)) {
-                // Let everybody know that we have handled this item, so no-one else needs to
-                enter.handle();
-            }
+    private boolean isPaused() {
+        IPipePropertyProvider properties = item.getProperties();
+        if (properties instanceof PipePropertyProviderEditable) {
+            return ((PipePropertyProviderEditable) properties).getBoolean(PipePropertyProviderEditable.Indices.ITEM_PAUSED);
         }
+        return properties.getValue(PipeAPI_BC8.ITEM_PAUSED);
     }
 
-    @BCPipeEventHandler
     public void tick(IPipeEvent_BC8.Tick tick) {
-        if (item.getProperties().getValue(PipeAPI_BC8.ITEM_PAUSED)) {
+        if (isPaused()) {
             // Just so we render them properly, and so we need to stop this from ticking in the near future
             tickStarted++;
             tickFinished++;
@@ -159,7 +148,7 @@ public class TravellingItem_BC8 implements IPipeListener {
             genTimings(pipe.getWorld().getTotalWorldTime(), distance);
 
             // Update the client with our new timings
-            pipe.sendClientUpdate(this);
+            container.markDirty(this);
             // Tick next tick not this tick
             return;
         }
@@ -175,30 +164,13 @@ public class TravellingItem_BC8 implements IPipeListener {
         }
     }
 
-    @BCPipeEventHandler
-    public <T> void queryProperty(IPipeEvent_BC8.PropertyQuery<T> property) {
-        // If its the item count then
-        if (property.getProperty() == PipeAPI_BC8.ITEM_COUNT) {
-            PropertyQuery<Integer> event = (PropertyQuery<Integer>) property;
-            int current = event.getValue();
-            current += item.cloneItemStack().stackSize;
-            event.setValue(current);
-        } else if (property.getProperty() == PipeAPI_BC8.STACK_COUNT) {
-            PropertyQuery<Integer> event = (PropertyQuery<Integer>) property;
-            if (item.cloneItemStack().stackSize > 0) event.setValue(event.getValue() + 1);
-        }
-    }
-
-    @Override
-    public TravellingItem_BC8 readFromNBT(NBTBase nbt) {
-        NBTTagCompound tag = (NBTTagCompound) nbt;
-        IPipeContentsEditableItem item = this.item.readFromNBT(tag.getCompoundTag("item"));
+    public static TravellingItem_BC8 readFromNBT(IPipe_BC8 pipe, TravellingItemContainer_BC8 container, NBTTagCompound tag) {
+        IPipeContentsEditableItem item = new PipeContentsEditableItem(null, null, null).readFromNBT(tag.getCompoundTag("item"));
         long started = tag.getLong("tickStarted");
         long finished = tag.getLong("tickFinished");
-        return new TravellingItem_BC8(pipe, item, started, finished);
+        return new TravellingItem_BC8(pipe, container, item, started, finished);
     }
 
-    @Override
     public NBTTagCompound writeToNBT() {
         NBTTagCompound nbt = new NBTTagCompound();
         nbt.setTag("item", item.writeToNBT());
@@ -207,16 +179,14 @@ public class TravellingItem_BC8 implements IPipeListener {
         return nbt;
     }
 
-    @Override
-    public TravellingItem_BC8 readFromByteBuf(ByteBuf buf) {
-        IPipeContentsEditableItem item = this.item.readFromByteBuf(buf);
+    public static TravellingItem_BC8 readFromByteBuf(IPipe_BC8 pipe, TravellingItemContainer_BC8 container, ByteBuf buf) {
+        IPipeContentsEditableItem item = new PipeContentsEditableItem(null, null, null).readFromByteBuf(buf);
         long now = pipe.getWorld().getTotalWorldTime();
-        long started = now + buf.readLong();
-        long finished = now + buf.readLong();
-        return new TravellingItem_BC8(pipe, item, started, finished);
+        long started = now + buf.readShort();
+        long finished = now + buf.readShort();
+        return new TravellingItem_BC8(pipe, container, item, started, finished);
     }
 
-    @Override
     public void writeToByteBuf(ByteBuf buf) {
         item.writeToByteBuf(buf);
         /* Write the delta of ticks, because this way we can counteract all lag between the server and the client. The
@@ -226,13 +196,4 @@ public class TravellingItem_BC8 implements IPipeListener {
         buf.writeShort((short) (tickStarted - now));
         buf.writeShort((short) (tickFinished - now));
     }
-
-    public enum Factory implements IPipeListenerFactory {
-        INSTANCE;
-
-        @Override
-        public IPipeListener createNewListener(IPipe_BC8 pipe) {
-            return new TravellingItem_BC8(pipe, new PipeContentsEditableItem(null, null, null), 0, 0);
-        }
-    }
 }
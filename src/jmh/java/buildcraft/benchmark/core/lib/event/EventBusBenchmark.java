@@ -0,0 +1,91 @@
+package buildcraft.benchmark.core.lib.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buildcraft.core.lib.event.EventBusProviderASM;
+import buildcraft.core.lib.event.IEventBus;
+
+/** Fires events at, and (un)registers objects on, a bus that already has a number of objects registered to it (a pipe
+ * usually has between 4 and 16). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBusBenchmark {
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface Subscribe {}
+
+    public interface IEvent {}
+
+    public interface IPing extends IEvent {}
+
+    public interface IPong extends IEvent {}
+
+    public static class Ping implements IPing {}
+
+    public static class Pong implements IPong {}
+
+    public static class Counter {
+        public int pings, pongs;
+
+        @Subscribe
+        public void ping(IPing event) {
+            pings++;
+        }
+
+        @Subscribe
+        public void pong(IPong event) {
+            pongs++;
+        }
+    }
+
+    private static final EventBusProviderASM<IEvent> PROVIDER = new EventBusProviderASM<>(IEvent.class, Subscribe.class);
+
+    @Param({ "4", "16", "64" })
+    public int handlers;
+
+    private IEventBus<IEvent> bus;
+    private final Ping ping = new Ping();
+    private final Counter extra = new Counter();
+
+    @Setup
+    public void setup() {
+        bus = PROVIDER.newBus();
+        for (int i = 0; i < handlers; i++) {
+            bus.registerHandler(new Counter());
+        }
+        // Make sure that there are dispatch arrays that registering has to change
+        bus.handleEvent(new Ping());
+        bus.handleEvent(new Pong());
+    }
+
+    @Benchmark
+    public void dispatch() {
+        bus.handleEvent(ping);
+    }
+
+    @Benchmark
+    public void registerAndUnregister() {
+        bus.registerHandler(extra);
+        bus.unregisterHandler(extra);
+    }
+}
@@ -0,0 +1,70 @@
+package buildcraft.benchmark.transport.pipe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraft.util.EnumFacing;
+
+import buildcraft.transport.PipeTransportFluids;
+import buildcraft.transport.PipeTransportFluids.PipeSection;
+
+/** Moves fluid through a line of 1000 pipes, from west to east, with the sections of every pipe moved in the same order
+ * as a pipe tick does. Each benchmark call is one tick of the whole line. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class FluidFlowBenchmark {
+    private static final int PIPES = 1000;
+    private static final int FLOW_RATE = 80;
+    private static final int BASE_FLOW_RATE = 20;
+
+    private final PipeTransportFluids[] pipes = new PipeTransportFluids[PIPES];
+    private long time = 0;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < PIPES; i++) {
+            pipes[i] = new PipeTransportFluids();
+            pipes[i].initFlowRate(FLOW_RATE, BASE_FLOW_RATE);
+        }
+    }
+
+    private static void move(PipeSection from, PipeSection to) {
+        int moved = to.fill(from.drain(to.getMaxFillRate(), false), true);
+        from.drain(moved, true);
+    }
+
+    @Benchmark
+    public int tick() {
+        int carried = FLOW_RATE;
+        for (PipeTransportFluids pipe : pipes) {
+            pipe.setTime(time);
+            for (PipeSection section : pipe.sections) {
+                section.moveFluids();
+            }
+            PipeSection west = pipe.sections[EnumFacing.WEST.ordinal()];
+            PipeSection center = pipe.sections[6];
+            PipeSection east = pipe.sections[EnumFacing.EAST.ordinal()];
+            int out = east.drain(FLOW_RATE, true);
+            move(center, east);
+            move(west, center);
+            west.fill(carried, true);
+            carried = out;
+        }
+        time++;
+        return carried;
+    }
+}
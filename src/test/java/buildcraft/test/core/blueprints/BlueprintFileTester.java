@@ -0,0 +1,118 @@
+package buildcraft.test.core.blueprints;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.BlockPos;
+
+import buildcraft.core.blueprints.BlueprintFile;
+import buildcraft.core.blueprints.LibraryId;
+import buildcraft.core.lib.utils.BCStringUtils;
+import buildcraft.core.lib.utils.NBTUtils;
+
+/** Converts random blueprints and templates to the binary format, and checks that they read back as the same NBT. */
+public class BlueprintFileTester {
+    /** Not a multiple of 16, so that the sections at the edges are only partly filled. */
+    private static final BlockPos SIZE = new BlockPos(37, 5, 18);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random rand = new Random(0x5eed);
+
+    private NBTTagCompound createProperties(String kind) {
+        NBTTagCompound nbt = new NBTTagCompound();
+        nbt.setString("kind", kind);
+        nbt.setTag("size", NBTUtils.writeBlockPos(SIZE));
+        nbt.setTag("anchor", NBTUtils.writeBlockPos(new BlockPos(1, 0, 2)));
+        nbt.setString("author", "tester");
+        nbt.setBoolean("rotate", true);
+        return nbt;
+    }
+
+    private File writeFile(NBTTagCompound nbt) throws IOException {
+        byte[] data = BlueprintFile.write(nbt);
+        assertTrue(BlueprintFile.isBinary(data));
+        File file = folder.newFile();
+        Files.write(file.toPath(), data);
+        assertTrue(BlueprintFile.isBinary(file));
+        return file;
+    }
+
+    @Test
+    public void testBlueprint() throws IOException {
+        NBTTagCompound[] schematics = new NBTTagCompound[5];
+        for (int i = 0; i < schematics.length; i++) {
+            schematics[i] = new NBTTagCompound();
+            schematics[i].setInteger("blockId", i);
+            schematics[i].setInteger("blockMeta", i % 3);
+        }
+        schematics[4].setString("tile", "chest");
+
+        NBTTagCompound nbt = createProperties("blueprint");
+        NBTTagCompound contents = new NBTTagCompound();
+        for (BlockPos pos : BlockPos.getAllInBox(BlockPos.ORIGIN, SIZE.add(-1, -1, -1))) {
+            if (rand.nextInt(3) > 0) {
+                NBTTagCompound cpt = (NBTTagCompound) schematics[rand.nextInt(schematics.length)].copy();
+                if (rand.nextInt(50) == 0) {
+                    cpt.setInteger("unique", rand.nextInt());
+                }
+                contents.setTag(BCStringUtils.blockPosToShortString(pos), cpt);
+            }
+        }
+        nbt.setTag("contents", contents);
+
+        NBTTagCompound read = BlueprintFile.readNBT(writeFile(nbt));
+        assertEquals(nbt, read);
+    }
+
+    @Test
+    public void testTemplate() throws IOException {
+        NBTTagCompound nbt = createProperties("template");
+        byte[] mask = new byte[SIZE.getX() * SIZE.getY() * SIZE.getZ()];
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] = (byte) (rand.nextInt(4) == 0 ? 1 : 0);
+        }
+        nbt.setByteArray("mask", mask);
+
+        NBTTagCompound read = BlueprintFile.readNBT(writeFile(nbt));
+        assertArrayEquals(mask, read.getByteArray("mask"));
+        assertEquals("tester", read.getString("author"));
+    }
+
+    @Test
+    public void testUniqueIdIgnoresFormat() throws IOException {
+        NBTTagCompound nbt = createProperties("template");
+        nbt.setByteArray("mask", new byte[SIZE.getX() * SIZE.getY() * SIZE.getZ()]);
+        NBTTagCompound read = BlueprintFile.readNBT(writeFile(nbt));
+
+        LibraryId original = new LibraryId();
+        original.generateUniqueId(nbt);
+        LibraryId reread = new LibraryId();
+        reread.generateUniqueId(read);
+        assertArrayEquals(original.uniqueId, reread.uniqueId);
+
+        read.setString("author", "someone else");
+        reread.generateUniqueId(read);
+        assertFalse(Arrays.equals(original.uniqueId, reread.uniqueId));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        NBTTagCompound nbt = createProperties("blueprint");
+        nbt.setTag("contents", new NBTTagCompound());
+
+        NBTTagCompound read = BlueprintFile.readNBT(writeFile(nbt));
+        assertEquals(nbt, read);
+    }
+}
@@ -0,0 +1,116 @@
+package buildcraft.test.core.lib.event;
+
+import static org.junit.Assert.*;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.Test;
+
+import buildcraft.core.lib.event.EventBusProviderASM;
+import buildcraft.core.lib.event.IEventBus;
+
+/** Checks that (un)registering from inside of a handler applies to the events fired after it. The timings are in
+ * EventBusBenchmark, in the jmh source set. */
+public class EventBusTester {
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface Subscribe {}
+
+    public interface IEvent {}
+
+    public interface IPing extends IEvent {}
+
+    public interface IPong extends IEvent {}
+
+    public static class Ping implements IPing {}
+
+    public static class Pong implements IPong {}
+
+    public static class Counter {
+        public int pings, pongs;
+
+        @Subscribe
+        public void ping(IPing event) {
+            pings++;
+        }
+
+        @Subscribe
+        public void pong(IPong event) {
+            pongs++;
+        }
+    }
+
+    /** Runs the given action on the first ping, and then fires a pong from inside of that handler. */
+    public static class NestedAction {
+        private final IEventBus<IEvent> bus;
+        private final Runnable action;
+        private boolean done = false;
+
+        public NestedAction(IEventBus<IEvent> bus, Runnable action) {
+            this.bus = bus;
+            this.action = action;
+        }
+
+        @Subscribe
+        public void ping(IPing event) {
+            if (!done) {
+                done = true;
+                action.run();
+                bus.handleEvent(new Pong());
+            }
+        }
+    }
+
+    private static final EventBusProviderASM<IEvent> PROVIDER = new EventBusProviderASM<>(IEvent.class, Subscribe.class);
+
+    @Test
+    public void testUnregisterDuringDispatch() {
+        IEventBus<IEvent> bus = PROVIDER.newBus();
+        Counter counter = new Counter();
+        bus.registerHandler(new NestedAction(bus, () -> bus.unregisterHandler(counter)));
+        bus.registerHandler(counter);
+
+        bus.handleEvent(new Ping());
+        // The ping that was already being fired still reaches it, but the nested pong doesn't
+        assertEquals(1, counter.pings);
+        assertEquals(0, counter.pongs);
+
+        bus.handleEvent(new Ping());
+        bus.handleEvent(new Pong());
+        assertEquals(1, counter.pings);
+        assertEquals(0, counter.pongs);
+    }
+
+    @Test
+    public void testRegisterDuringDispatch() {
+        IEventBus<IEvent> bus = PROVIDER.newBus();
+        Counter counter = new Counter();
+        bus.registerHandler(new NestedAction(bus, () -> bus.registerHandler(counter)));
+
+        bus.handleEvent(new Ping());
+        // The ping started without it, but the nested pong is fired after it was registered
+        assertEquals(0, counter.pings);
+        assertEquals(1, counter.pongs);
+
+        bus.handleEvent(new Ping());
+        assertEquals(1, counter.pings);
+    }
+
+    @Test
+    public void testRegisterTwice() {
+        IEventBus<IEvent> bus = PROVIDER.newBus();
+        Counter counter = new Counter();
+        bus.registerHandler(counter);
+        bus.registerHandler(counter);
+        bus.handleEvent(new Ping());
+        assertEquals(1, counter.pings);
+
+        bus.unregisterHandler(counter);
+        bus.unregisterHandler(counter);
+        bus.handleEvent(new Ping());
+        assertEquals(1, counter.pings);
+    }
+}
@@ -0,0 +1,265 @@
+package buildcraft.test.core.lib.network;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.EnumFacing;
+
+import buildcraft.core.lib.network.SyncedFields;
+import buildcraft.core.lib.network.command.CommandIds;
+import buildcraft.core.lib.network.command.PacketCommand;
+import buildcraft.core.lib.network.command.PacketCommandIds;
+import buildcraft.core.lib.utils.NetworkUtils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/** Writes lots of random values with the compact encodings, and checks that they read back the same. */
+public class PacketEncodingTester {
+    private static final int ROUNDS = 10000;
+    private final Random rand = new Random(0x5eed);
+
+    private BlockPos randomPos() {
+        switch (rand.nextInt(3)) {
+            case 0:
+                return new BlockPos(rand.nextInt(2048) - 1024, rand.nextInt(256), rand.nextInt(2048) - 1024);
+            case 1:
+                return new BlockPos(rand.nextInt(60000000) - 30000000, rand.nextInt(256), rand.nextInt(60000000) - 30000000);
+            default:
+                return new BlockPos(rand.nextInt(60000000) - 30000000, rand.nextInt(4096) - 2048, rand.nextInt(60000000) - 30000000);
+        }
+    }
+
+    @Test
+    public void testSignedVarInt() {
+        ByteBuf buf = Unpooled.buffer();
+        List<Integer> values = new ArrayList<>();
+        values.add(0);
+        values.add(1);
+        values.add(-1);
+        values.add(Integer.MAX_VALUE);
+        values.add(Integer.MIN_VALUE);
+        for (int i = 0; i < ROUNDS; i++) {
+            values.add(rand.nextInt() >> rand.nextInt(32));
+        }
+        for (int value : values) {
+            NetworkUtils.writeSignedVarInt(buf, value);
+        }
+        for (int value : values) {
+            assertEquals(value, NetworkUtils.readSignedVarInt(buf));
+        }
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    public void testVarLong() {
+        ByteBuf buf = Unpooled.buffer();
+        List<Long> values = new ArrayList<>();
+        values.add(0L);
+        values.add(Long.MAX_VALUE);
+        values.add(Long.MIN_VALUE);
+        values.add(-1L);
+        for (int i = 0; i < ROUNDS; i++) {
+            values.add(rand.nextLong() >> rand.nextInt(64));
+        }
+        for (long value : values) {
+            NetworkUtils.writeVarLong(buf, value);
+        }
+        for (long value : values) {
+            assertEquals(value, NetworkUtils.readVarLong(buf));
+        }
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    public void testCompactBlockPos() {
+        ByteBuf buf = Unpooled.buffer();
+        List<BlockPos> positions = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            positions.add(randomPos());
+        }
+        for (BlockPos pos : positions) {
+            NetworkUtils.writeCompactBlockPos(buf, pos);
+        }
+        for (BlockPos pos : positions) {
+            assertEquals(pos, NetworkUtils.readCompactBlockPos(buf));
+        }
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    public void testCompactBlockPosSize() {
+        ByteBuf buf = Unpooled.buffer();
+        NetworkUtils.writeCompactBlockPos(buf, new BlockPos(-1000, 63, 1000));
+        assertTrue("Took " + buf.readableBytes() + " bytes", buf.readableBytes() <= 5);
+    }
+
+    @Test
+    public void testCommandIds() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            names.add("command" + rand.nextInt());
+        }
+        ByteBuf buf = Unpooled.buffer();
+        new PacketCommandIds(0, 1, names).writeData(buf);
+
+        CommandIds.Table table = new CommandIds.Table();
+        PacketCommandIds read = new PacketCommandIds();
+        read.setCommandIds(table);
+        read.readData(buf);
+
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals(names.get(i), table.getName(i + 1));
+            assertEquals(i + 1, table.getId(names.get(i)));
+        }
+        assertEquals(CommandIds.NO_ID, table.getId("notSent"));
+        assertNull(table.getName(names.size() + 1));
+    }
+
+    private static CommandIds.Table createTable(List<String> names) {
+        ByteBuf buf = Unpooled.buffer();
+        new PacketCommandIds(0, 1, names).writeData(buf);
+        CommandIds.Table table = new CommandIds.Table();
+        PacketCommandIds read = new PacketCommandIds();
+        read.setCommandIds(table);
+        read.readData(buf);
+        return table;
+    }
+
+    private static ByteBuf writeCommand(String command, CommandIds.Table table) {
+        PacketCommand packet = new PacketCommand();
+        packet.dimensionId = 0;
+        packet.command = command;
+        // The container target doesn't write anything of its own, so it needs no world
+        packet.handler = PacketCommand.targets.get(2);
+        packet.setCommandIds(table);
+        ByteBuf buf = Unpooled.buffer();
+        packet.writeData(buf);
+        return buf;
+    }
+
+    private static PacketCommand readCommand(ByteBuf buf, CommandIds.Table table) {
+        PacketCommand packet = new PacketCommand();
+        packet.setCommandIds(table);
+        packet.readData(buf);
+        assertEquals(0, buf.readableBytes());
+        assertSame(PacketCommand.targets.get(2), packet.handler);
+        return packet;
+    }
+
+    @Test
+    public void testPacketCommand() {
+        List<String> known = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            known.add("command" + i);
+        }
+        // The server has given out more ids than this client has been told about
+        List<String> serverNames = new ArrayList<>(known);
+        serverNames.add("missed");
+        CommandIds.Table server = createTable(serverNames);
+        CommandIds.Table client = createTable(known);
+
+        for (int i = 0; i < ROUNDS; i++) {
+            String command;
+            switch (rand.nextInt(3)) {
+                case 0:
+                    // No id yet, so it goes by its full name
+                    command = "unknown" + rand.nextInt();
+                    break;
+                case 1:
+                    command = known.get(rand.nextInt(known.size()));
+                    break;
+                default:
+                    command = "receiveImage";
+                    break;
+            }
+            assertEquals(command, readCommand(writeCommand(command, server), client).command);
+            // Tables are optional on both sides, and a missing one means full names
+            assertEquals(command, readCommand(writeCommand(command, null), client).command);
+        }
+
+        // Known ids are smaller than the name they stand for
+        int idSize = writeCommand("command42", server).readableBytes();
+        int nameSize = writeCommand("command42", null).readableBytes();
+        assertTrue(idSize + " >= " + nameSize, idSize < nameSize);
+
+        // An id the client hasn't been told about is read as no command, so it is skipped rather than misapplied
+        assertNull(readCommand(writeCommand("missed", server), client).command);
+        assertNull(readCommand(writeCommand("command0", server), null).command);
+    }
+
+    private static class Holder {
+        int number;
+        boolean flag;
+        double exact;
+        EnumFacing face;
+        String name;
+        BlockPos pos;
+
+        SyncedFields createFields() {
+            SyncedFields fields = new SyncedFields();
+            fields.addInt(() -> number, v -> number = v);
+            fields.addBoolean(() -> flag, v -> flag = v);
+            fields.addDouble(() -> exact, v -> exact = v);
+            fields.addEnum(EnumFacing.class, () -> face, v -> face = v);
+            fields.addString(() -> name, v -> name = v);
+            fields.addBlockPos(() -> pos, v -> pos = v);
+            return fields;
+        }
+    }
+
+    @Test
+    public void testSyncedFields() {
+        Holder server = new Holder();
+        Holder client = new Holder();
+        SyncedFields serverFields = server.createFields();
+        SyncedFields clientFields = client.createFields();
+
+        for (int i = 0; i < ROUNDS; i++) {
+            // Change a random few of the fields
+            int changes = rand.nextInt(4);
+            for (int j = 0; j < changes; j++) {
+                switch (rand.nextInt(6)) {
+                    case 0:
+                        server.number = rand.nextInt();
+                        break;
+                    case 1:
+                        server.flag = rand.nextBoolean();
+                        break;
+                    case 2:
+                        server.exact = rand.nextDouble();
+                        break;
+                    case 3:
+                        server.face = rand.nextInt(7) == 0 ? null : EnumFacing.values()[rand.nextInt(6)];
+                        break;
+                    case 4:
+                        server.name = "name" + rand.nextInt(10);
+                        break;
+                    default:
+                        server.pos = rand.nextInt(7) == 0 ? null : randomPos();
+                        break;
+                }
+            }
+
+            ByteBuf buf = Unpooled.buffer();
+            if (serverFields.writeChanged(buf)) {
+                clientFields.read(buf);
+                assertEquals(0, buf.readableBytes());
+            }
+            assertEquals(0, serverFields.getChanged());
+
+            assertEquals(server.number, client.number);
+            assertEquals(server.flag, client.flag);
+            assertEquals(server.exact, client.exact, 0);
+            assertEquals(server.face, client.face);
+            assertEquals(server.name == null ? "" : server.name, client.name == null ? "" : client.name);
+            assertEquals(server.pos, client.pos);
+        }
+    }
+}